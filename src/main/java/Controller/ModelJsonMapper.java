@@ -0,0 +1,226 @@
+package Controller;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import Model.Account;
+import Model.Message;
+import Util.ModelJson;
+import io.javalin.json.JsonMapper;
+
+/**
+ * The JsonMapper for the API, using the hand-written codecs in ModelJson for messages and accounts.
+ *
+ * A Message, an Account, or a collection of them is written by the codecs alone. Anything else
+ * (pages, batch results, trending hashtags) goes through an ObjectMapper with the codecs
+ * registered, so the messages inside are still written without reflection. Reading a Message,
+ * an Account or a Message[] uses the codecs directly; other types go through the ObjectMapper.
+ *
+ * As with Javalin's default mapper, a String is taken to be JSON already and written as it is.
+ *
+ * Responses are encoded straight to UTF-8 bytes, never to a String, and handed to Javalin as the
+ * result stream; Javalin copies them to the response once the handler and its unit of work have
+ * finished, so a failed commit can still turn the response into a 500.
+ */
+public class ModelJsonMapper implements JsonMapper {
+    private final JsonFactory jsonFactory;
+    private final ObjectMapper objectMapper;
+
+    public ModelJsonMapper() {
+        SimpleModule codecs = new SimpleModule("ModelJson");
+        codecs.addSerializer(Message.class, new StdSerializer<Message>(Message.class) {
+            @Override
+            public void serialize(Message value, JsonGenerator generator, SerializerProvider provider)
+                    throws IOException {
+                ModelJson.writeMessage(generator, value);
+            }
+        });
+        codecs.addSerializer(Account.class, new StdSerializer<Account>(Account.class) {
+            @Override
+            public void serialize(Account value, JsonGenerator generator, SerializerProvider provider)
+                    throws IOException {
+                ModelJson.writeAccount(generator, value);
+            }
+        });
+        codecs.addDeserializer(Message.class, new StdDeserializer<Message>(Message.class) {
+            @Override
+            public Message deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+                return ModelJson.readMessage(parser);
+            }
+        });
+        codecs.addDeserializer(Account.class, new StdDeserializer<Account>(Account.class) {
+            @Override
+            public Account deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+                return ModelJson.readAccount(parser);
+            }
+        });
+        this.objectMapper = new ObjectMapper().registerModule(codecs);
+        this.jsonFactory = objectMapper.getFactory().rebuild()
+                .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+                .build();
+    }
+
+    /**
+     * @param obj the value to write
+     * @return the value as UTF-8 JSON
+     * @throws UncheckedIOException if a value could not be serialized
+     */
+    public byte[] toJsonBytes(Object obj) {
+        if (obj instanceof String) {
+            return ((String) obj).getBytes(StandardCharsets.UTF_8);
+        }
+        return write(obj).toByteArray();
+    }
+
+    @Override
+    public InputStream toJsonStream(Object obj, Type type) {
+        if (obj instanceof String) {
+            return new ByteArrayInputStream(((String) obj).getBytes(StandardCharsets.UTF_8));
+        }
+        return write(obj).toInputStream();
+    }
+
+    @Override
+    public String toJsonString(Object obj, Type type) {
+        if (obj instanceof String) {
+            return (String) obj;
+        }
+        Buffer buffer = write(obj);
+        return new String(buffer.buf, 0, buffer.count, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param json the UTF-8 JSON to read, such as a request body
+     * @param targetType the type to read it as
+     * @return the value read
+     * @throws UncheckedIOException if the JSON is malformed or does not match the type
+     */
+    public <T> T fromJsonBytes(byte[] json, Type targetType) {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            return read(parser, targetType);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public <T> T fromJsonStream(InputStream json, Type targetType) {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            return read(parser, targetType);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public <T> T fromJsonString(String json, Type targetType) {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            return read(parser, targetType);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T read(JsonParser parser, Type targetType) throws IOException {
+        if (targetType != Message.class && targetType != Account.class && targetType != Message[].class) {
+            return objectMapper.readValue(parser, objectMapper.constructType(targetType));
+        }
+        if (parser.nextToken() == null) {
+            throw new IOException("No content to read");
+        }
+        if (targetType == Message.class) {
+            return (T) ModelJson.readMessage(parser);
+        }
+        if (targetType == Account.class) {
+            return (T) ModelJson.readAccount(parser);
+        }
+        return (T) ModelJson.readMessages(parser);
+    }
+
+    private Buffer write(Object obj) {
+        Buffer buffer = new Buffer(obj instanceof Collection ? 128 * ((Collection<?>) obj).size() + 16 : 256);
+        try (JsonGenerator generator = jsonFactory.createGenerator(buffer)) {
+            if (obj instanceof Collection) {
+                generator.writeStartArray();
+                for (Object element : (Collection<?>) obj) {
+                    writeValue(generator, element);
+                }
+                generator.writeEndArray();
+            } else {
+                writeValue(generator, obj);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer;
+    }
+
+    private void writeValue(JsonGenerator generator, Object value) throws IOException {
+        if (value instanceof Message) {
+            ModelJson.writeMessage(generator, (Message) value);
+        } else if (value instanceof Account) {
+            ModelJson.writeAccount(generator, (Account) value);
+        } else {
+            objectMapper.writeValue(generator, value);
+        }
+    }
+
+    /**
+     * A growable byte buffer whose contents can be read back without copying them. Unlike
+     * ByteArrayOutputStream its methods are not synchronized, since one thread writes it.
+     */
+    private static final class Buffer extends OutputStream {
+        private byte[] buf;
+        private int count;
+
+        private Buffer(int size) {
+            this.buf = new byte[size];
+        }
+
+        @Override
+        public void write(int b) {
+            ensureCapacity(count + 1);
+            buf[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            ensureCapacity(count + len);
+            System.arraycopy(b, off, buf, count, len);
+            count += len;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(capacity, buf.length * 2));
+            }
+        }
+
+        private byte[] toByteArray() {
+            return count == buf.length ? buf : Arrays.copyOf(buf, count);
+        }
+
+        private InputStream toInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package Controller;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import Util.LatencyHistogram;
+import Util.Metrics;
+import io.javalin.http.Context;
+import io.javalin.http.HandlerType;
+import io.javalin.http.RequestLogger;
+import org.eclipse.jetty.server.Response;
+
+/**
+ * Records the latency, status and response size of every request, per route, for GET /metrics.
+ *
+ * Installed as Javalin's request logger, which runs once the response has been produced, so
+ * requests completed asynchronously through ctx.future() are timed to the end as well. The route
+ * is the path template (for example /messages/{message_id}), which keeps the number of series
+ * bounded. Each route's instruments are looked up in a map keyed by the method and the template
+ * string Javalin already holds, so after a route's first request nothing is allocated here.
+ */
+public class RequestMetrics implements RequestLogger {
+    private static final String UNMATCHED = "unmatched";
+
+    private final Map<HandlerType, Map<String, Route>> routes = new EnumMap<>(HandlerType.class);
+
+    public RequestMetrics() {
+        for (HandlerType type : HandlerType.values()) {
+            routes.put(type, new ConcurrentHashMap<>());
+        }
+    }
+
+    @Override
+    public void handle(Context ctx, Float executionTimeMs) {
+        // without a matching endpoint Javalin reports the path of a before handler ("*") or a
+        // description of its 404 handler; every endpoint we register starts with "/"
+        String path = ctx.handlerType() == HandlerType.BEFORE ? UNMATCHED : ctx.endpointHandlerPath();
+        String template = path.startsWith("/") ? path : UNMATCHED;
+        Map<String, Route> methodRoutes = routes.get(ctx.method());
+        Route route = methodRoutes.get(template);
+        if (route == null) {
+            // the lambda captures ctx, so it is only created for a route's first request
+            route = methodRoutes.computeIfAbsent(template, key -> new Route(ctx.method(), key));
+        }
+        route.duration.record((long) (executionTimeMs * 1_000_000));
+        route.statuses.increment(ctx.statusCode());
+        if (ctx.res() instanceof Response) {
+            // counts what the handler wrote to the body, including what is still buffered
+            route.bytesOut.add(((Response) ctx.res()).getHttpOutput().getWritten());
+        }
+    }
+
+    /**
+     * The instruments for one method and path template.
+     */
+    private static final class Route {
+        private final LatencyHistogram duration;
+        private final Metrics.StatusCounts statuses;
+        private final LongAdder bytesOut;
+
+        private Route(HandlerType method, String template) {
+            String labels = Metrics.labels("method", method.name(), "route", template);
+            Metrics metrics = Metrics.global();
+            this.duration = metrics.timer("http_request_duration_seconds",
+                    "Time from receiving a request to producing its response", labels);
+            this.statuses = metrics.statusCounts("http_requests_total", "Requests handled, by status code", labels);
+            this.bytesOut = metrics.counter("http_response_bytes_total", "Response body bytes written", labels);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package Controller;
+
+import java.util.concurrent.TimeUnit;
+
+import Util.Logging;
+import Util.Trace;
+import io.javalin.http.Context;
+import io.javalin.http.RequestLogger;
+import org.slf4j.Logger;
+
+/**
+ * Gives every request an id and traces a sample of them, logging the span tree of traced
+ * requests that took longer than the slow-request threshold.
+ *
+ * before() runs ahead of the endpoint handler and binds the trace to the handling thread, where
+ * the services, DAOs and connections add their spans to it; after() unbinds it again once the
+ * handler has returned. The trace is finished when Javalin logs the request, which for a request
+ * completed asynchronously is after its future has completed.
+ */
+public class RequestTracing implements RequestLogger {
+    private static final Logger logger = Logging.getLogger(RequestTracing.class);
+    /**
+     * The response header carrying the request's id, to match a response with its slow-request log.
+     */
+    static final String REQUEST_ID_HEADER = "X-Request-Id";
+    private static final String TRACE_ATTRIBUTE = "trace";
+
+    private final int sampleEvery;
+    private final long slowRequestNanos;
+
+    /**
+     * @param sampleEvery trace one in this many requests; 1 traces all, 0 or less none
+     * @param slowRequestMillis log the span tree of traced requests taking at least this long
+     */
+    public RequestTracing(int sampleEvery, long slowRequestMillis) {
+        this.sampleEvery = sampleEvery;
+        this.slowRequestNanos = TimeUnit.MILLISECONDS.toNanos(slowRequestMillis);
+    }
+
+    /**
+     * Assigns the request its id and, if it is sampled, starts its trace on this thread.
+     *
+     * @param ctx the request's context
+     */
+    public void before(Context ctx) {
+        String requestId = Trace.newRequestId();
+        ctx.header(REQUEST_ID_HEADER, requestId);
+        if (Trace.sample(sampleEvery)) {
+            ctx.attribute(TRACE_ATTRIBUTE, Trace.begin(requestId, ctx.method() + " " + ctx.path()));
+        }
+    }
+
+    /**
+     * Unbinds the request's trace from this thread, so it does not leak into the thread's next request.
+     *
+     * @param ctx the request's context
+     */
+    public void after(Context ctx) {
+        Trace.detach();
+    }
+
+    @Override
+    public void handle(Context ctx, Float executionTimeMs) {
+        Trace trace = ctx.attribute(TRACE_ATTRIBUTE);
+        if (trace == null) {
+            return;
+        }
+        long durationNanos = (long) (executionTimeMs * 1_000_000);
+        trace.finish(durationNanos);
+        if (durationNanos >= slowRequestNanos) {
+            logger.warn("Slow request, status {}:\n{}", ctx.statusCode(), trace.format());
+        }
+    }
+}
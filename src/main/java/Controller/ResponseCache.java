@@ -0,0 +1,145 @@
+package Controller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+import Util.CacheStats;
+import Util.LruCache;
+import io.javalin.http.ContentType;
+import io.javalin.http.Context;
+import io.javalin.http.Header;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Caches encoded JSON response bodies, and a gzipped copy of the larger ones, so an unchanged list
+ * is sent again as one write of bytes already encoded, without a DAO call or any JSON work.
+ *
+ * Each body records the version of the data it was built from (see
+ * MessageService.getMessagesVersion()), and a lookup with any other version misses, so a change
+ * invalidates every body built from the data it touched without knowing their keys. Callers read
+ * the version before loading the data: a load that races a change stores its body under the old
+ * version, where no later lookup finds it.
+ */
+public class ResponseCache {
+    private final LruCache<String, Body> bodies;
+    private final int gzipMinBytes;
+
+    /**
+     * @param maxBytes the maximum total size of the bodies held, counting the gzipped copies
+     * @param gzipMinBytes the smallest body to keep a gzipped copy of; 0 or less keeps none
+     */
+    public ResponseCache(long maxBytes, int gzipMinBytes) {
+        this.bodies = new LruCache<>(maxBytes, 0, Body::size);
+        this.gzipMinBytes = gzipMinBytes;
+    }
+
+    /**
+     * @param key the endpoint and the parameters that select the response
+     * @param version the current version of the data behind the response
+     * @return the body cached for the key at that version, or null
+     */
+    public Body get(String key, long version) {
+        LruCache.Entry<Body> entry = bodies.getIfPresent(key);
+        Body body = entry == null ? null : entry.getValue();
+        return body != null && body.version == version ? body : null;
+    }
+
+    /**
+     * @param key the endpoint and the parameters that select the response
+     * @param version the version of the data read before the body was built
+     * @param json the encoded body
+     * @return the stored body
+     */
+    public Body put(String key, long version, byte[] json) {
+        Body body = new Body(version, json, gzipMinBytes > 0 && json.length >= gzipMinBytes ? gzip(json) : null);
+        bodies.put(key, body);
+        return body;
+    }
+
+    /**
+     * @return a snapshot of the cache's counters; a lookup that finds a body built at an older
+     *         version counts as a hit
+     */
+    public CacheStats getStats() {
+        return bodies.getStats();
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * A cached JSON body.
+     */
+    public static final class Body {
+        private final long version;
+        private final byte[] json;
+        /**
+         * The gzipped body, or null if the body is too small to be worth compressing.
+         */
+        private final byte[] gzip;
+
+        private Body(long version, byte[] json, byte[] gzip) {
+            this.version = version;
+            this.json = json;
+            this.gzip = gzip;
+        }
+
+        /**
+         * Sends the body, gzipped if the client accepts gzip and there is a gzipped copy.
+         *
+         * The bytes go straight to the servlet stream with their length set, in a single write.
+         * Through ctx.result() Javalin would copy them in chunks and compress them again.
+         *
+         * @param ctx the request to answer
+         */
+        public void writeTo(Context ctx) throws IOException {
+            boolean gzipped = gzip != null && acceptsGzip(ctx.header(Header.ACCEPT_ENCODING));
+            byte[] bytes = gzipped ? gzip : json;
+            HttpServletResponse res = ctx.res();
+            ctx.contentType(ContentType.APPLICATION_JSON);
+            if (gzip != null) {
+                res.setHeader(Header.VARY, Header.ACCEPT_ENCODING);
+            }
+            if (gzipped) {
+                res.setHeader(Header.CONTENT_ENCODING, "gzip");
+            }
+            res.setContentLength(bytes.length);
+            res.getOutputStream().write(bytes);
+        }
+
+        private int size() {
+            return json.length + (gzip == null ? 0 : gzip.length);
+        }
+
+        /**
+         * @param acceptEncoding the Accept-Encoding header, or null
+         * @return true if it lists gzip without giving it a weight of 0
+         */
+        static boolean acceptsGzip(String acceptEncoding) {
+            if (acceptEncoding == null) {
+                return false;
+            }
+            for (String coding : acceptEncoding.split(",")) {
+                String[] parts = coding.split(";");
+                if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                    for (int i = 1; i < parts.length; i++) {
+                        if (parts[i].replace(" ", "").matches("q=0(\\.0{0,3})?")) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -1,18 +1,52 @@
 package Controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+
+import DAO.DataAccessException;
 import Model.Account;
+import Model.BatchItemResult;
 import Model.Message;
 import Service.AccountService;
 import Service.AccountServiceImpl;
+import Service.FollowService;
+import Service.FollowServiceImpl;
 import Service.MessageService;
 import Service.MessageServiceImpl;
+import Service.TracedAccountService;
+import Service.TracedFollowService;
+import Service.TracedMessageService;
+import Util.ConfigUtil;
+import Util.DatabaseUtil;
+import Util.Logging;
+import Util.Metrics;
+import Util.ModelJson;
+import Util.RateLimiter;
+import Util.Trace;
+import Util.UnitOfWork;
 import io.javalin.Javalin;
+import io.javalin.http.ContentType;
 import io.javalin.http.Context;
+import io.javalin.http.Handler;
+import io.javalin.http.UnauthorizedResponse;
 import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 /**
  * Controller class to handle social media functionalities, including
@@ -23,56 +57,259 @@ import org.slf4j.LoggerFactory;
  * interacts with the underlying services for business logic execution.
  */
 public class SocialMediaController {
-    private static final Logger logger = LoggerFactory.getLogger(SocialMediaController.class);
+    private static final Logger logger = Logging.getLogger(SocialMediaController.class);
+    private static final Logger requestLogger = Logging.getSampledLogger(SocialMediaController.class, "requests");
+    /**
+     * The page size used when a client pages through messages without giving a limit.
+     */
+    private static final int DEFAULT_PAGE_SIZE = ConfigUtil.getInt("messages.page.defaultSize", 50);
+    /**
+     * The largest number of messages accepted by one POST /messages/batch request.
+     */
+    private static final int MAX_BATCH_SIZE = ConfigUtil.getInt("messages.batch.maxSize", 1000);
+    /**
+     * The response header that carries a new session token after a successful login.
+     */
+    private static final String SESSION_TOKEN_HEADER = "X-Session-Token";
+    private static final String BEARER_PREFIX = "Bearer ";
+    /**
+     * Factory for the streaming generators used by bulk exports.
+     */
+    private static final JsonFactory jsonFactory = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+    /**
+     * Reads request bodies and writes responses with the hand-written Message and Account codecs.
+     */
+    private static final ModelJsonMapper jsonMapper = new ModelJsonMapper();
     /**
      * The AccountService and MessageService instances will be injected into the controller.
      */
     private final AccountService accountService;
     private final MessageService messageService;
+    private final FollowService followService;
+    /**
+     * Limits how often each account may write messages, or null if rate limiting is disabled.
+     */
+    private final RateLimiter<Integer> writeLimiter;
+    /**
+     * Limits writes sent without a session per client address, so they never use up the permits
+     * of the account they name in posted_by; null if rate limiting is disabled.
+     */
+    private final RateLimiter<String> anonymousWriteLimiter;
+    /**
+     * True if message writes must carry a session token; false keeps the original behaviour of
+     * trusting posted_by when none is sent.
+     */
+    private final boolean sessionsRequired;
+    /**
+     * Holds the encoded bodies of the message list responses, or null if the cache is disabled.
+     */
+    private final ResponseCache responseCache;
 
     /**
-     * The constructor for the SocialMediaController.
+     * The constructor for the SocialMediaController. Message writes are limited per account by the
+     * rateLimit.writes.perSecond and rateLimit.writes.burst settings unless rateLimit.enabled is false.
+     * Message list responses are cached up to responseCache.maxBytes unless responseCache.enabled
+     * is false. Message writes need a session unless sessions.required is false, which is the
+     * default outside app.mode=production. Calls to the services are timed as spans in traced
+     * requests.
      */
     public SocialMediaController() {
-        this.accountService = new AccountServiceImpl();
-        this.messageService = new MessageServiceImpl();
+        this.accountService = new TracedAccountService(new AccountServiceImpl());
+        this.messageService = new TracedMessageService(new MessageServiceImpl(accountService));
+        this.followService = new TracedFollowService(new FollowServiceImpl(accountService, messageService));
+        this.writeLimiter = createWriteLimiter();
+        this.anonymousWriteLimiter = createWriteLimiter();
+        this.sessionsRequired = ConfigUtil.getBoolean("sessions.required",
+                "production".equalsIgnoreCase(ConfigUtil.getString("app.mode", "development")));
+        this.responseCache = ConfigUtil.getBoolean("responseCache.enabled", true)
+                ? new ResponseCache(ConfigUtil.getLong("responseCache.maxBytes", 16L << 20),
+                        ConfigUtil.getInt("responseCache.gzipMinBytes", 1500))
+                : null;
+        if (responseCache != null) {
+            Metrics.global().registerCache("responses", responseCache::getStats);
+        }
         logger.info("Social Media Controller started");
     }
 
+    /**
+     * @return a limiter with the rateLimit.writes settings, or null if rateLimit.enabled is false
+     */
+    private static <K> RateLimiter<K> createWriteLimiter() {
+        return ConfigUtil.getBoolean("rateLimit.enabled", true)
+                ? new RateLimiter<>(ConfigUtil.getDouble("rateLimit.writes.perSecond", 10),
+                        ConfigUtil.getInt("rateLimit.writes.burst", 50),
+                        ConfigUtil.getLong("rateLimit.sweepIntervalMs", 60000))
+                : null;
+    }
+
     /**
      * Configures and starts the Javalin API with all defined endpoints.
      *
      * The API provides endpoints for user registration, login, message management,
      * and retrieving messages by specific criteria. These endpoints include:
      * - POST /register: Handles user registration.
-     * - POST /login: Handles user login.
+     * - POST /login: Handles user login and starts a session.
+     * - POST /logout: Ends the session named by the request's bearer token.
      * - POST /messages: Creates a new message.
-     * - GET /messages: Retrieves all messages.
+     * - POST /messages/batch: Creates several messages in one request.
+     * - GET /messages: Retrieves all messages, or one page of them when limit or cursor is given,
+     *   or streams them all when stream=true, or the messages with the given ids when ids is given,
+     *   or the messages posted between since and until, newest first.
+     * - GET /messages/search: Finds the newest messages matching a text query.
      * - GET /messages/{message_id}: Retrieves a specific message by its ID.
      * - DELETE /messages/{message_id}: Deletes a specific message by its ID.
      * - PATCH /messages/{message_id}: Updates the text of a specific message.
-     * - GET /accounts/{account_id}/messages: Retrieves all messages associated with a user.
+     * - POST /messages/{message_id}/like: Likes a specific message.
+     * - GET /accounts/{account_id}/messages: Retrieves all messages associated with a user,
+     *   or one page of them when limit or cursor is given, or those posted between since and until.
+     * - POST /accounts/{account_id}/following/{followee_id}: Makes an account follow another.
+     * - DELETE /accounts/{account_id}/following/{followee_id}: Makes an account stop following another.
+     * - GET /accounts/{account_id}/feed: Retrieves the newest messages from the accounts a user follows.
+     * - GET /trending: Retrieves the most used hashtags in a recent time window.
+     * - GET /metrics: Reports request, DAO, pool and cache metrics for Prometheus.
      *
      * @return A Javalin instance configured with the defined endpoints.
      */
     public Javalin startAPI() {
-        Javalin app = Javalin.create();
+        RequestMetrics requestMetrics = new RequestMetrics();
+        RequestTracing requestTracing = new RequestTracing(ConfigUtil.getInt("tracing.sampleEvery", 100),
+                ConfigUtil.getLong("tracing.slowRequestMs", 500));
+        Javalin app = Javalin.create(config -> {
+            config.jsonMapper(jsonMapper);
+            config.requestLogger.http((ctx, executionTimeMs) -> {
+                requestMetrics.handle(ctx, executionTimeMs);
+                requestTracing.handle(ctx, executionTimeMs);
+            });
+        });
+        app.before(requestTracing::before);
+        app.after(requestTracing::after);
 
         logger.info("Configuring API endpoints");
 
-        app.post("/register", this::registerUser);
-        app.post("/login", this::login);
-        app.post("/messages", this::createMessage);
-        app.get("/messages", this::getAllMessages);
-        app.get("/messages/{message_id}", this::getMessageById);
-        app.delete("/messages/{message_id}", this::deleteMessage);
-        app.patch("/messages/{message_id}", this::updateMessage);
-        app.get("/accounts/{account_id}/messages", this::getMessagesByUser);
+        app.post("/register", inUnitOfWork(this::registerUser));
+        app.post("/login", inUnitOfWork(this::login));
+        app.post("/logout", this::logout);
+        app.post("/messages", inUnitOfWork(this::createMessage));
+        app.post("/messages/batch", inUnitOfWork(this::createMessages));
+        app.get("/messages", inUnitOfWork(this::getAllMessages));
+        // registered before /messages/{message_id} so "search" is not read as a message id
+        app.get("/messages/search", inUnitOfWork(this::searchMessages));
+        app.get("/messages/{message_id}", inUnitOfWork(this::getMessageById));
+        app.delete("/messages/{message_id}", inUnitOfWork(this::deleteMessage));
+        app.patch("/messages/{message_id}", inUnitOfWork(this::updateMessage));
+        app.post("/messages/{message_id}/like", inUnitOfWork(this::likeMessage));
+        app.get("/accounts/{account_id}/messages", inUnitOfWork(this::getMessagesByUser));
+        app.post("/accounts/{account_id}/following/{followee_id}", inUnitOfWork(this::follow));
+        app.delete("/accounts/{account_id}/following/{followee_id}", inUnitOfWork(this::unfollow));
+        app.get("/accounts/{account_id}/feed", inUnitOfWork(this::getFeed));
+        app.get("/trending", this::getTrendingHashtags);
+        app.get("/metrics", this::getMetrics);
+
+        // flush queued writes and pending likes before the process exits, then the feed fan-out
+        // those writes queue
+        app.events(event -> event.serverStopped(messageService::shutdown));
+        app.events(event -> event.serverStopped(followService::shutdown));
+        app.events(event -> event.serverStopped(accountService::shutdown));
+        if (writeLimiter != null) {
+            app.events(event -> event.serverStopped(writeLimiter::shutdown));
+            app.events(event -> event.serverStopped(anonymousWriteLimiter::shutdown));
+        }
 
         logger.info("API endpoints configured successfully");
         return app;
     }
 
+    /**
+     * Runs a handler inside a UnitOfWork so every DAO call it makes shares one connection and
+     * one transaction. The transaction commits if the handler completes with a status below 400
+     * and rolls back otherwise. A failed commit or database read is reported as 500, and a
+     * request that could not get a connection from the exhausted pool as 503.
+     *
+     * @param handler the route handler to wrap
+     * @return a handler that runs the given handler in its own unit of work
+     */
+    private Handler inUnitOfWork(Handler handler) {
+        return ctx -> {
+            UnitOfWork unitOfWork = UnitOfWork.begin();
+            try {
+                handler.handle(ctx);
+                if (ctx.statusCode() < 400) {
+                    unitOfWork.commit();
+                }
+            } catch (SQLException e) {
+                logger.error("Error committing request: {}", e.getMessage());
+                ctx.status(500).result("");
+            } catch (DataAccessException e) {
+                logger.error("Error reading from the database: {}", e.getMessage());
+                ctx.status(databaseErrorStatus(e)).result("");
+            } finally {
+                unitOfWork.end();
+            }
+        };
+    }
+
+    /**
+     * @param error a failed database access
+     * @return 503 if the pool had no connection free within its acquire timeout, so overload shows
+     *         up as something to retry, otherwise 500
+     */
+    private static int databaseErrorStatus(DataAccessException error) {
+        return error.getCause() instanceof SQLTimeoutException ? 503 : 500;
+    }
+
+    /**
+     * Reads the request body as JSON, timed as a span in traced requests. The body's bytes are
+     * parsed directly, without decoding them to a String first.
+     *
+     * @param ctx the request's context
+     * @param type the type to read the body as
+     * @return the body
+     * @throws UncheckedIOException if the body is not valid JSON for the type
+     */
+    @SuppressWarnings("try")
+    private static <T> T readBody(Context ctx, Class<T> type) {
+        try (Trace.Span span = Trace.span("json.bind")) {
+            return jsonMapper.fromJsonBytes(ctx.bodyAsBytes(), type);
+        }
+    }
+
+    /**
+     * Sets the response body to the given value as JSON, encoded straight to UTF-8 bytes.
+     *
+     * @param ctx the request's context
+     * @param body the value to respond with
+     */
+    private static void json(Context ctx, Object body) {
+        ctx.contentType(ContentType.APPLICATION_JSON).result(jsonMapper.toJsonStream(body, body.getClass()));
+    }
+
+    /**
+     * Responds with the body cached for the key if it was built at the given version; otherwise
+     * loads the value, caches its encoding and responds with it as json() would.
+     *
+     * @param ctx the request's context
+     * @param key the endpoint and the parameters that select the response
+     * @param version the current version of the data, read before anything is loaded
+     * @param load loads the value to respond with; a DataAccessException it throws is passed on
+     *             before anything is cached, so a failed read is never served as an empty list
+     */
+    private void cachedJson(Context ctx, String key, long version, Supplier<Object> load) throws IOException {
+        if (responseCache == null) {
+            json(ctx, load.get());
+            return;
+        }
+        ResponseCache.Body cached = responseCache.get(key, version);
+        if (cached != null) {
+            cached.writeTo(ctx);
+            return;
+        }
+        byte[] body = jsonMapper.toJsonBytes(load.get());
+        responseCache.put(key, version, body);
+        ctx.contentType(ContentType.APPLICATION_JSON).result(body);
+    }
+
     /**
      * Handles user registration requests.
      *
@@ -84,20 +321,24 @@ public class SocialMediaController {
      * Response Codes:
      * - 200 OK: Registration successful, returns the created Account with account_id
      * - 400 Bad Request: Registration failed (username blank, password too short, or username already exists)
+     * - 500 Internal Server Error: The existing accounts could not be read from the database
      */
     private void registerUser(Context ctx) {
-        logger.info("Received request: POST /register");
+        requestLogger.info("Received request: POST /register");
         try {
-            Account account = ctx.bodyAsClass(Account.class);
+            Account account = readBody(ctx, Account.class);
 
             Account registeredAccount = accountService.registerUser(account);
 
             if (registeredAccount != null) {
                 logger.info("Registration successful for user ID: {}", registeredAccount.getAccount_id());
-                ctx.json(registeredAccount);
+                json(ctx, registeredAccount);
             } else {
                 ctx.status(400);
             }
+        } catch (DataAccessException e) {
+            // not a taken username; inUnitOfWork answers 500
+            throw e;
         } catch (Exception e) {
             logger.error("Error during registration: {}", e.getMessage());
             ctx.status(400).result("Error registering user: " + e.getMessage());
@@ -113,72 +354,484 @@ public class SocialMediaController {
      * @param ctx The Javalin context for this request
      *
      * Response Codes:
-     * - 200 OK: Login successful, returns the Account with account_id
+     * - 200 OK: Login successful, returns the Account with account_id, and a session token in the
+     *           X-Session-Token header to send back as "Authorization: Bearer {token}"
      * - 401 Unauthorized: Login failed (username or password incorrect)
+     * - 500 Internal Server Error: The account could not be read from the database
      */
     private void login(Context ctx) {
-        logger.info("Received request: POST /login");
+        requestLogger.info("Received request: POST /login");
         try {
-            Account account = ctx.bodyAsClass(Account.class);
+            Account account = readBody(ctx, Account.class);
             Account loggedInAccount = accountService.login(account);
             if (loggedInAccount != null) {
                 logger.info("Login successful for user ID: {}", loggedInAccount.getAccount_id());
-                ctx.json(loggedInAccount);
+                ctx.header(SESSION_TOKEN_HEADER, accountService.createSession(loggedInAccount.getAccount_id()));
+                json(ctx, loggedInAccount);
             } else {
                 logger.warn("Login failed");
                 ctx.status(401);
             }
+        } catch (DataAccessException e) {
+            // not a wrong password; inUnitOfWork answers 500
+            throw e;
         } catch (Exception e) {
             logger.error("Error during login: {}", e.getMessage());
             ctx.status(401).result("Error logging in: " + e.getMessage());
         }
     }
 
+    /**
+     * Ends the caller's session.
+     *
+     * Endpoint: POST /logout
+     * Header: Authorization: Bearer {token}
+     *
+     * @param ctx The Javalin context for this request
+     *
+     * Response Codes:
+     * - 200 OK: The session has ended and its token is no longer accepted
+     * - 401 Unauthorized: No token was sent, or it is unknown or has expired
+     */
+    private void logout(Context ctx) {
+        requestLogger.info("Received request: POST /logout");
+        String token = bearerToken(ctx);
+        if (token == null || !accountService.endSession(token)) {
+            ctx.status(401);
+        }
+    }
+
     /**
      * Handles message creation requests.
      *
      * Endpoint: POST /messages
-     * Request Body: JSON representation of a Message (without message_id)
+     * Request Body: JSON representation of a Message (without message_id). With a session token
+     *               posted_by may be left out; the session's account is the author either way.
+     *
+     * With messages.writeMode=async the message is queued for the background writer and the
+     * response is sent once the batch holding it has committed; the request thread is released
+     * while it waits.
      *
      * @param ctx The Javalin context for this request
      *
      * Response Codes:
      * - 200 OK: Message created successfully, returns the created Message with message_id
      * - 400 Bad Request: Message creation failed (message_text blank or too long, or posted_by user doesn't exist)
+     * - 401 Unauthorized: No session token was sent and one is required, or it is unknown or has expired
+     * - 429 Too Many Requests: The account is over its write rate; Retry-After gives the seconds to wait
+     * - 500 Internal Server Error: The author's account could not be read, or the message written
+     * - 503 Service Unavailable: The write queue is full, or no database connection was free
      */
     private void createMessage(Context ctx) {
-        logger.info("Received request: POST /messages");
+        requestLogger.info("Received request: POST /messages");
+        Integer sessionAccountId = sessionAccountId(ctx);
+        Message message;
         try {
-            Message message = ctx.bodyAsClass(Message.class);
-            Message validMessage = messageService.createMessage(message);
-            if (validMessage != null) {
+            message = readBody(ctx, Message.class);
+        } catch (Exception e) {
+            logger.error("Error during message creation: {}", e.getMessage());
+            ctx.status(400).result("Error creating message: " + e.getMessage());
+            return;
+        }
+        if (!allowWrite(ctx, sessionAccountId, 1)) {
+            return;
+        }
+
+        CompletableFuture<Message> created = sessionAccountId != null
+                ? messageService.createMessageAsync(message, sessionAccountId)
+                : messageService.createMessageAsync(message);
+        ctx.future(() -> created.handle((validMessage, error) -> {
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            if (cause instanceof DataAccessException) {
+                logger.error("Error during message creation: {}", cause.getMessage());
+                ctx.status(databaseErrorStatus((DataAccessException) cause));
+            } else if (error != null) {
+                logger.error("Error during message creation: {}", error.getMessage());
+                ctx.status(cause instanceof RejectedExecutionException ? 503 : 400);
+            } else if (validMessage != null) {
                 logger.info("Message created successfully for user ID: {}", validMessage.getPosted_by());
-                ctx.json(validMessage);
+                json(ctx, validMessage);
             } else {
                 logger.warn("Message creation failed");
                 ctx.status(400);
             }
+            return null;
+        }));
+    }
+
+    /**
+     * Handles batched message creation requests. Each message is validated on its own and the
+     * valid ones are inserted together, so a client importing many messages pays for one round
+     * trip and one transaction instead of one per message.
+     *
+     * Endpoint: POST /messages/batch
+     * Request Body: JSON array of Messages (without message_id)
+     *
+     * @param ctx The Javalin context for this request
+     *
+     * Response Codes:
+     * - 200 OK: Returns a JSON array with one result per input message, in request order. Each result
+     *           has the item's "index" and either the created "message" or an "error"
+     * - 400 Bad Request: The body is not a JSON array of messages, or holds more than the allowed
+     *                     number, or more than rateLimit.writes.burst while writes are rate limited
+     * - 401 Unauthorized: No session token was sent and one is required, or it is unknown or has
+     *                     expired; with a valid one, every message is posted by the session's account
+     * - 429 Too Many Requests: The caller has fewer write permits left than the batch holds
+     *                          messages; nothing is created
+     */
+    private void createMessages(Context ctx) {
+        requestLogger.info("Received request: POST /messages/batch");
+        Integer sessionAccountId = sessionAccountId(ctx);
+        List<Message> messages;
+        try {
+            messages = Arrays.asList(readBody(ctx, Message[].class));
         } catch (Exception e) {
-            logger.error("Error during message creation: {}", e.getMessage());
-            ctx.status(400).result("Error creating message: " + e.getMessage());
+            logger.error("Error reading message batch: {}", e.getMessage());
+            ctx.status(400).result("Error creating messages: " + e.getMessage());
+            return;
+        }
+        if (messages.size() > MAX_BATCH_SIZE) {
+            logger.warn("Message batch of {} exceeds the limit of {}", messages.size(), MAX_BATCH_SIZE);
+            ctx.status(400).result("A batch may hold at most " + MAX_BATCH_SIZE + " messages");
+            return;
         }
+        // every message in the batch is a write by the caller, taken in one go or not at all
+        int writes = 0;
+        for (Message message : messages) {
+            if (message != null) {
+                writes++;
+            }
+        }
+        if (writeLimiter != null && writes > writeLimiter.getBurst()) {
+            logger.warn("Message batch of {} exceeds the write burst of {}", writes, writeLimiter.getBurst());
+            ctx.status(400).result("A batch may hold at most " + writeLimiter.getBurst() + " messages");
+            return;
+        }
+        if (!allowWrite(ctx, sessionAccountId, writes)) {
+            return;
+        }
+
+        List<BatchItemResult> results = sessionAccountId != null
+                ? messageService.createMessages(messages, sessionAccountId)
+                : messageService.createMessages(messages);
+        json(ctx, results);
     }
 
     /**
      * Retrieves all messages in the system.
      *
      * Endpoint: GET /messages
+     * Query Parameters (optional): limit - page size; cursor - the "next" value of the previous page;
+     *                              stream=true - write every message straight from the database cursor;
+     *                              ids - comma-separated message IDs to fetch in one request;
+     *                              since, until - time_posted_epoch range [since, until), either may be
+     *                              left out; returned newest first, and streamed when stream=true
+     *
+     * The full list and its pages are answered from the response cache until a message changes.
      *
      * @param ctx The Javalin context for this request
      *
      * Response:
-     * - 200 OK: Returns a JSON array of all messages (empty array if no messages exist)
+     * - 200 OK: Returns a JSON array of all messages (empty array if no messages exist), or, when
+     *           limit or cursor is given, a JSON object with a "messages" page and a "next" cursor, or,
+     *           when ids is given, a JSON array with one entry per id in the same order, null where
+     *           no message has that id
+     * - 400 Bad Request: limit, an id, since or until is not a number, cursor is not valid, too many ids
+     *           were given, or since is after until
+     * - 500 Internal Server Error: The messages could not be read from the database
+     */
+    private void getAllMessages(Context ctx) throws IOException {
+        requestLogger.info("Received request: GET /messages");
+        if (ctx.queryParam("ids") != null) {
+            getMessagesByIds(ctx);
+            return;
+        }
+        if (isTimeRangeRequest(ctx)) {
+            try {
+                long since = timeParam(ctx, "since", Long.MIN_VALUE);
+                long until = timeParam(ctx, "until", Long.MAX_VALUE);
+                sendMessages(ctx, consumer -> messageService.streamMessagesByTimeRange(since, until, consumer));
+            } catch (IllegalArgumentException e) {
+                logger.warn("Invalid time range request: {}", e.getMessage());
+                ctx.status(400).result(e.getMessage());
+            }
+            return;
+        }
+        if (Boolean.parseBoolean(ctx.queryParam("stream"))) {
+            streamMessages(ctx, messageService::streamAllMessages);
+            return;
+        }
+        if (isPageRequest(ctx)) {
+            try {
+                String cursor = ctx.queryParam("cursor");
+                int limit = pageLimit(ctx);
+                cachedJson(ctx, "/messages?cursor=" + cursor + "&limit=" + limit, messageService.getMessagesVersion(),
+                        () -> messageService.getMessagePage(cursor, limit));
+            } catch (IllegalArgumentException e) {
+                logger.warn("Invalid page request: {}", e.getMessage());
+                ctx.status(400).result(e.getMessage());
+            }
+            return;
+        }
+        cachedJson(ctx, "/messages", messageService.getMessagesVersion(), messageService::getAllMessages);
+
+    }
+
+    /**
+     * Retrieves the messages listed in the ids query parameter, so a client rendering a feed
+     * needs one request instead of one per message.
+     *
+     * @param ctx The Javalin context for this request
+     */
+    private void getMessagesByIds(Context ctx) {
+        try {
+            List<Integer> msgIds = new ArrayList<>();
+            for (String id : ctx.queryParam("ids").split(",")) {
+                if (!id.isBlank()) {
+                    msgIds.add(Integer.parseInt(id.trim()));
+                }
+            }
+            json(ctx, messageService.getMessagesByIds(msgIds));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid multi-get request: {}", e.getMessage());
+            ctx.status(400).result(e.getMessage());
+        }
+    }
+
+    /**
+     * Sends the messages a query passes to its consumer: streamed when stream=true, otherwise
+     * collected and sent as one JSON array.
+     *
+     * @param ctx The Javalin context for this request
+     * @param query runs the query, passing each message to the consumer, and returns the count or -1
+     */
+    private void sendMessages(Context ctx, ToLongFunction<Consumer<Message>> query) {
+        if (Boolean.parseBoolean(ctx.queryParam("stream"))) {
+            streamMessages(ctx, query);
+            return;
+        }
+        List<Message> messages = new ArrayList<>();
+        query.applyAsLong(messages::add);
+        json(ctx, messages);
+    }
+
+    /**
+     * Writes every message a query produces to the response as a JSON array while the rows are
+     * read from the database, so memory use stays flat and the first bytes go out before the last
+     * row is read.
+     *
+     * Once streaming has started the status can no longer change; if the database fails part way,
+     * the array is left unterminated so the client sees a malformed body rather than a silently
+     * truncated list.
+     *
+     * @param ctx The Javalin context for this request
+     * @param query runs the query, passing each message to the consumer, and returns the count or -1
+     */
+    private void streamMessages(Context ctx, ToLongFunction<Consumer<Message>> query) {
+        ctx.contentType("application/json");
+        JsonGenerator generator = null;
+        try {
+            generator = jsonFactory.createGenerator(ctx.outputStream());
+            generator.writeStartArray();
+            JsonGenerator out = generator;
+            long count = query.applyAsLong(message -> writeMessage(out, message));
+            if (count >= 0) {
+                generator.writeEndArray();
+            }
+            generator.flush();
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Error streaming messages: {}", e.getMessage());
+        } finally {
+            DatabaseUtil.closeResource(generator);
+        }
+    }
+
+    /**
+     * Writes one message with ModelJson, for use from a Consumer.
+     *
+     * @param generator the generator to write to
+     * @param message the message to write
+     * @throws UncheckedIOException if the client has gone away
+     */
+    private static void writeMessage(JsonGenerator generator, Message message) {
+        try {
+            ModelJson.writeMessage(generator, message);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param ctx The Javalin context for this request
+     * @return the token from an "Authorization: Bearer {token}" header, or null if there is none
+     */
+    private static String bearerToken(Context ctx) {
+        String authorization = ctx.header("Authorization");
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            return null;
+        }
+        String token = authorization.substring(BEARER_PREFIX.length()).trim();
+        return token.isEmpty() ? null : token;
+    }
+
+    /**
+     * Identifies the caller of a write, or of a read of an account's own data, from its session
+     * token. Unless sessions.required is set, requests without one keep the original behaviour of
+     * trusting posted_by or the account id in the path, so existing clients still work.
+     *
+     * @param ctx The Javalin context for this request
+     * @return the session's account id, or null if the request sent no token and none is required
+     * @throws UnauthorizedResponse if the token is missing but required, or is unknown or has
+     *         expired, which Javalin answers with 401
+     */
+    private Integer sessionAccountId(Context ctx) {
+        String token = bearerToken(ctx);
+        if (token == null) {
+            if (sessionsRequired) {
+                logger.warn("Rejected request without a session token");
+                throw new UnauthorizedResponse("Log in and send the session token");
+            }
+            return null;
+        }
+        Integer accountId = accountService.getSessionAccountId(token);
+        if (accountId == null) {
+            logger.warn("Rejected unknown or expired session token");
+            throw new UnauthorizedResponse("Session is not valid; log in again");
+        }
+        return accountId;
+    }
+
+    /**
+     * Answers 403 Forbidden if a message exists and the session's account did not post it. A
+     * missing message is left to the handler, so it gets the endpoint's usual response.
+     *
+     * @param ctx The Javalin context for this request
+     * @param message the message about to be changed, or null if it does not exist
+     * @param sessionAccountId the session's account
+     * @return true if the change may go ahead, false if the response has been set to 403
+     */
+    private boolean isAuthor(Context ctx, Message message, int sessionAccountId) {
+        if (message == null || message.getPosted_by() == sessionAccountId) {
+            return true;
+        }
+        logger.warn("Account ID: {} may not change message ID: {}", sessionAccountId, message.getMessage_id());
+        ctx.status(403).result("Only the author may change this message");
+        return false;
+    }
+
+    /**
+     * Answers 403 Forbidden if the request has a session for a different account than the one in
+     * its path, so a client can only follow, unfollow and read the feed as itself.
+     *
+     * @param ctx The Javalin context for this request
+     * @param accountId the account the request acts for
+     * @param sessionAccountId the session's account, or null if the request has no session
+     * @return true if the request may go ahead, false if the response has been set to 403
+     */
+    private boolean isSessionAccount(Context ctx, int accountId, Integer sessionAccountId) {
+        if (sessionAccountId == null || sessionAccountId == accountId) {
+            return true;
+        }
+        logger.warn("Account ID: {} may not act for account ID: {}", sessionAccountId, accountId);
+        ctx.status(403).result("A session may only act for its own account");
+        return false;
+    }
+
+    /**
+     * Takes write permits for the caller from the rate limiter, and answers 429 Too Many Requests
+     * with a Retry-After header (in whole seconds) if it has too few left. The caller is the
+     * session's account, or for a request without a session its client address, never the
+     * posted_by it claims.
+     *
+     * @param ctx The Javalin context for this request
+     * @param sessionAccountId the session's account, or null if the request has no session
+     * @param permits the number of writes to charge
+     * @return true if the write may go ahead, false if the response has been set to 429
+     */
+    private boolean allowWrite(Context ctx, Integer sessionAccountId, int permits) {
+        if (writeLimiter == null || permits == 0) {
+            return true;
+        }
+        long waitNanos = sessionAccountId != null
+                ? writeLimiter.tryAcquire(sessionAccountId, permits)
+                : anonymousWriteLimiter.tryAcquire(ctx.ip(), permits);
+        if (waitNanos == 0) {
+            return true;
+        }
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        if (sessionAccountId != null) {
+            logger.warn("Rate limit exceeded for account ID: {}", sessionAccountId);
+        } else {
+            logger.warn("Rate limit exceeded for client: {}", ctx.ip());
+        }
+        ctx.status(429).header("Retry-After", String.valueOf(retryAfterSeconds)).result("Too many writes; retry later");
+        return false;
+    }
+
+    /**
+     * @param ctx The Javalin context for this request
+     * @return true if the client asked for a page rather than the full listing
+     */
+    private boolean isPageRequest(Context ctx) {
+        return ctx.queryParam("limit") != null || ctx.queryParam("cursor") != null;
+    }
+
+    /**
+     * @param ctx The Javalin context for this request
+     * @return true if the client asked for the messages posted in a time range
+     */
+    private boolean isTimeRangeRequest(Context ctx) {
+        return ctx.queryParam("since") != null || ctx.queryParam("until") != null;
+    }
+
+    /**
+     * @param ctx The Javalin context for this request
+     * @param name the query parameter holding a time_posted_epoch
+     * @param defaultValue the value to use when the parameter is absent
+     * @return the parameter's value, or defaultValue
+     * @throws NumberFormatException if the value is not a number
+     */
+    private long timeParam(Context ctx, String name, long defaultValue) {
+        String value = ctx.queryParam(name);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+
+    /**
+     * @param ctx The Javalin context for this request
+     * @return the requested page size, or the default page size if none was given
+     * @throws NumberFormatException if the limit is not a number
      */
-    private void getAllMessages(Context ctx) {
-        logger.info("Received request: GET /messages");
-        List<Message> messages = messageService.getAllMessages();
-        ctx.json(messages);
+    private int pageLimit(Context ctx) {
+        String limit = ctx.queryParam("limit");
+        return limit == null ? DEFAULT_PAGE_SIZE : Integer.parseInt(limit);
+    }
 
+    /**
+     * Searches message text using the in-memory index.
+     *
+     * Endpoint: GET /messages/search
+     * Query Parameters: q - the query; terms separated by spaces must all match, and OR separates
+     *                   alternatives, for example "coffee morning OR tea";
+     *                   limit (optional) - the most messages to return
+     *
+     * @param ctx The Javalin context for this request
+     *
+     * Response:
+     * - 200 OK: Returns a JSON array of the matching messages, newest first
+     * - 400 Bad Request: q is missing or has no terms, or limit is not a number
+     * - 503 Service Unavailable: search is disabled
+     */
+    private void searchMessages(Context ctx) {
+        requestLogger.info("Received request: GET /messages/search");
+        try {
+            json(ctx, messageService.searchMessages(ctx.queryParam("q"), pageLimit(ctx)));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid search request: {}", e.getMessage());
+            ctx.status(400).result(e.getMessage());
+        } catch (IllegalStateException e) {
+            logger.error("Search unavailable: {}", e.getMessage());
+            ctx.status(503).result(e.getMessage());
+        }
     }
 
     /**
@@ -191,17 +844,21 @@ public class SocialMediaController {
      *
      * Response:
      * - 200 OK: Returns the requested message as JSON, or an empty response if the message doesn't exist
+     * - 500 Internal Server Error: The message could not be read from the database
      */
     private void getMessageById(Context ctx) {
         try {
             int messageId = Integer.parseInt(ctx.pathParam("message_id"));
-            logger.info("Received request: GET /messages/{}", messageId);
+            requestLogger.info("Received request: GET /messages/{}", messageId);
             Message message = messageService.getMessageById(messageId);
 
-            ctx.json(Objects.requireNonNullElse(message, ""));
+            json(ctx, Objects.requireNonNullElse(message, ""));
+        } catch (DataAccessException e) {
+            // not a missing message; inUnitOfWork answers 500
+            throw e;
         } catch (Exception e) {
             logger.error("Error retrieving message: {}", e.getMessage());
-            ctx.json("");
+            json(ctx, "");
         }
 
     }
@@ -216,16 +873,26 @@ public class SocialMediaController {
      *
      * Response:
      * - 200 OK: Returns the deleted message as JSON if it existed, or an empty response if it didn't exist
+     * - 401 Unauthorized: No session token was sent and one is required, or it is unknown or has expired
+     * - 403 Forbidden: The session's account did not post the message
+     * - 500 Internal Server Error: The message could not be read from the database
      */
     private void deleteMessage(Context ctx) {
+        Integer sessionAccountId = sessionAccountId(ctx);
         try {
             int messageId = Integer.parseInt(ctx.pathParam("message_id"));
-            logger.info("Received request: DELETE /messages/{}", messageId);
+            requestLogger.info("Received request: DELETE /messages/{}", messageId);
+            if (sessionAccountId != null && !isAuthor(ctx, messageService.getMessageById(messageId), sessionAccountId)) {
+                return;
+            }
             Message deletedMessage = messageService.deleteMessage(messageId);
-            ctx.json(Objects.requireNonNullElse(deletedMessage, ""));
+            json(ctx, Objects.requireNonNullElse(deletedMessage, ""));
+        } catch (DataAccessException e) {
+            // not a missing message; inUnitOfWork answers 500
+            throw e;
         } catch (Exception e) {
             logger.error("Error deleting message: {}", e.getMessage());
-            ctx.json("");
+            json(ctx, "");
         }
 
     }
@@ -242,19 +909,33 @@ public class SocialMediaController {
      * Response Codes:
      * - 200 OK: Message updated successfully, returns the complete updated Message
      * - 400 Bad Request: Update failed (message doesn't exist, new text is blank or too long)
+     * - 401 Unauthorized: No session token was sent and one is required, or it is unknown or has expired
+     * - 403 Forbidden: The session's account did not post the message
+     * - 429 Too Many Requests: The caller is over its write rate; Retry-After gives the seconds to wait
+     * - 500 Internal Server Error: The message could not be read from the database
      */
     private void updateMessage(Context ctx) {
+        Integer sessionAccountId = sessionAccountId(ctx);
         try {
             int msgId = Integer.parseInt(ctx.pathParam("message_id"));
-            logger.info("Received request: PATCH /messages/{}", msgId);
+            requestLogger.info("Received request: PATCH /messages/{}", msgId);
 
-            Message messageUpdate = ctx.bodyAsClass(Message.class);
+            Message messageUpdate = readBody(ctx, Message.class);
+
+            // charge the write before reading the message, so a throttled client costs no query
+            if (!allowWrite(ctx, sessionAccountId, 1)) {
+                return;
+            }
+            // only a session has an author to check; a missing message is left to the service to reject
+            if (sessionAccountId != null && !isAuthor(ctx, messageService.getMessageById(msgId), sessionAccountId)) {
+                return;
+            }
 
             Message updatedMessage = messageService.updateMessageText(msgId, messageUpdate.getMessage_text());
 
             if (updatedMessage != null) {
                 logger.info("Message updated successfully for user ID: {}", updatedMessage.getPosted_by());
-                ctx.json(updatedMessage);
+                json(ctx, updatedMessage);
             } else {
                 logger.warn("Message update failed for ID: {}", msgId);
                 ctx.status(400);
@@ -262,6 +943,9 @@ public class SocialMediaController {
         } catch (NumberFormatException e) {
             logger.error("Invalid message ID format: {}", ctx.pathParam("message_id"));
             ctx.status(400).result("Invalid message ID format: " + e.getMessage());
+        } catch (DataAccessException e) {
+            // not a missing message; inUnitOfWork answers 500
+            throw e;
         } catch (Exception e) {
             logger.error("Error updating message: {}", e.getMessage());
             ctx.status(400).result("Error updating message: " + e.getMessage());
@@ -269,31 +953,261 @@ public class SocialMediaController {
 
     }
 
+    /**
+     * Likes a message. Likes are counted in memory and written to the database in batches.
+     *
+     * Endpoint: POST /messages/{message_id}/like
+     * Path Parameter: message_id - The ID of the message to like
+     *
+     * @param ctx The Javalin context for this request
+     *
+     * Response Codes:
+     * - 200 OK: Returns the liked message, with like_count including this like
+     * - 400 Bad Request: The message doesn't exist or the ID is not a number
+     * - 500 Internal Server Error: The message could not be read from the database
+     */
+    private void likeMessage(Context ctx) {
+        try {
+            int msgId = Integer.parseInt(ctx.pathParam("message_id"));
+            requestLogger.info("Received request: POST /messages/{}/like", msgId);
+
+            Message likedMessage = messageService.likeMessage(msgId);
+
+            if (likedMessage != null) {
+                json(ctx, likedMessage);
+            } else {
+                logger.warn("Like failed for message ID: {}", msgId);
+                ctx.status(400);
+            }
+        } catch (NumberFormatException e) {
+            logger.error("Invalid message ID format: {}", ctx.pathParam("message_id"));
+            ctx.status(400).result("Invalid message ID format: " + e.getMessage());
+        }
+    }
+
     /**
      * Retrieves all messages posted by a specific user.
      *
      * Endpoint: GET /accounts/{account_id}/messages
      * Path Parameter: account_id - The ID of the account whose messages to retrieve
+     * Query Parameters (optional): limit - page size; cursor - the "next" value of the previous page;
+     *                              since, until - time_posted_epoch range [since, until), returned
+     *                              newest first, and streamed when stream=true
+     *
+     * The full list and its pages are answered from the response cache until one of the user's
+     * messages changes.
      *
      * @param ctx The Javalin context for this request
      *
      * Response:
      * - 200 OK: Returns a JSON array of all messages posted by the specified user
-     *           (empty array if the user has no messages or doesn't exist)
+     *           (empty array if the user has no messages or doesn't exist), or, when limit or
+     *           cursor is given, a JSON object with a "messages" page and a "next" cursor
+     * - 400 Bad Request: limit, since or until is not a number, cursor is not valid, or since is after until
+     * - 500 Internal Server Error: The user's messages could not be read from the database
      */
     private void getMessagesByUser(Context ctx) {
         try {
             int accountId = Integer.parseInt(ctx.pathParam("account_id"));
-            logger.info("Received request: GET /accounts/{}/messages", accountId);
+            requestLogger.info("Received request: GET /accounts/{}/messages", accountId);
 
-            List<Message> messages = messageService.getAllMessagesByAccountId(accountId);
+            if (isTimeRangeRequest(ctx)) {
+                long since = timeParam(ctx, "since", Long.MIN_VALUE);
+                long until = timeParam(ctx, "until", Long.MAX_VALUE);
+                sendMessages(ctx, consumer ->
+                        messageService.streamMessagesByAccountIdAndTimeRange(accountId, since, until, consumer));
+                return;
+            }
 
-            ctx.json(messages);
+            if (isPageRequest(ctx)) {
+                String cursor = ctx.queryParam("cursor");
+                int limit = pageLimit(ctx);
+                cachedJson(ctx, "/accounts/" + accountId + "/messages?cursor=" + cursor + "&limit=" + limit,
+                        messageService.getMessagesVersion(accountId),
+                        () -> messageService.getMessagePageByAccountId(accountId, cursor, limit));
+                return;
+            }
+
+            cachedJson(ctx, "/accounts/" + accountId + "/messages", messageService.getMessagesVersion(accountId),
+                    () -> messageService.getAllMessagesByAccountId(accountId));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid listing request: {}", e.getMessage());
+            ctx.status(400).result(e.getMessage());
+        } catch (DataAccessException e) {
+            // not an account without messages; inUnitOfWork answers 500
+            throw e;
         } catch (Exception e) {
             logger.error("Error retrieving messages by user: {}", e.getMessage());
-            ctx.json(List.<Message>of());
+            json(ctx, List.<Message>of());
+        }
+
+    }
+
+    /**
+     * Makes one account follow another.
+     *
+     * Endpoint: POST /accounts/{account_id}/following/{followee_id}
+     * Path Parameters: account_id - the follower; followee_id - the account to follow
+     *
+     * @param ctx The Javalin context for this request
+     *
+     * Response Codes:
+     * - 200 OK: The account follows the followee (also when it already did)
+     * - 400 Bad Request: An id is not a number, either account does not exist, or the ids are the same
+     * - 401 Unauthorized: No session token was sent and one is required, or it is unknown or has expired
+     * - 403 Forbidden: The session is for a different account than account_id
+     * - 500 Internal Server Error: The accounts could not be read from the database
+     */
+    private void follow(Context ctx) {
+        Integer sessionAccountId = sessionAccountId(ctx);
+        try {
+            int followerId = Integer.parseInt(ctx.pathParam("account_id"));
+            int followeeId = Integer.parseInt(ctx.pathParam("followee_id"));
+            requestLogger.info("Received request: POST /accounts/{}/following/{}", followerId, followeeId);
+            if (!isSessionAccount(ctx, followerId, sessionAccountId)) {
+                return;
+            }
+            if (!followService.follow(followerId, followeeId)) {
+                ctx.status(400);
+            }
+        } catch (NumberFormatException e) {
+            logger.error("Invalid account ID format: {}", e.getMessage());
+            ctx.status(400).result("Invalid account ID format: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Makes one account stop following another.
+     *
+     * Endpoint: DELETE /accounts/{account_id}/following/{followee_id}
+     * Path Parameters: account_id - the follower; followee_id - the account to unfollow
+     *
+     * @param ctx The Javalin context for this request
+     *
+     * Response Codes:
+     * - 200 OK: The account no longer follows the followee (also when it never did)
+     * - 400 Bad Request: An id is not a number, or the follow could not be removed
+     * - 401 Unauthorized: No session token was sent and one is required, or it is unknown or has expired
+     * - 403 Forbidden: The session is for a different account than account_id
+     */
+    private void unfollow(Context ctx) {
+        Integer sessionAccountId = sessionAccountId(ctx);
+        try {
+            int followerId = Integer.parseInt(ctx.pathParam("account_id"));
+            int followeeId = Integer.parseInt(ctx.pathParam("followee_id"));
+            requestLogger.info("Received request: DELETE /accounts/{}/following/{}", followerId, followeeId);
+            if (!isSessionAccount(ctx, followerId, sessionAccountId)) {
+                return;
+            }
+            if (!followService.unfollow(followerId, followeeId)) {
+                ctx.status(400);
+            }
+        } catch (NumberFormatException e) {
+            logger.error("Invalid account ID format: {}", e.getMessage());
+            ctx.status(400).result("Invalid account ID format: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves an account's home feed.
+     *
+     * Endpoint: GET /accounts/{account_id}/feed
+     * Path Parameter: account_id - the account whose feed to build
+     * Query Parameter (optional): limit - the most messages to return
+     *
+     * @param ctx The Javalin context for this request
+     *
+     * Response:
+     * - 200 OK: Returns a JSON array of the newest messages from the accounts the user follows,
+     *           newest first (empty array if the user follows no one)
+     * - 400 Bad Request: account_id or limit is not a number
+     * - 401 Unauthorized: No session token was sent and one is required, or it is unknown or has expired
+     * - 403 Forbidden: The session is for a different account than account_id
+     * - 500 Internal Server Error: The feed's messages could not be read from the database
+     */
+    private void getFeed(Context ctx) {
+        Integer sessionAccountId = sessionAccountId(ctx);
+        try {
+            int accountId = Integer.parseInt(ctx.pathParam("account_id"));
+            requestLogger.info("Received request: GET /accounts/{}/feed", accountId);
+            if (!isSessionAccount(ctx, accountId, sessionAccountId)) {
+                return;
+            }
+            json(ctx, followService.getFeed(accountId, pageLimit(ctx)));
+        } catch (NumberFormatException e) {
+            logger.error("Invalid feed request: {}", e.getMessage());
+            ctx.status(400).result("Invalid feed request: " + e.getMessage());
         }
+    }
 
+    /**
+     * Retrieves the hashtags used most in messages created within a recent window. This reads only
+     * in-memory counters, so it runs without a unit of work.
+     *
+     * Endpoint: GET /trending
+     * Query Parameters (optional): window - how far back to count, as a number followed by s, m, h or d
+     *                              (default 1h); limit - the most hashtags to return (default 10)
+     *
+     * @param ctx The Javalin context for this request
+     *
+     * Response:
+     * - 200 OK: Returns a JSON array of {"hashtag", "count"} objects, most used first
+     * - 400 Bad Request: window or limit is not valid, or window is longer than the counted history
+     * - 503 Service Unavailable: trending is disabled
+     */
+    private void getTrendingHashtags(Context ctx) {
+        requestLogger.info("Received request: GET /trending");
+        try {
+            String window = ctx.queryParam("window");
+            String limit = ctx.queryParam("limit");
+            json(ctx, messageService.getTrendingHashtags(parseWindow(window == null ? "1h" : window),
+                    limit == null ? 10 : Integer.parseInt(limit)));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid trending request: {}", e.getMessage());
+            ctx.status(400).result(e.getMessage());
+        } catch (IllegalStateException e) {
+            logger.error("Trending unavailable: {}", e.getMessage());
+            ctx.status(503).result(e.getMessage());
+        }
+    }
+
+    /**
+     * Handler to report the application's metrics.
+     *
+     * Endpoint: GET /metrics
+     *
+     * @param ctx The Javalin context for this request
+     *
+     * Response:
+     * - 200 OK: Returns per-route request latency, counts by status and bytes written, per-method DAO
+     *           latency, and connection pool and cache statistics, in the Prometheus text format
+     */
+    private void getMetrics(Context ctx) {
+        ctx.contentType("text/plain; version=0.0.4; charset=utf-8").result(Metrics.global().scrape());
+    }
+
+    /**
+     * @param window a duration such as "90s", "15m", "1h" or "1d"
+     * @return the duration in milliseconds
+     * @throws IllegalArgumentException if the duration is not in that form
+     */
+    private static long parseWindow(String window) {
+        if (window.length() < 2) {
+            throw new IllegalArgumentException("Invalid window: " + window);
+        }
+        long amount = Long.parseLong(window.substring(0, window.length() - 1));
+        switch (window.charAt(window.length() - 1)) {
+            case 's':
+                return TimeUnit.SECONDS.toMillis(amount);
+            case 'm':
+                return TimeUnit.MINUTES.toMillis(amount);
+            case 'h':
+                return TimeUnit.HOURS.toMillis(amount);
+            case 'd':
+                return TimeUnit.DAYS.toMillis(amount);
+            default:
+                throw new IllegalArgumentException("Invalid window: " + window);
+        }
     }
 
-}
\ No newline at end of file
+}
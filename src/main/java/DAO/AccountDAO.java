@@ -2,6 +2,8 @@ package DAO;
 
 import Model.Account;
 
+import java.util.function.Consumer;
+
 public interface AccountDAO {
     /**
      * Creates a new account in the database with the provided account details.
@@ -17,6 +19,7 @@ public interface AccountDAO {
      *
      * @param accountId the ID of the account to be retrieved
      * @return the Account object if found, or null if no account exists with the given ID
+     * @throws DataAccessException if the database could not be read
      */
     Account getAccountById(int accountId);
 
@@ -25,6 +28,15 @@ public interface AccountDAO {
      *
      * @param username the username of the account to be retrieved
      * @return the Account object if found, or null if no account exists with the given username
+     * @throws DataAccessException if the database could not be read
      */
     Account getAccountByUsername(String username);
+
+    /**
+     * Passes every username in the database to the consumer as it is read, without building a list.
+     *
+     * @param consumer receives each username
+     * @return the number of usernames passed to the consumer, or -1 if the query failed
+     */
+    long streamAllUsernames(Consumer<String> consumer);
 }
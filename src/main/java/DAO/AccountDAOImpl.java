@@ -1,16 +1,23 @@
 package DAO;
 
 import java.sql.*;
+import java.util.function.Consumer;
 
 import Model.Account;
+import Util.ConfigUtil;
 import Util.ConnectionUtil;
 import Util.DatabaseUtil;
+import Util.Logging;
 
 import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 public class AccountDAOImpl implements AccountDAO {
-    private static final Logger logger = LoggerFactory.getLogger(AccountDAOImpl.class);
+    private static final Logger logger = Logging.getLogger(AccountDAOImpl.class);
+    private static final Logger readLogger = Logging.getSampledLogger(AccountDAOImpl.class, "reads");
+    /**
+     * Rows fetched per round trip when streaming a result set.
+     */
+    private static final int STREAM_FETCH_SIZE = ConfigUtil.getInt("db.stream.fetchSize", 500);
 
     @Override
     public Account createAccount(Account account) {
@@ -61,7 +68,7 @@ public class AccountDAOImpl implements AccountDAO {
             rs = pstmt.executeQuery();
 
             if (rs.next()) {
-                logger.info("Retrieved account with ID: {}", accountId);
+                readLogger.info("Retrieved account with ID: {}", accountId);
                 Account account = new Account();
                 account.setAccount_id(accountId);
                 account.setUsername(rs.getString("username"));
@@ -71,6 +78,7 @@ public class AccountDAOImpl implements AccountDAO {
 
         } catch (SQLException e) {
             logger.error("Error retrieving account with ID {}: {}", accountId, e.getMessage());
+            throw new DataAccessException("Error retrieving account with ID " + accountId, e);
         } finally {
             DatabaseUtil.closeResource(rs);
             DatabaseUtil.closeResource(pstmt);
@@ -98,12 +106,13 @@ public class AccountDAOImpl implements AccountDAO {
                 account.setAccount_id(rs.getInt("account_id"));
                 account.setUsername(rs.getString("username"));
                 account.setPassword(rs.getString("password"));
-                logger.info("Retrieved account with username: {}", username);
+                readLogger.info("Retrieved account with username: {}", username);
                 return account;
             }
 
         } catch (SQLException e) {
             logger.error("Error retrieving account with username {}: {}", username, e.getMessage());
+            throw new DataAccessException("Error retrieving account with username " + username, e);
         } finally {
             DatabaseUtil.closeResource(rs);
             DatabaseUtil.closeResource(pstmt);
@@ -113,5 +122,33 @@ public class AccountDAOImpl implements AccountDAO {
         return null;
     }
 
+    @Override
+    public long streamAllUsernames(Consumer<String> consumer) {
+        String sql = "SELECT username FROM account;";
+        Connection connection = null;
+        Statement stmt = null;
+        ResultSet rs = null;
+        long count = 0;
 
-}
\ No newline at end of file
+        try {
+            connection = ConnectionUtil.getConnection();
+            stmt = connection.createStatement();
+            stmt.setFetchSize(STREAM_FETCH_SIZE);
+            rs = stmt.executeQuery(sql);
+
+            while (rs.next()) {
+                consumer.accept(rs.getString("username"));
+                count++;
+            }
+            logger.info("Streamed {} usernames", count);
+        } catch (SQLException e) {
+            logger.error("Error streaming usernames: {}", e.getMessage());
+            count = -1;
+        } finally {
+            DatabaseUtil.closeResource(rs);
+            DatabaseUtil.closeResource(stmt);
+            DatabaseUtil.closeResource(connection);
+        }
+        return count;
+    }
+}
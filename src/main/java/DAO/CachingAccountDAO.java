@@ -0,0 +1,109 @@
+package DAO;
+
+import java.util.function.Consumer;
+
+import Model.Account;
+import Util.CacheStats;
+import Util.ConfigUtil;
+import Util.LruCache;
+import Util.UnitOfWork;
+
+/**
+ * An AccountDAO decorator that keeps an in-process index of accounts keyed by both account_id and
+ * username.
+ *
+ * The index is filled lazily: a lookup that misses loads the account from the database and stores
+ * it under both keys. Lookups of unknown ids or usernames are cached as misses, so a login storm
+ * for a wrong username or a burst of messages for a missing account does not reach H2 either. A
+ * lookup that fails throws DataAccessException and caches nothing, so the next one asks again.
+ * createAccount drops any cached miss for the new account's keys at once and stores the account
+ * under both once the request's unit of work has committed, so other threads are never served an
+ * account that may still roll back; if it rolls back, both keys are dropped again. Accounts are
+ * never updated or deleted through the API, so no other invalidation is needed. Each key is
+ * bounded separately by cache.accounts.maxSize.
+ */
+public class CachingAccountDAO implements AccountDAO {
+    private final AccountDAO delegate;
+    private final LruCache<Integer, Account> byId;
+    private final LruCache<String, Account> byUsername;
+
+    /**
+     * Creates an index sized by the cache.accounts.maxSize and cache.accounts.ttlMs settings.
+     *
+     * @param delegate the DAO that reads and writes the database
+     */
+    public CachingAccountDAO(AccountDAO delegate) {
+        this(delegate, ConfigUtil.getInt("cache.accounts.maxSize", 50000),
+                ConfigUtil.getLong("cache.accounts.ttlMs", 600000));
+    }
+
+    /**
+     * @param delegate the DAO that reads and writes the database
+     * @param maxSize the maximum number of entries kept for each key
+     * @param ttlMillis how long an entry stays valid; 0 or less means until evicted
+     */
+    public CachingAccountDAO(AccountDAO delegate, int maxSize, long ttlMillis) {
+        this.delegate = delegate;
+        this.byId = new LruCache<>(maxSize, ttlMillis);
+        this.byUsername = new LruCache<>(maxSize, ttlMillis);
+    }
+
+    /**
+     * @return a snapshot of the account_id index's counters
+     */
+    public CacheStats getIdCacheStats() {
+        return byId.getStats();
+    }
+
+    /**
+     * @return a snapshot of the username index's counters
+     */
+    public CacheStats getUsernameCacheStats() {
+        return byUsername.getStats();
+    }
+
+    @Override
+    public Account createAccount(Account account) {
+        Account created = delegate.createAccount(account);
+        if (created != null) {
+            byId.invalidate(created.getAccount_id());
+            byUsername.invalidate(created.getUsername());
+            UnitOfWork.afterCommit(() -> {
+                byId.put(created.getAccount_id(), created);
+                byUsername.put(created.getUsername(), created);
+            });
+            UnitOfWork.onRollback(() -> {
+                byId.invalidate(created.getAccount_id());
+                byUsername.invalidate(created.getUsername());
+            });
+        }
+        return created;
+    }
+
+    @Override
+    public Account getAccountById(int accountId) {
+        return byId.get(accountId, id -> {
+            Account account = delegate.getAccountById(id);
+            if (account != null) {
+                byUsername.put(account.getUsername(), account);
+            }
+            return account;
+        });
+    }
+
+    @Override
+    public Account getAccountByUsername(String username) {
+        return byUsername.get(username, name -> {
+            Account account = delegate.getAccountByUsername(name);
+            if (account != null) {
+                byId.put(account.getAccount_id(), account);
+            }
+            return account;
+        });
+    }
+
+    @Override
+    public long streamAllUsernames(Consumer<String> consumer) {
+        return delegate.streamAllUsernames(consumer);
+    }
+}
@@ -0,0 +1,195 @@
+package DAO;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import Model.Message;
+import Model.PageCursor;
+import Util.CacheStats;
+import Util.ConfigUtil;
+import Util.LruCache;
+import Util.UnitOfWork;
+
+/**
+ * A MessageDAO decorator that serves getMessageById and getMessagesByIds from a bounded LRU cache.
+ *
+ * Unknown ids are cached as misses, so repeated lookups of a missing message do not reach the
+ * database either; a lookup that fails throws DataAccessException and caches nothing. Writes go to the wrapped DAO first and drop the affected entries at once; the
+ * new values are stored once the request's unit of work has committed, so other threads are
+ * never served a row that may still roll back. A created or updated message then replaces its
+ * entry and a deleted one becomes a cached miss. Flushed likes only patch the like count of
+ * entries already cached. If the unit of work rolls back, the affected entries are dropped again,
+ * in case a read in the same transaction cached an uncommitted row. Listing methods are passed
+ * through unchanged.
+ */
+public class CachingMessageDAO implements MessageDAO {
+    private final MessageDAO delegate;
+    private final LruCache<Integer, Message> cache;
+
+    /**
+     * Creates a cache sized by the cache.messages.maxSize and cache.messages.ttlMs settings.
+     *
+     * @param delegate the DAO that reads and writes the database
+     */
+    public CachingMessageDAO(MessageDAO delegate) {
+        this(delegate, ConfigUtil.getInt("cache.messages.maxSize", 10000),
+                ConfigUtil.getLong("cache.messages.ttlMs", 60000));
+    }
+
+    /**
+     * @param delegate the DAO that reads and writes the database
+     * @param maxSize the maximum number of messages (or known misses) to cache
+     * @param ttlMillis how long a cached entry stays valid; 0 or less means until evicted
+     */
+    public CachingMessageDAO(MessageDAO delegate, int maxSize, long ttlMillis) {
+        this.delegate = delegate;
+        this.cache = new LruCache<>(maxSize, ttlMillis);
+    }
+
+    /**
+     * @return a snapshot of the cache's hit, miss and eviction counters
+     */
+    public CacheStats getCacheStats() {
+        return cache.getStats();
+    }
+
+    @Override
+    public Message createMessage(Message msg) {
+        Message created = delegate.createMessage(msg);
+        if (created != null) {
+            // replaces a cached miss for an id that did not exist until now
+            putAfterCommit(created.getMessage_id(), created);
+        }
+        return created;
+    }
+
+    @Override
+    public List<Message> createMessages(List<Message> msgs) {
+        List<Message> created = delegate.createMessages(msgs);
+        if (created != null) {
+            for (Message message : created) {
+                putAfterCommit(message.getMessage_id(), message);
+            }
+        }
+        return created;
+    }
+
+    @Override
+    public Message getMessageById(int msgId) {
+        return cache.get(msgId, delegate::getMessageById);
+    }
+
+    @Override
+    public Map<Integer, Message> getMessagesByIds(List<Integer> msgIds) {
+        // only the ids not already cached reach the database, in one query
+        Map<Integer, Message> messages = cache.getAll(msgIds, delegate::getMessagesByIds);
+        messages.values().removeIf(Objects::isNull);
+        return messages;
+    }
+
+    @Override
+    public List<Message> getAllMessages() {
+        return delegate.getAllMessages();
+    }
+
+    @Override
+    public long streamAllMessages(Consumer<Message> consumer) {
+        return delegate.streamAllMessages(consumer);
+    }
+
+    @Override
+    public List<Message> getAllMessagesByAccountId(int accountId) {
+        return delegate.getAllMessagesByAccountId(accountId);
+    }
+
+    @Override
+    public List<Message> getNewestMessagesByAccountId(int accountId, int limit) {
+        return delegate.getNewestMessagesByAccountId(accountId, limit);
+    }
+
+    @Override
+    public List<Message> getMessagePage(PageCursor after, int limit) {
+        return delegate.getMessagePage(after, limit);
+    }
+
+    @Override
+    public List<Message> getMessagePageByAccountId(int accountId, PageCursor after, int limit) {
+        return delegate.getMessagePageByAccountId(accountId, after, limit);
+    }
+
+    @Override
+    public long streamMessagesByTimeRange(long since, long until, Consumer<Message> consumer) {
+        return delegate.streamMessagesByTimeRange(since, until, consumer);
+    }
+
+    @Override
+    public long streamMessagesByAccountIdAndTimeRange(int accountId, long since, long until, Consumer<Message> consumer) {
+        return delegate.streamMessagesByAccountIdAndTimeRange(accountId, since, until, consumer);
+    }
+
+    @Override
+    public Message updateMessageText(int msgId, String newText) {
+        Message updated = delegate.updateMessageText(msgId, newText);
+        if (updated != null) {
+            putAfterCommit(msgId, updated);
+        } else {
+            // either the message does not exist or the update failed; let the next read decide
+            cache.invalidate(msgId);
+        }
+        return updated;
+    }
+
+    @Override
+    public List<Message> addLikes(Map<Integer, Long> deltas) {
+        List<Message> updated = delegate.addLikes(deltas);
+        if (updated != null) {
+            for (Message message : updated) {
+                // copy only the count, so a text update that raced with the flush is not undone
+                UnitOfWork.afterCommit(() -> cache.computeIfPresent(message.getMessage_id(),
+                        cached -> cached == null ? null : withLikeCount(cached, message.getLike_count())));
+                invalidateOnRollback(message.getMessage_id());
+            }
+        }
+        return updated;
+    }
+
+    @Override
+    public Message deleteMessage(int msgId) {
+        Message deleted = delegate.deleteMessage(msgId);
+        if (deleted != null) {
+            putAfterCommit(msgId, null);
+        } else {
+            cache.invalidate(msgId);
+        }
+        return deleted;
+    }
+
+    /**
+     * @return a copy of the message with a different like count; cached messages are shared, so
+     *         they are never changed in place
+     */
+    private static Message withLikeCount(Message message, long likeCount) {
+        Message copy = new Message(message.getMessage_id(), message.getPosted_by(),
+                message.getMessage_text(), message.getTime_posted_epoch());
+        copy.setLike_count(likeCount);
+        return copy;
+    }
+
+    /**
+     * Drops the cached entry now and stores the new value once the unit of work has committed, or
+     * at once if there is none.
+     *
+     * @param value the committed value; null records that the message no longer exists
+     */
+    private void putAfterCommit(int msgId, Message value) {
+        cache.invalidate(msgId);
+        UnitOfWork.afterCommit(() -> cache.put(msgId, value));
+        invalidateOnRollback(msgId);
+    }
+
+    private void invalidateOnRollback(int msgId) {
+        UnitOfWork.onRollback(() -> cache.invalidate(msgId));
+    }
+}
@@ -0,0 +1,18 @@
+package DAO;
+
+/**
+ * Thrown by a DAO read when the database could not answer, or by any DAO call when no connection
+ * could be acquired, so callers can tell a failed query apart from a row that does not exist.
+ * Caches never store a failed read, and the controller answers the request with 500, or 503 if
+ * the connection pool was exhausted.
+ */
+public class DataAccessException extends RuntimeException {
+
+    /**
+     * @param message what was being read
+     * @param cause the error reported by the driver
+     */
+    public DataAccessException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
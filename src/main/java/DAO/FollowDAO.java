@@ -0,0 +1,32 @@
+package DAO;
+
+import java.util.function.BiConsumer;
+
+public interface FollowDAO {
+    /**
+     * Records that one account follows another. Following an account that is already followed
+     * succeeds without change.
+     *
+     * @param followerId the account that follows
+     * @param followeeId the account being followed
+     * @return true if the follow is recorded, false if it could not be stored
+     */
+    boolean follow(int followerId, int followeeId);
+
+    /**
+     * Removes a follow. Removing a follow that does not exist succeeds without change.
+     *
+     * @param followerId the account that follows
+     * @param followeeId the account being followed
+     * @return true if the follow no longer exists, false if it could not be removed
+     */
+    boolean unfollow(int followerId, int followeeId);
+
+    /**
+     * Passes every follow in the database to the consumer as it is read.
+     *
+     * @param consumer receives the follower_id and followee_id of each follow
+     * @return the number of follows passed to the consumer, or -1 if the query failed
+     */
+    long streamAllFollows(BiConsumer<Integer, Integer> consumer);
+}
@@ -0,0 +1,98 @@
+package DAO;
+
+import java.sql.*;
+import java.util.function.BiConsumer;
+
+import Util.ConfigUtil;
+import Util.ConnectionUtil;
+import Util.DatabaseUtil;
+import Util.Logging;
+
+import org.slf4j.Logger;
+
+public class FollowDAOImpl implements FollowDAO {
+    private static final Logger logger = Logging.getLogger(FollowDAOImpl.class);
+    /**
+     * Rows fetched per round trip when streaming a result set.
+     */
+    private static final int STREAM_FETCH_SIZE = ConfigUtil.getInt("db.stream.fetchSize", 500);
+
+    @Override
+    public boolean follow(int followerId, int followeeId) {
+        // MERGE makes a repeated follow a no-op instead of a primary key violation
+        String sql = "MERGE INTO follow (follower_id, followee_id) KEY (follower_id, followee_id) VALUES (?,?)";
+
+        Connection connection = null;
+        PreparedStatement pstmt = null;
+
+        try {
+            connection = ConnectionUtil.getConnection();
+            pstmt = connection.prepareStatement(sql);
+            pstmt.setInt(1, followerId);
+            pstmt.setInt(2, followeeId);
+            pstmt.executeUpdate();
+            logger.info("Account {} follows account {}", followerId, followeeId);
+            return true;
+        } catch (SQLException e) {
+            logger.error("Error recording follow of {} by {}: {}", followeeId, followerId, e.getMessage());
+        } finally {
+            DatabaseUtil.closeResource(pstmt);
+            DatabaseUtil.closeResource(connection);
+        }
+        return false;
+    }
+
+    @Override
+    public boolean unfollow(int followerId, int followeeId) {
+        String sql = "DELETE FROM follow WHERE follower_id = ? AND followee_id = ?";
+
+        Connection connection = null;
+        PreparedStatement pstmt = null;
+
+        try {
+            connection = ConnectionUtil.getConnection();
+            pstmt = connection.prepareStatement(sql);
+            pstmt.setInt(1, followerId);
+            pstmt.setInt(2, followeeId);
+            pstmt.executeUpdate();
+            logger.info("Account {} no longer follows account {}", followerId, followeeId);
+            return true;
+        } catch (SQLException e) {
+            logger.error("Error removing follow of {} by {}: {}", followeeId, followerId, e.getMessage());
+        } finally {
+            DatabaseUtil.closeResource(pstmt);
+            DatabaseUtil.closeResource(connection);
+        }
+        return false;
+    }
+
+    @Override
+    public long streamAllFollows(BiConsumer<Integer, Integer> consumer) {
+        String sql = "SELECT follower_id, followee_id FROM follow;";
+        Connection connection = null;
+        Statement stmt = null;
+        ResultSet rs = null;
+        long count = 0;
+
+        try {
+            connection = ConnectionUtil.getConnection();
+            stmt = connection.createStatement();
+            stmt.setFetchSize(STREAM_FETCH_SIZE);
+            rs = stmt.executeQuery(sql);
+
+            while (rs.next()) {
+                consumer.accept(rs.getInt("follower_id"), rs.getInt("followee_id"));
+                count++;
+            }
+            logger.info("Streamed {} follows", count);
+        } catch (SQLException e) {
+            logger.error("Error streaming follows: {}", e.getMessage());
+            count = -1;
+        } finally {
+            DatabaseUtil.closeResource(rs);
+            DatabaseUtil.closeResource(stmt);
+            DatabaseUtil.closeResource(connection);
+        }
+        return count;
+    }
+}
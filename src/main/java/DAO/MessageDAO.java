@@ -1,7 +1,10 @@
 package DAO;
 
 import Model.Message;
+import Model.PageCursor;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface MessageDAO {
     /**
@@ -13,31 +16,123 @@ public interface MessageDAO {
      */
     Message createMessage(Message msg);
 
+    /**
+     * Creates several messages in one JDBC batch and one transaction. Either every message is
+     * created or none is.
+     *
+     * @param msgs the messages to create
+     * @return the same messages, in the same order, with their generated message_id set,
+     *         or null if the batch failed and was rolled back. A failed batch only rolls back
+     *         its own rows, so a unit of work it joined can still commit.
+     */
+    List<Message> createMessages(List<Message> msgs);
+
     /**
      * Retrieves a message from the database based on the specified message ID.
      *
      * @param msgId the ID of the message to be retrieved
      * @return the Message object if found, or null if no message exists with the given ID
+     * @throws DataAccessException if the database could not be read
      */
     Message getMessageById(int msgId);
 
+    /**
+     * Retrieves several messages with a single query.
+     *
+     * @param msgIds the IDs of the messages to retrieve
+     * @return the messages found, keyed by message ID; IDs with no message are absent
+     * @throws DataAccessException if the database could not be read
+     */
+    Map<Integer, Message> getMessagesByIds(List<Integer> msgIds);
+
     /**
      * Retrieves all messages from the database.
      *
      * @return a list of Message objects containing all the messages stored in the database,
      *         or an empty list if no messages are found
+     * @throws DataAccessException if the database could not be read
      */
     List<Message> getAllMessages();
 
+    /**
+     * Passes every message in the database to the consumer, one row at a time, as it is read from
+     * the JDBC cursor. No list of messages is built, so memory use does not grow with the number
+     * of rows. The cursor is open only for the duration of this call.
+     *
+     * @param consumer receives each message in message_id order; an unchecked exception thrown by
+     *                 the consumer stops the iteration and is rethrown to the caller
+     * @return the number of messages passed to the consumer, or -1 if the query failed
+     */
+    long streamAllMessages(Consumer<Message> consumer);
+
     /**
      * Retrieves all messages posted by a specific account, identified by the given account ID.
      *
      * @param accountId the ID of the account for which messages need to be retrieved
      * @return a list of Message objects associated with the specified account ID,
      *         or an empty list if no messages are found
+     * @throws DataAccessException if the database could not be read
      */
     List<Message> getAllMessagesByAccountId(int accountId);
 
+    /**
+     * Retrieves the newest messages posted by a specific account, reading no more rows than asked
+     * for, so the cost does not grow with the length of the account's timeline.
+     *
+     * @param accountId the ID of the account for which messages need to be retrieved
+     * @param limit the maximum number of messages to return
+     * @return up to limit messages, ordered by time_posted_epoch and then message_id, descending,
+     *         or an empty list if no messages are found
+     */
+    List<Message> getNewestMessagesByAccountId(int accountId, int limit);
+
+    /**
+     * Retrieves up to limit messages ordered by time_posted_epoch and then message_id, starting
+     * right after the position identified by the cursor. The query seeks directly to the cursor
+     * through an index instead of skipping rows, so every page costs about the same.
+     *
+     * @param after the position of the last message already returned, or null for the first page
+     * @param limit the maximum number of messages to return
+     * @return the messages on the page, or an empty list if there are no more messages
+     * @throws DataAccessException if the database could not be read
+     */
+    List<Message> getMessagePage(PageCursor after, int limit);
+
+    /**
+     * Retrieves up to limit messages posted by a specific account, ordered by time_posted_epoch
+     * and then message_id, starting right after the position identified by the cursor.
+     *
+     * @param accountId the ID of the account for which messages need to be retrieved
+     * @param after the position of the last message already returned, or null for the first page
+     * @param limit the maximum number of messages to return
+     * @return the messages on the page, or an empty list if there are no more messages
+     * @throws DataAccessException if the database could not be read
+     */
+    List<Message> getMessagePageByAccountId(int accountId, PageCursor after, int limit);
+
+    /**
+     * Passes every message posted in a time range to the consumer, newest first, as it is read
+     * from the database.
+     *
+     * @param since the earliest time_posted_epoch to include
+     * @param until the time_posted_epoch to stop before (exclusive)
+     * @param consumer receives each message, ordered by time_posted_epoch and then message_id, descending
+     * @return the number of messages passed to the consumer, or -1 if the query failed
+     */
+    long streamMessagesByTimeRange(long since, long until, Consumer<Message> consumer);
+
+    /**
+     * Passes every message a specified account posted in a time range to the consumer, newest
+     * first, as it is read from the database.
+     *
+     * @param accountId the ID of the account whose messages are to be retrieved
+     * @param since the earliest time_posted_epoch to include
+     * @param until the time_posted_epoch to stop before (exclusive)
+     * @param consumer receives each message, ordered by time_posted_epoch and then message_id, descending
+     * @return the number of messages passed to the consumer, or -1 if the query failed
+     */
+    long streamMessagesByAccountIdAndTimeRange(int accountId, long since, long until, Consumer<Message> consumer);
+
     /**
      * Updates the text of an existing message identified by its message ID.
      *
@@ -48,6 +143,15 @@ public interface MessageDAO {
      */
     Message updateMessageText(int msgId, String newText);
 
+    /**
+     * Adds to the like counts of several messages with one JDBC batch of UPDATEs, in one transaction.
+     *
+     * @param deltas the number of likes to add, keyed by message ID
+     * @return the messages as they are after the update; IDs with no message are absent.
+     *         Null if the update failed and was rolled back
+     */
+    List<Message> addLikes(Map<Integer, Long> deltas);
+
     /**
      * Deletes the message identified by the specified message ID from the database.
      *
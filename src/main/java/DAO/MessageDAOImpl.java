@@ -3,16 +3,27 @@ package DAO;
 import java.sql.*;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import Model.Message;
+import Model.PageCursor;
+import Util.ConfigUtil;
 import Util.ConnectionUtil;
 import Util.DatabaseUtil;
+import Util.Logging;
+import Util.UnitOfWork;
 
 import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 public class MessageDAOImpl implements MessageDAO{
-    private static final Logger logger = LoggerFactory.getLogger(MessageDAOImpl.class);
+    private static final Logger logger = Logging.getLogger(MessageDAOImpl.class);
+    private static final Logger readLogger = Logging.getSampledLogger(MessageDAOImpl.class, "reads");
+    /**
+     * Rows fetched per round trip when streaming a result set.
+     */
+    private static final int STREAM_FETCH_SIZE = ConfigUtil.getInt("db.stream.fetchSize", 500);
 
     @Override
     public Message createMessage(Message msg) {
@@ -48,6 +59,63 @@ public class MessageDAOImpl implements MessageDAO{
         return null;
     }
 
+    @Override
+    public List<Message> createMessages(List<Message> msgs) {
+        String SQL = "INSERT INTO message (posted_by, message_text, time_posted_epoch) VALUES (?,?,?)";
+
+        // joins the request's unit of work if there is one, so the batch commits with it
+        UnitOfWork unitOfWork = UnitOfWork.begin();
+        Connection connection = null;
+        Savepoint savepoint = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            connection = ConnectionUtil.getConnection();
+            // a failed batch rolls back to here on its own, so the unit of work it joined can still
+            // commit and the caller can report the failure per item
+            savepoint = connection.setSavepoint();
+            pstmt = connection.prepareStatement(SQL, Statement.RETURN_GENERATED_KEYS);
+            for (Message msg : msgs) {
+                pstmt.setInt(1, msg.getPosted_by());
+                pstmt.setString(2, msg.getMessage_text());
+                pstmt.setLong(3, msg.getTime_posted_epoch());
+                pstmt.addBatch();
+            }
+
+            pstmt.executeBatch();
+
+            rs = pstmt.getGeneratedKeys();
+            int index = 0;
+            while (rs.next() && index < msgs.size()) {
+                msgs.get(index++).setMessage_id(rs.getInt(1));
+            }
+            if (index != msgs.size()) {
+                throw new SQLException("Expected " + msgs.size() + " generated keys but got " + index);
+            }
+
+            unitOfWork.commit();
+            logger.info("Created batch of {} messages", msgs.size());
+            return msgs;
+        } catch (SQLException e) {
+            logger.error("Error creating batch of {} messages: {}", msgs.size(), e.getMessage());
+            if (savepoint != null) {
+                try {
+                    connection.rollback(savepoint);
+                    unitOfWork.commit();
+                } catch (SQLException rollbackError) {
+                    logger.error("Error rolling back batch of {} messages: {}", msgs.size(), rollbackError.getMessage());
+                }
+            }
+        } finally {
+            DatabaseUtil.closeResource(rs);
+            DatabaseUtil.closeResource(pstmt);
+            DatabaseUtil.closeResource(connection);
+            unitOfWork.end();
+        }
+        return null;
+    }
+
     @Override
     public Message getMessageById(int msgId) {
         String sql = "SELECT * FROM message WHERE message_id = ?;";
@@ -63,17 +131,14 @@ public class MessageDAOImpl implements MessageDAO{
             rs = pstmt.executeQuery();
 
             if (rs.next()) {
-                Message message = new Message();
-                message.setMessage_id(msgId);
-                message.setPosted_by(rs.getInt("posted_by"));
-                message.setMessage_text(rs.getString("message_text"));
-                message.setTime_posted_epoch(rs.getLong("time_posted_epoch"));
-                logger.info("Retrieved message with ID: {}", msgId);
+                Message message = mapMessage(rs);
+                readLogger.info("Retrieved message with ID: {}", msgId);
                 return message;
             }
 
         } catch (SQLException e) {
             logger.error("Error retrieving message with ID {}: {}", msgId, e.getMessage());
+            throw new DataAccessException("Error retrieving message with ID " + msgId, e);
         } finally {
             DatabaseUtil.closeResource(rs);
             DatabaseUtil.closeResource(pstmt);
@@ -83,6 +148,43 @@ public class MessageDAOImpl implements MessageDAO{
         return null;
     }
 
+    @Override
+    public Map<Integer, Message> getMessagesByIds(List<Integer> msgIds) {
+        // one array parameter keeps the statement text, and so H2's plan cache entry, the same for any number of ids
+        String sql = "SELECT * FROM message WHERE message_id = ANY(?);";
+
+        Map<Integer, Message> messages = new HashMap<>();
+        if (msgIds.isEmpty()) {
+            return messages;
+        }
+
+        Connection connection = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            connection = ConnectionUtil.getConnection();
+            pstmt = connection.prepareStatement(sql);
+            pstmt.setArray(1, connection.createArrayOf("INTEGER", msgIds.toArray()));
+            rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                Message message = mapMessage(rs);
+                messages.put(message.getMessage_id(), message);
+            }
+            readLogger.info("Retrieved {} of {} requested messages", messages.size(), msgIds.size());
+        } catch (SQLException e) {
+            logger.error("Error retrieving {} messages by ID: {}", msgIds.size(), e.getMessage());
+            throw new DataAccessException("Error retrieving " + msgIds.size() + " messages by ID", e);
+        } finally {
+            DatabaseUtil.closeResource(rs);
+            DatabaseUtil.closeResource(pstmt);
+            DatabaseUtil.closeResource(connection);
+        }
+
+        return messages;
+    }
+
     @Override
     public List<Message> getAllMessages() {
         String sql = "SELECT * FROM message;";
@@ -98,16 +200,12 @@ public class MessageDAOImpl implements MessageDAO{
             rs = stmt.executeQuery(sql);
 
             while (rs.next()) {
-                Message message = new Message();
-                message.setMessage_id(rs.getInt("message_id"));
-                message.setPosted_by(rs.getInt("posted_by"));
-                message.setMessage_text(rs.getString("message_text"));
-                message.setTime_posted_epoch(rs.getLong("time_posted_epoch"));
-                messages.add(message);
-            }
-            logger.info("Retrieved {} messages", messages.size());
+                messages.add(mapMessage(rs));
+            }
+            readLogger.info("Retrieved {} messages", messages.size());
         } catch (SQLException e) {
             logger.error("Error retrieving all messages: {}", e.getMessage());
+            throw new DataAccessException("Error retrieving all messages", e);
         } finally {
             DatabaseUtil.closeResource(rs);
             DatabaseUtil.closeResource(stmt);
@@ -116,9 +214,56 @@ public class MessageDAOImpl implements MessageDAO{
         return messages;
     }
 
+    @Override
+    public long streamAllMessages(Consumer<Message> consumer) {
+        String sql = "SELECT * FROM message ORDER BY message_id;";
+        Connection connection = null;
+        Statement stmt = null;
+        ResultSet rs = null;
+        long count = 0;
+
+        try {
+            connection = ConnectionUtil.getConnection();
+            stmt = connection.createStatement();
+            // without lazy execution H2 materializes the whole result before returning the first row
+            stmt.execute("SET LAZY_QUERY_EXECUTION TRUE");
+            stmt.setFetchSize(STREAM_FETCH_SIZE);
+            rs = stmt.executeQuery(sql);
+
+            while (rs.next()) {
+                consumer.accept(mapMessage(rs));
+                count++;
+            }
+            readLogger.info("Streamed {} messages", count);
+        } catch (SQLException e) {
+            logger.error("Error streaming all messages: {}", e.getMessage());
+            count = -1;
+        } finally {
+            DatabaseUtil.closeResource(rs);
+            resetLazyExecution(stmt);
+            DatabaseUtil.closeResource(stmt);
+            DatabaseUtil.closeResource(connection);
+        }
+        return count;
+    }
+
+    /**
+     * Turns lazy query execution back off so the connection behaves normally for its next user.
+     */
+    private void resetLazyExecution(Statement stmt) {
+        if (stmt == null) {
+            return;
+        }
+        try {
+            stmt.execute("SET LAZY_QUERY_EXECUTION FALSE");
+        } catch (SQLException e) {
+            logger.warn("Error resetting lazy query execution: {}", e.getMessage());
+        }
+    }
+
     @Override
     public List<Message> getAllMessagesByAccountId(int accountId) {
-        String sql = "SELECT * FROM message WHERE posted_by = ?;";
+        String sql = "SELECT * FROM message WHERE posted_by = ? ORDER BY message_id;";
         Connection connection = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
@@ -132,16 +277,12 @@ public class MessageDAOImpl implements MessageDAO{
             rs = pstmt.executeQuery();
 
             while (rs.next()) {
-                Message message = new Message();
-                message.setMessage_id(rs.getInt("message_id"));
-                message.setPosted_by(rs.getInt("posted_by"));
-                message.setMessage_text(rs.getString("message_text"));
-                message.setTime_posted_epoch(rs.getLong("time_posted_epoch"));
-                messages.add(message);
-            }
-            logger.info("Retrieved {} messages for account with ID: {}", messages.size(), accountId);
+                messages.add(mapMessage(rs));
+            }
+            readLogger.info("Retrieved {} messages for account with ID: {}", messages.size(), accountId);
         } catch (SQLException e) {
             logger.error("Error retrieving all messages for account with ID {}: {}", accountId, e.getMessage());
+            throw new DataAccessException("Error retrieving all messages for account with ID " + accountId, e);
         } finally {
             DatabaseUtil.closeResource(rs);
             DatabaseUtil.closeResource(pstmt);
@@ -150,27 +291,194 @@ public class MessageDAOImpl implements MessageDAO{
         return messages;
     }
 
+    @Override
+    public List<Message> getNewestMessagesByAccountId(int accountId, int limit) {
+        // H2 only reads an index in order when the ORDER BY names its leading columns, and with
+        // several indexes on posted_by it does not prefer this one by itself
+        String sql = "SELECT * FROM message USE INDEX (message_posted_by_time_posted_desc_idx) WHERE posted_by = ? " +
+                "ORDER BY posted_by, time_posted_epoch DESC, message_id DESC LIMIT ?;";
+        Connection connection = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        List<Message> messages = new ArrayList<>();
+
+        try {
+            connection = ConnectionUtil.getConnection();
+            pstmt = connection.prepareStatement(sql);
+            pstmt.setInt(1, accountId);
+            pstmt.setInt(2, limit);
+            rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                messages.add(mapMessage(rs));
+            }
+            readLogger.info("Retrieved {} newest messages for account with ID: {}", messages.size(), accountId);
+        } catch (SQLException e) {
+            logger.error("Error retrieving newest messages for account with ID {}: {}", accountId, e.getMessage());
+        } finally {
+            DatabaseUtil.closeResource(rs);
+            DatabaseUtil.closeResource(pstmt);
+            DatabaseUtil.closeResource(connection);
+        }
+        return messages;
+    }
+
+    @Override
+    public List<Message> getMessagePage(PageCursor after, int limit) {
+        return getPage(null, after, limit);
+    }
+
+    @Override
+    public List<Message> getMessagePageByAccountId(int accountId, PageCursor after, int limit) {
+        return getPage(accountId, after, limit);
+    }
+
+    /**
+     * Runs a keyset page query. The cursor condition is written as
+     * "time_posted_epoch >= ? AND (time_posted_epoch > ? OR message_id > ?)" so that its leading
+     * term is a plain range H2 can seek to on the (time_posted_epoch, message_id) index.
+     *
+     * @param accountId the account to restrict the page to, or null for all messages
+     * @param after the cursor to start after, or null for the first page
+     * @param limit the maximum number of messages to return
+     * @return the messages on the page
+     * @throws DataAccessException if the database could not be read
+     */
+    private List<Message> getPage(Integer accountId, PageCursor after, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM message");
+        String conjunction = " WHERE ";
+        if (accountId != null) {
+            sql.append(conjunction).append("posted_by = ?");
+            conjunction = " AND ";
+        }
+        if (after != null) {
+            sql.append(conjunction).append("time_posted_epoch >= ? AND (time_posted_epoch > ? OR message_id > ?)");
+        }
+        sql.append(" ORDER BY time_posted_epoch, message_id LIMIT ?;");
+
+        Connection connection = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        List<Message> messages = new ArrayList<>();
+
+        try {
+            connection = ConnectionUtil.getConnection();
+            pstmt = connection.prepareStatement(sql.toString());
+            int index = 1;
+            if (accountId != null) {
+                pstmt.setInt(index++, accountId);
+            }
+            if (after != null) {
+                pstmt.setLong(index++, after.getTimePostedEpoch());
+                pstmt.setLong(index++, after.getTimePostedEpoch());
+                pstmt.setInt(index++, after.getMessageId());
+            }
+            pstmt.setInt(index, limit);
+            rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                messages.add(mapMessage(rs));
+            }
+            readLogger.info("Retrieved page of {} messages after {}", messages.size(), after);
+        } catch (SQLException e) {
+            logger.error("Error retrieving page of messages after {}: {}", after, e.getMessage());
+            throw new DataAccessException("Error retrieving page of messages after " + after, e);
+        } finally {
+            DatabaseUtil.closeResource(rs);
+            DatabaseUtil.closeResource(pstmt);
+            DatabaseUtil.closeResource(connection);
+        }
+        return messages;
+    }
+
+    @Override
+    public long streamMessagesByTimeRange(long since, long until, Consumer<Message> consumer) {
+        return streamRange(null, since, until, consumer);
+    }
+
+    @Override
+    public long streamMessagesByAccountIdAndTimeRange(int accountId, long since, long until, Consumer<Message> consumer) {
+        return streamRange(accountId, since, until, consumer);
+    }
+
+    /**
+     * Streams a newest-first time range. Over all messages H2 reads the range straight off
+     * message_time_posted_desc_idx, so rows reach the consumer without a sort; for one account
+     * it seeks on the posted_by index and sorts only that account's range.
+     *
+     * @param accountId the account to restrict the range to, or null for all messages
+     * @param since the earliest time_posted_epoch to include
+     * @param until the time_posted_epoch to stop before (exclusive)
+     * @param consumer receives each message
+     * @return the number of messages passed to the consumer, or -1 if the query failed
+     */
+    private long streamRange(Integer accountId, long since, long until, Consumer<Message> consumer) {
+        String sql = "SELECT * FROM message WHERE " + (accountId != null ? "posted_by = ? AND " : "") +
+                "time_posted_epoch >= ? AND time_posted_epoch < ? ORDER BY time_posted_epoch DESC, message_id DESC;";
+        Connection connection = null;
+        Statement lazyStmt = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        long count = 0;
+
+        try {
+            connection = ConnectionUtil.getConnection();
+            lazyStmt = connection.createStatement();
+            lazyStmt.execute("SET LAZY_QUERY_EXECUTION TRUE");
+            pstmt = connection.prepareStatement(sql);
+            pstmt.setFetchSize(STREAM_FETCH_SIZE);
+            int index = 1;
+            if (accountId != null) {
+                pstmt.setInt(index++, accountId);
+            }
+            pstmt.setLong(index++, since);
+            pstmt.setLong(index, until);
+            rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                consumer.accept(mapMessage(rs));
+                count++;
+            }
+            readLogger.info("Streamed {} messages posted in [{}, {})", count, since, until);
+        } catch (SQLException e) {
+            logger.error("Error streaming messages posted in [{}, {}): {}", since, until, e.getMessage());
+            count = -1;
+        } finally {
+            DatabaseUtil.closeResource(rs);
+            DatabaseUtil.closeResource(pstmt);
+            resetLazyExecution(lazyStmt);
+            DatabaseUtil.closeResource(lazyStmt);
+            DatabaseUtil.closeResource(connection);
+        }
+        return count;
+    }
+
     @Override
     public Message updateMessageText(int msgId, String newText) {
-        String sql = "UPDATE message SET message_text = ? WHERE message_id = ?;";
+        // FINAL TABLE returns the row as it is after the UPDATE, so no follow-up SELECT is needed
+        String sql = "SELECT * FROM FINAL TABLE (UPDATE message SET message_text = ? WHERE message_id = ?);";
         Connection connection = null;
         PreparedStatement pstmt = null;
+        ResultSet rs = null;
 
         try {
             connection = ConnectionUtil.getConnection();
             pstmt = connection.prepareStatement(sql);
             pstmt.setString(1, newText);
             pstmt.setInt(2, msgId);
+            rs = pstmt.executeQuery();
 
-            int affectedRows = pstmt.executeUpdate();
-            if (affectedRows > 0) {
+            if (rs.next()) {
                 logger.info("Updated message text for message with ID: {}", msgId);
-                return getMessageById(msgId);
+                return mapMessage(rs);
             }
 
         } catch (SQLException e) {
             logger.error("Error updating message text for message with ID {}: {}", msgId, e.getMessage());
         } finally {
+            DatabaseUtil.closeResource(rs);
             DatabaseUtil.closeResource(pstmt);
             DatabaseUtil.closeResource(connection);
         }
@@ -178,27 +486,73 @@ public class MessageDAOImpl implements MessageDAO{
         return null;
     }
 
+    @Override
+    public List<Message> addLikes(Map<Integer, Long> deltas) {
+        String updateSql = "UPDATE message SET like_count = like_count + ? WHERE message_id = ?";
+        String selectSql = "SELECT * FROM message WHERE message_id = ANY(?);";
+
+        UnitOfWork unitOfWork = UnitOfWork.begin();
+        Connection connection = null;
+        PreparedStatement update = null;
+        PreparedStatement select = null;
+        ResultSet rs = null;
+
+        try {
+            connection = ConnectionUtil.getConnection();
+            update = connection.prepareStatement(updateSql);
+            for (Map.Entry<Integer, Long> delta : deltas.entrySet()) {
+                update.setLong(1, delta.getValue());
+                update.setInt(2, delta.getKey());
+                update.addBatch();
+            }
+            update.executeBatch();
+
+            // read the new counts inside the same transaction so they include this batch
+            select = connection.prepareStatement(selectSql);
+            select.setArray(1, connection.createArrayOf("INTEGER", deltas.keySet().toArray()));
+            rs = select.executeQuery();
+            List<Message> updated = new ArrayList<>(deltas.size());
+            while (rs.next()) {
+                updated.add(mapMessage(rs));
+            }
+
+            unitOfWork.commit();
+            logger.info("Added likes to {} messages", updated.size());
+            return updated;
+        } catch (SQLException e) {
+            logger.error("Error adding likes to {} messages: {}", deltas.size(), e.getMessage());
+        } finally {
+            DatabaseUtil.closeResource(rs);
+            DatabaseUtil.closeResource(select);
+            DatabaseUtil.closeResource(update);
+            DatabaseUtil.closeResource(connection);
+            unitOfWork.end();
+        }
+        return null;
+    }
+
     @Override
     public Message deleteMessage(int msgId) {
-        String sql = "DELETE FROM message WHERE message_id = ?;";
+        // OLD TABLE returns the row as it was before the DELETE, so no prior SELECT is needed
+        String sql = "SELECT * FROM OLD TABLE (DELETE FROM message WHERE message_id = ?);";
         Connection connection = null;
         PreparedStatement pstmt = null;
+        ResultSet rs = null;
 
         try {
             connection = ConnectionUtil.getConnection();
             pstmt = connection.prepareStatement(sql);
             pstmt.setInt(1, msgId);
+            rs = pstmt.executeQuery();
 
-            Message deletedMessage = getMessageById(msgId);
-
-            int affectedRows = pstmt.executeUpdate();
-            if (affectedRows > 0) {
+            if (rs.next()) {
                 logger.info("Deleted message with ID: {}", msgId);
-                return deletedMessage;
+                return mapMessage(rs);
             }
         } catch (SQLException e) {
             logger.error("Error deleting message with ID {}: {}", msgId, e.getMessage());
         } finally {
+            DatabaseUtil.closeResource(rs);
             DatabaseUtil.closeResource(pstmt);
             DatabaseUtil.closeResource(connection);
         }
@@ -206,4 +560,21 @@ public class MessageDAOImpl implements MessageDAO{
         return null;
     }
 
+    /**
+     * Builds a Message from the current row of a result set over the message table.
+     *
+     * @param rs a result set positioned on a message row
+     * @return the Message for that row
+     * @throws SQLException if a column cannot be read
+     */
+    private Message mapMessage(ResultSet rs) throws SQLException {
+        Message message = new Message();
+        message.setMessage_id(rs.getInt("message_id"));
+        message.setPosted_by(rs.getInt("posted_by"));
+        message.setMessage_text(rs.getString("message_text"));
+        message.setTime_posted_epoch(rs.getLong("time_posted_epoch"));
+        message.setLike_count(rs.getLong("like_count"));
+        return message;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,82 @@
+package DAO;
+
+import java.util.function.Consumer;
+
+import Model.Account;
+import Util.LatencyHistogram;
+import Util.Metrics;
+import Util.Trace;
+
+/**
+ * An AccountDAO decorator that records how long every call to the wrapped DAO takes. Placed
+ * directly around AccountDAOImpl, it measures database time without the account cache in front of it.
+ *
+ * Each method has its own timer, looked up once here, so timing a call is two System.nanoTime()
+ * calls and a histogram update with no allocation. Calls that throw are timed as well. The timers
+ * are reported by GET /metrics as dao_call_duration_seconds{dao="account",method="..."}. In a traced
+ * request each call is also a span named AccountDAO.method (see Trace).
+ */
+@SuppressWarnings("try")
+public class TimedAccountDAO implements AccountDAO {
+    private final AccountDAO delegate;
+    private final LatencyHistogram createAccountTimer;
+    private final LatencyHistogram getAccountByIdTimer;
+    private final LatencyHistogram getAccountByUsernameTimer;
+    private final LatencyHistogram streamAllUsernamesTimer;
+
+    /**
+     * @param delegate the DAO to time
+     */
+    public TimedAccountDAO(AccountDAO delegate) {
+        this.delegate = delegate;
+        this.createAccountTimer = timer("account", "createAccount");
+        this.getAccountByIdTimer = timer("account", "getAccountById");
+        this.getAccountByUsernameTimer = timer("account", "getAccountByUsername");
+        this.streamAllUsernamesTimer = timer("account", "streamAllUsernames");
+    }
+
+    @Override
+    public Account createAccount(Account account) {
+        long start = System.nanoTime();
+        try (Trace.Span span = Trace.span("AccountDAO.createAccount")) {
+            return delegate.createAccount(account);
+        } finally {
+            createAccountTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Account getAccountById(int accountId) {
+        long start = System.nanoTime();
+        try (Trace.Span span = Trace.span("AccountDAO.getAccountById")) {
+            return delegate.getAccountById(accountId);
+        } finally {
+            getAccountByIdTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Account getAccountByUsername(String username) {
+        long start = System.nanoTime();
+        try (Trace.Span span = Trace.span("AccountDAO.getAccountByUsername")) {
+            return delegate.getAccountByUsername(username);
+        } finally {
+            getAccountByUsernameTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public long streamAllUsernames(Consumer<String> consumer) {
+        long start = System.nanoTime();
+        try (Trace.Span span = Trace.span("AccountDAO.streamAllUsernames")) {
+            return delegate.streamAllUsernames(consumer);
+        } finally {
+            streamAllUsernamesTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    private static LatencyHistogram timer(String dao, String method) {
+        return Metrics.global().timer("dao_call_duration_seconds", "Time spent in each DAO method",
+                Metrics.labels("dao", dao, "method", method));
+    }
+}
@@ -0,0 +1,218 @@
+package DAO;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import Model.Message;
+import Model.PageCursor;
+import Util.LatencyHistogram;
+import Util.Metrics;
+import Util.Trace;
+
+/**
+ * A MessageDAO decorator that records how long every call to the wrapped DAO takes. Placed
+ * directly around MessageDAOImpl, it measures database time without the caches in front of it;
+ * the streaming methods include the time spent in the consumer.
+ *
+ * Each method has its own timer, looked up once here, so timing a call is two System.nanoTime()
+ * calls and a histogram update with no allocation. Calls that throw are timed as well. The timers
+ * are reported by GET /metrics as dao_call_duration_seconds{dao="message",method="..."}. In a traced
+ * request each call is also a span named MessageDAO.method (see Trace).
+ */
+@SuppressWarnings("try")
+public class TimedMessageDAO implements MessageDAO {
+    private final MessageDAO delegate;
+    private final LatencyHistogram createMessageTimer;
+    private final LatencyHistogram createMessagesTimer;
+    private final LatencyHistogram getMessageByIdTimer;
+    private final LatencyHistogram getMessagesByIdsTimer;
+    private final LatencyHistogram getAllMessagesTimer;
+    private final LatencyHistogram streamAllMessagesTimer;
+    private final LatencyHistogram getAllMessagesByAccountIdTimer;
+    private final LatencyHistogram getNewestMessagesByAccountIdTimer;
+    private final LatencyHistogram getMessagePageTimer;
+    private final LatencyHistogram getMessagePageByAccountIdTimer;
+    private final LatencyHistogram streamMessagesByTimeRangeTimer;
+    private final LatencyHistogram streamMessagesByAccountIdAndTimeRangeTimer;
+    private final LatencyHistogram updateMessageTextTimer;
+    private final LatencyHistogram addLikesTimer;
+    private final LatencyHistogram deleteMessageTimer;
+
+    /**
+     * @param delegate the DAO to time
+     */
+    public TimedMessageDAO(MessageDAO delegate) {
+        this.delegate = delegate;
+        this.createMessageTimer = timer("message", "createMessage");
+        this.createMessagesTimer = timer("message", "createMessages");
+        this.getMessageByIdTimer = timer("message", "getMessageById");
+        this.getMessagesByIdsTimer = timer("message", "getMessagesByIds");
+        this.getAllMessagesTimer = timer("message", "getAllMessages");
+        this.streamAllMessagesTimer = timer("message", "streamAllMessages");
+        this.getAllMessagesByAccountIdTimer = timer("message", "getAllMessagesByAccountId");
+        this.getNewestMessagesByAccountIdTimer = timer("message", "getNewestMessagesByAccountId");
+        this.getMessagePageTimer = timer("message", "getMessagePage");
+        this.getMessagePageByAccountIdTimer = timer("message", "getMessagePageByAccountId");
+        this.streamMessagesByTimeRangeTimer = timer("message", "streamMessagesByTimeRange");
+        this.streamMessagesByAccountIdAndTimeRangeTimer = timer("message", "streamMessagesByAccountIdAndTimeRange");
+        this.updateMessageTextTimer = timer("message", "updateMessageText");
+        this.addLikesTimer = timer("message", "addLikes");
+        this.deleteMessageTimer = timer("message", "deleteMessage");
+    }
+
+    @Override
+    public Message createMessage(Message msg) {
+        long start = System.nanoTime();
+        try (Trace.Span span = Trace.span("MessageDAO.createMessage")) {
+            return delegate.createMessage(msg);
+        } finally {
+            createMessageTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Message> createMessages(List<Message> msgs) {
+        long start = System.nanoTime();
+        try (Trace.Span span = Trace.span("MessageDAO.createMessages")) {
+            return delegate.createMessages(msgs);
+        } finally {
+            createMessagesTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Message getMessageById(int msgId) {
+        long start = System.nanoTime();
+        try (Trace.Span span = Trace.span("MessageDAO.getMessageById")) {
+            return delegate.getMessageById(msgId);
+        } finally {
+            getMessageByIdTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Map<Integer, Message> getMessagesByIds(List<Integer> msgIds) {
+        long start = System.nanoTime();
+        try (Trace.Span span = Trace.span("MessageDAO.getMessagesByIds")) {
+            return delegate.getMessagesByIds(msgIds);
+        } finally {
+            getMessagesByIdsTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Message> getAllMessages() {
+        long start = System.nanoTime();
+        try (Trace.Span span = Trace.span("MessageDAO.getAllMessages")) {
+            return delegate.getAllMessages();
+        } finally {
+            getAllMessagesTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public long streamAllMessages(Consumer<Message> consumer) {
+        long start = System.nanoTime();
+        try (Trace.Span span = Trace.span("MessageDAO.streamAllMessages")) {
+            return delegate.streamAllMessages(consumer);
+        } finally {
+            streamAllMessagesTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Message> getAllMessagesByAccountId(int accountId) {
+        long start = System.nanoTime();
+        try (Trace.Span span = Trace.span("MessageDAO.getAllMessagesByAccountId")) {
+            return delegate.getAllMessagesByAccountId(accountId);
+        } finally {
+            getAllMessagesByAccountIdTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Message> getNewestMessagesByAccountId(int accountId, int limit) {
+        long start = System.nanoTime();
+        try (Trace.Span span = Trace.span("MessageDAO.getNewestMessagesByAccountId")) {
+            return delegate.getNewestMessagesByAccountId(accountId, limit);
+        } finally {
+            getNewestMessagesByAccountIdTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Message> getMessagePage(PageCursor after, int limit) {
+        long start = System.nanoTime();
+        try (Trace.Span span = Trace.span("MessageDAO.getMessagePage")) {
+            return delegate.getMessagePage(after, limit);
+        } finally {
+            getMessagePageTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Message> getMessagePageByAccountId(int accountId, PageCursor after, int limit) {
+        long start = System.nanoTime();
+        try (Trace.Span span = Trace.span("MessageDAO.getMessagePageByAccountId")) {
+            return delegate.getMessagePageByAccountId(accountId, after, limit);
+        } finally {
+            getMessagePageByAccountIdTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public long streamMessagesByTimeRange(long since, long until, Consumer<Message> consumer) {
+        long start = System.nanoTime();
+        try (Trace.Span span = Trace.span("MessageDAO.streamMessagesByTimeRange")) {
+            return delegate.streamMessagesByTimeRange(since, until, consumer);
+        } finally {
+            streamMessagesByTimeRangeTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public long streamMessagesByAccountIdAndTimeRange(int accountId, long since, long until, Consumer<Message> consumer) {
+        long start = System.nanoTime();
+        try (Trace.Span span = Trace.span("MessageDAO.streamMessagesByAccountIdAndTimeRange")) {
+            return delegate.streamMessagesByAccountIdAndTimeRange(accountId, since, until, consumer);
+        } finally {
+            streamMessagesByAccountIdAndTimeRangeTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Message updateMessageText(int msgId, String newText) {
+        long start = System.nanoTime();
+        try (Trace.Span span = Trace.span("MessageDAO.updateMessageText")) {
+            return delegate.updateMessageText(msgId, newText);
+        } finally {
+            updateMessageTextTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Message> addLikes(Map<Integer, Long> deltas) {
+        long start = System.nanoTime();
+        try (Trace.Span span = Trace.span("MessageDAO.addLikes")) {
+            return delegate.addLikes(deltas);
+        } finally {
+            addLikesTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Message deleteMessage(int msgId) {
+        long start = System.nanoTime();
+        try (Trace.Span span = Trace.span("MessageDAO.deleteMessage")) {
+            return delegate.deleteMessage(msgId);
+        } finally {
+            deleteMessageTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    private static LatencyHistogram timer(String dao, String method) {
+        return Metrics.global().timer("dao_call_duration_seconds", "Time spent in each DAO method",
+                Metrics.labels("dao", dao, "method", method));
+    }
+}
@@ -0,0 +1,233 @@
+package DAO;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+import Model.Message;
+import Model.PageCursor;
+import Util.CacheStats;
+import Util.ConfigUtil;
+import Util.LruCache;
+import Util.UnitOfWork;
+
+/**
+ * A MessageDAO decorator that caches each account's full timeline, the list returned by
+ * getAllMessagesByAccountId.
+ *
+ * Cached timelines are patched in place instead of being refetched: createMessage inserts the new
+ * message, updateMessageText replaces it, deleteMessage removes it and addLikes updates its like
+ * count, once the write's unit of work has committed. Timelines are immutable lists replaced on
+ * write (copy-on-write), because profile views far outnumber posts and this keeps reads free of
+ * locking and copying. A timeline that fails to load throws DataAccessException and is not cached,
+ * so later writes are never patched onto an empty list that stands in for a failed read.
+ *
+ * The cache is bounded by the total number of messages held across all timelines, evicting the
+ * least recently viewed timelines first, so a few very long timelines cannot grow it without limit.
+ */
+public class TimelineCachingMessageDAO implements MessageDAO {
+    private final MessageDAO delegate;
+    private final LruCache<Integer, List<Message>> timelines;
+
+    /**
+     * Creates a cache sized by the cache.timelines.maxMessages and cache.timelines.ttlMs settings.
+     *
+     * @param delegate the DAO that reads and writes the database
+     */
+    public TimelineCachingMessageDAO(MessageDAO delegate) {
+        this(delegate, ConfigUtil.getLong("cache.timelines.maxMessages", 100000),
+                ConfigUtil.getLong("cache.timelines.ttlMs", 300000));
+    }
+
+    /**
+     * @param delegate the DAO that reads and writes the database
+     * @param maxMessages the maximum number of messages held across all cached timelines
+     * @param ttlMillis how long a timeline stays valid after it was loaded or patched; 0 or less
+     *                  means until evicted
+     */
+    public TimelineCachingMessageDAO(MessageDAO delegate, long maxMessages, long ttlMillis) {
+        this.delegate = delegate;
+        // an empty timeline still costs an entry, so it weighs 1
+        this.timelines = new LruCache<>(maxMessages, ttlMillis, timeline -> timeline == null ? 1 : timeline.size() + 1);
+    }
+
+    /**
+     * @return a snapshot of the timeline cache's hit, miss and eviction counters; the weight is
+     *         the number of messages held
+     */
+    public CacheStats getCacheStats() {
+        return timelines.getStats();
+    }
+
+    @Override
+    public Message createMessage(Message msg) {
+        Message created = delegate.createMessage(msg);
+        if (created != null) {
+            patchAfterCommit(created.getPosted_by(), timeline -> insert(timeline, created));
+        }
+        return created;
+    }
+
+    @Override
+    public List<Message> createMessages(List<Message> msgs) {
+        List<Message> created = delegate.createMessages(msgs);
+        if (created != null) {
+            for (Message message : created) {
+                patchAfterCommit(message.getPosted_by(), timeline -> insert(timeline, message));
+            }
+        }
+        return created;
+    }
+
+    @Override
+    public Message getMessageById(int msgId) {
+        return delegate.getMessageById(msgId);
+    }
+
+    @Override
+    public Map<Integer, Message> getMessagesByIds(List<Integer> msgIds) {
+        return delegate.getMessagesByIds(msgIds);
+    }
+
+    @Override
+    public List<Message> getAllMessages() {
+        return delegate.getAllMessages();
+    }
+
+    @Override
+    public long streamAllMessages(Consumer<Message> consumer) {
+        return delegate.streamAllMessages(consumer);
+    }
+
+    @Override
+    public List<Message> getAllMessagesByAccountId(int accountId) {
+        return timelines.get(accountId, id -> Collections.unmodifiableList(delegate.getAllMessagesByAccountId(id)));
+    }
+
+    @Override
+    public List<Message> getNewestMessagesByAccountId(int accountId, int limit) {
+        return delegate.getNewestMessagesByAccountId(accountId, limit);
+    }
+
+    @Override
+    public List<Message> getMessagePage(PageCursor after, int limit) {
+        return delegate.getMessagePage(after, limit);
+    }
+
+    @Override
+    public List<Message> getMessagePageByAccountId(int accountId, PageCursor after, int limit) {
+        return delegate.getMessagePageByAccountId(accountId, after, limit);
+    }
+
+    @Override
+    public long streamMessagesByTimeRange(long since, long until, Consumer<Message> consumer) {
+        return delegate.streamMessagesByTimeRange(since, until, consumer);
+    }
+
+    @Override
+    public long streamMessagesByAccountIdAndTimeRange(int accountId, long since, long until, Consumer<Message> consumer) {
+        return delegate.streamMessagesByAccountIdAndTimeRange(accountId, since, until, consumer);
+    }
+
+    @Override
+    public Message updateMessageText(int msgId, String newText) {
+        Message updated = delegate.updateMessageText(msgId, newText);
+        if (updated != null) {
+            patchAfterCommit(updated.getPosted_by(), timeline -> replace(timeline, updated));
+        }
+        return updated;
+    }
+
+    @Override
+    public List<Message> addLikes(Map<Integer, Long> deltas) {
+        List<Message> updated = delegate.addLikes(deltas);
+        if (updated != null) {
+            for (Message message : updated) {
+                patchAfterCommit(message.getPosted_by(), timeline -> setLikeCount(timeline, message));
+            }
+        }
+        return updated;
+    }
+
+    @Override
+    public Message deleteMessage(int msgId) {
+        Message deleted = delegate.deleteMessage(msgId);
+        if (deleted != null) {
+            patchAfterCommit(deleted.getPosted_by(), timeline -> remove(timeline, msgId));
+        }
+        return deleted;
+    }
+
+    /**
+     * @return a copy of the timeline with the message inserted in message_id order. New messages
+     *         almost always go at the end, so the search starts there. A timeline loaded after the
+     *         commit but before this patch already holds the message, which is then replaced.
+     */
+    private static List<Message> insert(List<Message> timeline, Message message) {
+        List<Message> patched = new ArrayList<>(timeline.size() + 1);
+        patched.addAll(timeline);
+        int index = patched.size();
+        while (index > 0 && patched.get(index - 1).getMessage_id() > message.getMessage_id()) {
+            index--;
+        }
+        if (index > 0 && patched.get(index - 1).getMessage_id() == message.getMessage_id()) {
+            patched.set(index - 1, message);
+        } else {
+            patched.add(index, message);
+        }
+        return Collections.unmodifiableList(patched);
+    }
+
+    /**
+     * @return a copy of the timeline with the message of the same id replaced
+     */
+    private static List<Message> replace(List<Message> timeline, Message message) {
+        List<Message> patched = new ArrayList<>(timeline);
+        for (int i = 0; i < patched.size(); i++) {
+            if (patched.get(i).getMessage_id() == message.getMessage_id()) {
+                patched.set(i, message);
+            }
+        }
+        return Collections.unmodifiableList(patched);
+    }
+
+    /**
+     * @return a copy of the timeline in which the message of the same id has the given message's
+     *         like count; the rest of the cached message is kept
+     */
+    private static List<Message> setLikeCount(List<Message> timeline, Message message) {
+        List<Message> patched = new ArrayList<>(timeline);
+        for (int i = 0; i < patched.size(); i++) {
+            Message cached = patched.get(i);
+            if (cached.getMessage_id() == message.getMessage_id()) {
+                Message copy = new Message(cached.getMessage_id(), cached.getPosted_by(),
+                        cached.getMessage_text(), cached.getTime_posted_epoch());
+                copy.setLike_count(message.getLike_count());
+                patched.set(i, copy);
+            }
+        }
+        return Collections.unmodifiableList(patched);
+    }
+
+    /**
+     * @return a copy of the timeline without the message with the given id
+     */
+    private static List<Message> remove(List<Message> timeline, int msgId) {
+        List<Message> patched = new ArrayList<>(timeline);
+        patched.removeIf(message -> message.getMessage_id() == msgId);
+        return Collections.unmodifiableList(patched);
+    }
+
+    /**
+     * Applies a patch to the account's cached timeline once the current unit of work commits, so
+     * other requests never see a write that may still roll back. If the unit rolls back the
+     * timeline is dropped instead, in case it was reloaded with the uncommitted rows meanwhile.
+     */
+    private void patchAfterCommit(int accountId, UnaryOperator<List<Message>> patch) {
+        UnitOfWork.afterCommit(() -> timelines.computeIfPresent(accountId, patch));
+        UnitOfWork.onRollback(() -> timelines.invalidate(accountId));
+    }
+}
@@ -1,4 +1,5 @@
 import Controller.SocialMediaController;
+import Util.ConfigUtil;
 import Util.ConnectionUtil;
 import io.javalin.Javalin;
 
@@ -8,8 +9,12 @@ import io.javalin.Javalin;
  */
 public class Main {
     public static void main(String[] args) {
-        //INIT db
-        ConnectionUtil.resetTestDatabase();
+        //INIT db: production mode only applies pending migrations, development mode starts from the seed data
+        if ("production".equalsIgnoreCase(ConfigUtil.getString("app.mode", "development"))) {
+            ConnectionUtil.migrateDatabase();
+        } else {
+            ConnectionUtil.resetTestDatabase();
+        }
 
         SocialMediaController controller = new SocialMediaController();
         Javalin app = controller.startAPI();
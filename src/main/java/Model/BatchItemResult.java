@@ -0,0 +1,90 @@
+package Model;
+
+/**
+ * This is a class that models the outcome of one message in a batch request.
+ *
+ * Exactly one of message and error is set: message holds the created message, with its generated
+ * message_id, and error explains why the item was rejected.
+ */
+public class BatchItemResult {
+    /**
+     * The position of the item in the request array, starting at 0.
+     */
+    public int index;
+    /**
+     * The created message, or null if the item was rejected.
+     */
+    public Message message;
+    /**
+     * Why the item was rejected, or null if it was created.
+     */
+    public String error;
+
+    /**
+     * A default, no-args constructor is needed for Jackson ObjectMapper to work.
+     */
+    public BatchItemResult() {
+    }
+
+    /**
+     * @param index the position of the item in the request
+     * @param message the created message, or null
+     * @param error the rejection reason, or null
+     */
+    public BatchItemResult(int index, Message message, String error) {
+        this.index = index;
+        this.message = message;
+        this.error = error;
+    }
+
+    /**
+     * @return index
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @param index
+     */
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    /**
+     * @return message
+     */
+    public Message getMessage() {
+        return message;
+    }
+
+    /**
+     * @param message
+     */
+    public void setMessage(Message message) {
+        this.message = message;
+    }
+
+    /**
+     * @return error
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * @param error
+     */
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchItemResult{" +
+                "index=" + index +
+                ", message=" + message +
+                ", error='" + error + '\'' +
+                '}';
+    }
+}
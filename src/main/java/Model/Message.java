@@ -24,6 +24,11 @@ public class Message {
      * to store this number. We will assume that this number is provided by the front-end of this application.
      */
     public long time_posted_epoch;
+    /**
+     * The number of times this message has been liked. Maintained by the server; ignored when a message is
+     * created or updated, and not part of equals() so a message keeps its identity as it collects likes.
+     */
+    public long like_count;
     /**
      * A default, no-args constructor, as well as correctly formatted getters and setters, are needed for
      * Jackson Objectmapper to work.
@@ -112,6 +117,20 @@ public class Message {
     public void setTime_posted_epoch(long time_posted_epoch) {
         this.time_posted_epoch = time_posted_epoch;
     }
+    /**
+     * Properly named getters and setters are necessary for Jackson ObjectMapper to work. You may use them as well.
+     * @return like_count
+     */
+    public long getLike_count() {
+        return like_count;
+    }
+    /**
+     * Properly named getters and setters are necessary for Jackson ObjectMapper to work. You may use them as well.
+     * @param like_count
+     */
+    public void setLike_count(long like_count) {
+        this.like_count = like_count;
+    }
     /**
      * Overriding the default equals() method adds functionality to tell when two objects are identical, allowing
      * Assert.assertEquals and List.contains to function.
@@ -137,6 +156,7 @@ public class Message {
                 ", posted_by=" + posted_by +
                 ", message_text='" + message_text + '\'' +
                 ", time_posted_epoch=" + time_posted_epoch +
+                ", like_count=" + like_count +
                 '}';
     }
 }
@@ -0,0 +1,68 @@
+package Model;
+
+import java.util.List;
+
+/**
+ * This is a class that models one page of a message listing.
+ */
+public class MessagePage {
+    /**
+     * The messages on this page, ordered by time_posted_epoch and then message_id.
+     */
+    public List<Message> messages;
+    /**
+     * An opaque cursor for the next page, or null if this is the last page.
+     */
+    public String next;
+
+    /**
+     * A default, no-args constructor is needed for Jackson ObjectMapper to work.
+     */
+    public MessagePage() {
+    }
+
+    /**
+     * @param messages the messages on this page
+     * @param next the cursor for the next page, or null if there is none
+     */
+    public MessagePage(List<Message> messages, String next) {
+        this.messages = messages;
+        this.next = next;
+    }
+
+    /**
+     * @return messages
+     */
+    public List<Message> getMessages() {
+        return messages;
+    }
+
+    /**
+     * @param messages
+     */
+    public void setMessages(List<Message> messages) {
+        this.messages = messages;
+    }
+
+    /**
+     * @return next
+     */
+    public String getNext() {
+        return next;
+    }
+
+    /**
+     * @param next
+     */
+    public void setNext(String next) {
+        this.next = next;
+    }
+
+    @Override
+    public String toString() {
+        return "MessagePage{" +
+                "messages=" + messages +
+                ", next='" + next + '\'' +
+                '}';
+    }
+}
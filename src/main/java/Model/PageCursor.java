@@ -0,0 +1,86 @@
+package Model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * This is a class that models a position in a list of messages ordered by (time_posted_epoch, message_id).
+ *
+ * Clients receive a cursor as an opaque string in the "next" field of a MessagePage and pass it back
+ * unchanged to fetch the following page. The page then starts right after the message identified by
+ * the cursor, so the cost of a page does not depend on how many pages came before it.
+ */
+public class PageCursor {
+    /**
+     * The time_posted_epoch of the last message on the previous page.
+     */
+    private final long timePostedEpoch;
+    /**
+     * The message_id of the last message on the previous page, used to break ties between
+     * messages posted in the same second.
+     */
+    private final int messageId;
+
+    /**
+     * @param timePostedEpoch the time_posted_epoch of the last message already returned
+     * @param messageId the message_id of the last message already returned
+     */
+    public PageCursor(long timePostedEpoch, int messageId) {
+        this.timePostedEpoch = timePostedEpoch;
+        this.messageId = messageId;
+    }
+
+    /**
+     * @param message the last message already returned
+     * @return a cursor pointing just past that message
+     */
+    public static PageCursor after(Message message) {
+        return new PageCursor(message.getTime_posted_epoch(), message.getMessage_id());
+    }
+
+    /**
+     * @return time_posted_epoch
+     */
+    public long getTimePostedEpoch() {
+        return timePostedEpoch;
+    }
+
+    /**
+     * @return message_id
+     */
+    public int getMessageId() {
+        return messageId;
+    }
+
+    /**
+     * @return the opaque string form of this cursor
+     */
+    public String encode() {
+        String raw = timePostedEpoch + ":" + messageId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param encoded a string previously produced by encode()
+     * @return the decoded cursor
+     * @throws IllegalArgumentException if the string is not a valid cursor
+     */
+    public static PageCursor decode(String encoded) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new PageCursor(Long.parseLong(raw.substring(0, separator)),
+                    Integer.parseInt(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + encoded);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PageCursor{" +
+                "timePostedEpoch=" + timePostedEpoch +
+                ", messageId=" + messageId +
+                '}';
+    }
+}
@@ -0,0 +1,81 @@
+package Model;
+
+import java.util.Objects;
+
+/**
+ * This is a class that models one entry of the trending hashtags list.
+ */
+public class TrendingHashtag {
+    /**
+     * The hashtag, lower-cased and without the leading '#'.
+     */
+    public String hashtag;
+    /**
+     * The estimated number of messages that used the hashtag in the requested window.
+     */
+    public long count;
+
+    /**
+     * A default, no-args constructor is needed for Jackson ObjectMapper to work.
+     */
+    public TrendingHashtag() {
+    }
+
+    /**
+     * @param hashtag the hashtag without the leading '#'
+     * @param count the estimated number of uses
+     */
+    public TrendingHashtag(String hashtag, long count) {
+        this.hashtag = hashtag;
+        this.count = count;
+    }
+
+    /**
+     * @return hashtag
+     */
+    public String getHashtag() {
+        return hashtag;
+    }
+
+    /**
+     * @param hashtag
+     */
+    public void setHashtag(String hashtag) {
+        this.hashtag = hashtag;
+    }
+
+    /**
+     * @return count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @param count
+     */
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TrendingHashtag that = (TrendingHashtag) o;
+        return count == that.count && Objects.equals(hashtag, that.hashtag);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(hashtag, count);
+    }
+
+    @Override
+    public String toString() {
+        return "TrendingHashtag{" +
+                "hashtag='" + hashtag + '\'' +
+                ", count=" + count +
+                '}';
+    }
+}
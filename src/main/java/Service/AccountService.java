@@ -14,6 +14,7 @@ public interface AccountService {
      *                (must include a non-blank username and a password with a minimum length of 4 characters)
      * @return the registered Account object if the registration is successful,
      *         or null if validation fails or the account already exists
+     * @throws DAO.DataAccessException if the existing accounts could not be read
      */
     Account registerUser(Account account);
 
@@ -25,6 +26,7 @@ public interface AccountService {
      *
      * @param account the account object containing the username and password to validate
      * @return the logged-in account object if credentials are valid, otherwise null
+     * @throws DAO.DataAccessException if the account could not be read
      */
     Account login(Account account);
 
@@ -33,6 +35,37 @@ public interface AccountService {
      *
      * @param accountId the unique identifier of the account to check
      * @return true if the account exists, false otherwise
+     * @throws DAO.DataAccessException if the account could not be read
      */
     Boolean accountExists(int accountId);
+
+    /**
+     * Starts a session for an account that has just logged in.
+     *
+     * @param accountId the account that logged in
+     * @return an opaque token the client sends back as "Authorization: Bearer {token}"
+     */
+    String createSession(int accountId);
+
+    /**
+     * Identifies the account behind a session token without touching the database. Each
+     * successful lookup extends the session's idle timeout.
+     *
+     * @param token the token returned by createSession
+     * @return the session's account id, or null if the token is unknown or has expired
+     */
+    Integer getSessionAccountId(String token);
+
+    /**
+     * Ends a session, so its token is refused from then on.
+     *
+     * @param token the token returned by createSession
+     * @return true if the token named a session, false if it was unknown or had already expired
+     */
+    boolean endSession(String token);
+
+    /**
+     * Stops background work.
+     */
+    void shutdown();
 }
@@ -2,17 +2,105 @@ package Service;
 
 import DAO.AccountDAO;
 import DAO.AccountDAOImpl;
+import DAO.CachingAccountDAO;
+import DAO.TimedAccountDAO;
 import Model.Account;
+import Util.BloomFilter;
+import Util.ConfigUtil;
+import Util.Logging;
+import Util.Metrics;
+
+import java.util.concurrent.atomic.LongAdder;
 
 import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 public class AccountServiceImpl implements AccountService {
-    private static final Logger logger = LoggerFactory.getLogger(AccountServiceImpl.class);
+    private static final Logger logger = Logging.getLogger(AccountServiceImpl.class);
     private final AccountDAO accountDAO;
 
+    /**
+     * Every username in the account table. If it says a name is definitely new, registerUser skips
+     * the existence query and lets the UNIQUE constraint catch the rare race with another signup.
+     * Null if the filter could not be built, in which case every registration is pre-checked.
+     */
+    private final BloomFilter usernameFilter;
+    private final LongAdder usernameChecks = new LongAdder();
+    private final LongAdder usernameFalsePositives = new LongAdder();
+    private final SessionStore sessions;
+
+    /**
+     * Creates the application's account service and registers its gauges for GET /metrics. Each
+     * instance scans every username and runs its own session sweeper, so build one and share it.
+     */
     public AccountServiceImpl() {
-        this.accountDAO = new AccountDAOImpl();
+        this(createAccountDAO());
+        registerMetrics();
+    }
+
+    /**
+     * @return the database DAO, timed, behind the account cache, whose counters are registered for GET /metrics
+     */
+    private static AccountDAO createAccountDAO() {
+        CachingAccountDAO accountCache = new CachingAccountDAO(new TimedAccountDAO(new AccountDAOImpl()));
+        Metrics.global().registerCache("accounts_by_id", accountCache::getIdCacheStats);
+        Metrics.global().registerCache("accounts_by_username", accountCache::getUsernameCacheStats);
+        return accountCache;
+    }
+
+    /**
+     * Sessions expire after sessions.idleTimeoutMs without use and are swept every sessions.sweepIntervalMs.
+     */
+    public AccountServiceImpl(AccountDAO accountDAO) {
+        this.accountDAO = accountDAO;
+        this.usernameFilter = buildUsernameFilter();
+        this.sessions = new SessionStore(ConfigUtil.getLong("sessions.idleTimeoutMs", 3600000),
+                ConfigUtil.getLong("sessions.sweepIntervalMs", 60000));
+    }
+
+    private void registerMetrics() {
+        Metrics.global().register("bloom_filter_expected_false_positive_rate",
+                "False-positive probability the username filter expects at its current fill", "gauge",
+                Metrics.labels("filter", "usernames"), this::getUsernameFilterExpectedFalsePositiveRate);
+        Metrics.global().register("bloom_filter_observed_false_positive_rate",
+                "Share of \"might exist\" answers from the username filter that were new usernames", "gauge",
+                Metrics.labels("filter", "usernames"), this::getUsernameFilterObservedFalsePositiveRate);
+        Metrics.global().register("sessions_active", "Sessions held in memory, including expired ones not yet swept",
+                "gauge", "", sessions::size);
+    }
+
+    /**
+     * Loads every existing username into a new Bloom filter sized by the
+     * accounts.usernameFilter.expectedInsertions and accounts.usernameFilter.falsePositiveRate settings.
+     *
+     * @return the filter, or null if the usernames could not be read
+     */
+    private BloomFilter buildUsernameFilter() {
+        BloomFilter filter = new BloomFilter(
+                ConfigUtil.getLong("accounts.usernameFilter.expectedInsertions", 1000000),
+                ConfigUtil.getDouble("accounts.usernameFilter.falsePositiveRate", 0.01));
+        long count = accountDAO.streamAllUsernames(filter::put);
+        if (count < 0) {
+            logger.warn("Username filter disabled: could not load existing usernames");
+            return null;
+        }
+        logger.info("Username filter built from {} accounts", count);
+        return filter;
+    }
+
+    /**
+     * @return the false-positive probability the username filter expects at its current fill
+     */
+    public double getUsernameFilterExpectedFalsePositiveRate() {
+        return usernameFilter == null ? 1.0 : usernameFilter.getExpectedFalsePositiveRate();
+    }
+
+    /**
+     * @return the fraction of "might exist" answers from the username filter that turned out to be
+     *         new usernames, as seen by registerUser; 0 if the filter is disabled
+     */
+    public double getUsernameFilterObservedFalsePositiveRate() {
+        long checks = usernameChecks.sum();
+        return checks == 0 ? 0 : (double) usernameFalsePositives.sum() / checks;
     }
 
     @Override
@@ -26,14 +114,26 @@ public class AccountServiceImpl implements AccountService {
             logger.warn("Registration failed: Password is too short");
             return null;
         }
-        Account existingAccount = accountDAO.getAccountByUsername(account.getUsername());
-        if (existingAccount != null) {
-            logger.warn("Registration failed: Account already exists");
-            return null;
+        if (usernameFilter == null || usernameFilter.mightContain(account.getUsername())) {
+            Account existingAccount = accountDAO.getAccountByUsername(account.getUsername());
+            if (usernameFilter != null) {
+                usernameChecks.increment();
+                if (existingAccount == null) {
+                    usernameFalsePositives.increment();
+                }
+            }
+            if (existingAccount != null) {
+                logger.warn("Registration failed: Account already exists");
+                return null;
+            }
         }
-        // validated, create the account
+        // validated, create the account; a duplicate that slipped past the filter fails on the UNIQUE constraint
         logger.info("Registering new user: {}", account.getUsername());
-        return accountDAO.createAccount(account);
+        Account createdAccount = accountDAO.createAccount(account);
+        if (createdAccount != null && usernameFilter != null) {
+            usernameFilter.put(createdAccount.getUsername());
+        }
+        return createdAccount;
     }
 
     @Override
@@ -70,4 +170,30 @@ public class AccountServiceImpl implements AccountService {
         return exists;
     }
 
+    @Override
+    public String createSession(int accountId) {
+        String token = sessions.create(accountId);
+        logger.info("Session started for user ID: {}", accountId);
+        return token;
+    }
+
+    @Override
+    public Integer getSessionAccountId(String token) {
+        return sessions.getAccountId(token);
+    }
+
+    @Override
+    public boolean endSession(String token) {
+        boolean ended = sessions.remove(token);
+        if (ended) {
+            logger.info("Session ended");
+        }
+        return ended;
+    }
+
+    @Override
+    public void shutdown() {
+        sessions.shutdown();
+    }
+
 }
\ No newline at end of file
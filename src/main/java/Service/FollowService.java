@@ -0,0 +1,40 @@
+package Service;
+
+import Model.Message;
+import java.util.List;
+
+public interface FollowService {
+    /**
+     * Makes one account follow another. Following an account that is already followed succeeds.
+     *
+     * @param followerId the account that follows
+     * @param followeeId the account to follow
+     * @return true if the follow exists afterwards, false if either account does not exist, the
+     *         accounts are the same, or the follow could not be stored
+     */
+    boolean follow(int followerId, int followeeId);
+
+    /**
+     * Stops one account following another. Unfollowing an account that is not followed succeeds.
+     *
+     * @param followerId the account that follows
+     * @param followeeId the account to unfollow
+     * @return true if the follow no longer exists, false if it could not be removed
+     */
+    boolean unfollow(int followerId, int followeeId);
+
+    /**
+     * Retrieves an account's home feed: the newest messages posted by the accounts it follows.
+     *
+     * @param accountId the account whose feed to build
+     * @param limit the most messages to return; clamped to the feed size
+     * @return the most recently posted messages, newest first by time_posted_epoch and then
+     *         message_id
+     */
+    List<Message> getFeed(int accountId, int limit);
+
+    /**
+     * Stops background work.
+     */
+    void shutdown();
+}
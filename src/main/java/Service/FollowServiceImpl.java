@@ -0,0 +1,345 @@
+package Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import DAO.FollowDAO;
+import DAO.FollowDAOImpl;
+import Model.Message;
+import Util.ConfigUtil;
+import Util.FollowGraph;
+import Util.Logging;
+import Util.LruCache;
+import Util.UnitOfWork;
+
+import org.slf4j.Logger;
+
+/**
+ * Follows and home feeds.
+ *
+ * The follow table is mirrored in an in-memory FollowGraph. Home feeds are built mostly by
+ * fan-out on write: when a message is created, its id is added to a bounded buffer for each
+ * follower whose feed is in memory. Authors with more than feed.fanOutMaxFollowers followers
+ * are skipped on write; their newest messages are pulled with a bounded query when a follower
+ * reads the feed instead. When an
+ * unfollow brings an author back down to the limit, its followers' feeds are rebuilt so the
+ * messages that were being pulled are not lost.
+ *
+ * onCreated() only puts the message on a bounded queue, and a single fan-out thread pushes it to
+ * the followers' feeds, so a post never waits for its followers. Feeds therefore show a new
+ * message shortly after it is created rather than at once. If the queue is full, every cached
+ * feed is dropped instead, and each is rebuilt from the database on its next read.
+ *
+ * A feed is made of the most recently posted messages of the accounts followed, and is returned
+ * newest first by time_posted_epoch and then message_id, the same order as the time range and
+ * search results. Feed buffers keep their ids in that order too, so the messages a full buffer
+ * keeps are the same whether it was filled by fan-out or seeded from the database.
+ *
+ * Feed buffers are kept in an LRU cache, so only recently read feeds use memory. A feed that is
+ * not cached is rebuilt on its next read from the newest messages of the accounts it follows.
+ */
+public class FollowServiceImpl implements FollowService, MessageListener {
+    private static final Logger logger = Logging.getLogger(FollowServiceImpl.class);
+    private static final Logger readLogger = Logging.getSampledLogger(FollowServiceImpl.class, "reads");
+    private static final Comparator<Message> OLDEST_FIRST = Comparator.comparingLong(Message::getTime_posted_epoch)
+            .thenComparingInt(Message::getMessage_id);
+    private static final Comparator<Message> NEWEST_FIRST = OLDEST_FIRST.reversed();
+    private final FollowDAO followDAO;
+    private final AccountService accountService;
+    private final MessageService messageService;
+    private final FollowGraph graph = new FollowGraph();
+    private final LruCache<Integer, Timeline> timelines;
+    private final int timelineSize;
+    private final int fanOutMaxFollowers;
+    private final BlockingQueue<Message> fanOutQueue;
+    private final Thread fanOutThread;
+    private volatile boolean running = true;
+
+    /**
+     * @param accountService the account service to validate accounts with
+     * @param messageService the message service to read messages from and listen to for new ones
+     */
+    public FollowServiceImpl(AccountService accountService, MessageService messageService) {
+        this(new FollowDAOImpl(), accountService, messageService);
+    }
+
+    /**
+     * Loads the follow graph, sizes the feeds by the feed.timelineSize, feed.maxTimelines and
+     * feed.fanOutMaxFollowers settings, and starts the fan-out thread with a queue of
+     * feed.fanOutQueueCapacity messages.
+     */
+    public FollowServiceImpl(FollowDAO followDAO, AccountService accountService, MessageService messageService) {
+        this.followDAO = followDAO;
+        this.accountService = accountService;
+        this.messageService = messageService;
+        this.timelineSize = Math.max(1, ConfigUtil.getInt("feed.timelineSize", 200));
+        this.timelines = new LruCache<>(ConfigUtil.getInt("feed.maxTimelines", 100000), 0);
+        this.fanOutMaxFollowers = ConfigUtil.getInt("feed.fanOutMaxFollowers", 10000);
+        this.fanOutQueue = new ArrayBlockingQueue<>(Math.max(1, ConfigUtil.getInt("feed.fanOutQueueCapacity", 10000)));
+
+        long count = followDAO.streamAllFollows(graph::add);
+        if (count < 0) {
+            logger.error("Could not load the follow graph; feeds will be empty until follows are added");
+        } else {
+            logger.info("Loaded {} follows", count);
+        }
+        this.fanOutThread = new Thread(this::run, "feed-fan-out");
+        this.fanOutThread.setDaemon(true);
+        this.fanOutThread.start();
+        messageService.addListener(this);
+    }
+
+    @Override
+    public boolean follow(int followerId, int followeeId) {
+        if (followerId == followeeId) {
+            logger.warn("Follow failed: account {} cannot follow itself", followerId);
+            return false;
+        }
+        if (!accountService.accountExists(followerId) || !accountService.accountExists(followeeId)) {
+            logger.warn("Follow failed: account {} or {} does not exist", followerId, followeeId);
+            return false;
+        }
+        if (!followDAO.follow(followerId, followeeId)) {
+            return false;
+        }
+        UnitOfWork.afterCommit(() -> {
+            if (graph.add(followerId, followeeId)) {
+                // rebuild the feed on its next read so it includes the new followee's recent messages
+                timelines.invalidate(followerId);
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public boolean unfollow(int followerId, int followeeId) {
+        if (!followDAO.unfollow(followerId, followeeId)) {
+            return false;
+        }
+        // messages already in the feed buffer are filtered out on read
+        UnitOfWork.afterCommit(() -> {
+            if (graph.remove(followerId, followeeId) && graph.getFollowerCount(followeeId) == fanOutMaxFollowers) {
+                // the followee is pushed on write from now on, but the cached feeds of its followers
+                // hold none of the messages that were pulled on read, so rebuild them
+                for (int otherFollowerId : graph.getFollowers(followeeId)) {
+                    timelines.invalidate(otherFollowerId);
+                }
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public List<Message> getFeed(int accountId, int limit) {
+        int feedSize = Math.max(1, Math.min(limit, timelineSize));
+        int[] followees = graph.getFollowing(accountId);
+        if (followees.length == 0) {
+            return new ArrayList<>();
+        }
+
+        LruCache.Entry<Timeline> cached = timelines.getIfPresent(accountId);
+        Timeline timeline = cached == null ? null : cached.getValue();
+        if (timeline == null) {
+            timeline = new Timeline(timelineSize);
+            // cache it before pulling so messages created meanwhile are pushed into it
+            timelines.put(accountId, timeline);
+            timeline.seed(pullPushedAuthors(followees));
+        }
+
+        Map<Integer, Message> feed = new HashMap<>();
+        int[] ids = timeline.newestFirst();
+        List<Integer> msgIds = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            msgIds.add(id);
+        }
+        for (Message message : messageService.getMessagesByIds(msgIds)) {
+            // deleted messages come back null, and unfollowed authors may still be in the buffer
+            if (message != null && graph.isFollowing(accountId, message.getPosted_by())) {
+                feed.put(message.getMessage_id(), message);
+            }
+        }
+        for (int followee : followees) {
+            if (!isFannedOut(followee)) {
+                for (Message message : recentMessages(followee, feedSize)) {
+                    feed.put(message.getMessage_id(), message);
+                }
+            }
+        }
+
+        List<Message> messages = new ArrayList<>(feed.values());
+        messages.sort(NEWEST_FIRST);
+        readLogger.info("Built feed of {} messages for account ID: {}", Math.min(messages.size(), feedSize), accountId);
+        return messages.size() > feedSize ? new ArrayList<>(messages.subList(0, feedSize)) : messages;
+    }
+
+    @Override
+    public void onCreated(Message msg) {
+        if (!isFannedOut(msg.getPosted_by())) {
+            return;
+        }
+        if (!running || !fanOutQueue.offer(msg)) {
+            // the message reaches no cached feed, so rebuild them all from the database
+            timelines.invalidateAll();
+            logger.warn("Fan-out queue full; dropped all cached feeds to include message ID: {}", msg.getMessage_id());
+        }
+    }
+
+    /**
+     * Stops the fan-out thread after it has pushed the messages already queued.
+     */
+    @Override
+    public void shutdown() {
+        running = false;
+        try {
+            fanOutThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (running || !fanOutQueue.isEmpty()) {
+            try {
+                Message msg = fanOutQueue.poll(100, TimeUnit.MILLISECONDS);
+                if (msg != null) {
+                    fanOut(msg);
+                }
+            } catch (InterruptedException e) {
+                running = false;
+                // the queued messages will not be pushed, so rebuild the feeds from the database
+                fanOutQueue.clear();
+                timelines.invalidateAll();
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Error fanning out message: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Pushes a message into the cached feed of each of its author's followers.
+     */
+    private void fanOut(Message msg) {
+        for (int followerId : graph.getFollowers(msg.getPosted_by())) {
+            LruCache.Entry<Timeline> cached = timelines.getIfPresent(followerId);
+            if (cached != null && cached.getValue() != null) {
+                cached.getValue().push(msg.getMessage_id(), msg.getTime_posted_epoch());
+            }
+        }
+    }
+
+    /**
+     * @return true if the author's messages are pushed into follower feeds on write, false if
+     *         they are pulled on read because the author has too many followers
+     */
+    private boolean isFannedOut(int authorId) {
+        return graph.getFollowerCount(authorId) <= fanOutMaxFollowers;
+    }
+
+    /**
+     * @return the recent messages of every fanned-out followee, oldest first by time_posted_epoch
+     *         and then message_id
+     */
+    private List<Message> pullPushedAuthors(int[] followees) {
+        List<Message> messages = new ArrayList<>();
+        for (int followee : followees) {
+            if (isFannedOut(followee)) {
+                messages.addAll(recentMessages(followee, timelineSize));
+            }
+        }
+        messages.sort(OLDEST_FIRST);
+        return messages;
+    }
+
+    /**
+     * @return up to count of the account's newest messages, read with a bounded query so a
+     *         prolific author costs no more than any other
+     */
+    private List<Message> recentMessages(int accountId, int count) {
+        return messageService.getNewestMessagesByAccountId(accountId, count);
+    }
+
+    /**
+     * A fixed-size ring buffer of message ids kept oldest first by time_posted_epoch and then
+     * message_id, the order feeds are returned in; once full, each new message drops the oldest.
+     */
+    private static final class Timeline {
+        private final int[] ids;
+        private final long[] times;
+        private int start;
+        private int size;
+
+        private Timeline(int capacity) {
+            this.ids = new int[capacity];
+            this.times = new long[capacity];
+        }
+
+        /**
+         * Adds a message in order. New messages almost always go last, so the search starts there.
+         * A message already held, or older than every message in a full buffer, is ignored.
+         */
+        private synchronized void push(int id, long time) {
+            int index = size;
+            while (index > 0 && isBefore(id, time, index - 1)) {
+                index--;
+            }
+            if (index > 0 && ids[slot(index - 1)] == id) {
+                return;
+            }
+            if (size == ids.length) {
+                if (index == 0) {
+                    return;
+                }
+                start = (start + 1) % ids.length;
+                size--;
+                index--;
+            }
+            for (int i = size; i > index; i--) {
+                ids[slot(i)] = ids[slot(i - 1)];
+                times[slot(i)] = times[slot(i - 1)];
+            }
+            ids[slot(index)] = id;
+            times[slot(index)] = time;
+            size++;
+        }
+
+        /**
+         * Merges messages pulled from the database with any pushed since the buffer was created,
+         * keeping the newest.
+         *
+         * @param pulled messages oldest first by time_posted_epoch and then message_id
+         */
+        private synchronized void seed(List<Message> pulled) {
+            for (Message message : pulled) {
+                push(message.getMessage_id(), message.getTime_posted_epoch());
+            }
+        }
+
+        private synchronized int[] newestFirst() {
+            int[] newest = new int[size];
+            for (int i = 0; i < size; i++) {
+                newest[i] = ids[slot(size - 1 - i)];
+            }
+            return newest;
+        }
+
+        /**
+         * @return true if the message sorts before the one at the given position
+         */
+        private boolean isBefore(int id, long time, int index) {
+            long other = times[slot(index)];
+            return time < other || time == other && id < ids[slot(index)];
+        }
+
+        private int slot(int index) {
+            return (start + index) % ids.length;
+        }
+    }
+}
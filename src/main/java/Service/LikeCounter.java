@@ -0,0 +1,245 @@
+package Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import DAO.DataAccessException;
+import DAO.MessageDAO;
+import Model.Message;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Counts likes in memory and adds them to the message table in batches.
+ *
+ * A like only increments a LongAdder kept per message id. LongAdder spreads concurrent increments
+ * over striped cells, so many threads liking the same hot message do not contend on one counter,
+ * and no like costs a database write. A flusher thread drains the counters every flush interval
+ * and applies all the deltas with one batched UPDATE.
+ *
+ * Readers add the likes not yet flushed to the count read from the database (see merge()). A batch
+ * is published as in flight before its likes are taken off the counters, and stays counted until
+ * the write has finished, so a count never drops back. For the moment just before the counters
+ * are drained, and the moment between the batch committing and the flusher noting it, a read may
+ * count the batch twice.
+ */
+public class LikeCounter {
+    private static final Logger logger = LoggerFactory.getLogger(LikeCounter.class);
+
+    private final MessageDAO messageDAO;
+    private final long flushIntervalMillis;
+    private final Consumer<Message> flushed;
+    private final Map<Integer, LongAdder> pending = new ConcurrentHashMap<>();
+    /**
+     * Counters removed from pending on the last flush. A like that read one from the map just
+     * before it was removed lands here, so these are drained once more on the next flush.
+     */
+    private Map<Integer, LongAdder> retired = new HashMap<>();
+    /**
+     * The deltas of the batch being written, counted by readers until the write has finished.
+     */
+    private volatile Map<Integer, Long> flushing = Collections.emptyMap();
+    private final Thread flusherThread;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    /**
+     * Creates the counter and starts its flusher thread.
+     *
+     * @param messageDAO the DAO to add the likes to the message table with
+     * @param flushIntervalMillis how often pending likes are written; 0 or less starts no flusher,
+     *                            and likes are written only when flush() is called
+     */
+    public LikeCounter(MessageDAO messageDAO, long flushIntervalMillis) {
+        this(messageDAO, flushIntervalMillis, message -> { });
+    }
+
+    /**
+     * @param messageDAO the DAO to add the likes to the message table with
+     * @param flushIntervalMillis how often pending likes are written; 0 or less starts no flusher,
+     *                            and likes are written only when flush() is called
+     * @param flushed told about each message whose likes were written, once readers no longer
+     *                count the batch twice
+     */
+    public LikeCounter(MessageDAO messageDAO, long flushIntervalMillis, Consumer<Message> flushed) {
+        this.messageDAO = messageDAO;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.flushed = flushed;
+        if (flushIntervalMillis > 0) {
+            this.flusherThread = new Thread(this::run, "like-flusher");
+            this.flusherThread.setDaemon(true);
+            this.flusherThread.start();
+        } else {
+            this.flusherThread = null;
+        }
+    }
+
+    /**
+     * Counts one like. Never touches the database.
+     *
+     * @param msgId the liked message
+     */
+    public void like(int msgId) {
+        LongAdder counter = pending.get(msgId);
+        if (counter == null) {
+            counter = pending.computeIfAbsent(msgId, id -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    /**
+     * @param msgId the message
+     * @return the likes counted for the message that are not yet in the message table
+     */
+    public long getPending(int msgId) {
+        LongAdder counter = pending.get(msgId);
+        long count = counter == null ? 0 : counter.sum();
+        Long inFlight = flushing.get(msgId);
+        return inFlight == null ? count : count + inFlight;
+    }
+
+    /**
+     * @param message a message read from the database or a cache, or null
+     * @return the message with its pending likes added to like_count; a copy if there are any,
+     *         since messages read from a cache are shared
+     */
+    public Message merge(Message message) {
+        if (message == null) {
+            return null;
+        }
+        long count = getPending(message.getMessage_id());
+        if (count == 0) {
+            return message;
+        }
+        Message merged = new Message(message.getMessage_id(), message.getPosted_by(),
+                message.getMessage_text(), message.getTime_posted_epoch());
+        merged.setLike_count(message.getLike_count() + count);
+        return merged;
+    }
+
+    /**
+     * @param messages messages read from the database or a cache; may contain nulls
+     * @return the messages with their pending likes merged, or the same list if nothing is pending
+     */
+    public List<Message> merge(List<Message> messages) {
+        if (pending.isEmpty() && flushing.isEmpty()) {
+            return messages;
+        }
+        List<Message> merged = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            merged.add(merge(message));
+        }
+        return merged;
+    }
+
+    /**
+     * Writes every pending like to the message table. Runs on the flusher thread, but may also be
+     * called directly; calls are serialized.
+     *
+     * @return the number of messages whose counts were written, or -1 if the write failed and the
+     *         likes were put back to be retried
+     */
+    public synchronized int flush() {
+        Map<Integer, Long> deltas = new HashMap<>();
+        Map<LongAdder, Long> taken = new IdentityHashMap<>();
+        retired.forEach((msgId, counter) -> take(msgId, counter, deltas, taken));
+        retired = new HashMap<>();
+        for (Map.Entry<Integer, LongAdder> entry : pending.entrySet()) {
+            if (!take(entry.getKey(), entry.getValue(), deltas, taken)
+                    && pending.remove(entry.getKey(), entry.getValue())) {
+                // idle since the last flush; drop it so the map only holds recently liked messages
+                retired.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+
+        List<Message> updated;
+        // publish the batch before draining the counters, so a read in between counts its likes
+        // twice rather than not at all
+        flushing = deltas;
+        taken.forEach((counter, delta) -> counter.add(-delta));
+        try {
+            updated = addLikes(deltas);
+            if (updated == null) {
+                logger.error("Could not write likes for {} messages; retrying on the next flush", deltas.size());
+                deltas.forEach((msgId, delta) -> pending.computeIfAbsent(msgId, id -> new LongAdder()).add(delta));
+                return -1;
+            }
+        } finally {
+            flushing = Collections.emptyMap();
+        }
+        logger.info("Flushed likes for {} messages", updated.size());
+        updated.forEach(flushed);
+        return updated.size();
+    }
+
+    /**
+     * @return the updated messages, or null if the write failed, including when no connection
+     *         could be acquired
+     */
+    private List<Message> addLikes(Map<Integer, Long> deltas) {
+        try {
+            return messageDAO.addLikes(deltas);
+        } catch (DataAccessException e) {
+            logger.error("Error writing likes: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Adds a counter's likes to the batch without resetting it; flush() takes them off once the
+     * batch is visible to readers.
+     *
+     * @return true if the counter had any likes
+     */
+    private static boolean take(int msgId, LongAdder counter, Map<Integer, Long> deltas, Map<LongAdder, Long> taken) {
+        long delta = counter.sum();
+        if (delta == 0) {
+            return false;
+        }
+        deltas.merge(msgId, delta, Long::sum);
+        taken.put(counter, delta);
+        return true;
+    }
+
+    /**
+     * Stops the flusher thread and writes the likes still pending.
+     */
+    public void shutdown() {
+        // wakes the flusher without interrupting it, since an interrupt can close H2's file channel mid-write
+        stopped.countDown();
+        if (flusherThread != null) {
+            try {
+                flusherThread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    private void run() {
+        try {
+            while (!stopped.await(flushIntervalMillis, TimeUnit.MILLISECONDS)) {
+                try {
+                    flush();
+                } catch (RuntimeException e) {
+                    logger.error("Error flushing likes: {}", e.getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package Service;
+
+import Model.Message;
+
+/**
+ * Receives message changes made through MessageService, after they have been committed, so
+ * in-memory structures such as the search index can follow the message table without polling it.
+ *
+ * Listeners run on the thread that committed the change and must return quickly.
+ */
+public interface MessageListener {
+    /**
+     * @param msg the message that was created, with its message_id
+     */
+    default void onCreated(Message msg) {
+    }
+
+    /**
+     * @param msg the message as it is after the update
+     */
+    default void onUpdated(Message msg) {
+    }
+
+    /**
+     * @param msg the message as it was before it was deleted
+     */
+    default void onDeleted(Message msg) {
+    }
+}
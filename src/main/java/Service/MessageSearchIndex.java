@@ -0,0 +1,367 @@
+package Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import DAO.MessageDAO;
+import Model.Message;
+import Util.SortedIntList;
+
+/**
+ * An in-memory inverted index over message_text, so search never runs a LIKE '%x%' table scan.
+ *
+ * Each token maps to a posting list: a SortedIntList of the ids of the messages containing it.
+ * A query is a disjunction of conjunctions ("a b OR c" means (a AND b) OR c). Conjunctions
+ * intersect posting lists starting from the shortest, disjunctions merge them, and the newest K
+ * matches by time_posted_epoch are picked with a bounded heap.
+ *
+ * The index also keeps, per message, its token ids and time_posted_epoch in arrays indexed by
+ * message_id, so an update or delete can remove exactly the postings it added. message_id is an
+ * auto-increment key, so these arrays stay dense.
+ *
+ * Reads take a shared lock and writes an exclusive one; writes are rare next to searches.
+ */
+public class MessageSearchIndex implements MessageListener {
+    private static final int[] EMPTY = new int[0];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> tokenIds = new HashMap<>();
+    private SortedIntList[] postings = new SortedIntList[1024];
+    private int[][] messageTokens = new int[1024][];
+    private long[] postedAt = new long[1024];
+    private int messageCount;
+
+    /**
+     * Adds every message in the database to the index.
+     *
+     * @param messageDAO the DAO to stream the messages from
+     * @return the number of messages indexed, or -1 if the messages could not be read
+     */
+    public long load(MessageDAO messageDAO) {
+        lock.writeLock().lock();
+        try {
+            return messageDAO.streamAllMessages(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onCreated(Message msg) {
+        lock.writeLock().lock();
+        try {
+            add(msg);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onUpdated(Message msg) {
+        lock.writeLock().lock();
+        try {
+            remove(msg.getMessage_id());
+            add(msg);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onDeleted(Message msg) {
+        lock.writeLock().lock();
+        try {
+            remove(msg.getMessage_id());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the newest messages matching a query. Terms separated by spaces must all match; the
+     * keyword OR separates alternatives. Matching ignores case and punctuation.
+     *
+     * @param query the query, for example "coffee morning OR tea"
+     * @param limit the most ids to return
+     * @return the ids of the matching messages, newest first by time_posted_epoch and then message_id
+     */
+    public int[] search(String query, int limit) {
+        List<List<String>> alternatives = parse(query);
+        lock.readLock().lock();
+        try {
+            int[] matches = EMPTY;
+            for (List<String> terms : alternatives) {
+                matches = union(matches, intersect(terms));
+            }
+            return newest(matches, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of messages in the index
+     */
+    public int getMessageCount() {
+        lock.readLock().lock();
+        try {
+            return messageCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of distinct tokens ever indexed
+     */
+    public int getTokenCount() {
+        lock.readLock().lock();
+        try {
+            return tokenIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Splits text into lower-case tokens of letters and digits.
+     *
+     * @param text the text to split
+     * @return the tokens, in order, possibly repeated
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean tokenChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * @param query the raw query
+     * @return the alternatives, each a list of terms that must all match
+     * @throws IllegalArgumentException if the query has no terms
+     */
+    private static List<List<String>> parse(String query) {
+        List<List<String>> alternatives = new ArrayList<>();
+        List<String> terms = new ArrayList<>();
+        for (String word : query == null ? new String[0] : query.trim().split("\\s+")) {
+            if (word.equals("OR")) {
+                if (!terms.isEmpty()) {
+                    alternatives.add(terms);
+                    terms = new ArrayList<>();
+                }
+            } else if (!word.equals("AND")) {
+                terms.addAll(tokenize(word));
+            }
+        }
+        if (!terms.isEmpty()) {
+            alternatives.add(terms);
+        }
+        if (alternatives.isEmpty()) {
+            throw new IllegalArgumentException("Search query has no terms");
+        }
+        return alternatives;
+    }
+
+    private void add(Message msg) {
+        int msgId = msg.getMessage_id();
+        if (msgId >= messageTokens.length) {
+            int capacity = Math.max(msgId + 1, messageTokens.length * 2);
+            messageTokens = Arrays.copyOf(messageTokens, capacity);
+            postedAt = Arrays.copyOf(postedAt, capacity);
+        }
+        if (messageTokens[msgId] != null) {
+            remove(msgId);
+        }
+
+        int[] tokens = tokenize(msg.getMessage_text()).stream()
+                .mapToInt(this::tokenId)
+                .distinct()
+                .toArray();
+        for (int token : tokens) {
+            postings[token].add(msgId);
+        }
+        messageTokens[msgId] = tokens;
+        postedAt[msgId] = msg.getTime_posted_epoch();
+        messageCount++;
+    }
+
+    private void remove(int msgId) {
+        if (msgId >= messageTokens.length || messageTokens[msgId] == null) {
+            return;
+        }
+        for (int token : messageTokens[msgId]) {
+            postings[token].remove(msgId);
+        }
+        messageTokens[msgId] = null;
+        messageCount--;
+    }
+
+    private int tokenId(String token) {
+        Integer id = tokenIds.get(token);
+        if (id != null) {
+            return id;
+        }
+        id = tokenIds.size();
+        tokenIds.put(token, id);
+        if (id >= postings.length) {
+            postings = Arrays.copyOf(postings, postings.length * 2);
+        }
+        postings[id] = new SortedIntList();
+        return id;
+    }
+
+    /**
+     * @param terms the terms that must all match
+     * @return the sorted ids of the messages containing every term
+     */
+    private int[] intersect(List<String> terms) {
+        SortedIntList[] lists = new SortedIntList[terms.size()];
+        for (int i = 0; i < lists.length; i++) {
+            Integer token = tokenIds.get(terms.get(i));
+            if (token == null || postings[token].size() == 0) {
+                return EMPTY;
+            }
+            lists[i] = postings[token];
+        }
+        // the shortest list bounds the result, so start from it and probe the longer ones
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size(), b.size()));
+
+        int[] result = lists[0].toArray();
+        int size = result.length;
+        for (int l = 1; l < lists.length && size > 0; l++) {
+            SortedIntList list = lists[l];
+            int kept = 0;
+            int from = 0;
+            for (int i = 0; i < size; i++) {
+                int found = list.indexOf(result[i], from);
+                if (found >= 0) {
+                    result[kept++] = result[i];
+                    from = found + 1;
+                } else {
+                    from = -found - 1;
+                }
+            }
+            size = kept;
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    /**
+     * @return the sorted, duplicate-free union of two sorted id arrays
+     */
+    private static int[] union(int[] a, int[] b) {
+        if (a.length == 0) {
+            return b;
+        }
+        if (b.length == 0) {
+            return a;
+        }
+        int[] result = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                result[size++] = a[i++];
+            } else if (a[i] > b[j]) {
+                result[size++] = b[j++];
+            } else {
+                result[size++] = a[i++];
+                j++;
+            }
+        }
+        while (i < a.length) {
+            result[size++] = a[i++];
+        }
+        while (j < b.length) {
+            result[size++] = b[j++];
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Picks the newest ids with a min-heap of at most limit entries, whose root is the oldest kept.
+     *
+     * @param ids the candidate ids
+     * @param limit the most ids to return
+     * @return up to limit ids, newest first
+     */
+    private int[] newest(int[] ids, int limit) {
+        int[] heap = new int[Math.min(Math.max(limit, 0), ids.length)];
+        int size = 0;
+        for (int id : ids) {
+            if (size < heap.length) {
+                heap[size] = id;
+                siftUp(heap, size++);
+            } else if (size > 0 && isNewer(id, heap[0])) {
+                heap[0] = id;
+                siftDown(heap, size);
+            }
+        }
+        // draining the min-heap yields oldest first, so fill the result from the back
+        int[] result = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            result[i] = heap[0];
+            heap[0] = heap[--size];
+            siftDown(heap, size);
+        }
+        return result;
+    }
+
+    private boolean isNewer(int a, int b) {
+        return postedAt[a] != postedAt[b] ? postedAt[a] > postedAt[b] : a > b;
+    }
+
+    private void siftUp(int[] heap, int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!isNewer(heap[parent], heap[index])) {
+                return;
+            }
+            int swap = heap[parent];
+            heap[parent] = heap[index];
+            heap[index] = swap;
+            index = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int size) {
+        int index = 0;
+        while (true) {
+            int oldest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && isNewer(heap[oldest], heap[left])) {
+                oldest = left;
+            }
+            if (right < size && isNewer(heap[oldest], heap[right])) {
+                oldest = right;
+            }
+            if (oldest == index) {
+                return;
+            }
+            int swap = heap[oldest];
+            heap[oldest] = heap[index];
+            heap[index] = swap;
+            index = oldest;
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package Service;
 
+import Model.BatchItemResult;
 import Model.Message;
+import Model.MessagePage;
+import Model.TrendingHashtag;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public interface MessageService {
     /**
@@ -15,6 +20,47 @@ public interface MessageService {
      */
     Message createMessage(Message msg);
 
+    /**
+     * Validates a message and hands it to the background writer when write-behind is enabled
+     * (messages.writeMode=async); otherwise creates it like createMessage.
+     *
+     * @param msg the Message object containing the details of the message to be created
+     * @return a future completed with the created message once it has been committed, with null if
+     *         the message is invalid or could not be stored, or exceptionally with
+     *         RejectedExecutionException if the write queue is full
+     */
+    CompletableFuture<Message> createMessageAsync(Message msg);
+
+    /**
+     * Like createMessageAsync, for an author already authenticated by a session: posted_by is set
+     * to authorId, whatever the client sent, and the account is not looked up again.
+     *
+     * @param msg the Message object containing the details of the message to be created
+     * @param authorId the account the session belongs to
+     * @return a future completed as by createMessageAsync(Message)
+     */
+    CompletableFuture<Message> createMessageAsync(Message msg, int authorId);
+
+    /**
+     * Creates several messages at once. Each message is validated on its own, and the valid ones
+     * are written in a single batch, so one bad item does not reject the rest.
+     *
+     * @param msgs the messages to create
+     * @return one result per input message, in the same order, holding either the created
+     *         message or the reason it was rejected
+     */
+    List<BatchItemResult> createMessages(List<Message> msgs);
+
+    /**
+     * Like createMessages, for an author already authenticated by a session: every message's
+     * posted_by is set to authorId and the account is not looked up again.
+     *
+     * @param msgs the messages to create
+     * @param authorId the account the session belongs to
+     * @return one result per input message, as by createMessages(List)
+     */
+    List<BatchItemResult> createMessages(List<Message> msgs, int authorId);
+
     /**
      * Retrieves a specific message based on the provided message ID.
      *
@@ -23,6 +69,16 @@ public interface MessageService {
      */
     Message getMessageById(int msgId);
 
+    /**
+     * Retrieves several messages by ID in one call.
+     *
+     * @param msgIds the IDs of the messages to retrieve, at most the maximum page size
+     * @return one entry per requested ID, in the same order, holding the message or null if no
+     *         message exists with that ID
+     * @throws IllegalArgumentException if more IDs are requested than the maximum page size
+     */
+    List<Message> getMessagesByIds(List<Integer> msgIds);
+
     /**
      * Retrieves a list of all messages available in the system.
      *
@@ -30,6 +86,15 @@ public interface MessageService {
      */
     List<Message> getAllMessages();
 
+    /**
+     * Passes every message in the system to the consumer as it is read from the database,
+     * without holding the full list in memory.
+     *
+     * @param consumer receives each message in message_id order
+     * @return the number of messages passed to the consumer, or -1 if the query failed
+     */
+    long streamAllMessages(Consumer<Message> consumer);
+
     /**
      * Retrieves all messages associated with a specified account ID.
      *
@@ -38,6 +103,62 @@ public interface MessageService {
      */
     List<Message> getAllMessagesByAccountId(int accountId);
 
+    /**
+     * Retrieves the newest messages posted by a specified account, without loading the rest.
+     *
+     * @param accountId the unique identifier of the account whose messages are to be retrieved
+     * @param limit the maximum number of messages to return
+     * @return up to limit messages, newest first by time_posted_epoch and then message_id
+     */
+    List<Message> getNewestMessagesByAccountId(int accountId, int limit);
+
+    /**
+     * Retrieves one page of all messages, ordered by time_posted_epoch and then message_id.
+     *
+     * @param cursor the "next" value from the previous page, or null for the first page
+     * @param limit the requested page size; clamped to the allowed range
+     * @return the page of messages together with the cursor for the following page
+     * @throws IllegalArgumentException if the cursor is not valid
+     */
+    MessagePage getMessagePage(String cursor, int limit);
+
+    /**
+     * Retrieves one page of the messages posted by a specified account, ordered by
+     * time_posted_epoch and then message_id.
+     *
+     * @param accountId the unique identifier of the account whose messages are to be retrieved
+     * @param cursor the "next" value from the previous page, or null for the first page
+     * @param limit the requested page size; clamped to the allowed range
+     * @return the page of messages together with the cursor for the following page
+     * @throws IllegalArgumentException if the cursor is not valid
+     */
+    MessagePage getMessagePageByAccountId(int accountId, String cursor, int limit);
+
+    /**
+     * Passes every message posted in a time range to the consumer, newest first, without holding
+     * the full list in memory.
+     *
+     * @param since the earliest time_posted_epoch to include
+     * @param until the time_posted_epoch to stop before (exclusive)
+     * @param consumer receives each message, ordered by time_posted_epoch and then message_id, descending
+     * @return the number of messages passed to the consumer, or -1 if the query failed
+     * @throws IllegalArgumentException if since is after until
+     */
+    long streamMessagesByTimeRange(long since, long until, Consumer<Message> consumer);
+
+    /**
+     * Passes every message a specified account posted in a time range to the consumer, newest
+     * first, without holding the full list in memory.
+     *
+     * @param accountId the unique identifier of the account whose messages are to be retrieved
+     * @param since the earliest time_posted_epoch to include
+     * @param until the time_posted_epoch to stop before (exclusive)
+     * @param consumer receives each message, ordered by time_posted_epoch and then message_id, descending
+     * @return the number of messages passed to the consumer, or -1 if the query failed
+     * @throws IllegalArgumentException if since is after until
+     */
+    long streamMessagesByAccountIdAndTimeRange(int accountId, long since, long until, Consumer<Message> consumer);
+
     /**
      * Updates the text of an existing message identified by the provided message ID.
      * The method locates the message with the specified ID and replaces its content
@@ -60,4 +181,66 @@ public interface MessageService {
      * @return the deleted Message object if the operation is successful, or null if the message does not exist
      */
     Message deleteMessage(int msgId);
+
+    /**
+     * Likes a message. The like is counted in memory and written to the database by a background
+     * flusher, so it shows in like_count at once but may be lost if the server stops abruptly.
+     *
+     * @param msgId the unique identifier of the message to like
+     * @return the message with its like count including this like, or null if the message does not exist
+     */
+    Message likeMessage(int msgId);
+
+    /**
+     * Finds the newest messages whose text matches a query, using the in-memory search index.
+     * Terms separated by spaces must all match; the keyword OR separates alternatives.
+     *
+     * @param query the search query, for example "coffee morning OR tea"
+     * @param limit the most messages to return; clamped to the allowed range
+     * @return the matching messages, newest first by time_posted_epoch
+     * @throws IllegalArgumentException if the query has no terms
+     * @throws IllegalStateException if search is disabled
+     */
+    List<Message> searchMessages(String query, int limit);
+
+    /**
+     * Reports the hashtags used most in messages created recently. Counts are estimates that may
+     * run slightly high, and lag creation by the time the background counter takes to catch up.
+     *
+     * @param windowMillis how far back to count
+     * @param limit the most hashtags to return; clamped to the allowed range
+     * @return the most used hashtags in the window, most used first
+     * @throws IllegalArgumentException if the window is not positive or longer than the counted history
+     * @throws IllegalStateException if trending is disabled
+     */
+    List<TrendingHashtag> getTrendingHashtags(long windowMillis, int limit);
+
+    /**
+     * Registers a listener to be told about every message created, updated or deleted through
+     * this service, once the change has been committed.
+     *
+     * @param listener the listener to add
+     */
+    void addListener(MessageListener listener);
+
+    /**
+     * @return a number that changes whenever a message is created, edited or deleted, once the
+     *         change is visible, and when likes are flushed to the database; read it before
+     *         getAllMessages() or getMessagePage() to tell later whether what they returned is
+     *         still current
+     */
+    long getMessagesVersion();
+
+    /**
+     * @param accountId the account
+     * @return a number that changes whenever one of the account's messages is created, edited or
+     *         deleted, or has its likes flushed; it may also change when other accounts' messages do
+     */
+    long getMessagesVersion(int accountId);
+
+    /**
+     * Stops background work. Messages already handed to the write-behind queue and likes not yet
+     * flushed are written first.
+     */
+    void shutdown();
 }
@@ -1,51 +1,277 @@
 package Service;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
+import DAO.CachingMessageDAO;
 import DAO.MessageDAO;
 import DAO.MessageDAOImpl;
+import DAO.TimedMessageDAO;
+import DAO.TimelineCachingMessageDAO;
+import Model.BatchItemResult;
 import Model.Message;
+import Model.MessagePage;
+import Model.PageCursor;
+import Model.TrendingHashtag;
+import Util.ConfigUtil;
+import Util.Logging;
+import Util.Metrics;
+import Util.UnitOfWork;
 
 import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 public class MessageServiceImpl implements MessageService{
-    private final Logger logger = LoggerFactory.getLogger(MessageServiceImpl.class);
+    private final Logger logger = Logging.getLogger(MessageServiceImpl.class);
+    private final Logger readLogger = Logging.getSampledLogger(MessageServiceImpl.class, "reads");
+    /**
+     * The largest page a client may request from the paged listing endpoints.
+     */
+    private static final int MAX_PAGE_SIZE = ConfigUtil.getInt("messages.page.maxSize", 1000);
+    /**
+     * The most hashtags a trending request may ask for.
+     */
+    private static final int MAX_TRENDING = 100;
     private final MessageDAO messageDAO;
     private final AccountService accountService;
+    /**
+     * The background writer for write-behind mode, or null when messages are written synchronously.
+     */
+    private final MessageWriter messageWriter;
+    /**
+     * The full-text index behind searchMessages, or null if search is disabled or failed to load.
+     */
+    private final MessageSearchIndex searchIndex;
+    /**
+     * The hashtag counter behind getTrendingHashtags, or null if trending is disabled.
+     */
+    private final TrendingHashtags trending;
+    /**
+     * Counts likes in memory; every message returned by this service has its pending likes merged in.
+     */
+    private final LikeCounter likes;
+    private final List<MessageListener> listeners = new CopyOnWriteArrayList<>();
+    private final MessageVersions versions = new MessageVersions();
 
-    public MessageServiceImpl() {
-        this.messageDAO = new MessageDAOImpl();
-        this.accountService = new AccountServiceImpl();
+    /**
+     * @param accountService the account service to validate authors with; share the controller's
+     *                       instance so both see the same account index
+     */
+    public MessageServiceImpl(AccountService accountService) {
+        this(createMessageDAO(), accountService);
+    }
+
+    /**
+     * @return the database DAO, timed, behind the message and timeline caches, whose counters are
+     *         registered for GET /metrics
+     */
+    private static MessageDAO createMessageDAO() {
+        CachingMessageDAO messageCache = new CachingMessageDAO(new TimedMessageDAO(new MessageDAOImpl()));
+        TimelineCachingMessageDAO timelineCache = new TimelineCachingMessageDAO(messageCache);
+        Metrics.global().registerCache("messages", messageCache::getCacheStats);
+        Metrics.global().registerCache("timelines", timelineCache::getCacheStats);
+        return timelineCache;
+    }
+
+    /**
+     * Starts a background writer if messages.writeMode is "async", sized by the
+     * messages.writeBehind.queueCapacity, maxBatchSize and maxLingerMs settings.
+     */
+    public MessageServiceImpl(MessageDAO messageDAO, AccountService accountService) {
+        this(messageDAO, accountService,
+                "async".equalsIgnoreCase(ConfigUtil.getString("messages.writeMode", "sync"))
+                        ? new MessageWriter(messageDAO,
+                                ConfigUtil.getInt("messages.writeBehind.queueCapacity", 10000),
+                                ConfigUtil.getInt("messages.writeBehind.maxBatchSize", 500),
+                                ConfigUtil.getLong("messages.writeBehind.maxLingerMs", 5))
+                        : null);
+    }
+
+    /**
+     * Builds the search index from the message table unless messages.search.enabled is false,
+     * starts counting hashtags unless trending.enabled is false, and flushes likes every
+     * messages.likes.flushIntervalMs.
+     *
+     * @param messageWriter the background writer to use for createMessageAsync, or null to write synchronously
+     */
+    public MessageServiceImpl(MessageDAO messageDAO, AccountService accountService, MessageWriter messageWriter) {
+        this.messageDAO = messageDAO;
+        this.accountService = accountService;
+        this.messageWriter = messageWriter;
+        this.searchIndex = ConfigUtil.getBoolean("messages.search.enabled", true) ? loadSearchIndex() : null;
+        if (searchIndex != null) {
+            addListener(searchIndex);
+        }
+        this.trending = ConfigUtil.getBoolean("trending.enabled", true)
+                ? new TrendingHashtags(
+                        TimeUnit.SECONDS.toMillis(ConfigUtil.getLong("trending.bucketSeconds", 60)),
+                        ConfigUtil.getInt("trending.buckets", 60),
+                        ConfigUtil.getInt("trending.sketchWidth", 2048),
+                        ConfigUtil.getInt("trending.sketchDepth", 4),
+                        ConfigUtil.getInt("trending.candidatesPerBucket", 200),
+                        ConfigUtil.getInt("trending.queueCapacity", 10000))
+                : null;
+        if (trending != null) {
+            addListener(trending);
+        }
+        this.likes = new LikeCounter(messageDAO, ConfigUtil.getLong("messages.likes.flushIntervalMs", 1000),
+                flushed -> versions.bump(flushed.getPosted_by()));
+    }
+
+    /**
+     * @return the loaded index, or null if the messages could not be read
+     */
+    private MessageSearchIndex loadSearchIndex() {
+        long start = System.nanoTime();
+        MessageSearchIndex index = new MessageSearchIndex();
+        long count = index.load(messageDAO);
+        if (count < 0) {
+            logger.error("Could not load the search index; search is unavailable");
+            return null;
+        }
+        logger.info("Indexed {} messages ({} tokens) for search in {} ms", count, index.getTokenCount(),
+                (System.nanoTime() - start) / 1_000_000);
+        return index;
     }
 
     @Override
     public Message createMessage(Message msg) {
+        String error = validate(msg, false);
+        if (error != null) {
+            logger.warn(error);
+            return null;
+        }
+        return insert(msg);
+    }
+
+    /**
+     * Writes a validated message synchronously and notifies the listeners once it has committed.
+     */
+    private Message insert(Message msg) {
+        logger.info("User validated, creating message for user ID: {}", msg.getPosted_by());
+        Message created = messageDAO.createMessage(msg);
+        if (created != null) {
+            bumpAfterCommit(created);
+            afterCommit(listener -> listener.onCreated(created));
+        }
+        return created;
+    }
+
+    @Override
+    public CompletableFuture<Message> createMessageAsync(Message msg) {
+        return createMessageAsync(msg, false);
+    }
+
+    @Override
+    public CompletableFuture<Message> createMessageAsync(Message msg, int authorId) {
+        msg.setPosted_by(authorId);
+        return createMessageAsync(msg, true);
+    }
+
+    /**
+     * @param authorVerified true if posted_by is known to be an existing account
+     */
+    private CompletableFuture<Message> createMessageAsync(Message msg, boolean authorVerified) {
+        String error = validate(msg, authorVerified);
+        if (error != null) {
+            logger.warn(error);
+            return CompletableFuture.completedFuture(null);
+        }
+        if (messageWriter == null) {
+            return CompletableFuture.completedFuture(insert(msg));
+        }
+
+        logger.info("User validated, queueing message for user ID: {}", msg.getPosted_by());
+        // the writer completes the future after its own commit, so listeners can run at once
+        return messageWriter.submit(msg).thenApply(created -> {
+            if (created != null) {
+                versions.bump(created.getPosted_by());
+                notifyListeners(listener -> listener.onCreated(created));
+            }
+            return created;
+        });
+    }
+
+    @Override
+    public List<BatchItemResult> createMessages(List<Message> msgs) {
+        return createMessages(msgs, false);
+    }
+
+    @Override
+    public List<BatchItemResult> createMessages(List<Message> msgs, int authorId) {
+        for (Message msg : msgs) {
+            if (msg != null) {
+                msg.setPosted_by(authorId);
+            }
+        }
+        return createMessages(msgs, true);
+    }
+
+    /**
+     * @param authorVerified true if every posted_by is known to be an existing account
+     */
+    private List<BatchItemResult> createMessages(List<Message> msgs, boolean authorVerified) {
+        List<BatchItemResult> results = new ArrayList<>(msgs.size());
+        List<Message> valid = new ArrayList<>(msgs.size());
+        for (int i = 0; i < msgs.size(); i++) {
+            Message msg = msgs.get(i);
+            String error = msg == null ? "Message is missing" : validate(msg, authorVerified);
+            results.add(new BatchItemResult(i, null, error));
+            if (error == null) {
+                valid.add(msg);
+            }
+        }
+
+        List<Message> created = valid.isEmpty() ? valid : messageDAO.createMessages(valid);
+        // created is null if the batch was rolled back, in which case no valid item was stored
+        int next = 0;
+        for (BatchItemResult result : results) {
+            if (result.getError() == null) {
+                if (created != null) {
+                    Message message = created.get(next++);
+                    result.setMessage(message);
+                    bumpAfterCommit(message);
+                    afterCommit(listener -> listener.onCreated(message));
+                } else {
+                    result.setError("Message could not be stored");
+                }
+            }
+        }
+
+        logger.info("Created {} of {} messages in batch", created == null ? 0 : created.size(), msgs.size());
+        return results;
+    }
+
+    /**
+     * @param msg the message to check
+     * @param authorVerified true to skip checking that posted_by exists
+     * @return why the message cannot be created, or null if it is valid
+     */
+    private String validate(Message msg, boolean authorVerified) {
         if (msg.getMessage_text() == null ||
                 msg.getMessage_text().isBlank() ){
-            logger.warn("Message text is blank");
-            return null;
+            return "Message text is blank";
         }
         if (msg.getMessage_text().length() > 255) {
-            logger.warn("Message text too long");
-            return null;
+            return "Message text too long";
         }
         // check if the posted by account exists
-        if (!accountService.accountExists(msg.getPosted_by())) {
-            logger.warn("Account does not exist");
-            return messageDAO.createMessage(msg);
+        if (!authorVerified && !accountService.accountExists(msg.getPosted_by())) {
+            return "Account does not exist";
         }
-
-        logger.info("User validated, creating message for user ID: {}", msg.getPosted_by());
-        return messageDAO.createMessage(msg);
+        return null;
     }
 
     @Override
     public Message getMessageById(int msgId) {
-        Message message = messageDAO.getMessageById(msgId);
+        Message message = likes.merge(messageDAO.getMessageById(msgId));
 
         if (message != null) {
-            logger.info("Message found for ID: {}", msgId);
+            readLogger.info("Message found for ID: {}", msgId);
         } else {
             logger.warn("No message found for ID: {}", msgId);
         }
@@ -53,28 +279,110 @@ public class MessageServiceImpl implements MessageService{
         return message;
     }
 
+    @Override
+    public List<Message> getMessagesByIds(List<Integer> msgIds) {
+        if (msgIds.size() > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_PAGE_SIZE + " ids may be requested at once");
+        }
+        Map<Integer, Message> found = messageDAO.getMessagesByIds(msgIds);
+
+        List<Message> messages = new ArrayList<>(msgIds.size());
+        for (Integer msgId : msgIds) {
+            messages.add(found.get(msgId));
+        }
+        readLogger.info("Retrieved {} of {} requested messages", found.size(), msgIds.size());
+        return likes.merge(messages);
+    }
+
     @Override
     public List<Message> getAllMessages() {
-        List<Message> messages = messageDAO.getAllMessages();
-        logger.info("Retrieved {} messages", messages.size());
+        List<Message> messages = likes.merge(messageDAO.getAllMessages());
+        readLogger.info("Retrieved {} messages", messages.size());
         return messages;
     }
 
+    @Override
+    public long streamAllMessages(Consumer<Message> consumer) {
+        long count = messageDAO.streamAllMessages(message -> consumer.accept(likes.merge(message)));
+        readLogger.info("Streamed {} messages", count);
+        return count;
+    }
+
     @Override
     public List<Message> getAllMessagesByAccountId(int accountId) {
-        List<Message> messages = messageDAO.getAllMessagesByAccountId(accountId);
-        logger.info("Retrieved {} messages for account ID: {}", messages.size(), accountId);
+        List<Message> messages = likes.merge(messageDAO.getAllMessagesByAccountId(accountId));
+        readLogger.info("Retrieved {} messages for account ID: {}", messages.size(), accountId);
         return messages;
     }
 
     @Override
-    public Message updateMessageText(int msgId, String newText) {
-        Message currentMessage = messageDAO.getMessageById(msgId);
-        if (currentMessage == null) {
-            logger.warn("Message update failed: No message found for ID: {}", msgId);
-            return null;
+    public List<Message> getNewestMessagesByAccountId(int accountId, int limit) {
+        List<Message> messages = likes.merge(messageDAO.getNewestMessagesByAccountId(accountId, limit));
+        readLogger.info("Retrieved {} newest messages for account ID: {}", messages.size(), accountId);
+        return messages;
+    }
+
+    @Override
+    public MessagePage getMessagePage(String cursor, int limit) {
+        PageCursor after = cursor == null ? null : PageCursor.decode(cursor);
+        int pageSize = clampPageSize(limit);
+        // fetch one extra row to learn whether another page follows
+        List<Message> messages = likes.merge(messageDAO.getMessagePage(after, pageSize + 1));
+        readLogger.info("Retrieved page of {} messages", Math.min(messages.size(), pageSize));
+        return toPage(messages, pageSize);
+    }
+
+    @Override
+    public MessagePage getMessagePageByAccountId(int accountId, String cursor, int limit) {
+        PageCursor after = cursor == null ? null : PageCursor.decode(cursor);
+        int pageSize = clampPageSize(limit);
+        List<Message> messages = likes.merge(messageDAO.getMessagePageByAccountId(accountId, after, pageSize + 1));
+        readLogger.info("Retrieved page of {} messages for account ID: {}", Math.min(messages.size(), pageSize), accountId);
+        return toPage(messages, pageSize);
+    }
+
+    @Override
+    public long streamMessagesByTimeRange(long since, long until, Consumer<Message> consumer) {
+        checkTimeRange(since, until);
+        long count = messageDAO.streamMessagesByTimeRange(since, until, message -> consumer.accept(likes.merge(message)));
+        readLogger.info("Streamed {} messages posted in [{}, {})", count, since, until);
+        return count;
+    }
+
+    @Override
+    public long streamMessagesByAccountIdAndTimeRange(int accountId, long since, long until, Consumer<Message> consumer) {
+        checkTimeRange(since, until);
+        long count = messageDAO.streamMessagesByAccountIdAndTimeRange(accountId, since, until,
+                message -> consumer.accept(likes.merge(message)));
+        readLogger.info("Streamed {} messages posted in [{}, {}) for account ID: {}", count, since, until, accountId);
+        return count;
+    }
+
+    private void checkTimeRange(long since, long until) {
+        if (since > until) {
+            throw new IllegalArgumentException("since must not be after until");
         }
+    }
+
+    private int clampPageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
 
+    /**
+     * @param messages up to pageSize + 1 messages from the DAO
+     * @param pageSize the number of messages to return
+     * @return the page, with a next cursor only if the DAO returned the extra row
+     */
+    private MessagePage toPage(List<Message> messages, int pageSize) {
+        if (messages.size() <= pageSize) {
+            return new MessagePage(messages, null);
+        }
+        List<Message> page = messages.subList(0, pageSize);
+        return new MessagePage(page, PageCursor.after(page.get(pageSize - 1)).encode());
+    }
+
+    @Override
+    public Message updateMessageText(int msgId, String newText) {
         if (newText == null ||
                 newText.isBlank()){
             logger.warn("Message update failed: New message text is blank");
@@ -87,12 +395,15 @@ public class MessageServiceImpl implements MessageService{
         }
 
         logger.info("Updating message with ID: {}", msgId);
-        Message updatedMessage = messageDAO.updateMessageText(msgId, newText);
+        Message updatedMessage = likes.merge(messageDAO.updateMessageText(msgId, newText));
 
+        // the DAO reports a missing message by returning null, so no pre-read is needed
         if (updatedMessage != null) {
             logger.info("Message with ID: {} updated successfully", msgId);
+            bumpAfterCommit(updatedMessage);
+            afterCommit(listener -> listener.onUpdated(updatedMessage));
         } else {
-            logger.error("Message update failed");
+            logger.warn("Message update failed: No message found for ID: {}", msgId);
         }
 
 
@@ -105,6 +416,8 @@ public class MessageServiceImpl implements MessageService{
 
         if (deletedMessage != null) {
             logger.info("Message with ID: {} deleted successfully", msgId);
+            bumpAfterCommit(deletedMessage);
+            afterCommit(listener -> listener.onDeleted(deletedMessage));
         } else {
             logger.error("Message with ID: {} not found", msgId);
         }
@@ -112,4 +425,106 @@ public class MessageServiceImpl implements MessageService{
         return deletedMessage;
     }
 
-}
\ No newline at end of file
+    @Override
+    public Message likeMessage(int msgId) {
+        Message message = messageDAO.getMessageById(msgId);
+        if (message == null) {
+            logger.warn("Like failed: No message found for ID: {}", msgId);
+            return null;
+        }
+        likes.like(msgId);
+        // the like is visible at once to readers that merge(), but the versions are only bumped
+        // when the like is flushed, so a popular message does not empty its author's cached
+        // responses on every like
+        return likes.merge(message);
+    }
+
+    @Override
+    public List<Message> searchMessages(String query, int limit) {
+        if (searchIndex == null) {
+            throw new IllegalStateException("Search is not available");
+        }
+        int[] ids = searchIndex.search(query, clampPageSize(limit));
+        List<Integer> msgIds = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            msgIds.add(id);
+        }
+        Map<Integer, Message> found = messageDAO.getMessagesByIds(msgIds);
+
+        List<Message> messages = new ArrayList<>(ids.length);
+        for (Integer msgId : msgIds) {
+            Message message = found.get(msgId);
+            if (message != null) {
+                messages.add(message);
+            }
+        }
+        logger.info("Search for '{}' matched {} messages", query, messages.size());
+        return likes.merge(messages);
+    }
+
+    @Override
+    public List<TrendingHashtag> getTrendingHashtags(long windowMillis, int limit) {
+        if (trending == null) {
+            throw new IllegalStateException("Trending is not available");
+        }
+        if (windowMillis <= 0 || windowMillis > trending.getMaxWindowMillis()) {
+            throw new IllegalArgumentException("window must be between 1 ms and " + trending.getMaxWindowMillis() + " ms");
+        }
+        return trending.getTrending(windowMillis, Math.max(1, Math.min(limit, MAX_TRENDING)));
+    }
+
+    @Override
+    public void addListener(MessageListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public long getMessagesVersion() {
+        return versions.get();
+    }
+
+    @Override
+    public long getMessagesVersion(int accountId) {
+        return versions.get(accountId);
+    }
+
+    /**
+     * Bumps the message versions once the current unit of work has committed, or at once if there
+     * is none. Bumping before the commit would let a reader load the old rows under the new version.
+     */
+    private void bumpAfterCommit(Message changed) {
+        int accountId = changed.getPosted_by();
+        UnitOfWork.afterCommit(() -> versions.bump(accountId));
+    }
+
+    /**
+     * Notifies the listeners once the current unit of work has committed, or at once if there is none.
+     */
+    private void afterCommit(Consumer<MessageListener> event) {
+        if (!listeners.isEmpty()) {
+            UnitOfWork.afterCommit(() -> notifyListeners(event));
+        }
+    }
+
+    private void notifyListeners(Consumer<MessageListener> event) {
+        for (MessageListener listener : listeners) {
+            try {
+                event.accept(listener);
+            } catch (RuntimeException e) {
+                logger.error("Message listener {} failed: {}", listener.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        if (messageWriter != null) {
+            messageWriter.shutdown();
+        }
+        if (trending != null) {
+            trending.shutdown();
+        }
+        likes.shutdown();
+    }
+
+}
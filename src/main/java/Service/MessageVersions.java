@@ -0,0 +1,50 @@
+package Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Version counters for the message lists, so a cache of something built from a list can tell
+ * whether it is still current without asking the database.
+ *
+ * Every change to a message bumps the version of its author's account and the global version.
+ * Account versions live in a fixed array of striped counters indexed by account id, so the memory
+ * used does not grow with the number of accounts; accounts sharing a stripe only invalidate each
+ * other's cached lists more often than needed.
+ */
+public class MessageVersions {
+    private static final int STRIPES = 4096;
+
+    private final AtomicLong global = new AtomicLong();
+    private final AtomicLongArray accounts = new AtomicLongArray(STRIPES);
+
+    /**
+     * Records a change to one of an account's messages. Call it once the change is visible to
+     * readers, i.e. after it has committed.
+     *
+     * @param accountId the author of the changed message
+     */
+    public void bump(int accountId) {
+        accounts.incrementAndGet(stripe(accountId));
+        global.incrementAndGet();
+    }
+
+    /**
+     * @return the version of the list of all messages
+     */
+    public long get() {
+        return global.get();
+    }
+
+    /**
+     * @param accountId the account
+     * @return the version of the list of the account's messages
+     */
+    public long get(int accountId) {
+        return accounts.get(stripe(accountId));
+    }
+
+    private static int stripe(int accountId) {
+        return accountId & (STRIPES - 1);
+    }
+}
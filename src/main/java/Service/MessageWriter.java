@@ -0,0 +1,201 @@
+package Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import DAO.MessageDAO;
+import Model.Message;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes validated messages in the background, grouping them into batches that commit as one
+ * transaction (group commit).
+ *
+ * submit() puts a message on a bounded queue and returns at once. A single writer thread takes the
+ * first waiting message, then keeps collecting until the batch is full or the linger time has
+ * passed, and inserts the batch with MessageDAO.createMessages. Each future completes only after
+ * the batch has committed, so a caller is never told a message was stored before it is durable.
+ *
+ * If a batch fails, its messages are retried one at a time so a single bad row cannot fail the
+ * others; a message that still fails completes with null.
+ */
+public class MessageWriter {
+    private static final Logger logger = LoggerFactory.getLogger(MessageWriter.class);
+
+    private final MessageDAO messageDAO;
+    private final BlockingQueue<PendingMessage> queue;
+    private final int maxBatchSize;
+    private final long maxLingerNanos;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    /**
+     * Creates a writer and starts its thread.
+     *
+     * @param messageDAO the DAO to insert batches with
+     * @param queueCapacity the most messages that may wait for the writer before submit() rejects more
+     * @param maxBatchSize the most messages committed in one transaction
+     * @param maxLingerMillis how long the writer waits for more messages after the first one of a batch arrives
+     */
+    public MessageWriter(MessageDAO messageDAO, int queueCapacity, int maxBatchSize, long maxLingerMillis) {
+        this.messageDAO = messageDAO;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxLingerNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxLingerMillis));
+        this.writerThread = new Thread(this::run, "message-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Queues a message for the next batch.
+     *
+     * @param msg a message that has already been validated
+     * @return a future completed with the created message once its batch has committed, with null
+     *         if it could not be stored, or exceptionally with RejectedExecutionException if the
+     *         queue is full or the writer has been shut down
+     */
+    public CompletableFuture<Message> submit(Message msg) {
+        PendingMessage pending = new PendingMessage(msg);
+        if (!running || !queue.offer(pending)) {
+            pending.future.completeExceptionally(new RejectedExecutionException(
+                    running ? "Message write queue is full" : "Message writer is shut down"));
+        }
+        return pending.future;
+    }
+
+    /**
+     * @return the number of messages waiting for the writer
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Stops accepting messages, writes everything already queued and waits for the writer thread
+     * to finish.
+     */
+    public void shutdown() {
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // anything still queued was submitted after the writer's last drain
+        rejectQueued();
+    }
+
+    private void run() {
+        List<PendingMessage> batch = new ArrayList<>(maxBatchSize);
+        boolean interrupted = false;
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingMessage first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxLingerNanos;
+                while (batch.size() < maxBatchSize) {
+                    // take whatever is already waiting without blocking, then linger for the rest
+                    if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    PendingMessage next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                writeOrFail(batch);
+            } catch (InterruptedException e) {
+                // stop without blocking again, but still write the batch being collected and
+                // everything already queued; the interrupt is restored once they are done
+                interrupted = true;
+                running = false;
+                do {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    writeOrFail(batch);
+                    batch.clear();
+                } while (!queue.isEmpty());
+            } finally {
+                batch.clear();
+            }
+        }
+        // a message offered just as the writer stopped would otherwise never complete
+        rejectQueued();
+        logger.info("Message writer stopped");
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes a batch, completing every future in it exceptionally if the write throws.
+     */
+    private void writeOrFail(List<PendingMessage> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            write(batch);
+        } catch (RuntimeException e) {
+            logger.error("Unexpected error writing message batch: {}", e.getMessage());
+            for (PendingMessage pending : batch) {
+                pending.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void rejectQueued() {
+        PendingMessage pending;
+        while ((pending = queue.poll()) != null) {
+            pending.future.completeExceptionally(new RejectedExecutionException("Message writer is shut down"));
+        }
+    }
+
+    private void write(List<PendingMessage> batch) {
+        List<Message> messages = new ArrayList<>(batch.size());
+        for (PendingMessage pending : batch) {
+            messages.add(pending.message);
+        }
+
+        List<Message> created = messageDAO.createMessages(messages);
+        if (created != null) {
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future.complete(created.get(i));
+            }
+            logger.debug("Committed batch of {} messages", created.size());
+            return;
+        }
+
+        logger.warn("Batch of {} messages failed, retrying one at a time", batch.size());
+        for (PendingMessage pending : batch) {
+            pending.future.complete(messageDAO.createMessage(pending.message));
+        }
+    }
+
+    /**
+     * A queued message and the future its caller is waiting on.
+     */
+    private static final class PendingMessage {
+        private final Message message;
+        private final CompletableFuture<Message> future = new CompletableFuture<>();
+
+        private PendingMessage(Message message) {
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package Service;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-memory login sessions, keyed by an opaque random token.
+ *
+ * Looking a token up is one ConcurrentHashMap read, so authenticating a request never reaches the
+ * database. A session expires once it has not been used for the idle timeout; expired sessions
+ * are refused as soon as they are looked up, and a sweeper thread removes the ones nobody asks
+ * for again. Sessions do not survive a restart, so clients log in again after one.
+ */
+public class SessionStore {
+    private static final Logger logger = LoggerFactory.getLogger(SessionStore.class);
+    private static final int TOKEN_BYTES = 32;
+
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final long idleTimeoutMillis;
+    private final Thread sweeperThread;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    /**
+     * Creates the store and starts its sweeper thread.
+     *
+     * @param idleTimeoutMillis how long a session stays valid after it was last used
+     * @param sweepIntervalMillis how often expired sessions are removed; 0 or less starts no sweeper
+     */
+    public SessionStore(long idleTimeoutMillis, long sweepIntervalMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        if (sweepIntervalMillis > 0) {
+            this.sweeperThread = new Thread(() -> run(sweepIntervalMillis), "session-sweeper");
+            this.sweeperThread.setDaemon(true);
+            this.sweeperThread.start();
+        } else {
+            this.sweeperThread = null;
+        }
+    }
+
+    /**
+     * @param accountId the account that logged in
+     * @return a new token for the account's session; 256 random bits, URL-safe Base64
+     */
+    public String create(int accountId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        sessions.put(token, new Session(accountId, System.currentTimeMillis()));
+        return token;
+    }
+
+    /**
+     * Looks a session up and, if it is still valid, marks it as used.
+     *
+     * @param token the token given at login
+     * @return the session's account id, or null if the token is unknown or has expired
+     */
+    public Integer getAccountId(String token) {
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (session.isExpired(now, idleTimeoutMillis)) {
+            sessions.remove(token, session);
+            return null;
+        }
+        session.lastUsedMillis = now;
+        return session.accountId;
+    }
+
+    /**
+     * @param token the token to revoke
+     * @return true if the token named a session, false if it was unknown
+     */
+    public boolean remove(String token) {
+        return sessions.remove(token) != null;
+    }
+
+    /**
+     * Removes every expired session.
+     *
+     * @return the number of sessions removed
+     */
+    public int sweep() {
+        long now = System.currentTimeMillis();
+        int before = sessions.size();
+        sessions.values().removeIf(session -> session.isExpired(now, idleTimeoutMillis));
+        return before - sessions.size();
+    }
+
+    /**
+     * @return the number of sessions held, including expired ones not yet swept
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Stops the sweeper thread.
+     */
+    public void shutdown() {
+        stopped.countDown();
+        if (sweeperThread != null) {
+            try {
+                sweeperThread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run(long sweepIntervalMillis) {
+        try {
+            while (!stopped.await(sweepIntervalMillis, TimeUnit.MILLISECONDS)) {
+                int removed = sweep();
+                if (removed > 0) {
+                    logger.info("Removed {} expired sessions, {} left", removed, sessions.size());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * One logged-in account.
+     */
+    private static final class Session {
+        private final int accountId;
+        /**
+         * Written without a lock by every request using the session; a lost race only moves the
+         * expiry by the difference between two requests.
+         */
+        private volatile long lastUsedMillis;
+
+        private Session(int accountId, long lastUsedMillis) {
+            this.accountId = accountId;
+            this.lastUsedMillis = lastUsedMillis;
+        }
+
+        private boolean isExpired(long now, long idleTimeoutMillis) {
+            return now - lastUsedMillis > idleTimeoutMillis;
+        }
+    }
+}
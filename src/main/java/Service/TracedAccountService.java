@@ -0,0 +1,70 @@
+package Service;
+
+import Model.Account;
+import Util.Trace;
+
+/**
+ * An AccountService decorator that times every call as a span named AccountService.method in
+ * traced requests (see Trace). When no trace is active each call costs one thread-local read on
+ * top of the call itself.
+ */
+@SuppressWarnings("try")
+public class TracedAccountService implements AccountService {
+    private final AccountService delegate;
+
+    /**
+     * @param delegate the service to trace
+     */
+    public TracedAccountService(AccountService delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Account registerUser(Account account) {
+        try (Trace.Span span = Trace.span("AccountService.registerUser")) {
+            return delegate.registerUser(account);
+        }
+    }
+
+    @Override
+    public Account login(Account account) {
+        try (Trace.Span span = Trace.span("AccountService.login")) {
+            return delegate.login(account);
+        }
+    }
+
+    @Override
+    public Boolean accountExists(int accountId) {
+        try (Trace.Span span = Trace.span("AccountService.accountExists")) {
+            return delegate.accountExists(accountId);
+        }
+    }
+
+    @Override
+    public String createSession(int accountId) {
+        try (Trace.Span span = Trace.span("AccountService.createSession")) {
+            return delegate.createSession(accountId);
+        }
+    }
+
+    @Override
+    public Integer getSessionAccountId(String token) {
+        try (Trace.Span span = Trace.span("AccountService.getSessionAccountId")) {
+            return delegate.getSessionAccountId(token);
+        }
+    }
+
+    @Override
+    public boolean endSession(String token) {
+        try (Trace.Span span = Trace.span("AccountService.endSession")) {
+            return delegate.endSession(token);
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        try (Trace.Span span = Trace.span("AccountService.shutdown")) {
+            delegate.shutdown();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package Service;
+
+import java.util.List;
+
+import Model.Message;
+import Util.Trace;
+
+/**
+ * A FollowService decorator that times every call as a span named FollowService.method in
+ * traced requests (see Trace). When no trace is active each call costs one thread-local read on
+ * top of the call itself.
+ */
+@SuppressWarnings("try")
+public class TracedFollowService implements FollowService {
+    private final FollowService delegate;
+
+    /**
+     * @param delegate the service to trace
+     */
+    public TracedFollowService(FollowService delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean follow(int followerId, int followeeId) {
+        try (Trace.Span span = Trace.span("FollowService.follow")) {
+            return delegate.follow(followerId, followeeId);
+        }
+    }
+
+    @Override
+    public boolean unfollow(int followerId, int followeeId) {
+        try (Trace.Span span = Trace.span("FollowService.unfollow")) {
+            return delegate.unfollow(followerId, followeeId);
+        }
+    }
+
+    @Override
+    public List<Message> getFeed(int accountId, int limit) {
+        try (Trace.Span span = Trace.span("FollowService.getFeed")) {
+            return delegate.getFeed(accountId, limit);
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        try (Trace.Span span = Trace.span("FollowService.shutdown")) {
+            delegate.shutdown();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package Service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import Model.BatchItemResult;
+import Model.Message;
+import Model.MessagePage;
+import Model.TrendingHashtag;
+import Util.Trace;
+
+/**
+ * A MessageService decorator that times every call as a span named MessageService.method in
+ * traced requests (see Trace). When no trace is active each call costs one thread-local read on
+ * top of the call itself. Work a call hands to another thread, such as a queued write, ends its
+ * span when the call returns, not when the work completes.
+ */
+@SuppressWarnings("try")
+public class TracedMessageService implements MessageService {
+    private final MessageService delegate;
+
+    /**
+     * @param delegate the service to trace
+     */
+    public TracedMessageService(MessageService delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Message createMessage(Message msg) {
+        try (Trace.Span span = Trace.span("MessageService.createMessage")) {
+            return delegate.createMessage(msg);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Message> createMessageAsync(Message msg) {
+        try (Trace.Span span = Trace.span("MessageService.createMessageAsync")) {
+            return delegate.createMessageAsync(msg);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Message> createMessageAsync(Message msg, int authorId) {
+        try (Trace.Span span = Trace.span("MessageService.createMessageAsync")) {
+            return delegate.createMessageAsync(msg, authorId);
+        }
+    }
+
+    @Override
+    public List<BatchItemResult> createMessages(List<Message> msgs) {
+        try (Trace.Span span = Trace.span("MessageService.createMessages")) {
+            return delegate.createMessages(msgs);
+        }
+    }
+
+    @Override
+    public List<BatchItemResult> createMessages(List<Message> msgs, int authorId) {
+        try (Trace.Span span = Trace.span("MessageService.createMessages")) {
+            return delegate.createMessages(msgs, authorId);
+        }
+    }
+
+    @Override
+    public Message getMessageById(int msgId) {
+        try (Trace.Span span = Trace.span("MessageService.getMessageById")) {
+            return delegate.getMessageById(msgId);
+        }
+    }
+
+    @Override
+    public List<Message> getMessagesByIds(List<Integer> msgIds) {
+        try (Trace.Span span = Trace.span("MessageService.getMessagesByIds")) {
+            return delegate.getMessagesByIds(msgIds);
+        }
+    }
+
+    @Override
+    public List<Message> getAllMessages() {
+        try (Trace.Span span = Trace.span("MessageService.getAllMessages")) {
+            return delegate.getAllMessages();
+        }
+    }
+
+    @Override
+    public long streamAllMessages(Consumer<Message> consumer) {
+        try (Trace.Span span = Trace.span("MessageService.streamAllMessages")) {
+            return delegate.streamAllMessages(consumer);
+        }
+    }
+
+    @Override
+    public List<Message> getAllMessagesByAccountId(int accountId) {
+        try (Trace.Span span = Trace.span("MessageService.getAllMessagesByAccountId")) {
+            return delegate.getAllMessagesByAccountId(accountId);
+        }
+    }
+
+    @Override
+    public List<Message> getNewestMessagesByAccountId(int accountId, int limit) {
+        try (Trace.Span span = Trace.span("MessageService.getNewestMessagesByAccountId")) {
+            return delegate.getNewestMessagesByAccountId(accountId, limit);
+        }
+    }
+
+    @Override
+    public MessagePage getMessagePage(String cursor, int limit) {
+        try (Trace.Span span = Trace.span("MessageService.getMessagePage")) {
+            return delegate.getMessagePage(cursor, limit);
+        }
+    }
+
+    @Override
+    public MessagePage getMessagePageByAccountId(int accountId, String cursor, int limit) {
+        try (Trace.Span span = Trace.span("MessageService.getMessagePageByAccountId")) {
+            return delegate.getMessagePageByAccountId(accountId, cursor, limit);
+        }
+    }
+
+    @Override
+    public long streamMessagesByTimeRange(long since, long until, Consumer<Message> consumer) {
+        try (Trace.Span span = Trace.span("MessageService.streamMessagesByTimeRange")) {
+            return delegate.streamMessagesByTimeRange(since, until, consumer);
+        }
+    }
+
+    @Override
+    public long streamMessagesByAccountIdAndTimeRange(int accountId, long since, long until, Consumer<Message> consumer) {
+        try (Trace.Span span = Trace.span("MessageService.streamMessagesByAccountIdAndTimeRange")) {
+            return delegate.streamMessagesByAccountIdAndTimeRange(accountId, since, until, consumer);
+        }
+    }
+
+    @Override
+    public Message updateMessageText(int msgId, String newText) {
+        try (Trace.Span span = Trace.span("MessageService.updateMessageText")) {
+            return delegate.updateMessageText(msgId, newText);
+        }
+    }
+
+    @Override
+    public Message deleteMessage(int msgId) {
+        try (Trace.Span span = Trace.span("MessageService.deleteMessage")) {
+            return delegate.deleteMessage(msgId);
+        }
+    }
+
+    @Override
+    public Message likeMessage(int msgId) {
+        try (Trace.Span span = Trace.span("MessageService.likeMessage")) {
+            return delegate.likeMessage(msgId);
+        }
+    }
+
+    @Override
+    public List<Message> searchMessages(String query, int limit) {
+        try (Trace.Span span = Trace.span("MessageService.searchMessages")) {
+            return delegate.searchMessages(query, limit);
+        }
+    }
+
+    @Override
+    public List<TrendingHashtag> getTrendingHashtags(long windowMillis, int limit) {
+        try (Trace.Span span = Trace.span("MessageService.getTrendingHashtags")) {
+            return delegate.getTrendingHashtags(windowMillis, limit);
+        }
+    }
+
+    @Override
+    public void addListener(MessageListener listener) {
+        try (Trace.Span span = Trace.span("MessageService.addListener")) {
+            delegate.addListener(listener);
+        }
+    }
+
+    @Override
+    public long getMessagesVersion() {
+        try (Trace.Span span = Trace.span("MessageService.getMessagesVersion")) {
+            return delegate.getMessagesVersion();
+        }
+    }
+
+    @Override
+    public long getMessagesVersion(int accountId) {
+        try (Trace.Span span = Trace.span("MessageService.getMessagesVersion")) {
+            return delegate.getMessagesVersion(accountId);
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        try (Trace.Span span = Trace.span("MessageService.shutdown")) {
+            delegate.shutdown();
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import Model.Message;
+import Model.TrendingHashtag;
+import Util.CountMinSketch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Counts #hashtags in newly created messages over a sliding time window and reports the most used.
+ *
+ * onCreated() only puts the message on a bounded queue, so the insert path never waits for
+ * counting; if the queue is full the message is dropped from the counts rather than slowing the
+ * writer. A single counter thread extracts the hashtags and adds them to the current time bucket.
+ *
+ * Time is split into fixed buckets held in a ring. Each bucket has a count-min sketch with atomic
+ * counters, which readers query without locking, and a bounded set of candidate hashtags with
+ * the highest estimates in that bucket. A trending query sums the sketch estimates of every
+ * candidate across the buckets in the window and keeps the top K with a heap.
+ */
+public class TrendingHashtags implements MessageListener {
+    private static final Logger logger = LoggerFactory.getLogger(TrendingHashtags.class);
+
+    private final long bucketMillis;
+    private final Bucket[] buckets;
+    private final int candidatesPerBucket;
+    private final BlockingQueue<Posted> queue;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread counterThread;
+    private volatile boolean running = true;
+
+    /**
+     * Creates the counter and starts its thread.
+     *
+     * @param bucketMillis the length of one time bucket; windows are rounded up to whole buckets
+     * @param bucketCount the number of buckets kept, which bounds the longest window
+     * @param sketchWidth the counters per row of each bucket's count-min sketch
+     * @param sketchDepth the rows of each bucket's count-min sketch
+     * @param candidatesPerBucket the most hashtags each bucket tracks as possible top entries
+     * @param queueCapacity the most messages that may wait to be counted before new ones are dropped
+     */
+    public TrendingHashtags(long bucketMillis, int bucketCount, int sketchWidth, int sketchDepth,
+                            int candidatesPerBucket, int queueCapacity) {
+        this.bucketMillis = Math.max(1, bucketMillis);
+        this.buckets = new Bucket[Math.max(1, bucketCount)];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new Bucket(sketchWidth, sketchDepth);
+        }
+        this.candidatesPerBucket = Math.max(1, candidatesPerBucket);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.counterThread = new Thread(this::run, "trending-hashtags");
+        this.counterThread.setDaemon(true);
+        this.counterThread.start();
+    }
+
+    @Override
+    public void onCreated(Message msg) {
+        String text = msg.getMessage_text();
+        if (text == null || text.indexOf('#') < 0) {
+            return;
+        }
+        if (!running || !queue.offer(new Posted(text, System.currentTimeMillis()))) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * @param windowMillis how far back to count, at most getMaxWindowMillis()
+     * @param limit the most hashtags to return
+     * @return the most used hashtags in the window, most used first
+     */
+    public List<TrendingHashtag> getTrending(long windowMillis, int limit) {
+        long newest = System.currentTimeMillis() / bucketMillis;
+        long windowBuckets = Math.min(buckets.length, (windowMillis + bucketMillis - 1) / bucketMillis);
+        long oldest = newest - windowBuckets + 1;
+
+        List<Bucket> inWindow = new ArrayList<>();
+        Set<String> candidates = new HashSet<>();
+        for (Bucket bucket : buckets) {
+            long id = bucket.id;
+            if (id >= oldest && id <= newest) {
+                inWindow.add(bucket);
+                candidates.addAll(bucket.candidates.keySet());
+            }
+        }
+
+        Comparator<TrendingHashtag> mostUsedLast = Comparator.comparingLong(TrendingHashtag::getCount)
+                .thenComparing(TrendingHashtag::getHashtag, Comparator.reverseOrder());
+        PriorityQueue<TrendingHashtag> top = new PriorityQueue<>(mostUsedLast);
+        for (String hashtag : candidates) {
+            long count = 0;
+            for (Bucket bucket : inWindow) {
+                count += bucket.sketch.estimate(hashtag);
+            }
+            top.add(new TrendingHashtag(hashtag, count));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        List<TrendingHashtag> trending = new ArrayList<>(top);
+        trending.sort(mostUsedLast.reversed());
+        return trending;
+    }
+
+    /**
+     * @return the longest window the buckets cover
+     */
+    public long getMaxWindowMillis() {
+        return bucketMillis * buckets.length;
+    }
+
+    /**
+     * @return the number of messages left uncounted because the queue was full
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Stops the counter thread after it has counted the messages already queued.
+     */
+    public void shutdown() {
+        running = false;
+        try {
+            counterThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Extracts the hashtags from a message: a '#' that does not follow a letter or digit, then
+     * one or more letters, digits or underscores. Each hashtag is returned once, lower-cased.
+     *
+     * @param text the message text
+     * @return the distinct hashtags without the leading '#'
+     */
+    public static Set<String> extractHashtags(String text) {
+        Set<String> hashtags = new LinkedHashSet<>();
+        int i = text.indexOf('#');
+        while (i >= 0) {
+            int end = i + 1;
+            while (end < text.length() && isHashtagChar(text.charAt(end))) {
+                end++;
+            }
+            boolean standalone = i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1));
+            if (standalone && end > i + 1) {
+                hashtags.add(text.substring(i + 1, end).toLowerCase(Locale.ROOT));
+            }
+            i = text.indexOf('#', end);
+        }
+        return hashtags;
+    }
+
+    private static boolean isHashtagChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private void run() {
+        while (running || !queue.isEmpty()) {
+            try {
+                Posted posted = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (posted != null) {
+                    count(posted);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (RuntimeException e) {
+                logger.error("Error counting hashtags: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Runs only on the counter thread, so bucket rotation and candidate updates need no lock.
+     */
+    private void count(Posted posted) {
+        long id = posted.timeMillis / bucketMillis;
+        Bucket bucket = buckets[(int) (id % buckets.length)];
+        if (bucket.id > id) {
+            // older than the oldest bucket still kept
+            return;
+        }
+        if (bucket.id < id) {
+            bucket.reset(id);
+        }
+
+        for (String hashtag : extractHashtags(posted.text)) {
+            bucket.sketch.add(hashtag, 1);
+            long estimate = bucket.sketch.estimate(hashtag);
+            Map<String, Long> candidates = bucket.candidates;
+            if (candidates.containsKey(hashtag) || candidates.size() < candidatesPerBucket) {
+                candidates.put(hashtag, estimate);
+                continue;
+            }
+            // replace the weakest candidate if this hashtag has overtaken it
+            Map.Entry<String, Long> weakest = null;
+            for (Map.Entry<String, Long> candidate : candidates.entrySet()) {
+                if (weakest == null || candidate.getValue() < weakest.getValue()) {
+                    weakest = candidate;
+                }
+            }
+            if (weakest != null && estimate > weakest.getValue()) {
+                candidates.remove(weakest.getKey());
+                candidates.put(hashtag, estimate);
+            }
+        }
+    }
+
+    /**
+     * The counts for one time bucket.
+     */
+    private static final class Bucket {
+        /**
+         * The bucket number (time / bucket length) this slot currently holds, or -1 while it is being reset.
+         */
+        private volatile long id = -1;
+        private final CountMinSketch sketch;
+        private final Map<String, Long> candidates = new ConcurrentHashMap<>();
+
+        private Bucket(int sketchWidth, int sketchDepth) {
+            this.sketch = new CountMinSketch(sketchWidth, sketchDepth);
+        }
+
+        private void reset(long newId) {
+            // hide the slot from readers while it still holds the previous bucket's counts
+            id = -1;
+            sketch.clear();
+            candidates.clear();
+            id = newId;
+        }
+    }
+
+    /**
+     * A queued message text and when it was created.
+     */
+    private static final class Posted {
+        private final String text;
+        private final long timeMillis;
+
+        private Posted(String text, long timeMillis) {
+            this.text = text;
+            this.timeMillis = timeMillis;
+        }
+    }
+}
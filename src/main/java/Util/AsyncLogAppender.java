@@ -0,0 +1,264 @@
+package Util;
+
+import java.io.PrintStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.slf4j.event.Level;
+import org.slf4j.helpers.FormattingTuple;
+import org.slf4j.helpers.MessageFormatter;
+
+/**
+ * A bounded ring buffer of log events, formatted and written by one background thread.
+ *
+ * Logging threads only claim a slot with a compare-and-set on the tail and store the event's
+ * arguments in it; the message is formatted and written by the writer thread. When every slot is
+ * taken the event is dropped and counted rather than waiting, so a slow or blocked stderr never
+ * stalls a request. The slots are allocated once, up front, and reused.
+ *
+ * Lines are written in slf4j-simple's format ("[thread] LEVEL logger - message"), so output looks
+ * the same whichever mode is on. Because formatting is deferred, an argument is rendered as it is
+ * when the writer gets to it, which may be a few milliseconds after it was logged.
+ */
+public class AsyncLogAppender {
+    private static final int MAX_BATCH_CHARS = 64 * 1024;
+
+    private final Event[] events;
+    /**
+     * For each slot, the position it can next be claimed at; one more than that once the event
+     * claimed there has been stored. Lets producers and the writer hand slots over without a lock.
+     */
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    /**
+     * Read and written only by the writer thread, or by drain() when there is none.
+     */
+    private volatile long head;
+    private final LongAdder dropped = new LongAdder();
+    private long droppedReported;
+    private final Supplier<PrintStream> out;
+    private final Thread writerThread;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    /**
+     * Creates the buffer and starts its writer thread.
+     *
+     * @param capacity the most events held before new ones are dropped; rounded up to a power of two
+     * @param flushIntervalMillis how often the writer drains the buffer; 0 or less starts no writer,
+     *                            and events are written only when drain() is called
+     * @param out the stream to write to, read on every drain so a redirected System.err is followed
+     */
+    public AsyncLogAppender(int capacity, long flushIntervalMillis, Supplier<PrintStream> out) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        this.events = new Event[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            events[i] = new Event();
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.out = out;
+        if (flushIntervalMillis > 0) {
+            this.writerThread = new Thread(() -> run(flushIntervalMillis), "log-writer");
+            this.writerThread.setDaemon(true);
+            this.writerThread.start();
+        } else {
+            this.writerThread = null;
+        }
+    }
+
+    /**
+     * Queues an event without blocking. The level must already have been checked.
+     *
+     * @param level the event's level
+     * @param loggerName the name of the logger it was logged through
+     * @param format the message, with {} placeholders for the arguments
+     * @param argCount 0, 1 or 2 for arguments passed in arg1 and arg2; ignored when args is given
+     * @param arg1 the first argument, if there are one or two
+     * @param arg2 the second argument, if there are two
+     * @param args the arguments, if there are more than two; a trailing Throwable is its stack trace
+     * @param throwable the exception to print, if any
+     * @return true if the event was queued, false if the buffer was full and it was dropped
+     */
+    public boolean append(Level level, String loggerName, String format, int argCount, Object arg1, Object arg2,
+                          Object[] args, Throwable throwable) {
+        long position;
+        int index;
+        while (true) {
+            position = tail.get();
+            index = (int) (position & mask);
+            long sequence = sequences.get(index);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (sequence < position) {
+                // the slot still holds an event from one lap ago: the buffer is full
+                dropped.increment();
+                return false;
+            }
+        }
+        Event event = events[index];
+        event.level = level;
+        event.threadName = Thread.currentThread().getName();
+        event.loggerName = loggerName;
+        event.format = format;
+        event.argCount = argCount;
+        event.arg1 = arg1;
+        event.arg2 = arg2;
+        event.args = args;
+        event.throwable = throwable;
+        sequences.set(index, position + 1);
+        return true;
+    }
+
+    /**
+     * Formats and writes every queued event, then reports any events dropped since the last drain.
+     *
+     * @return the number of events written
+     */
+    public synchronized int drain() {
+        PrintStream stream = out.get();
+        StringBuilder batch = new StringBuilder(4096);
+        int written = 0;
+        while (true) {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            Event event = events[index];
+            Throwable throwable = event.format(batch);
+            event.clear();
+            sequences.set(index, head + events.length);
+            head++;
+            written++;
+            if (throwable != null) {
+                stream.print(batch);
+                batch.setLength(0);
+                throwable.printStackTrace(stream);
+            } else if (batch.length() > MAX_BATCH_CHARS) {
+                stream.print(batch);
+                batch.setLength(0);
+            }
+        }
+        long droppedTotal = dropped.sum();
+        if (droppedTotal > droppedReported) {
+            batch.append('[').append(Thread.currentThread().getName()).append("] WARN ")
+                    .append(AsyncLogAppender.class.getName()).append(" - Dropped ")
+                    .append(droppedTotal - droppedReported).append(" log lines: buffer full\n");
+            droppedReported = droppedTotal;
+        }
+        if (batch.length() > 0) {
+            stream.print(batch);
+        }
+        stream.flush();
+        return written;
+    }
+
+    /**
+     * @return the number of events dropped because the buffer was full
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return the number of events waiting to be written
+     */
+    public long getQueued() {
+        long queued = tail.get() - head;
+        return Math.max(0, Math.min(queued, events.length));
+    }
+
+    /**
+     * @return the most events held before new ones are dropped
+     */
+    public int getCapacity() {
+        return events.length;
+    }
+
+    /**
+     * Stops the writer thread once it has written what is queued.
+     */
+    public void shutdown() {
+        stopped.countDown();
+        if (writerThread != null) {
+            try {
+                writerThread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run(long flushIntervalMillis) {
+        try {
+            while (!stopped.await(flushIntervalMillis, TimeUnit.MILLISECONDS)) {
+                drainSafely();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drainSafely();
+    }
+
+    private void drainSafely() {
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            // keep the writer alive; the events that were drained are lost
+            e.printStackTrace(out.get());
+        }
+    }
+
+    /**
+     * One slot of the ring; written by the thread that claimed it, then read by the writer.
+     */
+    private static final class Event {
+        private Level level;
+        private String threadName;
+        private String loggerName;
+        private String format;
+        private int argCount;
+        private Object arg1;
+        private Object arg2;
+        private Object[] args;
+        private Throwable throwable;
+
+        /**
+         * Appends the line for this event.
+         *
+         * @return the exception to print after the line, or null
+         */
+        private Throwable format(StringBuilder line) {
+            FormattingTuple message;
+            if (args != null) {
+                message = MessageFormatter.arrayFormat(format, args);
+            } else if (argCount == 2) {
+                message = MessageFormatter.format(format, arg1, arg2);
+            } else if (argCount == 1) {
+                message = MessageFormatter.format(format, arg1);
+            } else {
+                message = new FormattingTuple(format);
+            }
+            line.append('[').append(threadName).append("] ").append(level).append(' ')
+                    .append(loggerName).append(" - ").append(message.getMessage()).append('\n');
+            return throwable != null ? throwable : message.getThrowable();
+        }
+
+        private void clear() {
+            threadName = null;
+            loggerName = null;
+            format = null;
+            arg1 = null;
+            arg2 = null;
+            args = null;
+            throwable = null;
+        }
+    }
+}
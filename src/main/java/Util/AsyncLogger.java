@@ -0,0 +1,277 @@
+package Util;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.event.Level;
+import org.slf4j.helpers.FormattingTuple;
+import org.slf4j.helpers.MarkerIgnoringBase;
+import org.slf4j.helpers.MessageFormatter;
+
+/**
+ * A logger that hands its events to an AsyncLogAppender instead of writing them itself, and that
+ * can keep only a sample of its TRACE, DEBUG and INFO lines.
+ *
+ * Levels are decided by the underlying slf4j logger, so the usual logging configuration still
+ * applies. WARN and ERROR lines are never sampled. Without an appender, the lines that are kept
+ * are written through the underlying logger as before. Loggers are obtained from Logging.
+ */
+public class AsyncLogger extends MarkerIgnoringBase {
+    private static final long serialVersionUID = 1L;
+
+    private final transient Logger delegate;
+    private final transient AsyncLogAppender appender;
+    private final int sampleEvery;
+
+    /**
+     * @param delegate the slf4j logger deciding which levels are enabled
+     * @param appender the buffer to queue events in, or null to write through the delegate
+     * @param sampleEvery keep one in this many TRACE, DEBUG and INFO lines, chosen at random; 1 keeps all
+     */
+    public AsyncLogger(Logger delegate, AsyncLogAppender appender, int sampleEvery) {
+        this.name = delegate.getName();
+        this.delegate = delegate;
+        this.appender = appender;
+        this.sampleEvery = Math.max(1, sampleEvery);
+    }
+
+    @Override
+    public boolean isTraceEnabled() {
+        return delegate.isTraceEnabled();
+    }
+
+    @Override
+    public void trace(String msg) {
+        if (delegate.isTraceEnabled()) {
+            log(Level.TRACE, msg, 0, null, null, null, null);
+        }
+    }
+
+    @Override
+    public void trace(String format, Object arg) {
+        if (delegate.isTraceEnabled()) {
+            log(Level.TRACE, format, 1, arg, null, null, null);
+        }
+    }
+
+    @Override
+    public void trace(String format, Object arg1, Object arg2) {
+        if (delegate.isTraceEnabled()) {
+            log(Level.TRACE, format, 2, arg1, arg2, null, null);
+        }
+    }
+
+    @Override
+    public void trace(String format, Object... arguments) {
+        if (delegate.isTraceEnabled()) {
+            log(Level.TRACE, format, 0, null, null, arguments, null);
+        }
+    }
+
+    @Override
+    public void trace(String msg, Throwable t) {
+        if (delegate.isTraceEnabled()) {
+            log(Level.TRACE, msg, 0, null, null, null, t);
+        }
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return delegate.isDebugEnabled();
+    }
+
+    @Override
+    public void debug(String msg) {
+        if (delegate.isDebugEnabled()) {
+            log(Level.DEBUG, msg, 0, null, null, null, null);
+        }
+    }
+
+    @Override
+    public void debug(String format, Object arg) {
+        if (delegate.isDebugEnabled()) {
+            log(Level.DEBUG, format, 1, arg, null, null, null);
+        }
+    }
+
+    @Override
+    public void debug(String format, Object arg1, Object arg2) {
+        if (delegate.isDebugEnabled()) {
+            log(Level.DEBUG, format, 2, arg1, arg2, null, null);
+        }
+    }
+
+    @Override
+    public void debug(String format, Object... arguments) {
+        if (delegate.isDebugEnabled()) {
+            log(Level.DEBUG, format, 0, null, null, arguments, null);
+        }
+    }
+
+    @Override
+    public void debug(String msg, Throwable t) {
+        if (delegate.isDebugEnabled()) {
+            log(Level.DEBUG, msg, 0, null, null, null, t);
+        }
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return delegate.isInfoEnabled();
+    }
+
+    @Override
+    public void info(String msg) {
+        if (delegate.isInfoEnabled()) {
+            log(Level.INFO, msg, 0, null, null, null, null);
+        }
+    }
+
+    @Override
+    public void info(String format, Object arg) {
+        if (delegate.isInfoEnabled()) {
+            log(Level.INFO, format, 1, arg, null, null, null);
+        }
+    }
+
+    @Override
+    public void info(String format, Object arg1, Object arg2) {
+        if (delegate.isInfoEnabled()) {
+            log(Level.INFO, format, 2, arg1, arg2, null, null);
+        }
+    }
+
+    @Override
+    public void info(String format, Object... arguments) {
+        if (delegate.isInfoEnabled()) {
+            log(Level.INFO, format, 0, null, null, arguments, null);
+        }
+    }
+
+    @Override
+    public void info(String msg, Throwable t) {
+        if (delegate.isInfoEnabled()) {
+            log(Level.INFO, msg, 0, null, null, null, t);
+        }
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return delegate.isWarnEnabled();
+    }
+
+    @Override
+    public void warn(String msg) {
+        if (delegate.isWarnEnabled()) {
+            log(Level.WARN, msg, 0, null, null, null, null);
+        }
+    }
+
+    @Override
+    public void warn(String format, Object arg) {
+        if (delegate.isWarnEnabled()) {
+            log(Level.WARN, format, 1, arg, null, null, null);
+        }
+    }
+
+    @Override
+    public void warn(String format, Object arg1, Object arg2) {
+        if (delegate.isWarnEnabled()) {
+            log(Level.WARN, format, 2, arg1, arg2, null, null);
+        }
+    }
+
+    @Override
+    public void warn(String format, Object... arguments) {
+        if (delegate.isWarnEnabled()) {
+            log(Level.WARN, format, 0, null, null, arguments, null);
+        }
+    }
+
+    @Override
+    public void warn(String msg, Throwable t) {
+        if (delegate.isWarnEnabled()) {
+            log(Level.WARN, msg, 0, null, null, null, t);
+        }
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return delegate.isErrorEnabled();
+    }
+
+    @Override
+    public void error(String msg) {
+        if (delegate.isErrorEnabled()) {
+            log(Level.ERROR, msg, 0, null, null, null, null);
+        }
+    }
+
+    @Override
+    public void error(String format, Object arg) {
+        if (delegate.isErrorEnabled()) {
+            log(Level.ERROR, format, 1, arg, null, null, null);
+        }
+    }
+
+    @Override
+    public void error(String format, Object arg1, Object arg2) {
+        if (delegate.isErrorEnabled()) {
+            log(Level.ERROR, format, 2, arg1, arg2, null, null);
+        }
+    }
+
+    @Override
+    public void error(String format, Object... arguments) {
+        if (delegate.isErrorEnabled()) {
+            log(Level.ERROR, format, 0, null, null, arguments, null);
+        }
+    }
+
+    @Override
+    public void error(String msg, Throwable t) {
+        if (delegate.isErrorEnabled()) {
+            log(Level.ERROR, msg, 0, null, null, null, t);
+        }
+    }
+
+    private void log(Level level, String format, int argCount, Object arg1, Object arg2, Object[] args,
+                     Throwable throwable) {
+        if (sampleEvery > 1 && level.toInt() < Level.WARN.toInt()
+                && ThreadLocalRandom.current().nextInt(sampleEvery) != 0) {
+            return;
+        }
+        if (appender != null) {
+            appender.append(level, name, format, argCount, arg1, arg2, args, throwable);
+            return;
+        }
+        FormattingTuple message;
+        if (args != null) {
+            message = MessageFormatter.arrayFormat(format, args);
+        } else if (argCount == 2) {
+            message = MessageFormatter.format(format, arg1, arg2);
+        } else if (argCount == 1) {
+            message = MessageFormatter.format(format, arg1);
+        } else {
+            message = new FormattingTuple(format);
+        }
+        Throwable t = throwable != null ? throwable : message.getThrowable();
+        switch (level) {
+            case TRACE:
+                delegate.trace(message.getMessage(), t);
+                break;
+            case DEBUG:
+                delegate.debug(message.getMessage(), t);
+                break;
+            case INFO:
+                delegate.info(message.getMessage(), t);
+                break;
+            case WARN:
+                delegate.warn(message.getMessage(), t);
+                break;
+            default:
+                delegate.error(message.getMessage(), t);
+                break;
+        }
+    }
+}
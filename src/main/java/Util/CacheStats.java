@@ -0,0 +1,95 @@
+package Util;
+
+/**
+ * An immutable snapshot of an LruCache's counters, used to tune the cache size.
+ */
+public class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long expirations;
+    private final int size;
+    private final long weight;
+    private final long maxWeight;
+
+    public CacheStats(long hits, long misses, long evictions, long expirations, int size, long weight, long maxWeight) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.expirations = expirations;
+        this.size = size;
+        this.weight = weight;
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * @return lookups answered from the cache, including cached misses
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return lookups that had to go to the underlying store
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return entries removed because the cache was full
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return entries removed because they outlived the time-to-live
+     */
+    public long getExpirations() {
+        return expirations;
+    }
+
+    /**
+     * @return entries currently held
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return the total weight of the entries held; equal to getSize() for unweighted caches
+     */
+    public long getWeight() {
+        return weight;
+    }
+
+    /**
+     * @return the configured capacity, as a total weight
+     */
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * @return the fraction of lookups answered from the cache, between 0 and 1
+     */
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+                "hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                ", expirations=" + expirations +
+                ", size=" + size +
+                ", weight=" + weight +
+                ", maxWeight=" + maxWeight +
+                ", hitRate=" + String.format("%.3f", getHitRate()) +
+                '}';
+    }
+}
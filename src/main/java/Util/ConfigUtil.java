@@ -0,0 +1,86 @@
+package Util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Utility class for reading runtime configuration.
+ *
+ * A key such as "db.pool.maxSize" is looked up first as a JVM system property
+ * (-Ddb.pool.maxSize=20) and then as an environment variable (DB_POOL_MAXSIZE).
+ * If neither is set, or the value cannot be parsed, the supplied default is used.
+ */
+public class ConfigUtil {
+    private static final Logger logger = LoggerFactory.getLogger(ConfigUtil.class);
+
+    /**
+     * @param key the configuration key
+     * @param defaultValue the value to use when the key is not set
+     * @return the configured value, or defaultValue
+     */
+    public static String getString(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) {
+            value = System.getenv(key.replace('.', '_').toUpperCase());
+        }
+        return (value == null || value.isBlank()) ? defaultValue : value.trim();
+    }
+
+    /**
+     * @param key the configuration key
+     * @param defaultValue the value to use when the key is not set or is not a number
+     * @return the configured value, or defaultValue
+     */
+    public static int getInt(String key, int defaultValue) {
+        return (int) getLong(key, defaultValue);
+    }
+
+    /**
+     * @param key the configuration key
+     * @param defaultValue the value to use when the key is not set or is not a number
+     * @return the configured value, or defaultValue
+     */
+    public static long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid value '{}' for {}, using default {}", value, key, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * @param key the configuration key
+     * @param defaultValue the value to use when the key is not set or is not a number
+     * @return the configured value, or defaultValue
+     */
+    public static double getDouble(String key, double defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid value '{}' for {}, using default {}", value, key, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * @param key the configuration key
+     * @param defaultValue the value to use when the key is not set
+     * @return the configured value, or defaultValue
+     */
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    // Private constructor to prevent instantiation
+    private ConfigUtil() {}
+}
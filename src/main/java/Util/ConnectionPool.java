@@ -0,0 +1,329 @@
+package Util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded pool of physical JDBC connections.
+ *
+ * At most maxSize connections are handed out at once; callers beyond that wait up to
+ * acquireTimeoutMillis and then get an SQLTimeoutException. Idle connections are reused
+ * most-recently-used first, are checked with Connection.isValid() when they have been idle
+ * longer than validationIntervalMillis, and are closed by a background evictor once they
+ * have been idle longer than idleTimeoutMillis (keeping at least minIdle open).
+ *
+ * The Connection handed to callers is a thin proxy: calling close() on it returns the
+ * physical connection to the pool instead of closing it, so DAOs keep their usual
+ * DatabaseUtil.closeResource(connection) cleanup.
+ *
+ * Once shutdown() has been called the pool hands out no more connections, and connections
+ * returned afterwards are closed without giving their permits back.
+ */
+public class ConnectionPool {
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+
+    private final DataSource dataSource;
+    private final int maxSize;
+    private final int minIdle;
+    private final long acquireTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long validationIntervalMillis;
+
+    /**
+     * One permit per connection that may be checked out.
+     */
+    private final Semaphore permits;
+    /**
+     * Idle connections, most recently returned at the head.
+     */
+    private final Deque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger total = new AtomicInteger();
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * @param dataSource the source of new physical connections
+     * @param maxSize the maximum number of connections open at once
+     * @param minIdle the number of idle connections the evictor leaves open
+     * @param acquireTimeoutMillis how long getConnection() waits for a free connection
+     * @param idleTimeoutMillis how long a connection may sit idle before it is closed
+     * @param validationIntervalMillis idle time after which a connection is validated before reuse
+     */
+    public ConnectionPool(DataSource dataSource, int maxSize, int minIdle, long acquireTimeoutMillis,
+                          long idleTimeoutMillis, long validationIntervalMillis) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1");
+        }
+        this.dataSource = dataSource;
+        this.maxSize = maxSize;
+        this.minIdle = Math.max(0, Math.min(minIdle, maxSize));
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.validationIntervalMillis = validationIntervalMillis;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "connection-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, idleTimeoutMillis / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdleConnections, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection from the pool, opening a new one if no idle connection is available.
+     * Closing the returned connection gives it back to the pool.
+     *
+     * @return a pooled connection
+     * @throws SQLTimeoutException if no connection became free within the acquire timeout
+     * @throws SQLException if the pool has been shut down or a new physical connection could not be opened
+     */
+    public Connection getConnection() throws SQLException {
+        checkOpen();
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                throw new SQLTimeoutException("Timed out after " + acquireTimeoutMillis
+                        + "ms waiting for a database connection (pool size " + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        recordWait(System.nanoTime() - start);
+
+        try {
+            // shutdown() may have run while this caller was waiting for its permit
+            checkOpen();
+            PooledConnection pooled = takeIdleConnection();
+            if (pooled == null) {
+                pooled = new PooledConnection(dataSource.getConnection());
+                total.incrementAndGet();
+                created.increment();
+            }
+            active.incrementAndGet();
+            acquired.increment();
+            return pooled.lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * @return a point-in-time snapshot of the pool's counters
+     */
+    public PoolStats getStats() {
+        long acquiredCount = acquired.sum();
+        return new PoolStats(maxSize, active.get(), idle.size(), total.get(), permits.getQueueLength(),
+                acquiredCount, timeouts.sum(), created.sum(), evicted.sum(), validationFailures.sum(),
+                totalWaitNanos.sum(), maxWaitNanos.get());
+    }
+
+    /**
+     * Stops the evictor and closes every idle connection. Connections still checked out are
+     * closed when they are returned, and later calls to getConnection() fail.
+     */
+    public void shutdown() {
+        closed = true;
+        evictor.shutdownNow();
+        permits.drainPermits();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            discard(pooled);
+        }
+    }
+
+    private void checkOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool has been shut down");
+        }
+    }
+
+    private PooledConnection takeIdleConnection() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (isUsable(pooled)) {
+                return pooled;
+            }
+            validationFailures.increment();
+            discard(pooled);
+        }
+        return null;
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        long idleMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pooled.lastReturnedNanos);
+        if (idleMillis < validationIntervalMillis) {
+            return true;
+        }
+        try {
+            return pooled.physical.isValid(1);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void release(PooledConnection pooled) {
+        active.decrementAndGet();
+        if (closed) {
+            // shutdown() drained the permits; giving this one back would let a borrower in again
+            discard(pooled);
+            return;
+        }
+        if (resetState(pooled.physical)) {
+            pooled.lastReturnedNanos = System.nanoTime();
+            idle.offerFirst(pooled);
+            // shutdown() may have emptied the idle list just before this connection was added
+            if (closed && idle.remove(pooled)) {
+                discard(pooled);
+            }
+        } else {
+            discard(pooled);
+        }
+        permits.release();
+    }
+
+    /**
+     * Undoes anything a borrower may have left behind so the next borrower gets a clean connection.
+     *
+     * @return false if the connection is broken and should not be reused
+     */
+    private boolean resetState(Connection physical) {
+        try {
+            if (physical.isClosed()) {
+                return false;
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            physical.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            logger.warn("Discarding connection that could not be reset: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void evictIdleConnections() {
+        long now = System.nanoTime();
+        Iterator<PooledConnection> oldestFirst = idle.descendingIterator();
+        while (oldestFirst.hasNext() && idle.size() > minIdle) {
+            PooledConnection pooled = oldestFirst.next();
+            long idleMillis = TimeUnit.NANOSECONDS.toMillis(now - pooled.lastReturnedNanos);
+            // remove() only succeeds if no borrower has taken this connection in the meantime
+            if (idleMillis >= idleTimeoutMillis && idle.remove(pooled)) {
+                evicted.increment();
+                discard(pooled);
+            }
+        }
+        logger.debug("Connection pool stats: {}", getStats());
+    }
+
+    private void discard(PooledConnection pooled) {
+        total.decrementAndGet();
+        DatabaseUtil.closeResource(pooled.physical);
+    }
+
+    private void recordWait(long waitNanos) {
+        totalWaitNanos.add(waitNanos);
+        long max = maxWaitNanos.get();
+        while (waitNanos > max && !maxWaitNanos.compareAndSet(max, waitNanos)) {
+            max = maxWaitNanos.get();
+        }
+    }
+
+    /**
+     * A physical connection owned by the pool.
+     */
+    private final class PooledConnection {
+        private final Connection physical;
+        private volatile long lastReturnedNanos = System.nanoTime();
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        /**
+         * Wraps the physical connection in a new handle for one borrower. Each handle returns the
+         * connection to the pool at most once, so a stale handle cannot release it twice.
+         */
+        private Connection lease() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new LeaseHandler(this));
+        }
+    }
+
+    /**
+     * Forwards every call to the physical connection except close() and isClosed().
+     */
+    private final class LeaseHandler implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean closed;
+
+        private LeaseHandler(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.physical + "]";
+                default:
+                    if (closed) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                    try {
+                        return method.invoke(pooled.physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package Util;
 
-import java.io.FileNotFoundException;
-import java.io.FileReader;
+import java.io.StringReader;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Statement;
+
+import DAO.DataAccessException;
 
 import org.h2.jdbcx.JdbcDataSource;
 import org.h2.tools.RunScript;
@@ -29,43 +31,116 @@ public class ConnectionUtil {
 	private static String password = "sa";
 
 	/**
-	 * DataSource for pooling. Pooling enables the creation of multiple connections when connections are closed.
+	 * DataSource used by the pool to open new physical connections.
+	 */
+	private static JdbcDataSource dataSource = new JdbcDataSource();
+
+	/**
+	 * Bounded pool of connections. Closing a connection obtained from getConnection() returns it
+	 * here instead of closing the underlying H2 session. Sized with db.pool.* settings (see ConfigUtil).
 	 */
-	private static JdbcDataSource pool = new JdbcDataSource();
+	private static ConnectionPool pool;
 
 	/**
 	 * static initialization block to establish credentials for DataSoure Pool
 	 */
 	static {
-		pool.setURL(url);
-		pool.setUser(username);
-		pool.setPassword(password);
+		dataSource.setURL(url);
+		dataSource.setUser(username);
+		dataSource.setPassword(password);
+
+		pool = new ConnectionPool(dataSource,
+				ConfigUtil.getInt("db.pool.maxSize", 10),
+				ConfigUtil.getInt("db.pool.minIdle", 2),
+				ConfigUtil.getLong("db.pool.acquireTimeoutMs", 5000),
+				ConfigUtil.getLong("db.pool.idleTimeoutMs", 300000),
+				ConfigUtil.getLong("db.pool.validationIntervalMs", 30000));
+		Metrics.global().registerPool(ConnectionUtil::getPoolStats);
 	}
 
 	/**
+	 * If a UnitOfWork is active on this thread, returns its shared connection; closing that
+	 * connection is a no-op and the unit of work commits or rolls it back when it ends.
+	 * Otherwise borrows an auto-commit connection from the pool. When the current request is
+	 * traced, the connection times each statement it runs (see Trace).
+	 *
 	 * @return an active connection to the database
+	 * @throws DataAccessException if no connection could be acquired; its cause is an
+	 *         SQLTimeoutException if the pool stayed exhausted for the whole acquire timeout
 	 */
 	public static Connection getConnection() {
 		try {
-			return pool.getConnection();
+			UnitOfWork unitOfWork = UnitOfWork.current();
+			if (unitOfWork != null) {
+				return Trace.traced(unitOfWork.getConnection());
+			}
+			return Trace.traced(borrowConnection());
 		} catch (SQLException e) {
-			e.printStackTrace();
+			throw new DataAccessException("Could not get a database connection", e);
 		}
+	}
+
+	/**
+	 * @return a connection from the pool, ignoring any active unit of work
+	 * @throws SQLException if the pool timed out or a new connection could not be opened
+	 */
+	@SuppressWarnings("try")
+	static Connection borrowConnection() throws SQLException {
+		try (Trace.Span span = Trace.span("connection.acquire")) {
+			return pool.getConnection();
+		}
+	}
 
-		return null;
+	/**
+	 * @return a snapshot of the connection pool's usage counters
+	 */
+	public static PoolStats getPoolStats() {
+		return pool.getStats();
+	}
+
+	/**
+	 * Brings the database schema up to date by applying any pending migrations. Existing data is
+	 * kept. This is what the application runs on startup in production mode.
+	 *
+	 * @throws IllegalStateException if the schema could not be migrated
+	 */
+	public static void migrateDatabase() {
+		Connection connection;
+		try {
+			connection = borrowConnection();
+		} catch (SQLException e) {
+			throw new IllegalStateException("Could not connect to the database to migrate it", e);
+		}
+		try {
+			MigrationRunner.migrate(connection);
+		} catch (SQLException e) {
+			throw new IllegalStateException("Database migration failed", e);
+		} finally {
+			DatabaseUtil.closeResource(connection);
+		}
 	}
 
 	/**
 	 * For the purpose of testing, we will need to drop and recreate our database
-	 * tables to keep it consistent across all tests. The method will read the sql
-	 * file in resources. This will be performed before every test.
+	 * tables to keep it consistent across all tests. The method drops every object,
+	 * re-applies the schema migrations and then loads the seed data in SocialMedia.sql.
+	 * This will be performed before every test.
+	 *
+	 * @throws IllegalStateException if the database could not be reset
 	 */
 	public static void resetTestDatabase() {
+		Connection connection = getConnection();
+		Statement stmt = null;
 		try {
-			FileReader sqlReader = new FileReader("src/main/resources/SocialMedia.sql");
-			RunScript.execute(getConnection(), sqlReader);
-		} catch (SQLException | FileNotFoundException e) {
-			e.printStackTrace();
+			stmt = connection.createStatement();
+			stmt.execute("DROP ALL OBJECTS");
+			MigrationRunner.migrate(connection);
+			RunScript.execute(connection, new StringReader(MigrationRunner.readResource("SocialMedia.sql")));
+		} catch (SQLException e) {
+			throw new IllegalStateException("Could not reset the test database", e);
+		} finally {
+			DatabaseUtil.closeResource(stmt);
+			DatabaseUtil.closeResource(connection);
 		}
 	}
 }
@@ -0,0 +1,87 @@
+package Util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe count-min sketch over strings.
+ *
+ * estimate() never undercounts, and overcounts by at most about e / width of the total count with
+ * probability 1 - e^-depth. Counters are updated with atomic adds, so concurrent adds and
+ * estimates need no lock.
+ */
+public class CountMinSketch {
+    private final AtomicLongArray counters;
+    private final int width;
+    private final int depth;
+
+    /**
+     * @param width the counters per row; the error bound shrinks as this grows
+     * @param depth the number of rows; the chance of exceeding the error bound shrinks as this grows
+     */
+    public CountMinSketch(int width, int depth) {
+        this.width = Math.max(1, width);
+        this.depth = Math.max(1, depth);
+        this.counters = new AtomicLongArray(this.width * this.depth);
+    }
+
+    /**
+     * @param value the string to count
+     * @param count how much to add
+     */
+    public void add(String value, long count) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int row = 0; row < depth; row++) {
+            counters.addAndGet(row * width + index(h1 + row * h2), count);
+        }
+    }
+
+    /**
+     * @param value the string to look up
+     * @return an upper bound on how often the string was added, usually close to the true count
+     */
+    public long estimate(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters.get(row * width + index(h1 + row * h2)));
+        }
+        return min;
+    }
+
+    /**
+     * Sets every counter back to zero. Estimates taken while clearing may see some old counts.
+     */
+    public void clear() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+    }
+
+    private int index(int combinedHash) {
+        // flip negative hashes so every counter is reachable
+        int positive = combinedHash < 0 ? ~combinedHash : combinedHash;
+        return positive % width;
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mixer, as in BloomFilter.
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,61 @@
+package Util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates the loggers used on the request path.
+ *
+ * With logging.async.enabled (the default), their lines are queued in one shared AsyncLogAppender
+ * and written to stderr by its background thread, so a request never waits on output; lines
+ * logged when its buffer is full are dropped and counted in the log_lines_dropped_total metric.
+ * Loggers from getSampledLogger() also keep only one in logging.sample.{category} of their
+ * TRACE, DEBUG and INFO lines, for the lines written on every request.
+ *
+ * Classes outside the request path keep using LoggerFactory directly, and their lines are written
+ * as soon as they are logged, so they can appear slightly ahead of queued lines logged earlier.
+ */
+public class Logging {
+    private static final AsyncLogAppender APPENDER = createAppender();
+
+    /**
+     * @param type the class logging
+     * @return a logger that queues its lines when asynchronous logging is enabled
+     */
+    public static Logger getLogger(Class<?> type) {
+        Logger logger = LoggerFactory.getLogger(type);
+        return APPENDER == null ? logger : new AsyncLogger(logger, APPENDER, 1);
+    }
+
+    /**
+     * @param type the class logging; lines carry its name as usual
+     * @param category names the sample rate, logging.sample.{category}
+     * @return a logger that keeps one in that many of its TRACE, DEBUG and INFO lines, and queues
+     *         them when asynchronous logging is enabled
+     */
+    public static Logger getSampledLogger(Class<?> type, String category) {
+        Logger logger = LoggerFactory.getLogger(type);
+        int sampleEvery = ConfigUtil.getInt("logging.sample." + category, 100);
+        if (APPENDER == null && sampleEvery <= 1) {
+            return logger;
+        }
+        return new AsyncLogger(logger, APPENDER, sampleEvery);
+    }
+
+    private static AsyncLogAppender createAppender() {
+        if (!ConfigUtil.getBoolean("logging.async.enabled", true)) {
+            return null;
+        }
+        AsyncLogAppender appender = new AsyncLogAppender(
+                ConfigUtil.getInt("logging.async.bufferSize", 8192),
+                ConfigUtil.getLong("logging.async.flushIntervalMs", 10),
+                () -> System.err);
+        // the writer is a daemon thread, so write out what is still queued when the JVM exits
+        Runtime.getRuntime().addShutdownHook(new Thread(appender::shutdown, "log-writer-shutdown"));
+        Metrics metrics = Metrics.global();
+        metrics.register("log_lines_dropped_total", "Log lines dropped because the log buffer was full", "counter", "",
+                appender::getDropped);
+        metrics.register("log_lines_queued", "Log lines waiting to be written", "gauge", "", appender::getQueued);
+        return appender;
+    }
+}
@@ -0,0 +1,302 @@
+package Util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * A bounded, thread-safe cache that evicts least recently used entries once their total weight
+ * exceeds the limit, and treats entries older than the time-to-live as absent. By default every
+ * entry weighs 1, so the limit is an entry count; a weigher lets the limit track something else,
+ * such as the number of messages held across cached lists.
+ *
+ * Read-through loads do not hold the lock during the load. Each one leaves a placeholder for its
+ * key, which any write to that key removes, and the loaded value is only stored if the placeholder
+ * is still there; so a slow load cannot overwrite a newer write with a stale value, while writes
+ * to other keys do not stop it from being stored. A loader reports a failure by throwing, and a
+ * failed load is never cached.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class LruCache<K, V> {
+    private final long maxWeight;
+    private final long ttlNanos;
+    private final ToIntFunction<V> weigher;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private long totalWeight;
+
+    /**
+     * The placeholder of the newest load in flight for each key, removed by every write to the key.
+     */
+    private final Map<K, Object> loads = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * @param maxSize the maximum number of entries to keep
+     * @param ttlMillis how long an entry stays valid after it is stored; 0 or less means forever
+     */
+    public LruCache(int maxSize, long ttlMillis) {
+        this(maxSize, ttlMillis, value -> 1);
+    }
+
+    /**
+     * @param maxWeight the maximum total weight of the entries to keep
+     * @param ttlMillis how long an entry stays valid after it is stored; 0 or less means forever
+     * @param weigher the weight of a value, at least 1; called with null for cached misses
+     */
+    public LruCache(long maxWeight, long ttlMillis, ToIntFunction<V> weigher) {
+        if (maxWeight < 1) {
+            throw new IllegalArgumentException("maxWeight must be at least 1");
+        }
+        this.maxWeight = maxWeight;
+        this.ttlNanos = ttlMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(ttlMillis) : 0;
+        this.weigher = weigher;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns the cached value for the key, loading and caching it on a miss. A null result from
+     * the loader is cached too, so repeated lookups of an unknown key do not reach the loader.
+     *
+     * @param key the key to look up
+     * @param loader computes the value on a miss; may return null, and throws if the load failed
+     * @return the cached or loaded value, possibly null
+     */
+    public V get(K key, Function<K, V> loader) {
+        Object load = new Object();
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && !isExpired(entry)) {
+                hits.increment();
+                return entry.value;
+            }
+            if (entry != null) {
+                remove(key);
+                expirations.increment();
+            }
+            misses.increment();
+            loads.put(key, load);
+        }
+
+        V value;
+        try {
+            value = loader.apply(key);
+        } catch (RuntimeException | Error e) {
+            synchronized (this) {
+                loads.remove(key, load);
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            if (loads.remove(key, load)) {
+                store(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Returns the cached values for several keys, loading all the missing ones with a single
+     * loader call. Keys the loader returns no value for are cached as misses, as in get().
+     *
+     * @param keys the keys to look up
+     * @param loader computes the values for the keys that are not cached; keys it leaves out are
+     *        missing, and it throws if the load failed, in which case nothing is cached
+     * @return a mutable map from every requested key to its value, which is null for missing keys
+     */
+    public Map<K, V> getAll(Collection<K> keys, Function<List<K>, Map<K, V>> loader) {
+        Map<K, V> values = new HashMap<>();
+        List<K> missing = new ArrayList<>();
+        Object load = new Object();
+        synchronized (this) {
+            for (K key : new LinkedHashSet<>(keys)) {
+                Entry<V> entry = entries.get(key);
+                if (entry != null && !isExpired(entry)) {
+                    hits.increment();
+                    values.put(key, entry.value);
+                    continue;
+                }
+                if (entry != null) {
+                    remove(key);
+                    expirations.increment();
+                }
+                misses.increment();
+                missing.add(key);
+                loads.put(key, load);
+            }
+        }
+        if (missing.isEmpty()) {
+            return values;
+        }
+
+        Map<K, V> loaded;
+        try {
+            loaded = loader.apply(missing);
+        } catch (RuntimeException | Error e) {
+            synchronized (this) {
+                for (K key : missing) {
+                    loads.remove(key, load);
+                }
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            for (K key : missing) {
+                V value = loaded.get(key);
+                values.put(key, value);
+                if (loads.remove(key, load)) {
+                    store(key, value);
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Looks up a key without loading it.
+     *
+     * @param key the key to look up
+     * @return the cached entry, or null if the key is not cached. An entry whose value is null
+     *         records that the key is known to be missing.
+     */
+    public synchronized Entry<V> getIfPresent(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null || isExpired(entry)) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry;
+    }
+
+    /**
+     * Stores a value, replacing any cached one.
+     *
+     * @param key the key
+     * @param value the value; null records that the key is known to be missing
+     */
+    public synchronized void put(K key, V value) {
+        loads.remove(key);
+        store(key, value);
+    }
+
+    /**
+     * Updates the cached value for a key only if the key is currently cached. Counts as a write
+     * either way, so a load already in flight, which may predate the update, is not stored.
+     *
+     * @param key the key
+     * @param update computes the new value from the cached one
+     */
+    public synchronized void computeIfPresent(K key, Function<V, V> update) {
+        loads.remove(key);
+        Entry<V> entry = entries.get(key);
+        if (entry == null || isExpired(entry)) {
+            return;
+        }
+        store(key, update.apply(entry.value));
+    }
+
+    /**
+     * Removes a key so the next get() reloads it.
+     *
+     * @param key the key to remove
+     */
+    public synchronized void invalidate(K key) {
+        loads.remove(key);
+        remove(key);
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public synchronized void invalidateAll() {
+        loads.clear();
+        entries.clear();
+        totalWeight = 0;
+    }
+
+    /**
+     * @return the number of entries currently held, including expired ones not yet removed
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return a snapshot of the hit, miss and eviction counters
+     */
+    public CacheStats getStats() {
+        int size;
+        long weight;
+        synchronized (this) {
+            size = entries.size();
+            weight = totalWeight;
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), size, weight, maxWeight);
+    }
+
+    private void store(K key, V value) {
+        Entry<V> entry = new Entry<>(value, System.nanoTime(), Math.max(1, weigher.applyAsInt(value)));
+        Entry<V> previous = entries.put(key, entry);
+        totalWeight += entry.weight - (previous == null ? 0 : previous.weight);
+
+        // never evict the entry just stored, even if it alone is heavier than the limit
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        while (totalWeight > maxWeight && entries.size() > 1 && eldest.hasNext()) {
+            totalWeight -= eldest.next().getValue().weight;
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private void remove(K key) {
+        Entry<V> removed = entries.remove(key);
+        if (removed != null) {
+            totalWeight -= removed.weight;
+        }
+    }
+
+    private boolean isExpired(Entry<V> entry) {
+        return ttlNanos > 0 && System.nanoTime() - entry.storedAtNanos > ttlNanos;
+    }
+
+    /**
+     * A cached value. The value may be null, which records a known miss.
+     *
+     * @param <V> the value type
+     */
+    public static final class Entry<V> {
+        private final V value;
+        private final long storedAtNanos;
+        private final int weight;
+
+        private Entry(V value, long storedAtNanos, int weight) {
+            this.value = value;
+            this.storedAtNanos = storedAtNanos;
+            this.weight = weight;
+        }
+
+        /**
+         * @return the cached value, or null for a cached miss
+         */
+        public V getValue() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package Util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * The process-wide registry of metrics, written out in the Prometheus text format by GET /metrics.
+ *
+ * Instruments are created once, under the registry's lock, and callers keep the returned
+ * reference; recording then only touches that instrument (a LatencyHistogram, a LongAdder or a
+ * StatusCounts), never the registry, so it takes no lock and allocates nothing. Gauges are
+ * functions read when the metrics are scraped. Registering a gauge again under the same name and
+ * labels replaces it, so a restarted component reports its own state rather than its predecessor's.
+ */
+public class Metrics {
+    private static final Metrics GLOBAL = new Metrics();
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+    private static final String[] QUANTILE_LABELS = {"0.5", "0.99", "0.999"};
+
+    /**
+     * Guarded by this.
+     */
+    private final Map<String, Family> families = new LinkedHashMap<>();
+
+    /**
+     * @return the registry shared by the whole application
+     */
+    public static Metrics global() {
+        return GLOBAL;
+    }
+
+    /**
+     * @param name the metric name, reported in seconds as a summary with p50, p99 and p999
+     * @param help a one-line description
+     * @param labels the formatted labels, from labels(), or "" for none
+     * @return the timer for these labels, created on first use
+     */
+    public synchronized LatencyHistogram timer(String name, String help, String labels) {
+        return (LatencyHistogram) family(name, help, "summary").instruments
+                .computeIfAbsent(labels, l -> new LatencyHistogram());
+    }
+
+    /**
+     * @param name the metric name
+     * @param help a one-line description
+     * @param labels the formatted labels, from labels(), or "" for none
+     * @return the counter for these labels, created on first use
+     */
+    public synchronized LongAdder counter(String name, String help, String labels) {
+        return (LongAdder) family(name, help, "counter").instruments.computeIfAbsent(labels, l -> new LongAdder());
+    }
+
+    /**
+     * @param name the metric name; each status seen is reported with an added status label
+     * @param help a one-line description
+     * @param labels the formatted labels, from labels(), or "" for none
+     * @return the status counters for these labels, created on first use
+     */
+    public synchronized StatusCounts statusCounts(String name, String help, String labels) {
+        return (StatusCounts) family(name, help, "counter").instruments.computeIfAbsent(labels, l -> new StatusCounts());
+    }
+
+    /**
+     * Registers a value read at scrape time, replacing any registered under the same name and labels.
+     *
+     * @param name the metric name
+     * @param help a one-line description
+     * @param type "gauge" for a value that goes up and down, "counter" for one that only grows
+     * @param labels the formatted labels, from labels(), or "" for none
+     * @param value reads the current value
+     */
+    public synchronized void register(String name, String help, String type, String labels, DoubleSupplier value) {
+        family(name, help, type).instruments.put(labels, value);
+    }
+
+    /**
+     * Registers the counters of a cache under the given name.
+     *
+     * @param cache the value of the cache label
+     * @param stats reads a snapshot of the cache's counters
+     */
+    public void registerCache(String cache, Supplier<CacheStats> stats) {
+        String labels = labels("cache", cache);
+        register("cache_hits_total", "Cache lookups served from the cache", "counter", labels,
+                () -> stats.get().getHits());
+        register("cache_misses_total", "Cache lookups that had to load the value", "counter", labels,
+                () -> stats.get().getMisses());
+        register("cache_evictions_total", "Entries evicted to stay within the size limit", "counter", labels,
+                () -> stats.get().getEvictions());
+        register("cache_size", "Entries currently held", "gauge", labels, () -> stats.get().getSize());
+        register("cache_weight", "Current weight of the entries held", "gauge", labels, () -> stats.get().getWeight());
+    }
+
+    /**
+     * Registers the gauges and counters of a connection pool.
+     *
+     * @param stats reads a snapshot of the pool's counters
+     */
+    public void registerPool(Supplier<PoolStats> stats) {
+        register("db_pool_connections_max", "Configured maximum number of connections", "gauge", "",
+                () -> stats.get().getMaxSize());
+        register("db_pool_connections_active", "Connections currently checked out", "gauge", "",
+                () -> stats.get().getActive());
+        register("db_pool_connections_idle", "Open connections waiting in the pool", "gauge", "",
+                () -> stats.get().getIdle());
+        register("db_pool_waiting_threads", "Threads waiting for a connection", "gauge", "",
+                () -> stats.get().getWaiting());
+        register("db_pool_acquired_total", "Connections handed out", "counter", "",
+                () -> stats.get().getAcquired());
+        register("db_pool_timeouts_total", "Acquires that gave up waiting for a connection", "counter", "",
+                () -> stats.get().getTimeouts());
+        register("db_pool_connections_created_total", "Connections opened", "counter", "",
+                () -> stats.get().getCreated());
+        register("db_pool_connections_evicted_total", "Connections closed as idle or broken", "counter", "",
+                () -> stats.get().getEvicted());
+        register("db_pool_wait_seconds_total", "Time spent waiting for a connection", "counter", "",
+                () -> seconds(stats.get().getTotalWaitNanos()));
+    }
+
+    /**
+     * @param keysAndValues alternating label names and values
+     * @return the labels formatted for the exposition format, with values escaped
+     */
+    public static String labels(String... keysAndValues) {
+        StringBuilder labels = new StringBuilder();
+        for (int i = 0; i + 1 < keysAndValues.length; i += 2) {
+            if (labels.length() > 0) {
+                labels.append(',');
+            }
+            labels.append(keysAndValues[i]).append("=\"");
+            String value = keysAndValues[i + 1];
+            for (int c = 0; c < value.length(); c++) {
+                char ch = value.charAt(c);
+                if (ch == '\\' || ch == '"') {
+                    labels.append('\\').append(ch);
+                } else if (ch == '\n') {
+                    labels.append("\\n");
+                } else {
+                    labels.append(ch);
+                }
+            }
+            labels.append('"');
+        }
+        return labels.toString();
+    }
+
+    /**
+     * @return every metric in the Prometheus text exposition format, version 0.0.4
+     */
+    public synchronized String scrape() {
+        StringBuilder out = new StringBuilder(8192);
+        for (Family family : families.values()) {
+            out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+            for (Map.Entry<String, Object> instrument : family.instruments.entrySet()) {
+                write(out, family.name, instrument.getKey(), instrument.getValue());
+            }
+        }
+        return out.toString();
+    }
+
+    private Family family(String name, String help, String type) {
+        Family family = families.computeIfAbsent(name, n -> new Family(n, help, type));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + family.type);
+        }
+        return family;
+    }
+
+    private static void write(StringBuilder out, String name, String labels, Object instrument) {
+        if (instrument instanceof LatencyHistogram) {
+            LatencyHistogram histogram = (LatencyHistogram) instrument;
+            long count = histogram.getCount();
+            long sum = histogram.getSumNanos();
+            long[] quantiles = histogram.getQuantiles(QUANTILES);
+            for (int i = 0; i < QUANTILES.length; i++) {
+                String quantile = "quantile=\"" + QUANTILE_LABELS[i] + "\"";
+                sample(out, name, labels.isEmpty() ? quantile : labels + "," + quantile, seconds(quantiles[i]));
+            }
+            sample(out, name + "_sum", labels, seconds(sum));
+            sample(out, name + "_count", labels, count);
+        } else if (instrument instanceof LongAdder) {
+            sample(out, name, labels, ((LongAdder) instrument).sum());
+        } else if (instrument instanceof StatusCounts) {
+            AtomicLongArray counts = ((StatusCounts) instrument).counts;
+            for (int status = 0; status < counts.length(); status++) {
+                long count = counts.get(status);
+                if (count > 0) {
+                    String statusLabel = "status=\"" + status + "\"";
+                    sample(out, name, labels.isEmpty() ? statusLabel : labels + "," + statusLabel, count);
+                }
+            }
+        } else {
+            sample(out, name, labels, ((DoubleSupplier) instrument).getAsDouble());
+        }
+    }
+
+    private static double seconds(long nanos) {
+        return (double) nanos / TimeUnit.SECONDS.toNanos(1);
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ');
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    /**
+     * Counts of responses by HTTP status code.
+     */
+    public static final class StatusCounts {
+        private final AtomicLongArray counts = new AtomicLongArray(600);
+
+        /**
+         * @param status the HTTP status code; codes outside 0-599 are counted as 0
+         */
+        public void increment(int status) {
+            counts.incrementAndGet(status >= 0 && status < 600 ? status : 0);
+        }
+
+        /**
+         * @param status the HTTP status code
+         * @return the number of responses with that status
+         */
+        public long get(int status) {
+            return status >= 0 && status < 600 ? counts.get(status) : 0;
+        }
+    }
+
+    private static final class Family {
+        private final String name;
+        private final String help;
+        private final String type;
+        private final Map<String, Object> instruments = new LinkedHashMap<>();
+
+        private Family(String name, String help, String type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+}
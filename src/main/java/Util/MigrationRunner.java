@@ -0,0 +1,238 @@
+package Util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.h2.tools.RunScript;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Applies versioned schema migrations from the classpath.
+ *
+ * Scripts live in db/migration and are listed, in order, in db/migration/migrations.txt. Each
+ * script is named V{version}__{description}.sql. Applied versions are recorded in the
+ * schema_version table together with a checksum of the script, so each script runs exactly once
+ * per database and a released script that has since been edited is detected at startup.
+ *
+ * A database created before migrations were introduced already has the account and message
+ * tables but no schema_version rows. Its schema is recorded as version 1 (the baseline) without
+ * running V1, and the later migrations are applied on top of it.
+ */
+public class MigrationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(MigrationRunner.class);
+    private static final String MIGRATION_DIRECTORY = "db/migration/";
+    private static final String MANIFEST = MIGRATION_DIRECTORY + "migrations.txt";
+    private static final int BASELINE_VERSION = 1;
+    private static final String[] BASELINE_TABLES = {"ACCOUNT", "MESSAGE"};
+
+    /**
+     * Applies every migration newer than the database's current version.
+     *
+     * @param connection the connection to migrate through
+     * @return the number of migrations applied
+     * @throws SQLException if a migration fails; migrations applied before it stay applied
+     * @throws IllegalStateException if a migration script is missing, misnamed or was edited after being applied
+     */
+    public static int migrate(Connection connection) throws SQLException {
+        createVersionTable(connection);
+        Map<Integer, Long> applied = appliedVersions(connection);
+        boolean baseline = applied.isEmpty() && hasBaselineTables(connection);
+
+        int count = 0;
+        for (String script : readManifest()) {
+            int version = parseVersion(script);
+            String sql = readResource(MIGRATION_DIRECTORY + script);
+            long checksum = checksum(sql);
+
+            if (baseline && version == BASELINE_VERSION) {
+                logger.warn("Found tables from before migrations; recording {} as the baseline without running it", script);
+                record(connection, version, script, checksum);
+                continue;
+            }
+            Long appliedChecksum = applied.get(version);
+            if (appliedChecksum != null) {
+                if (appliedChecksum != checksum) {
+                    throw new IllegalStateException("Migration " + script + " was changed after it was applied");
+                }
+                continue;
+            }
+
+            logger.info("Applying migration {}", script);
+            apply(connection, version, script, sql, checksum);
+            count++;
+        }
+        logger.info("Database schema is up to date ({} migrations applied)", count);
+        return count;
+    }
+
+    private static void apply(Connection connection, int version, String script, String sql, long checksum)
+            throws SQLException {
+        String insert = "INSERT INTO schema_version (version, script, checksum) VALUES (?,?,?)";
+        boolean autoCommit = connection.getAutoCommit();
+        PreparedStatement pstmt = null;
+
+        try {
+            connection.setAutoCommit(false);
+            RunScript.execute(connection, new StringReader(sql));
+            pstmt = connection.prepareStatement(insert);
+            pstmt.setInt(1, version);
+            pstmt.setString(2, script);
+            pstmt.setLong(3, checksum);
+            pstmt.executeUpdate();
+            connection.commit();
+        } catch (SQLException e) {
+            logger.error("Migration {} failed: {}", script, e.getMessage());
+            connection.rollback();
+            throw e;
+        } finally {
+            DatabaseUtil.closeResource(pstmt);
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static void record(Connection connection, int version, String script, long checksum)
+            throws SQLException {
+        String insert = "INSERT INTO schema_version (version, script, checksum) VALUES (?,?,?)";
+        PreparedStatement pstmt = null;
+        try {
+            pstmt = connection.prepareStatement(insert);
+            pstmt.setInt(1, version);
+            pstmt.setString(2, script);
+            pstmt.setLong(3, checksum);
+            pstmt.executeUpdate();
+        } finally {
+            DatabaseUtil.closeResource(pstmt);
+        }
+    }
+
+    /**
+     * @return true if every table the baseline version creates already exists
+     */
+    private static boolean hasBaselineTables(Connection connection) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        for (String table : BASELINE_TABLES) {
+            ResultSet rs = null;
+            try {
+                rs = metaData.getTables(null, connection.getSchema(), table, new String[] {"TABLE"});
+                if (!rs.next()) {
+                    return false;
+                }
+            } finally {
+                DatabaseUtil.closeResource(rs);
+            }
+        }
+        return true;
+    }
+
+    private static void createVersionTable(Connection connection) throws SQLException {
+        String sql = "CREATE TABLE IF NOT EXISTS schema_version (" +
+                "version int primary key, " +
+                "script varchar(255) not null, " +
+                "checksum bigint not null, " +
+                "installed_on timestamp default current_timestamp)";
+        Statement stmt = null;
+        try {
+            stmt = connection.createStatement();
+            stmt.execute(sql);
+        } finally {
+            DatabaseUtil.closeResource(stmt);
+        }
+    }
+
+    private static Map<Integer, Long> appliedVersions(Connection connection) throws SQLException {
+        Map<Integer, Long> applied = new HashMap<>();
+        Statement stmt = null;
+        ResultSet rs = null;
+        try {
+            stmt = connection.createStatement();
+            rs = stmt.executeQuery("SELECT version, checksum FROM schema_version");
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getLong("checksum"));
+            }
+        } finally {
+            DatabaseUtil.closeResource(rs);
+            DatabaseUtil.closeResource(stmt);
+        }
+        return applied;
+    }
+
+    private static List<String> readManifest() {
+        List<String> scripts = new ArrayList<>();
+        int previousVersion = 0;
+        for (String line : readResource(MANIFEST).split("\n")) {
+            String script = line.trim();
+            if (script.isEmpty() || script.startsWith("#")) {
+                continue;
+            }
+            int version = parseVersion(script);
+            if (version <= previousVersion) {
+                throw new IllegalStateException("Migrations must be listed in increasing version order: " + script);
+            }
+            previousVersion = version;
+            scripts.add(script);
+        }
+        return scripts;
+    }
+
+    private static int parseVersion(String script) {
+        int separator = script.indexOf("__");
+        if (!script.startsWith("V") || separator < 2 || !script.endsWith(".sql")) {
+            throw new IllegalStateException("Migration script must be named V{version}__{description}.sql: " + script);
+        }
+        try {
+            return Integer.parseInt(script.substring(1, separator));
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Migration script has a non-numeric version: " + script);
+        }
+    }
+
+    /**
+     * @param path a classpath resource path
+     * @return the resource's contents as UTF-8 text
+     * @throws IllegalStateException if the resource does not exist or cannot be read
+     */
+    static String readResource(String path) {
+        InputStream in = MigrationRunner.class.getClassLoader().getResourceAsStream(path);
+        if (in == null) {
+            throw new IllegalStateException("Missing classpath resource: " + path);
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        try {
+            StringBuilder contents = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                contents.append(line).append('\n');
+            }
+            return contents.toString();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read classpath resource: " + path, e);
+        } finally {
+            DatabaseUtil.closeResource(reader);
+        }
+    }
+
+    private static long checksum(String sql) {
+        CRC32 crc = new CRC32();
+        crc.update(sql.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    // Private constructor to prevent instantiation
+    private MigrationRunner() {}
+}
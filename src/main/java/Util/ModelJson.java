@@ -0,0 +1,229 @@
+package Util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import Model.Account;
+import Model.Message;
+
+/**
+ * Hand-written JSON codecs for Message and Account, on Jackson's streaming API.
+ *
+ * They produce and accept the same JSON as Jackson's reflective databinding for these classes:
+ * the same field names in declaration order when writing, and when reading, numbers given as
+ * strings or with fractions, null for a number as 0, numbers and booleans for text, and an
+ * error for unknown fields. Having no reflection, they cost about what writing the fields by hand
+ * costs, and read straight from the parser without building a tree.
+ */
+public class ModelJson {
+    // field names encoded once, as Jackson's own serializers do, rather than on every write
+    private static final SerializedString MESSAGE_ID = new SerializedString("message_id");
+    private static final SerializedString POSTED_BY = new SerializedString("posted_by");
+    private static final SerializedString MESSAGE_TEXT = new SerializedString("message_text");
+    private static final SerializedString TIME_POSTED_EPOCH = new SerializedString("time_posted_epoch");
+    private static final SerializedString LIKE_COUNT = new SerializedString("like_count");
+    private static final SerializedString ACCOUNT_ID = new SerializedString("account_id");
+    private static final SerializedString USERNAME = new SerializedString("username");
+    private static final SerializedString PASSWORD = new SerializedString("password");
+
+    /**
+     * @param generator the generator to write to
+     * @param message the message to write, or null to write null
+     * @throws IOException if the generator's target fails
+     */
+    public static void writeMessage(JsonGenerator generator, Message message) throws IOException {
+        if (message == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartObject();
+        generator.writeFieldName(MESSAGE_ID);
+        generator.writeNumber(message.getMessage_id());
+        generator.writeFieldName(POSTED_BY);
+        generator.writeNumber(message.getPosted_by());
+        generator.writeFieldName(MESSAGE_TEXT);
+        generator.writeString(message.getMessage_text());
+        generator.writeFieldName(TIME_POSTED_EPOCH);
+        generator.writeNumber(message.getTime_posted_epoch());
+        generator.writeFieldName(LIKE_COUNT);
+        generator.writeNumber(message.getLike_count());
+        generator.writeEndObject();
+    }
+
+    /**
+     * @param generator the generator to write to
+     * @param account the account to write, or null to write null
+     * @throws IOException if the generator's target fails
+     */
+    public static void writeAccount(JsonGenerator generator, Account account) throws IOException {
+        if (account == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartObject();
+        generator.writeFieldName(ACCOUNT_ID);
+        generator.writeNumber(account.getAccount_id());
+        generator.writeFieldName(USERNAME);
+        generator.writeString(account.getUsername());
+        generator.writeFieldName(PASSWORD);
+        generator.writeString(account.getPassword());
+        generator.writeEndObject();
+    }
+
+    /**
+     * Reads a message, starting at the parser's current token.
+     *
+     * @param parser a parser positioned on the message's START_OBJECT, on its first field name, or on null
+     * @return the message, or null if the value was null
+     * @throws IOException if the JSON is malformed or is not a message
+     */
+    public static Message readMessage(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token == JsonToken.START_OBJECT) {
+            token = parser.nextToken();
+        }
+        Message message = new Message();
+        for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "message_id":
+                    message.setMessage_id(readInt(parser));
+                    break;
+                case "posted_by":
+                    message.setPosted_by(readInt(parser));
+                    break;
+                case "message_text":
+                    message.setMessage_text(readText(parser));
+                    break;
+                case "time_posted_epoch":
+                    message.setTime_posted_epoch(readLong(parser));
+                    break;
+                case "like_count":
+                    message.setLike_count(readLong(parser));
+                    break;
+                default:
+                    throw new JsonParseException(parser, "Unrecognized field \"" + field + "\" for Message");
+            }
+        }
+        expectEndObject(parser, token, "Message");
+        return message;
+    }
+
+    /**
+     * Reads an account, starting at the parser's current token.
+     *
+     * @param parser a parser positioned on the account's START_OBJECT, on its first field name, or on null
+     * @return the account, or null if the value was null
+     * @throws IOException if the JSON is malformed or is not an account
+     */
+    public static Account readAccount(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token == JsonToken.START_OBJECT) {
+            token = parser.nextToken();
+        }
+        Account account = new Account();
+        for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "account_id":
+                    account.setAccount_id(readInt(parser));
+                    break;
+                case "username":
+                    account.setUsername(readText(parser));
+                    break;
+                case "password":
+                    account.setPassword(readText(parser));
+                    break;
+                default:
+                    throw new JsonParseException(parser, "Unrecognized field \"" + field + "\" for Account");
+            }
+        }
+        expectEndObject(parser, token, "Account");
+        return account;
+    }
+
+    /**
+     * Reads an array of messages, starting at the parser's current token.
+     *
+     * @param parser a parser positioned on the array's START_ARRAY, or on null
+     * @return the messages, or null if the value was null
+     * @throws IOException if the JSON is malformed or is not an array of messages
+     */
+    public static Message[] readMessages(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token != JsonToken.START_ARRAY) {
+            throw new JsonParseException(parser, "Cannot read an array of Message from " + token);
+        }
+        List<Message> messages = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            messages.add(readMessage(parser));
+        }
+        return messages.toArray(new Message[0]);
+    }
+
+    private static void expectEndObject(JsonParser parser, JsonToken token, String type) throws IOException {
+        if (token != JsonToken.END_OBJECT) {
+            throw new JsonParseException(parser, "Cannot read " + type + " from " + token);
+        }
+    }
+
+    private static int readInt(JsonParser parser) throws IOException {
+        long value = readLong(parser);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new JsonParseException(parser, "Number out of range for int: " + value);
+        }
+        return (int) value;
+    }
+
+    private static long readLong(JsonParser parser) throws IOException {
+        switch (parser.currentToken()) {
+            case VALUE_NUMBER_INT:
+                return parser.getLongValue();
+            case VALUE_NUMBER_FLOAT:
+                return (long) parser.getDoubleValue();
+            case VALUE_NULL:
+                return 0;
+            case VALUE_STRING:
+                String text = parser.getText().trim();
+                if (text.isEmpty()) {
+                    return 0;
+                }
+                try {
+                    return Long.parseLong(text);
+                } catch (NumberFormatException e) {
+                    throw new JsonParseException(parser, "Not a number: \"" + text + "\"");
+                }
+            default:
+                throw new JsonParseException(parser, "Expected a number, got " + parser.currentToken());
+        }
+    }
+
+    private static String readText(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (!token.isScalarValue()) {
+            throw new JsonParseException(parser, "Expected text, got " + token);
+        }
+        return parser.getText();
+    }
+}
@@ -0,0 +1,148 @@
+package Util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An immutable snapshot of a ConnectionPool's counters, used to size the pool against the
+ * number of request threads.
+ */
+public class PoolStats {
+    private final int maxSize;
+    private final int active;
+    private final int idle;
+    private final int total;
+    private final int waiting;
+    private final long acquired;
+    private final long timeouts;
+    private final long created;
+    private final long evicted;
+    private final long validationFailures;
+    private final long totalWaitNanos;
+    private final long maxWaitNanos;
+
+    public PoolStats(int maxSize, int active, int idle, int total, int waiting, long acquired, long timeouts,
+                     long created, long evicted, long validationFailures, long totalWaitNanos, long maxWaitNanos) {
+        this.maxSize = maxSize;
+        this.active = active;
+        this.idle = idle;
+        this.total = total;
+        this.waiting = waiting;
+        this.acquired = acquired;
+        this.timeouts = timeouts;
+        this.created = created;
+        this.evicted = evicted;
+        this.validationFailures = validationFailures;
+        this.totalWaitNanos = totalWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+    }
+
+    /**
+     * @return the configured maximum number of connections
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return connections currently checked out
+     */
+    public int getActive() {
+        return active;
+    }
+
+    /**
+     * @return open connections waiting in the pool
+     */
+    public int getIdle() {
+        return idle;
+    }
+
+    /**
+     * @return physical connections currently open (active plus idle)
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * @return threads currently blocked waiting for a connection
+     */
+    public int getWaiting() {
+        return waiting;
+    }
+
+    /**
+     * @return successful acquisitions since startup
+     */
+    public long getAcquired() {
+        return acquired;
+    }
+
+    /**
+     * @return acquisitions that gave up after the acquire timeout
+     */
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    /**
+     * @return physical connections opened since startup
+     */
+    public long getCreated() {
+        return created;
+    }
+
+    /**
+     * @return physical connections closed by the idle evictor
+     */
+    public long getEvicted() {
+        return evicted;
+    }
+
+    /**
+     * @return idle connections discarded because they failed validation
+     */
+    public long getValidationFailures() {
+        return validationFailures;
+    }
+
+    /**
+     * @return total time callers spent waiting for a connection, in nanoseconds
+     */
+    public long getTotalWaitNanos() {
+        return totalWaitNanos;
+    }
+
+    /**
+     * @return the longest single wait for a connection, in nanoseconds
+     */
+    public long getMaxWaitNanos() {
+        return maxWaitNanos;
+    }
+
+    /**
+     * @return the mean wait per acquisition attempt, in microseconds
+     */
+    public double getAverageWaitMicros() {
+        long attempts = acquired + timeouts;
+        return attempts == 0 ? 0 : (totalWaitNanos / 1000.0) / attempts;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolStats{" +
+                "maxSize=" + maxSize +
+                ", active=" + active +
+                ", idle=" + idle +
+                ", total=" + total +
+                ", waiting=" + waiting +
+                ", acquired=" + acquired +
+                ", timeouts=" + timeouts +
+                ", created=" + created +
+                ", evicted=" + evicted +
+                ", validationFailures=" + validationFailures +
+                ", avgWaitMicros=" + String.format("%.1f", getAverageWaitMicros()) +
+                ", maxWaitMillis=" + TimeUnit.NANOSECONDS.toMillis(maxWaitNanos) +
+                '}';
+    }
+}
@@ -0,0 +1,142 @@
+package Util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A per-key token-bucket rate limiter that takes no locks.
+ *
+ * Each bucket is a single AtomicLong holding its "theoretical arrival time" (the generic cell
+ * rate algorithm): the time at which the bucket would be full again. Taking a permit pushes that
+ * time forward by one emission interval with a compare-and-set, and a request is refused if it
+ * would push it more than burst intervals past now. This allows rate permits per second on
+ * average with bursts of up to burst, the same as a token bucket, without a refill timer or a
+ * second field to keep consistent.
+ *
+ * A bucket whose arrival time has passed is full, which is exactly the state of a new bucket, so
+ * a sweeper thread removes those and memory only grows with the number of recently active keys.
+ * A request that raced with its bucket's removal is counted against the removed bucket, so the
+ * key may get at most one extra permit.
+ *
+ * @param <K> the type of key buckets are kept for, such as an account id or a client address;
+ *            keys are compared with equals(), so distinct keys never share a bucket
+ */
+public class RateLimiter<K> {
+    private static final Logger logger = LoggerFactory.getLogger(RateLimiter.class);
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final int burst;
+    private final Map<K, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final Thread sweeperThread;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    /**
+     * Creates the limiter and starts its sweeper thread.
+     *
+     * @param permitsPerSecond the sustained rate allowed per key
+     * @param burst the most permits a key may take at once after being idle
+     * @param sweepIntervalMillis how often full buckets are removed; 0 or less starts no sweeper
+     */
+    public RateLimiter(double permitsPerSecond, int burst, long sweepIntervalMillis) {
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.burst = Math.max(1, burst);
+        this.toleranceNanos = intervalNanos * this.burst;
+        if (sweepIntervalMillis > 0) {
+            this.sweeperThread = new Thread(() -> run(sweepIntervalMillis), "rate-limit-sweeper");
+            this.sweeperThread.setDaemon(true);
+            this.sweeperThread.start();
+        } else {
+            this.sweeperThread = null;
+        }
+    }
+
+    /**
+     * Takes permits for a key if it has enough.
+     *
+     * @param key the key to charge, such as an account id
+     * @param permits the number of permits to take
+     * @return 0 if the permits were taken, otherwise how many nanoseconds to wait before the same
+     *         request would be allowed; nothing is taken in that case
+     */
+    public long tryAcquire(K key, int permits) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(System.nanoTime()));
+        }
+        long cost = intervalNanos * permits;
+        while (true) {
+            long now = System.nanoTime();
+            long arrival = bucket.get();
+            // an arrival time in the past means the bucket is full
+            long start = arrival - now < 0 ? now : arrival;
+            long next = start + cost;
+            long wait = next - now - toleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * @return the most permits a key may take at once; a request for more is never allowed
+     */
+    public int getBurst() {
+        return burst;
+    }
+
+    /**
+     * Removes every bucket that is full again, since a new bucket behaves the same.
+     *
+     * @return the number of buckets removed
+     */
+    public int sweep() {
+        long now = System.nanoTime();
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.get() - now < 0);
+        return before - buckets.size();
+    }
+
+    /**
+     * @return the number of buckets currently held
+     */
+    public int size() {
+        return buckets.size();
+    }
+
+    /**
+     * Stops the sweeper thread.
+     */
+    public void shutdown() {
+        stopped.countDown();
+        if (sweeperThread != null) {
+            try {
+                sweeperThread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run(long sweepIntervalMillis) {
+        try {
+            while (!stopped.await(sweepIntervalMillis, TimeUnit.MILLISECONDS)) {
+                int removed = sweep();
+                if (removed > 0) {
+                    logger.debug("Removed {} idle rate limit buckets, {} left", removed, buckets.size());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
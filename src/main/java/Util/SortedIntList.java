@@ -0,0 +1,81 @@
+package Util;
+
+import java.util.Arrays;
+
+/**
+ * A set of ints kept as one sorted, growable int array, for id lists that are read far more than
+ * they change. Ids handed out by an auto-increment key arrive in increasing order, so the common
+ * add is an append; lookups are binary searches.
+ *
+ * Not thread-safe: the owner guards it with its own lock.
+ */
+public final class SortedIntList {
+    private int[] values = new int[4];
+    private int size;
+
+    /**
+     * @param value the value to add
+     * @return true if it was added, false if it was already present
+     */
+    public boolean add(int value) {
+        int index = size == 0 || values[size - 1] < value ? -size - 1 : Arrays.binarySearch(values, 0, size, value);
+        if (index >= 0) {
+            return false;
+        }
+        index = -index - 1;
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size + (size >> 1) + 1);
+        }
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = value;
+        size++;
+        return true;
+    }
+
+    /**
+     * @param value the value to remove
+     * @return true if it was removed, false if it was not present
+     */
+    public boolean remove(int value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    /**
+     * @param value the value to look for
+     * @return true if it is present
+     */
+    public boolean contains(int value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    /**
+     * Searches the values from a position on, for walking several sorted lists in step.
+     *
+     * @param value the value to look for
+     * @param from the first position to search
+     * @return the value's position, or (-(insertion point) - 1) as Arrays.binarySearch does
+     */
+    public int indexOf(int value, int from) {
+        return Arrays.binarySearch(values, from, size, value);
+    }
+
+    /**
+     * @return the number of values
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return a copy of the values in ascending order
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
@@ -0,0 +1,316 @@
+package Util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A trace of one request: a tree of timed spans, bound to the thread handling the request.
+ *
+ * Like UnitOfWork, the active trace is kept in a thread local, so the layers between the
+ * controller and the database need no extra parameters: a service or DAO opens a span with
+ * Trace.span() and closes it when done, and it becomes a child of whatever span is open on the
+ * thread. Only sampled requests get a trace. When none is active, span() returns a shared no-op
+ * span and the wrappers below are not applied, so the cost is one thread-local read.
+ *
+ * <pre>
+ * try (Trace.Span span = Trace.span("MessageDAO.getMessageById")) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * The span variable is only there to be closed, which javac's -Xlint:try reports as unused, so
+ * methods that open spans this way are annotated with @SuppressWarnings("try").
+ *
+ * Work handed to another thread, such as queued message writes, is not part of the trace.
+ */
+public class Trace {
+    private static final ThreadLocal<Trace> current = new ThreadLocal<>();
+    private static final Span NOOP = new Span(null, null, null, 0);
+    /**
+     * The most spans kept per trace, so a request that runs many statements stays bounded.
+     */
+    private static final int MAX_SPANS = 512;
+    private static final int MAX_SQL_LENGTH = 200;
+    private static final Set<String> STATEMENT_EXECUTE = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+    private static final Set<String> STATEMENT_FACTORY = Set.of("prepareStatement", "prepareCall", "createStatement");
+
+    private static final String ID_PREFIX = Long.toHexString(ThreadLocalRandom.current().nextLong() & 0xffffffL);
+    private static final AtomicLong nextId = new AtomicLong();
+
+    private final String requestId;
+    private final long startNanos;
+    private final List<Span> spans = new ArrayList<>();
+    private final Span root;
+    private Span open;
+    private int dropped;
+
+    private Trace(String requestId, String name) {
+        this.requestId = requestId;
+        this.startNanos = System.nanoTime();
+        this.root = new Span(this, null, name, startNanos);
+        this.open = root;
+    }
+
+    /**
+     * @return a new id for a request, unique within this process and unlikely to repeat across restarts
+     */
+    public static String newRequestId() {
+        return ID_PREFIX + "-" + Long.toHexString(nextId.incrementAndGet());
+    }
+
+    /**
+     * @param sampleEvery trace one in this many requests, chosen at random; 1 traces all, 0 or less none
+     * @return true if the current request should be traced
+     */
+    public static boolean sample(int sampleEvery) {
+        return sampleEvery == 1 || (sampleEvery > 1 && ThreadLocalRandom.current().nextInt(sampleEvery) == 0);
+    }
+
+    /**
+     * Starts a trace and binds it to the current thread, replacing any left there.
+     *
+     * @param requestId the id of the request being traced
+     * @param name the name of the root span, such as "PATCH /messages/{message_id}"
+     * @return the new trace
+     */
+    public static Trace begin(String requestId, String name) {
+        Trace trace = new Trace(requestId, name);
+        current.set(trace);
+        return trace;
+    }
+
+    /**
+     * @return the trace bound to this thread, or null if the current request is not traced
+     */
+    public static Trace current() {
+        return current.get();
+    }
+
+    /**
+     * Unbinds the trace from the current thread, if there is one. The trace itself stays usable.
+     */
+    public static void detach() {
+        current.remove();
+    }
+
+    /**
+     * Opens a span under the innermost span open on this thread.
+     *
+     * @param name what the span times, such as "MessageDAO.updateMessageText"
+     * @return the span, to be closed when the work ends, or a no-op span if no trace is active
+     */
+    public static Span span(String name) {
+        Trace trace = current.get();
+        return trace == null ? NOOP : trace.open(name);
+    }
+
+    /**
+     * Wraps a connection so that every statement it runs is timed as a span, if a trace is active.
+     *
+     * @param connection the connection to wrap
+     * @return the wrapped connection, or the connection itself if no trace is active or it is null
+     */
+    public static Connection traced(Connection connection) {
+        if (connection == null || current.get() == null) {
+            return connection;
+        }
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    Object result = invoke(method, connection, args);
+                    if (result instanceof Statement && STATEMENT_FACTORY.contains(method.getName())) {
+                        String sql = args != null && args.length > 0 && args[0] instanceof String
+                                ? (String) args[0] : null;
+                        return tracedStatement((Statement) result, sql);
+                    }
+                    return result;
+                });
+    }
+
+    /**
+     * @return the id of the traced request
+     */
+    public String getRequestId() {
+        return requestId;
+    }
+
+    /**
+     * @return the time since the trace began, or its root span's duration once it has finished
+     */
+    public long getDurationNanos() {
+        return root.endNanos != 0 ? root.endNanos - startNanos : System.nanoTime() - startNanos;
+    }
+
+    /**
+     * @return the spans recorded under the root, in the order they were opened
+     */
+    public List<Span> getSpans() {
+        return spans;
+    }
+
+    /**
+     * Ends the root span, along with any spans left open.
+     *
+     * @param durationNanos the request's duration as measured by the caller, or 0 to use the time until now
+     */
+    public void finish(long durationNanos) {
+        long end = durationNanos > 0 ? startNanos + durationNanos : System.nanoTime();
+        for (Span span : spans) {
+            if (span.endNanos == 0) {
+                span.endNanos = end;
+            }
+        }
+        root.endNanos = end;
+        open = root;
+    }
+
+    /**
+     * @return the span tree, one span per line, with each span's start offset and duration in milliseconds
+     */
+    public String format() {
+        StringBuilder out = new StringBuilder(128 + spans.size() * 64);
+        out.append("request ").append(requestId).append(' ').append(root.name).append(' ')
+                .append(millis(getDurationNanos())).append(" ms\n");
+        for (Span span : spans) {
+            for (int i = 0; i < span.depth; i++) {
+                out.append("  ");
+            }
+            out.append("  +").append(millis(span.startNanos - startNanos)).append(" ms ")
+                    .append(span.name).append(' ').append(millis(span.getDurationNanos())).append(" ms\n");
+        }
+        if (dropped > 0) {
+            out.append("  (").append(dropped).append(" more spans not recorded)\n");
+        }
+        return out.toString();
+    }
+
+    private Span open(String name) {
+        if (spans.size() >= MAX_SPANS) {
+            dropped++;
+            return NOOP;
+        }
+        Span span = new Span(this, open, name, System.nanoTime());
+        spans.add(span);
+        open = span;
+        return span;
+    }
+
+    @SuppressWarnings("try")
+    private static Statement tracedStatement(Statement statement, String sql) {
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                interfacesOf(statement), (proxy, method, args) -> {
+                    if (!STATEMENT_EXECUTE.contains(method.getName())) {
+                        return invoke(method, statement, args);
+                    }
+                    String text = args != null && args.length > 0 && args[0] instanceof String
+                            ? (String) args[0] : sql;
+                    try (Span span = span("sql " + method.getName() + ": " + abbreviate(text))) {
+                        return invoke(method, statement, args);
+                    }
+                });
+    }
+
+    /**
+     * @return the JDBC statement interfaces the statement implements, most specific first
+     */
+    private static Class<?>[] interfacesOf(Statement statement) {
+        if (statement instanceof CallableStatement) {
+            return new Class<?>[]{CallableStatement.class};
+        }
+        if (statement instanceof PreparedStatement) {
+            return new Class<?>[]{PreparedStatement.class};
+        }
+        return new Class<?>[]{Statement.class};
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static String abbreviate(String sql) {
+        if (sql == null) {
+            return "?";
+        }
+        String text = sql.replaceAll("\\s+", " ").trim();
+        return text.length() > MAX_SQL_LENGTH ? text.substring(0, MAX_SQL_LENGTH) + "..." : text;
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3f", (double) nanos / TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    /**
+     * One timed piece of work within a trace.
+     */
+    public static final class Span implements AutoCloseable {
+        private final Trace trace;
+        private final Span parent;
+        private final String name;
+        private final int depth;
+        private final long startNanos;
+        private long endNanos;
+
+        private Span(Trace trace, Span parent, String name, long startNanos) {
+            this.trace = trace;
+            this.parent = parent;
+            this.name = name;
+            this.depth = parent == null || parent.parent == null ? 0 : parent.depth + 1;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * @return what the span times
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return how deep the span is nested; 0 for spans directly under the request
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * @return the span's duration, or 0 if it is still open
+         */
+        public long getDurationNanos() {
+            return endNanos == 0 ? 0 : endNanos - startNanos;
+        }
+
+        /**
+         * Ends the span. Spans opened inside it and not yet closed are ended with it.
+         */
+        @Override
+        public void close() {
+            if (trace == null || endNanos != 0) {
+                return;
+            }
+            endNanos = System.nanoTime();
+            Span open = trace.open;
+            while (open != null && open != this && open.parent != null) {
+                if (open.endNanos == 0) {
+                    open.endNanos = endNanos;
+                }
+                open = open.parent;
+            }
+            trace.open = parent;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package Util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A unit of work binds one connection and one transaction to the current thread.
+ *
+ * While a unit of work is active, every ConnectionUtil.getConnection() call on this thread
+ * returns the same connection, so all DAO calls made by a request share one round trip to the
+ * pool and commit or roll back together. The connection is borrowed lazily, on the first
+ * getConnection() call, and DAOs closing it have no effect until the unit of work ends.
+ *
+ * Usage follows the same explicit style as our JDBC code:
+ *
+ * <pre>
+ * UnitOfWork unitOfWork = UnitOfWork.begin();
+ * try {
+ *     ... DAO calls ...
+ *     unitOfWork.commit();
+ * } finally {
+ *     unitOfWork.end();
+ * }
+ * </pre>
+ *
+ * Calling begin() while a unit of work is already active joins it. A nested commit() only marks
+ * its part as successful; a nested end() without a commit() marks the whole unit rollback-only.
+ * The outermost end() rolls back anything that was not committed and returns the connection.
+ */
+public class UnitOfWork {
+    private static final Logger logger = LoggerFactory.getLogger(UnitOfWork.class);
+    private static final ThreadLocal<UnitOfWork> current = new ThreadLocal<>();
+
+    private Connection connection;
+    private Connection sharedView;
+    private List<Runnable> rollbackActions;
+    private List<Runnable> commitActions;
+    private int depth = 1;
+    private boolean nestedCommitted;
+    private boolean rollbackOnly;
+    private boolean finished;
+
+    private UnitOfWork() {
+    }
+
+    /**
+     * Starts a unit of work on the current thread, or joins the one already active.
+     *
+     * @return the active unit of work
+     */
+    public static UnitOfWork begin() {
+        UnitOfWork unitOfWork = current.get();
+        if (unitOfWork != null) {
+            unitOfWork.depth++;
+            return unitOfWork;
+        }
+        unitOfWork = new UnitOfWork();
+        current.set(unitOfWork);
+        return unitOfWork;
+    }
+
+    /**
+     * @return the unit of work active on this thread, or null if there is none
+     */
+    public static UnitOfWork current() {
+        return current.get();
+    }
+
+    /**
+     * Marks the active unit of work, if any, so that it rolls back when it ends.
+     */
+    public static void markRollbackOnly() {
+        UnitOfWork unitOfWork = current.get();
+        if (unitOfWork != null) {
+            unitOfWork.rollbackOnly = true;
+        }
+    }
+
+    /**
+     * Registers an action to run if the active unit of work rolls back, for example to drop a
+     * cache entry that was updated ahead of the commit. Does nothing if no unit of work is active,
+     * because then every statement has already been committed.
+     *
+     * @param action the action to run after a rollback
+     */
+    public static void onRollback(Runnable action) {
+        UnitOfWork unitOfWork = current.get();
+        if (unitOfWork != null) {
+            if (unitOfWork.rollbackActions == null) {
+                unitOfWork.rollbackActions = new ArrayList<>();
+            }
+            unitOfWork.rollbackActions.add(action);
+        }
+    }
+
+    /**
+     * Registers an action to run once the active unit of work has committed, for example to update
+     * an in-memory index only with data that is durable. Runs the action at once if no unit of work
+     * is active, because then every statement has already been committed. The action is dropped if
+     * the unit of work rolls back.
+     *
+     * @param action the action to run after the commit
+     */
+    public static void afterCommit(Runnable action) {
+        UnitOfWork unitOfWork = current.get();
+        if (unitOfWork == null) {
+            action.run();
+            return;
+        }
+        if (unitOfWork.commitActions == null) {
+            unitOfWork.commitActions = new ArrayList<>();
+        }
+        unitOfWork.commitActions.add(action);
+    }
+
+    /**
+     * Commits the transaction if this is the outermost level, otherwise records that this
+     * nested level completed successfully.
+     *
+     * @throws SQLException if the unit was marked rollback-only or the commit failed
+     */
+    @SuppressWarnings("try")
+    public void commit() throws SQLException {
+        if (depth > 1) {
+            nestedCommitted = true;
+            return;
+        }
+        if (rollbackOnly) {
+            throw new SQLException("Unit of work was marked rollback-only");
+        }
+        if (connection != null) {
+            try (Trace.Span span = Trace.span("transaction.commit")) {
+                connection.commit();
+            }
+        }
+        finished = true;
+    }
+
+    /**
+     * Leaves this level of the unit of work. The outermost call rolls back anything left
+     * uncommitted and returns the connection to the pool.
+     */
+    public void end() {
+        if (depth > 1) {
+            if (!nestedCommitted) {
+                rollbackOnly = true;
+            }
+            nestedCommitted = false;
+            depth--;
+            return;
+        }
+        current.remove();
+        try {
+            if (!finished && connection != null) {
+                logger.debug("Rolling back unit of work");
+                connection.rollback();
+            }
+        } catch (SQLException e) {
+            logger.error("Error rolling back unit of work: {}", e.getMessage());
+        } finally {
+            DatabaseUtil.closeResource(connection);
+            connection = null;
+        }
+        if (!finished && rollbackActions != null) {
+            for (Runnable action : rollbackActions) {
+                action.run();
+            }
+        }
+        if (finished && commitActions != null) {
+            for (Runnable action : commitActions) {
+                action.run();
+            }
+        }
+    }
+
+    /**
+     * @return the connection shared by this unit of work, borrowed from the pool on first use.
+     *         Closing it is a no-op; the unit of work returns it when it ends.
+     * @throws SQLException if no connection could be borrowed
+     */
+    Connection getConnection() throws SQLException {
+        if (connection == null) {
+            Connection borrowed = ConnectionUtil.borrowConnection();
+            try {
+                borrowed.setAutoCommit(false);
+            } catch (SQLException e) {
+                DatabaseUtil.closeResource(borrowed);
+                throw e;
+            }
+            connection = borrowed;
+            sharedView = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "close":
+                                return null;
+                            case "isClosed":
+                                return connection == null;
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            default:
+                                if (connection == null) {
+                                    throw new SQLException("Unit of work has already ended");
+                                }
+                                try {
+                                    return method.invoke(connection, args);
+                                } catch (InvocationTargetException e) {
+                                    throw e.getCause();
+                                }
+                        }
+                    });
+        }
+        return sharedView;
+    }
+}
@@ -0,0 +1,4 @@
+-- per-author listings filter on posted_by and page by (time_posted_epoch, message_id)
+create index message_posted_by_time_posted_idx on message (posted_by, time_posted_epoch, message_id);
+-- time-ordered listings and keyset pagination over all messages
+create index message_time_posted_idx on message (time_posted_epoch, message_id);
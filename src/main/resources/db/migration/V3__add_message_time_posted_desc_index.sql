@@ -0,0 +1,2 @@
+-- newest-first time-range queries read this index in order instead of sorting the range
+create index message_time_posted_desc_idx on message (time_posted_epoch desc, message_id desc);
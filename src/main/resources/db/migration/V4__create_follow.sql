@@ -0,0 +1,9 @@
+create table follow (
+    follower_id int not null,
+    followee_id int not null,
+    primary key (follower_id, followee_id),
+    foreign key (follower_id) references account(account_id),
+    foreign key (followee_id) references account(account_id)
+);
+-- follower lists are read by followee when the graph is loaded and when a post fans out
+create index follow_followee_idx on follow (followee_id, follower_id);
@@ -0,0 +1,2 @@
+-- likes are counted in memory and added here in batches by the like flusher
+alter table message add column like_count bigint not null default 0;
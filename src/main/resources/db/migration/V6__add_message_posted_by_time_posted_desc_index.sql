@@ -0,0 +1,2 @@
+-- an author's newest messages, pulled into follower feeds, are read from this index in order
+create index message_posted_by_time_posted_desc_idx on message (posted_by, time_posted_epoch desc, message_id desc);
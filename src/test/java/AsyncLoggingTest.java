@@ -0,0 +1,61 @@
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import Util.AsyncLogAppender;
+import Util.AsyncLogger;
+
+public class AsyncLoggingTest {
+
+    /**
+     * Events are written by drain() in slf4j-simple's format; once the buffer is full, further
+     * events are dropped and counted instead of waiting.
+     */
+    @Test
+    public void fullBufferDropsAndCounts() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+        AsyncLogAppender appender = new AsyncLogAppender(4, 0, () -> out);
+        for (int i = 0; i < 6; i++) {
+            appender.append(Level.INFO, "Test.Logger", "Line {} of {}", 2, i, 6, null, null);
+        }
+        Assert.assertEquals(4, appender.getQueued());
+        Assert.assertEquals(2, appender.getDropped());
+
+        Assert.assertEquals(4, appender.drain());
+        String thread = Thread.currentThread().getName();
+        String written = bytes.toString(StandardCharsets.UTF_8);
+        Assert.assertTrue(written, written.startsWith("[" + thread + "] INFO Test.Logger - Line 0 of 6\n"));
+        Assert.assertTrue(written, written.contains("[" + thread + "] INFO Test.Logger - Line 3 of 6\n"));
+        Assert.assertFalse(written, written.contains("Line 4 of 6"));
+        Assert.assertTrue(written, written.contains("Dropped 2 log lines"));
+
+        // slots are reused once drained
+        Assert.assertTrue(appender.append(Level.WARN, "Test.Logger", "again", 0, null, null, null, null));
+        Assert.assertEquals(1, appender.drain());
+    }
+
+    /**
+     * A sampled logger keeps about one in N of its INFO lines, and every WARN line.
+     */
+    @Test
+    public void sampledLoggerKeepsWarnings() {
+        AsyncLogAppender appender = new AsyncLogAppender(4096, 0, () -> System.err);
+        AsyncLogger logger = new AsyncLogger(LoggerFactory.getLogger(AsyncLoggingTest.class), appender, 10);
+        for (int i = 0; i < 2000; i++) {
+            logger.info("Retrieved {} messages", i);
+        }
+        long kept = appender.getQueued();
+        Assert.assertTrue(String.valueOf(kept), kept > 100 && kept < 300);
+
+        for (int i = 0; i < 100; i++) {
+            logger.warn("Slow request {}", i);
+        }
+        Assert.assertEquals(kept + 100, appender.getQueued());
+    }
+}
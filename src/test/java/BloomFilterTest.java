@@ -0,0 +1,41 @@
+import org.junit.Assert;
+import org.junit.Test;
+
+import Util.BloomFilter;
+
+public class BloomFilterTest {
+
+    /**
+     * Every added username is reported as possibly present.
+     */
+    @Test
+    public void addedValuesAreAlwaysFound() {
+        BloomFilter filter = new BloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filter.put("user" + i);
+        }
+        for (int i = 0; i < 10000; i++) {
+            Assert.assertTrue(filter.mightContain("user" + i));
+        }
+        Assert.assertEquals(10000, filter.getInsertions());
+    }
+
+    /**
+     * At its expected size the filter's false-positive rate stays close to the target.
+     */
+    @Test
+    public void falsePositiveRateIsNearTarget() {
+        BloomFilter filter = new BloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filter.put("user" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain("newuser" + i)) {
+                falsePositives++;
+            }
+        }
+        Assert.assertTrue("false positives: " + falsePositives, falsePositives < 200);
+        Assert.assertEquals(0.01, filter.getExpectedFalsePositiveRate(), 0.005);
+    }
+}
@@ -0,0 +1,106 @@
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import DAO.AccountDAO;
+import DAO.CachingAccountDAO;
+import DAO.DataAccessException;
+import Model.Account;
+import Util.UnitOfWork;
+
+public class CachingAccountDAOTest {
+    AccountDAO database;
+    CachingAccountDAO cachingAccountDAO;
+
+    /**
+     * Before every test, wrap a mock DAO that knows one account.
+     */
+    @Before
+    public void setUp() {
+        database = Mockito.mock(AccountDAO.class);
+        Account account = new Account(1, "testuser1", "password");
+        Mockito.when(database.getAccountByUsername("testuser1")).thenReturn(account);
+        Mockito.when(database.getAccountById(1)).thenReturn(account);
+        cachingAccountDAO = new CachingAccountDAO(database, 100, 0);
+    }
+
+    /**
+     * An account loaded by username is also indexed by id, so neither lookup repeats a query.
+     */
+    @Test
+    public void lookupIndexesBothKeys() {
+        cachingAccountDAO.getAccountByUsername("testuser1");
+        cachingAccountDAO.getAccountByUsername("testuser1");
+        Assert.assertEquals("testuser1", cachingAccountDAO.getAccountById(1).getUsername());
+
+        Mockito.verify(database, Mockito.times(1)).getAccountByUsername("testuser1");
+        Mockito.verify(database, Mockito.never()).getAccountById(1);
+    }
+
+    /**
+     * A created account replaces the cached misses for its username and id.
+     */
+    @Test
+    public void createReplacesCachedMisses() {
+        Account created = new Account(2, "newuser", "password");
+        Mockito.when(database.createAccount(Mockito.any())).thenReturn(created);
+
+        Assert.assertNull(cachingAccountDAO.getAccountByUsername("newuser"));
+        Assert.assertNull(cachingAccountDAO.getAccountById(2));
+        cachingAccountDAO.createAccount(new Account("newuser", "password"));
+
+        Assert.assertEquals(created, cachingAccountDAO.getAccountByUsername("newuser"));
+        Assert.assertEquals(created, cachingAccountDAO.getAccountById(2));
+        Mockito.verify(database, Mockito.times(1)).getAccountByUsername("newuser");
+        Mockito.verify(database, Mockito.times(1)).getAccountById(2);
+    }
+
+    /**
+     * An account created in a unit of work is not served to other threads until it has committed.
+     */
+    @Test
+    public void uncommittedAccountIsNotCached() throws Exception {
+        Account created = new Account(2, "newuser", "password");
+        Mockito.when(database.createAccount(Mockito.any())).thenReturn(created);
+        Assert.assertNull(cachingAccountDAO.getAccountByUsername("newuser"));
+
+        UnitOfWork unitOfWork = UnitOfWork.begin();
+        try {
+            cachingAccountDAO.createAccount(new Account("newuser", "password"));
+            AtomicReference<Account> seen = new AtomicReference<>(created);
+            Thread reader = new Thread(() -> seen.set(cachingAccountDAO.getAccountByUsername("newuser")));
+            reader.start();
+            reader.join();
+            Assert.assertNull(seen.get());
+            unitOfWork.commit();
+        } finally {
+            unitOfWork.end();
+        }
+
+        // stored by the commit, so the database is not asked again
+        Assert.assertEquals(created, cachingAccountDAO.getAccountByUsername("newuser"));
+        Mockito.verify(database, Mockito.times(2)).getAccountByUsername("newuser");
+    }
+
+    /**
+     * A lookup that fails is not cached as a missing account, so the next one asks the database again.
+     */
+    @Test
+    public void failedLookupIsNotCached() {
+        Mockito.when(database.getAccountByUsername("testuser1"))
+                .thenThrow(new DataAccessException("down", null))
+                .thenReturn(new Account(1, "testuser1", "password"));
+
+        try {
+            cachingAccountDAO.getAccountByUsername("testuser1");
+            Assert.fail("Expected the failed lookup to be reported");
+        } catch (DataAccessException expected) {
+            // the next lookup must reach the database
+        }
+        Assert.assertEquals("testuser1", cachingAccountDAO.getAccountByUsername("testuser1").getUsername());
+        Mockito.verify(database, Mockito.times(2)).getAccountByUsername("testuser1");
+    }
+}
@@ -0,0 +1,191 @@
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import DAO.CachingMessageDAO;
+import DAO.DataAccessException;
+import DAO.MessageDAO;
+import Model.Message;
+import Util.UnitOfWork;
+
+public class CachingMessageDAOTest {
+    MessageDAO database;
+    CachingMessageDAO cachingMessageDAO;
+
+    /**
+     * Before every test, wrap a mock DAO in a small cache.
+     */
+    @Before
+    public void setUp() {
+        database = Mockito.mock(MessageDAO.class);
+        cachingMessageDAO = new CachingMessageDAO(database, 2, 0);
+    }
+
+    /**
+     * Repeated lookups of the same id, including an unknown one, reach the database once.
+     */
+    @Test
+    public void repeatedLookupsHitCache() {
+        Message message = new Message(1, 1, "test message 1", 1669947792);
+        Mockito.when(database.getMessageById(1)).thenReturn(message);
+
+        Assert.assertEquals(message, cachingMessageDAO.getMessageById(1));
+        Assert.assertEquals(message, cachingMessageDAO.getMessageById(1));
+        Assert.assertNull(cachingMessageDAO.getMessageById(99));
+        Assert.assertNull(cachingMessageDAO.getMessageById(99));
+
+        Mockito.verify(database, Mockito.times(1)).getMessageById(1);
+        Mockito.verify(database, Mockito.times(1)).getMessageById(99);
+        Assert.assertEquals(2, cachingMessageDAO.getCacheStats().getHits());
+    }
+
+    /**
+     * A lookup the database fails is not cached as a miss, so the next one reaches the database.
+     */
+    @Test
+    public void failedLookupIsNotCached() {
+        Message message = new Message(1, 1, "test message 1", 1669947792);
+        Mockito.when(database.getMessageById(1))
+                .thenThrow(new DataAccessException("test failure", null))
+                .thenReturn(message);
+
+        Assert.assertThrows(DataAccessException.class, () -> cachingMessageDAO.getMessageById(1));
+        Assert.assertEquals(message, cachingMessageDAO.getMessageById(1));
+        Assert.assertEquals(message, cachingMessageDAO.getMessageById(1));
+        Mockito.verify(database, Mockito.times(2)).getMessageById(1);
+    }
+
+    /**
+     * A write to another message while a lookup is loading does not stop the loaded message
+     * from being cached.
+     */
+    @Test
+    public void writeToOtherKeyDuringLoadStillCaches() {
+        Message message = new Message(1, 1, "test message 1", 1669947792);
+        Mockito.when(database.deleteMessage(2)).thenReturn(new Message(2, 1, "test message 2", 1669947793));
+        Mockito.when(database.getMessageById(1)).thenAnswer(invocation -> {
+            cachingMessageDAO.deleteMessage(2);
+            return message;
+        });
+
+        Assert.assertEquals(message, cachingMessageDAO.getMessageById(1));
+        Assert.assertEquals(message, cachingMessageDAO.getMessageById(1));
+        Mockito.verify(database, Mockito.times(1)).getMessageById(1);
+    }
+
+    /**
+     * Updates replace the cached message and deletes turn it into a cached miss.
+     */
+    @Test
+    public void writesUpdateCache() {
+        Mockito.when(database.getMessageById(1)).thenReturn(new Message(1, 1, "test message 1", 1669947792));
+        Message updated = new Message(1, 1, "updated", 1669947792);
+        Mockito.when(database.updateMessageText(1, "updated")).thenReturn(updated);
+        Mockito.when(database.deleteMessage(1)).thenReturn(updated);
+
+        cachingMessageDAO.getMessageById(1);
+        cachingMessageDAO.updateMessageText(1, "updated");
+        Assert.assertEquals(updated, cachingMessageDAO.getMessageById(1));
+
+        cachingMessageDAO.deleteMessage(1);
+        Assert.assertNull(cachingMessageDAO.getMessageById(1));
+        Mockito.verify(database, Mockito.times(1)).getMessageById(1);
+    }
+
+    /**
+     * A write made in a unit of work is not served to other threads until it has committed.
+     */
+    @Test
+    public void uncommittedWritesAreNotCached() throws Exception {
+        Message original = new Message(1, 1, "test message 1", 1669947792);
+        Message updated = new Message(1, 1, "updated", 1669947792);
+        Mockito.when(database.getMessageById(1)).thenReturn(original);
+        Mockito.when(database.updateMessageText(1, "updated")).thenReturn(updated);
+        cachingMessageDAO.getMessageById(1);
+
+        UnitOfWork unitOfWork = UnitOfWork.begin();
+        try {
+            cachingMessageDAO.updateMessageText(1, "updated");
+            AtomicReference<Message> seen = new AtomicReference<>();
+            Thread reader = new Thread(() -> seen.set(cachingMessageDAO.getMessageById(1)));
+            reader.start();
+            reader.join();
+            Assert.assertEquals(original, seen.get());
+            unitOfWork.commit();
+        } finally {
+            unitOfWork.end();
+        }
+
+        // stored by the commit, so the database is not asked again
+        Assert.assertEquals(updated, cachingMessageDAO.getMessageById(1));
+        Mockito.verify(database, Mockito.times(2)).getMessageById(1);
+    }
+
+    /**
+     * Creating a message replaces a cached miss for its id.
+     */
+    @Test
+    public void createReplacesCachedMiss() {
+        Message created = new Message(2, 1, "new message", 1669947792);
+        Mockito.when(database.createMessage(Mockito.any())).thenReturn(created);
+
+        Assert.assertNull(cachingMessageDAO.getMessageById(2));
+        cachingMessageDAO.createMessage(new Message(1, "new message", 1669947792));
+        Assert.assertEquals(created, cachingMessageDAO.getMessageById(2));
+    }
+
+    /**
+     * The least recently used entry is evicted once the cache is full.
+     */
+    @Test
+    public void leastRecentlyUsedIsEvicted() {
+        cachingMessageDAO.getMessageById(1);
+        cachingMessageDAO.getMessageById(2);
+        cachingMessageDAO.getMessageById(1);
+        cachingMessageDAO.getMessageById(3);
+        cachingMessageDAO.getMessageById(2);
+
+        Mockito.verify(database, Mockito.times(2)).getMessageById(2);
+        Mockito.verify(database, Mockito.times(1)).getMessageById(1);
+        Assert.assertEquals(2, cachingMessageDAO.getCacheStats().getEvictions());
+    }
+
+    /**
+     * A multi-get answers cached ids from the cache and loads only the rest, in one call.
+     */
+    @Test
+    public void multiGetLoadsOnlyMisses() {
+        Message first = new Message(1, 1, "test message 1", 1669947792);
+        Message second = new Message(2, 1, "test message 2", 1669947793);
+        Mockito.when(database.getMessageById(1)).thenReturn(first);
+        Mockito.when(database.getMessagesByIds(List.of(2, 3))).thenReturn(Map.of(2, second));
+
+        cachingMessageDAO.getMessageById(1);
+        Assert.assertEquals(Map.of(1, first, 2, second), cachingMessageDAO.getMessagesByIds(List.of(1, 2, 3)));
+        Assert.assertEquals(second, cachingMessageDAO.getMessageById(2));
+
+        Mockito.verify(database, Mockito.times(1)).getMessagesByIds(List.of(2, 3));
+        Mockito.verify(database, Mockito.never()).getMessageById(2);
+    }
+
+    /**
+     * A failed multi-get caches none of the ids it was loading, so they are not reported missing
+     * afterwards.
+     */
+    @Test
+    public void failedMultiGetIsNotCached() {
+        Message first = new Message(1, 1, "test message 1", 1669947792);
+        Mockito.when(database.getMessagesByIds(List.of(1, 2)))
+                .thenThrow(new DataAccessException("test failure", null))
+                .thenReturn(Map.of(1, first));
+
+        Assert.assertThrows(DataAccessException.class, () -> cachingMessageDAO.getMessagesByIds(List.of(1, 2)));
+        Assert.assertEquals(Map.of(1, first), cachingMessageDAO.getMessagesByIds(List.of(1, 2)));
+        Mockito.verify(database, Mockito.times(2)).getMessagesByIds(List.of(1, 2));
+    }
+}
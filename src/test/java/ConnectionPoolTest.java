@@ -0,0 +1,102 @@
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import Util.ConnectionPool;
+import Util.PoolStats;
+
+public class ConnectionPoolTest {
+    ConnectionPool pool;
+
+    /**
+     * Before every test, create a small pool over an in-memory database so the tests can exhaust it.
+     */
+    @Before
+    public void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:pooltest;DB_CLOSE_DELAY=-1");
+        pool = new ConnectionPool(dataSource, 2, 0, 200, 60000, 30000);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    /**
+     * A returned connection is handed out again instead of opening a new physical connection.
+     */
+    @Test
+    public void closedConnectionIsReused() throws SQLException {
+        Connection first = pool.getConnection();
+        first.close();
+        Connection second = pool.getConnection();
+        second.close();
+
+        PoolStats stats = pool.getStats();
+        Assert.assertEquals(1, stats.getCreated());
+        Assert.assertEquals(2, stats.getAcquired());
+        Assert.assertEquals(0, stats.getActive());
+        Assert.assertEquals(1, stats.getIdle());
+    }
+
+    /**
+     * Once maxSize connections are checked out, the next caller times out and the timeout is counted.
+     */
+    @Test
+    public void exhaustedPoolTimesOut() throws SQLException {
+        Connection first = pool.getConnection();
+        Connection second = pool.getConnection();
+        try {
+            pool.getConnection();
+            Assert.fail("Expected the pool to time out");
+        } catch (SQLTimeoutException expected) {
+            Assert.assertEquals(1, pool.getStats().getTimeouts());
+        } finally {
+            first.close();
+            second.close();
+        }
+        Assert.assertEquals(2, pool.getStats().getIdle());
+    }
+
+    /**
+     * A borrower that leaves a transaction open does not leak it to the next borrower.
+     */
+    @Test
+    public void returnedConnectionIsReset() throws SQLException {
+        Connection first = pool.getConnection();
+        first.setAutoCommit(false);
+        first.close();
+
+        Connection second = pool.getConnection();
+        Assert.assertTrue(second.getAutoCommit());
+        second.close();
+        Assert.assertTrue(second.isClosed());
+    }
+
+    /**
+     * After shutdown no connection is handed out, even once a checked-out connection comes back.
+     */
+    @Test
+    public void shutdownPoolRefusesConnections() throws SQLException {
+        Connection borrowed = pool.getConnection();
+        pool.shutdown();
+        borrowed.close();
+
+        try {
+            pool.getConnection();
+            Assert.fail("Expected the pool to refuse a connection after shutdown");
+        } catch (SQLTimeoutException e) {
+            Assert.fail("Expected the pool to fail at once, not time out");
+        } catch (SQLException expected) {
+            Assert.assertEquals(0, pool.getStats().getTotal());
+            Assert.assertEquals(0, pool.getStats().getIdle());
+        }
+    }
+}
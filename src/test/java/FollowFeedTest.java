@@ -0,0 +1,187 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import Controller.SocialMediaController;
+import Model.Message;
+import Util.ConnectionUtil;
+import io.javalin.Javalin;
+
+public class FollowFeedTest {
+    SocialMediaController socialMediaController;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+    Javalin app;
+
+    /**
+     * Before every test, reset the database, restart the Javalin app, and create a new webClient and ObjectMapper
+     * for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @Before
+    public void setUp() throws InterruptedException {
+        ConnectionUtil.resetTestDatabase();
+        startApp();
+    }
+
+    @After
+    public void tearDown() {
+        app.stop();
+        System.clearProperty("feed.fanOutMaxFollowers");
+        System.clearProperty("feed.timelineSize");
+    }
+
+    private void startApp() throws InterruptedException {
+        socialMediaController = new SocialMediaController();
+        app = socialMediaController.startAPI();
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        app.start(8080);
+        Thread.sleep(1000);
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+                .header("Content-Type", "application/json")
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private List<Message> feed(int accountId) throws IOException, InterruptedException {
+        HttpResponse<String> response = send("GET", "/accounts/" + accountId + "/feed", null);
+        Assert.assertEquals(200, response.statusCode());
+        return objectMapper.readValue(response.body(), new TypeReference<>() {});
+    }
+
+    /**
+     * Reads a feed until it matches the expected messages or 5 seconds pass, since new messages
+     * reach cached feeds on the fan-out thread.
+     */
+    private List<Message> awaitFeed(int accountId, List<Message> expected) throws IOException, InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        List<Message> feed = feed(accountId);
+        while (!feed.equals(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            feed = feed(accountId);
+        }
+        return feed;
+    }
+
+    private void followAndPost() throws IOException, InterruptedException {
+        send("POST", "/register", "{\"username\": \"testuser2\", \"password\": \"password\"}");
+        Assert.assertEquals(200, send("POST", "/accounts/2/following/1", null).statusCode());
+        Assert.assertEquals(List.of(new Message(1, 1, "test message 1", 1669947792)), feed(2));
+
+        send("POST", "/messages", "{\"posted_by\":1, \"message_text\": \"hello followers\", \"time_posted_epoch\": 1669947793}");
+        List<Message> expected = List.of(new Message(2, 1, "hello followers", 1669947793),
+                new Message(1, 1, "test message 1", 1669947792));
+        Assert.assertEquals(expected, awaitFeed(2, expected));
+    }
+
+    /**
+     * Following an account shows its existing and new messages in the follower's feed, newest
+     * first, and unfollowing removes them.
+     */
+    @Test
+    public void feedShowsFollowedAccounts() throws IOException, InterruptedException {
+        followAndPost();
+
+        Assert.assertEquals(200, send("DELETE", "/accounts/2/following/1", null).statusCode());
+        Assert.assertTrue(feed(2).isEmpty());
+        Assert.assertTrue(feed(1).isEmpty());
+    }
+
+    /**
+     * Authors over the fan-out limit are pulled on read and give the same feed.
+     */
+    @Test
+    public void feedPullsAuthorsOverFanOutLimit() throws IOException, InterruptedException {
+        app.stop();
+        System.setProperty("feed.fanOutMaxFollowers", "0");
+        startApp();
+
+        followAndPost();
+    }
+
+    /**
+     * An author that drops back to the fan-out limit is pushed on write again, and the feeds
+     * built while it was pulled still show its messages.
+     */
+    @Test
+    public void feedKeepsAuthorsDroppingToFanOutLimit() throws IOException, InterruptedException {
+        app.stop();
+        System.setProperty("feed.fanOutMaxFollowers", "1");
+        startApp();
+
+        send("POST", "/register", "{\"username\": \"testuser2\", \"password\": \"password\"}");
+        send("POST", "/register", "{\"username\": \"testuser3\", \"password\": \"password\"}");
+        Assert.assertEquals(200, send("POST", "/accounts/2/following/1", null).statusCode());
+        Assert.assertEquals(200, send("POST", "/accounts/3/following/1", null).statusCode());
+        Assert.assertEquals(1, feed(3).size());
+        send("POST", "/messages", "{\"posted_by\":1, \"message_text\": \"hello followers\", \"time_posted_epoch\": 1669947793}");
+
+        Assert.assertEquals(200, send("DELETE", "/accounts/2/following/1", null).statusCode());
+        Assert.assertEquals(List.of(new Message(2, 1, "hello followers", 1669947793),
+                new Message(1, 1, "test message 1", 1669947792)), feed(3));
+        send("POST", "/messages", "{\"posted_by\":1, \"message_text\": \"pushed again\", \"time_posted_epoch\": 1669947794}");
+        List<Message> expected = List.of(new Message(3, 1, "pushed again", 1669947794),
+                new Message(2, 1, "hello followers", 1669947793), new Message(1, 1, "test message 1", 1669947792));
+        Assert.assertEquals(expected, awaitFeed(3, expected));
+    }
+
+    /**
+     * A full feed keeps the most recently posted messages, not the highest ids, whether it was
+     * filled on write or built on read.
+     */
+    @Test
+    public void fullFeedsKeepNewestByTime() throws IOException, InterruptedException {
+        app.stop();
+        System.setProperty("feed.timelineSize", "2");
+        startApp();
+
+        send("POST", "/register", "{\"username\": \"testuser2\", \"password\": \"password\"}");
+        send("POST", "/register", "{\"username\": \"testuser3\", \"password\": \"password\"}");
+        Assert.assertEquals(200, send("POST", "/accounts/2/following/1", null).statusCode());
+        Assert.assertEquals(1, feed(2).size());
+        send("POST", "/messages", "{\"posted_by\":1, \"message_text\": \"backdated\", \"time_posted_epoch\": 1669947791}");
+        send("POST", "/messages", "{\"posted_by\":1, \"message_text\": \"newest\", \"time_posted_epoch\": 1669947794}");
+
+        List<Message> expected = List.of(new Message(3, 1, "newest", 1669947794),
+                new Message(1, 1, "test message 1", 1669947792));
+        Assert.assertEquals(expected, awaitFeed(2, expected));
+        Assert.assertEquals(200, send("POST", "/accounts/3/following/1", null).statusCode());
+        Assert.assertEquals(expected, feed(3));
+    }
+
+    /**
+     * Following yourself or an unknown account fails.
+     */
+    @Test
+    public void invalidFollowsFail() throws IOException, InterruptedException {
+        Assert.assertEquals(400, send("POST", "/accounts/1/following/1", null).statusCode());
+        Assert.assertEquals(400, send("POST", "/accounts/1/following/99", null).statusCode());
+    }
+
+    /**
+     * Negative account ids have no follows and an empty feed instead of an error.
+     */
+    @Test
+    public void negativeAccountIdsHaveEmptyFeeds() throws IOException, InterruptedException {
+        Assert.assertTrue(feed(-1).isEmpty());
+        Assert.assertEquals(400, send("POST", "/accounts/-1/following/1", null).statusCode());
+        Assert.assertEquals(200, send("DELETE", "/accounts/-1/following/1", null).statusCode());
+    }
+}
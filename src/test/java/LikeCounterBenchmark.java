@@ -0,0 +1,76 @@
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import Service.LikeCounter;
+
+/**
+ * Measures how many likes per second LikeCounter takes on one hot message as threads are added,
+ * next to a single shared AtomicLong, which is what one counter per message would cost. Not a
+ * unit test; run it by hand after compiling the tests:
+ *
+ * <pre>
+ * mvn -B test-compile
+ * java -cp target/classes:target/test-classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) LikeCounterBenchmark 8
+ * </pre>
+ *
+ * The flusher is disabled, so only the in-memory counting is measured.
+ */
+public class LikeCounterBenchmark {
+    private static final long RUN_MILLIS = 2_000;
+    private static final int HOT_MESSAGE = 1;
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        System.out.printf("%d available processors%n", Runtime.getRuntime().availableProcessors());
+
+        // warm up the JIT before measuring
+        LikeCounter warmUp = new LikeCounter(null, 0);
+        run(maxThreads, () -> warmUp.like(HOT_MESSAGE));
+        run(maxThreads, new AtomicLong()::incrementAndGet);
+
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            LikeCounter likes = new LikeCounter(null, 0);
+            long striped = run(threads, () -> likes.like(HOT_MESSAGE));
+            AtomicLong single = new AtomicLong();
+            long atomic = run(threads, single::incrementAndGet);
+            System.out.printf("%2d threads: LikeCounter %,6d M likes/s, AtomicLong %,6d M likes/s%n",
+                    threads, striped / 1_000_000, atomic / 1_000_000);
+        }
+    }
+
+    /**
+     * @return likes per second across all threads
+     */
+    private static long run(int threads, Runnable likeHotMessage) throws InterruptedException {
+        LongAdder total = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        long[] deadline = new long[1];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long count = 0;
+                while (System.nanoTime() < deadline[0]) {
+                    for (int i = 0; i < 1_000; i++) {
+                        likeHotMessage.run();
+                    }
+                    count += 1_000;
+                }
+                total.add(count);
+            });
+            workers[t].start();
+        }
+        deadline[0] = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RUN_MILLIS);
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return total.sum() * 1_000 / RUN_MILLIS;
+    }
+}
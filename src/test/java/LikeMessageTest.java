@@ -0,0 +1,201 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.SQLTimeoutException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import Controller.SocialMediaController;
+import DAO.DataAccessException;
+import DAO.MessageDAO;
+import Model.Message;
+import Service.LikeCounter;
+import Util.ConnectionUtil;
+import io.javalin.Javalin;
+
+public class LikeMessageTest {
+    SocialMediaController socialMediaController;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+    Javalin app;
+
+    /**
+     * Before every test, reset the database, restart the Javalin app, and create a new webClient and ObjectMapper
+     * for interacting locally on the web. Likes are only flushed on shutdown, so the tests see them pending.
+     * @throws InterruptedException
+     */
+    @Before
+    public void setUp() throws InterruptedException {
+        System.setProperty("messages.likes.flushIntervalMs", "0");
+        ConnectionUtil.resetTestDatabase();
+        startApp();
+    }
+
+    @After
+    public void tearDown() {
+        app.stop();
+        System.clearProperty("messages.likes.flushIntervalMs");
+    }
+
+    private void startApp() throws InterruptedException {
+        socialMediaController = new SocialMediaController();
+        app = socialMediaController.startAPI();
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        app.start(8080);
+        Thread.sleep(1000);
+    }
+
+    private HttpResponse<String> send(String method, String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private long likeCount(String method, String path) throws IOException, InterruptedException {
+        HttpResponse<String> response = send(method, path);
+        Assert.assertEquals(200, response.statusCode());
+        Message message = objectMapper.readValue(response.body(), Message.class);
+        Assert.assertEquals(new Message(1, 1, "test message 1", 1669947792), message);
+        return message.getLike_count();
+    }
+
+    /**
+     * Likes show in like_count at once, are written to the database when the server stops, and
+     * are still there after a restart.
+     */
+    @Test
+    public void likesAreCountedAndFlushed() throws IOException, InterruptedException {
+        Assert.assertEquals(0, likeCount("GET", "/messages/1"));
+        Assert.assertEquals(1, likeCount("POST", "/messages/1/like"));
+        Assert.assertEquals(2, likeCount("POST", "/messages/1/like"));
+        Assert.assertEquals(2, likeCount("GET", "/messages/1"));
+        Assert.assertTrue(send("GET", "/accounts/1/messages").body().contains("\"like_count\":2"));
+
+        app.stop();
+        startApp();
+
+        Assert.assertEquals(2, likeCount("GET", "/messages/1"));
+        Assert.assertEquals(3, likeCount("POST", "/messages/1/like"));
+    }
+
+    /**
+     * A like does not empty the author's cached message lists; they pick it up when it is flushed.
+     */
+    @Test
+    public void likesKeepCachedListsUntilFlushed() throws IOException, InterruptedException {
+        String before = send("GET", "/accounts/1/messages").body();
+        Assert.assertEquals(1, likeCount("POST", "/messages/1/like"));
+        // the like is not flushed yet, so the cached list is still current for the response cache
+        Assert.assertEquals(before, send("GET", "/accounts/1/messages").body());
+        Assert.assertEquals(1, likeCount("GET", "/messages/1"));
+    }
+
+    /**
+     * Liking a message that does not exist fails.
+     */
+    @Test
+    public void likeUnknownMessageFails() throws IOException, InterruptedException {
+        Assert.assertEquals(400, send("POST", "/messages/100/like").statusCode());
+        Assert.assertEquals(400, send("POST", "/messages/abc/like").statusCode());
+    }
+
+    /**
+     * Likes on a message are summed into one delta per flush, and put back if the write fails.
+     */
+    @Test
+    public void flushBatchesAndRetriesLikes() {
+        MessageDAO database = Mockito.mock(MessageDAO.class);
+        Mockito.when(database.addLikes(ArgumentMatchers.anyMap())).thenReturn(null);
+        LikeCounter likes = new LikeCounter(database, 0);
+        for (int i = 0; i < 5; i++) {
+            likes.like(1);
+        }
+        likes.like(2);
+
+        Assert.assertEquals(-1, likes.flush());
+        Assert.assertEquals(5, likes.getPending(1));
+
+        Mockito.when(database.addLikes(ArgumentMatchers.anyMap())).thenReturn(List.of(new Message()));
+        Assert.assertEquals(1, likes.flush());
+        Mockito.verify(database, Mockito.times(2)).addLikes(Map.of(1, 5L, 2, 1L));
+        Assert.assertEquals(0, likes.getPending(1));
+        Assert.assertEquals(0, likes.flush());
+    }
+
+    /**
+     * Likes are kept for the next flush when the write cannot get a database connection.
+     */
+    @Test
+    public void failedConnectionKeepsLikes() {
+        MessageDAO database = Mockito.mock(MessageDAO.class);
+        Mockito.when(database.addLikes(ArgumentMatchers.anyMap()))
+                .thenThrow(new DataAccessException("Could not get a database connection", new SQLTimeoutException()))
+                .thenReturn(List.of(new Message()));
+        LikeCounter likes = new LikeCounter(database, 0);
+        likes.like(1);
+        likes.like(1);
+
+        Assert.assertEquals(-1, likes.flush());
+        Assert.assertEquals(2, likes.getPending(1));
+        Assert.assertEquals(1, likes.flush());
+        Mockito.verify(database, Mockito.times(2)).addLikes(Map.of(1, 2L));
+    }
+
+    /**
+     * A reader never sees fewer likes than were counted before it looked, however its read lines
+     * up with a flush.
+     */
+    @Test
+    public void countsNeverDropDuringFlush() throws InterruptedException {
+        AtomicLong stored = new AtomicLong();
+        MessageDAO database = Mockito.mock(MessageDAO.class);
+        Mockito.when(database.addLikes(ArgumentMatchers.anyMap())).thenAnswer(invocation -> {
+            Map<Integer, Long> deltas = invocation.getArgument(0);
+            stored.addAndGet(deltas.get(1));
+            return List.of(new Message());
+        });
+        LikeCounter likes = new LikeCounter(database, 0);
+        AtomicLong liked = new AtomicLong();
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicLong lowest = new AtomicLong();
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                long floor = liked.get();
+                long seen = likes.getPending(1) + stored.get();
+                if (seen < floor) {
+                    lowest.set(seen - floor);
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 20000; i++) {
+            likes.like(1);
+            liked.incrementAndGet();
+            if (i % 10 == 0) {
+                likes.flush();
+            }
+        }
+        done.set(true);
+        reader.join();
+
+        Assert.assertEquals(0, lowest.get());
+        likes.flush();
+        Assert.assertEquals(20000, stored.get());
+    }
+}
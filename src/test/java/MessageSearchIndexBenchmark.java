@@ -0,0 +1,82 @@
+import java.util.Arrays;
+import java.util.Random;
+
+import Model.Message;
+import Service.MessageSearchIndex;
+
+/**
+ * Measures how long MessageSearchIndex takes to build and to answer queries at a few million
+ * messages. Not a unit test; run it by hand after compiling the tests:
+ *
+ * <pre>
+ * mvn -B test-compile
+ * java -Xmx4g -cp target/classes:target/test-classes MessageSearchIndexBenchmark 3000000
+ * </pre>
+ *
+ * Message text is drawn from a synthetic vocabulary with a Zipf-like word frequency, so a few
+ * words have very long posting lists and most have short ones, as in real text.
+ */
+public class MessageSearchIndexBenchmark {
+    private static final int VOCABULARY_SIZE = 50_000;
+    private static final int QUERIES = 2_000;
+
+    public static void main(String[] args) {
+        int messageCount = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        Random random = new Random(42);
+        String[] vocabulary = new String[VOCABULARY_SIZE];
+        for (int i = 0; i < VOCABULARY_SIZE; i++) {
+            vocabulary[i] = "w" + Integer.toString(i, 36);
+        }
+
+        MessageSearchIndex index = new MessageSearchIndex();
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        StringBuilder text = new StringBuilder();
+        for (int id = 1; id <= messageCount; id++) {
+            text.setLength(0);
+            int words = 6 + random.nextInt(10);
+            for (int w = 0; w < words; w++) {
+                text.append(vocabulary[zipf(random)]).append(' ');
+            }
+            index.onCreated(new Message(id, 1, text.toString(), 1669947792L + random.nextInt(86_400 * 365)));
+        }
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("Indexed %,d messages (%,d tokens) in %,d ms, ~%,d MB of heap%n",
+                index.getMessageCount(), index.getTokenCount(), buildMillis, (usedHeap() - heapBefore) >> 20);
+
+        run(index, "single common term", () -> vocabulary[random.nextInt(10)]);
+        run(index, "single rare term", () -> vocabulary[1_000 + random.nextInt(40_000)]);
+        run(index, "AND of two terms", () -> vocabulary[zipf(random)] + " " + vocabulary[zipf(random)]);
+        run(index, "OR of two terms", () -> vocabulary[zipf(random)] + " OR " + vocabulary[zipf(random)]);
+    }
+
+    private static void run(MessageSearchIndex index, String name, java.util.function.Supplier<String> queries) {
+        // warm up the JIT before measuring
+        for (int i = 0; i < QUERIES; i++) {
+            index.search(queries.get(), 50);
+        }
+        long[] nanos = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String query = queries.get();
+            long start = System.nanoTime();
+            index.search(query, 50);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        System.out.printf("%-20s p50 %8.1f us   p99 %8.1f us   max %8.1f us%n", name,
+                nanos[QUERIES / 2] / 1000.0, nanos[QUERIES * 99 / 100] / 1000.0, nanos[QUERIES - 1] / 1000.0);
+    }
+
+    /**
+     * @return a word index whose probability falls off roughly as 1/rank
+     */
+    private static int zipf(Random random) {
+        return (int) Math.min(VOCABULARY_SIZE - 1, Math.exp(random.nextDouble() * Math.log(VOCABULARY_SIZE)) - 1);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,63 @@
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import Model.Message;
+import Service.MessageSearchIndex;
+
+public class MessageSearchIndexTest {
+    MessageSearchIndex index;
+
+    /**
+     * Before every test, index a few messages whose ids do not follow their post times.
+     */
+    @Before
+    public void setUp() {
+        index = new MessageSearchIndex();
+        index.onCreated(new Message(1, 1, "Morning coffee, then work", 300));
+        index.onCreated(new Message(2, 1, "coffee and tea", 100));
+        index.onCreated(new Message(3, 2, "TEA time!", 200));
+        index.onCreated(new Message(4, 2, "work work work", 400));
+    }
+
+    /**
+     * All terms of a conjunction must match, ignoring case and punctuation.
+     */
+    @Test
+    public void termsAreAnded() {
+        Assert.assertArrayEquals(new int[]{1}, index.search("coffee MORNING", 10));
+        Assert.assertArrayEquals(new int[]{2}, index.search("tea AND coffee", 10));
+        Assert.assertArrayEquals(new int[0], index.search("coffee missing", 10));
+    }
+
+    /**
+     * OR combines alternatives, and results come newest first by time_posted_epoch.
+     */
+    @Test
+    public void alternativesAreOredNewestFirst() {
+        Assert.assertArrayEquals(new int[]{4, 1, 3, 2}, index.search("work OR tea", 10));
+        Assert.assertArrayEquals(new int[]{4, 1}, index.search("work OR tea", 2));
+    }
+
+    /**
+     * Updates replace a message's postings and deletes remove them.
+     */
+    @Test
+    public void updatesAndDeletesAreApplied() {
+        index.onUpdated(new Message(2, 1, "just water", 100));
+        Assert.assertArrayEquals(new int[]{1}, index.search("coffee", 10));
+        Assert.assertArrayEquals(new int[]{2}, index.search("water", 10));
+
+        index.onDeleted(new Message(4, 2, "work work work", 400));
+        Assert.assertArrayEquals(new int[]{1}, index.search("work", 10));
+        Assert.assertEquals(3, index.getMessageCount());
+    }
+
+    /**
+     * A query without any terms is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyQueryIsRejected() {
+        index.search(" OR ", 10);
+    }
+}
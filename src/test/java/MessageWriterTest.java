@@ -0,0 +1,143 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import DAO.MessageDAO;
+import Model.Message;
+import Service.MessageWriter;
+
+public class MessageWriterTest {
+    MessageDAO database;
+    MessageWriter messageWriter;
+    List<Integer> batchSizes;
+
+    /**
+     * Before every test, create a mock DAO that assigns ids in order and records each batch size.
+     */
+    @Before
+    public void setUp() {
+        database = Mockito.mock(MessageDAO.class);
+        batchSizes = new ArrayList<>();
+        int[] nextId = {1};
+        Mockito.when(database.createMessages(ArgumentMatchers.anyList())).thenAnswer(invocation -> {
+            List<Message> messages = invocation.getArgument(0);
+            synchronized (batchSizes) {
+                batchSizes.add(messages.size());
+            }
+            for (Message message : messages) {
+                message.setMessage_id(nextId[0]++);
+            }
+            return messages;
+        });
+    }
+
+    @After
+    public void tearDown() {
+        if (messageWriter != null) {
+            messageWriter.shutdown();
+        }
+    }
+
+    /**
+     * Messages submitted together are committed in batches no larger than the maximum, and each
+     * future completes with its own generated id.
+     */
+    @Test
+    public void groupsMessagesIntoBatches() throws InterruptedException, ExecutionException, TimeoutException {
+        messageWriter = new MessageWriter(database, 100, 3, 200);
+
+        List<CompletableFuture<Message>> futures = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            futures.add(messageWriter.submit(new Message(1, "message " + i, 1669947793 + i)));
+        }
+
+        for (int i = 0; i < 7; i++) {
+            Message created = futures.get(i).get(5, TimeUnit.SECONDS);
+            Assert.assertEquals("message " + i, created.getMessage_text());
+            Assert.assertEquals(i + 1, created.getMessage_id());
+        }
+        for (int size : batchSizes) {
+            Assert.assertTrue(size <= 3);
+        }
+        Assert.assertTrue(batchSizes.size() < 7);
+    }
+
+    /**
+     * When a batch fails, its messages are retried one at a time so only the bad one fails.
+     */
+    @Test
+    public void failedBatchIsRetriedOneAtATime() throws InterruptedException, ExecutionException, TimeoutException {
+        Mockito.when(database.createMessages(ArgumentMatchers.anyList())).thenReturn(null);
+        Mockito.when(database.createMessage(ArgumentMatchers.any())).thenAnswer(invocation -> {
+            Message message = invocation.getArgument(0);
+            return message.getPosted_by() == 99 ? null : new Message(5, message.getPosted_by(),
+                    message.getMessage_text(), message.getTime_posted_epoch());
+        });
+        messageWriter = new MessageWriter(database, 100, 10, 200);
+
+        CompletableFuture<Message> good = messageWriter.submit(new Message(1, "good", 1669947793));
+        CompletableFuture<Message> bad = messageWriter.submit(new Message(99, "bad", 1669947794));
+
+        Assert.assertEquals(new Message(5, 1, "good", 1669947793), good.get(5, TimeUnit.SECONDS));
+        Assert.assertNull(bad.get(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Submitting to a full queue fails fast instead of blocking the caller.
+     */
+    @Test
+    public void fullQueueRejects() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(database.createMessages(ArgumentMatchers.anyList())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return invocation.getArgument(0);
+        });
+        messageWriter = new MessageWriter(database, 1, 1, 0);
+
+        // the first message occupies the writer, the second fills the queue
+        messageWriter.submit(new Message(1, "first", 1669947793));
+        Thread.sleep(200);
+        messageWriter.submit(new Message(1, "second", 1669947794));
+        CompletableFuture<Message> rejected = messageWriter.submit(new Message(1, "third", 1669947795));
+
+        Assert.assertTrue(rejected.isCompletedExceptionally());
+        release.countDown();
+    }
+
+    /**
+     * Interrupting the writer while it collects a batch still writes every message already
+     * submitted, so no caller is left waiting.
+     */
+    @Test
+    public void interruptedWriterWritesPendingMessages() throws InterruptedException, ExecutionException, TimeoutException {
+        messageWriter = new MessageWriter(database, 100, 10, 5000);
+
+        List<CompletableFuture<Message>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(messageWriter.submit(new Message(1, "message " + i, 1669947793 + i)));
+        }
+        // the writer is now lingering for more messages
+        Thread.sleep(200);
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("message-writer")) {
+                thread.interrupt();
+            }
+        }
+
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals("message " + i, futures.get(i).get(2, TimeUnit.SECONDS).getMessage_text());
+        }
+        Assert.assertTrue(messageWriter.submit(new Message(1, "late", 1669947799)).isCompletedExceptionally());
+    }
+}
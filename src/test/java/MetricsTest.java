@@ -0,0 +1,113 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import Controller.SocialMediaController;
+import Util.ConnectionUtil;
+import Util.LatencyHistogram;
+import io.javalin.Javalin;
+
+public class MetricsTest {
+    SocialMediaController socialMediaController;
+    HttpClient webClient;
+    Javalin app;
+
+    /**
+     * Before every test, reset the database, restart the Javalin app, and create a new webClient
+     * for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @Before
+    public void setUp() throws InterruptedException {
+        ConnectionUtil.resetTestDatabase();
+        socialMediaController = new SocialMediaController();
+        app = socialMediaController.startAPI();
+        webClient = HttpClient.newHttpClient();
+        app.start(8080);
+        Thread.sleep(1000);
+    }
+
+    @After
+    public void tearDown() {
+        app.stop();
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * @return the value of the sample with exactly this name and labels, or 0 if it is not reported
+     */
+    private static double sample(String metrics, String series) {
+        for (String line : metrics.split("\n")) {
+            if (line.startsWith(series + " ")) {
+                return Double.parseDouble(line.substring(series.length() + 1));
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Requests are counted under their route template and status, and DAO, pool and cache
+     * metrics are reported alongside them. The registry is shared by every test in the JVM, so
+     * counts are compared with a scrape taken before the requests.
+     */
+    @Test
+    public void metricsReportRequestsByRoute() throws IOException, InterruptedException {
+        String ok = "http_requests_total{method=\"GET\",route=\"/messages/{message_id}\",status=\"200\"}";
+        String notFound = "http_requests_total{method=\"GET\",route=\"unmatched\",status=\"404\"}";
+        String count = "http_request_duration_seconds_count{method=\"GET\",route=\"/messages/{message_id}\"}";
+        String bytes = "http_response_bytes_total{method=\"GET\",route=\"/messages/{message_id}\"}";
+        String before = get("/metrics").body();
+
+        Assert.assertEquals(200, get("/messages/1").statusCode());
+        Assert.assertEquals(200, get("/messages/1").statusCode());
+        Assert.assertEquals(404, get("/no-such-route").statusCode());
+
+        HttpResponse<String> response = get("/metrics");
+        Assert.assertEquals(200, response.statusCode());
+        Assert.assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/plain"));
+        String metrics = response.body();
+        Assert.assertEquals(2, sample(metrics, ok) - sample(before, ok), 0);
+        Assert.assertEquals(metrics, 1, sample(metrics, notFound) - sample(before, notFound), 0);
+        Assert.assertEquals(2, sample(metrics, count) - sample(before, count), 0);
+        Assert.assertTrue(metrics, sample(metrics, bytes) - sample(before, bytes) > 0);
+        Assert.assertTrue(metrics, metrics.contains(
+                "http_request_duration_seconds{method=\"GET\",route=\"/messages/{message_id}\",quantile=\"0.99\"}"));
+        Assert.assertTrue(metrics, metrics.contains("dao_call_duration_seconds_count{dao=\"message\",method=\"getMessageById\"}"));
+        Assert.assertTrue(metrics, metrics.contains("cache_hits_total{cache=\"messages\"}"));
+        Assert.assertTrue(metrics, metrics.contains("db_pool_connections_active "));
+    }
+
+    /**
+     * Percentiles are reported as the upper edge of their bucket, never more than 1/16 above the
+     * true value.
+     */
+    @Test
+    public void histogramQuantilesAreWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+        }
+        long[] quantiles = histogram.getQuantiles(0.5, 0.99, 0.999);
+        long[] expected = {500_000, 990_000, 999_000};
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertTrue(quantiles[i] + " < " + expected[i], quantiles[i] >= expected[i]);
+            Assert.assertTrue(quantiles[i] + " > " + expected[i], quantiles[i] <= expected[i] + expected[i] / 16);
+        }
+        Assert.assertEquals(1000, histogram.getCount());
+        Assert.assertEquals(TimeUnit.MICROSECONDS.toNanos(500_500), histogram.getSumNanos());
+    }
+}
@@ -0,0 +1,94 @@
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import Controller.ModelJsonMapper;
+import Model.Message;
+import io.javalin.json.JavalinJackson;
+import io.javalin.json.JsonMapper;
+
+/**
+ * Compares the hand-written codecs in ModelJsonMapper with Javalin's default Jackson mapper, for
+ * one message and for a list of 10,000, writing a response and reading a request body. Not a unit
+ * test; run it by hand after compiling the tests:
+ *
+ * <pre>
+ * mvn -B test-compile
+ * java -cp target/classes:target/test-classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) ModelJsonBenchmark
+ * </pre>
+ *
+ * Each write includes what Javalin then does with the result: the default mapper's String is
+ * encoded to UTF-8 bytes, and the bytes are copied out to a discarding stream; the codecs'
+ * stream is copied out the same way.
+ */
+public class ModelJsonBenchmark {
+    private static final int LIST_SIZE = 10_000;
+
+    private static volatile long sink;
+
+    public static void main(String[] args) throws IOException {
+        JavalinJackson jackson = new JavalinJackson();
+        ModelJsonMapper codecs = new ModelJsonMapper();
+        Message one = message(1);
+        List<Message> many = new ArrayList<>();
+        for (int i = 1; i <= LIST_SIZE; i++) {
+            many.add(message(i));
+        }
+        byte[] body = codecs.toJsonBytes(one);
+        String bodyText = new String(body, StandardCharsets.UTF_8);
+
+        for (int round = 0; round < 3; round++) {
+            boolean report = round == 2;
+            double jacksonOne = time(200_000, () -> writeString(jackson, one));
+            double codecsOne = time(200_000, () -> writeStream(codecs, one));
+            double jacksonMany = time(50, () -> writeString(jackson, many));
+            double codecsMany = time(50, () -> writeStream(codecs, many));
+            double jacksonRead = time(200_000, () -> sink += jackson.<Message>fromJsonString(bodyText, Message.class).getPosted_by());
+            double codecsRead = time(200_000, () -> sink += codecs.<Message>fromJsonBytes(body, Message.class).getPosted_by());
+            if (report) {
+                System.out.printf("write 1 message:       Jackson %,10.0f ns  codecs %,10.0f ns%n", jacksonOne, codecsOne);
+                System.out.printf("write %,d messages: Jackson %,10.0f ns  codecs %,10.0f ns%n", LIST_SIZE, jacksonMany, codecsMany);
+                System.out.printf("read 1 message:        Jackson %,10.0f ns  codecs %,10.0f ns%n", jacksonRead, codecsRead);
+            }
+        }
+    }
+
+    private static Message message(int id) {
+        Message message = new Message(id, id % 100, "Message number " + id + " with some #hashtag text", 1669947792L + id);
+        message.setLike_count(id % 7);
+        return message;
+    }
+
+    private static void writeString(JsonMapper mapper, Object value) throws IOException {
+        // what Javalin's ctx.json() does: result(String) stores the UTF-8 bytes as the result stream
+        byte[] bytes = mapper.toJsonString(value, value.getClass()).getBytes(StandardCharsets.UTF_8);
+        try (InputStream in = new ByteArrayInputStream(bytes)) {
+            sink += in.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    private static void writeStream(JsonMapper mapper, Object value) throws IOException {
+        try (InputStream in = mapper.toJsonStream(value, value.getClass())) {
+            sink += in.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    /**
+     * @return the average nanoseconds per run
+     */
+    private static double time(int runs, Task task) throws IOException {
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            task.run();
+        }
+        return (double) (System.nanoTime() - start) / runs;
+    }
+
+    private interface Task {
+        void run() throws IOException;
+    }
+}
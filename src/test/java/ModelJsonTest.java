@@ -0,0 +1,72 @@
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import Controller.ModelJsonMapper;
+import Model.Account;
+import Model.Message;
+import Model.MessagePage;
+
+public class ModelJsonTest {
+    ModelJsonMapper jsonMapper = new ModelJsonMapper();
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    private String write(Object value) {
+        return new String(jsonMapper.toJsonBytes(value), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The codecs write exactly what Jackson's databinding writes for the same values.
+     */
+    @Test
+    public void writesWhatJacksonWrites() throws JsonProcessingException {
+        Message message = new Message(7, 1, "quote \" and \u00e9t\u00e9", 1669947792);
+        message.setLike_count(3);
+        Account account = new Account(1, "testuser1", "password");
+        MessagePage page = new MessagePage(List.of(message, new Message(8, 2, null, 1)), "abc");
+
+        Assert.assertEquals(objectMapper.writeValueAsString(message), write(message));
+        Assert.assertEquals(objectMapper.writeValueAsString(account), write(account));
+        Assert.assertEquals(objectMapper.writeValueAsString(List.of(message, message)), write(List.of(message, message)));
+        Assert.assertEquals(objectMapper.writeValueAsString(page), write(page));
+        Assert.assertEquals("[]", write(List.of()));
+
+        // characters outside the BMP are written as escaped surrogate pairs, which read back the same
+        Message emoji = new Message(9, 1, "emoji \ud83d\ude00", 1669947792);
+        Assert.assertEquals(emoji, objectMapper.readValue(write(emoji), Message.class));
+    }
+
+    /**
+     * The codecs read what Jackson reads, including its default coercions, and reject unknown fields.
+     */
+    @Test
+    public void readsWhatJacksonReads() {
+        byte[] json = "{\"posted_by\": \"2\", \"message_text\": 42, \"time_posted_epoch\": 1.5e3, \"message_id\": null}"
+                .getBytes(StandardCharsets.UTF_8);
+        Message message = jsonMapper.fromJsonBytes(json, Message.class);
+        Assert.assertEquals(new Message(0, 2, "42", 1500), message);
+
+        Message[] batch = jsonMapper.fromJsonBytes(
+                "[{\"message_text\": \"a\"}, {\"message_text\": \"b\"}]".getBytes(StandardCharsets.UTF_8), Message[].class);
+        Assert.assertEquals(2, batch.length);
+        Assert.assertEquals("b", batch[1].getMessage_text());
+
+        Account account = jsonMapper.fromJsonString("{\"username\": \"user\", \"password\": \"pass\"}", Account.class);
+        Assert.assertEquals(new Account(0, "user", "pass"), account);
+
+        for (String invalid : new String[]{"{\"message_txt\": \"typo\"}", "{\"posted_by\": [1]}", "[1]", ""}) {
+            try {
+                jsonMapper.fromJsonString(invalid, Message.class);
+                Assert.fail("Accepted " + invalid);
+            } catch (UncheckedIOException expected) {
+                // rejected like Jackson rejects it
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import Controller.SocialMediaController;
+import Util.ConnectionUtil;
+import Util.RateLimiter;
+import io.javalin.Javalin;
+
+public class RateLimitTest {
+    SocialMediaController socialMediaController;
+    HttpClient webClient;
+    Javalin app;
+
+    /**
+     * Before every test, reset the database and restart the Javalin app with a write limit of one
+     * per second and a burst of two.
+     * @throws InterruptedException
+     */
+    @Before
+    public void setUp() throws InterruptedException {
+        System.setProperty("rateLimit.writes.perSecond", "1");
+        System.setProperty("rateLimit.writes.burst", "2");
+        ConnectionUtil.resetTestDatabase();
+        socialMediaController = new SocialMediaController();
+        app = socialMediaController.startAPI();
+        webClient = HttpClient.newHttpClient();
+        app.start(8080);
+        Thread.sleep(1000);
+    }
+
+    @After
+    public void tearDown() {
+        app.stop();
+        System.clearProperty("rateLimit.writes.perSecond");
+        System.clearProperty("rateLimit.writes.burst");
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws IOException, InterruptedException {
+        return send(method, path, body, null);
+    }
+
+    private HttpResponse<String> send(String method, String path, String body, String token) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .header("Content-Type", "application/json");
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return webClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * An account that uses up its burst gets 429 with Retry-After on every write endpoint, and
+     * nothing is written.
+     */
+    @Test
+    public void writesOverTheLimitAreRejected() throws IOException, InterruptedException {
+        String post = "{\"posted_by\":1, \"message_text\": \"hello\", \"time_posted_epoch\": 1669947792}";
+        Assert.assertEquals(200, send("POST", "/messages", post).statusCode());
+        Assert.assertEquals(200, send("PATCH", "/messages/1", "{\"message_text\": \"edited\"}").statusCode());
+
+        HttpResponse<String> limited = send("POST", "/messages", post);
+        Assert.assertEquals(429, limited.statusCode());
+        Assert.assertEquals("1", limited.headers().firstValue("Retry-After").orElse(null));
+        Assert.assertEquals(429, send("PATCH", "/messages/1", "{\"message_text\": \"again\"}").statusCode());
+        Assert.assertEquals(429, send("POST", "/messages/batch", "[" + post + "]").statusCode());
+
+        Assert.assertTrue(send("GET", "/messages/3", "").body().isEmpty());
+        Assert.assertTrue(send("GET", "/messages/1", "").body().contains("\"edited\""));
+    }
+
+    /**
+     * Writes without a session are charged to the client, not to the account they name, and a
+     * batch is charged one write per message, all or nothing.
+     */
+    @Test
+    public void writesAreChargedToTheCaller() throws IOException, InterruptedException {
+        String post = "{\"posted_by\":1, \"message_text\": \"hello\", \"time_posted_epoch\": 1669947792}";
+        Assert.assertEquals(200, send("POST", "/messages", post).statusCode());
+        Assert.assertEquals(200, send("POST", "/messages", post).statusCode());
+        Assert.assertEquals(429, send("POST", "/messages", post).statusCode());
+
+        HttpResponse<String> login = send("POST", "/login", "{\"username\": \"testuser1\", \"password\": \"password\"}");
+        String token = login.headers().firstValue("X-Session-Token").orElseThrow();
+        Assert.assertEquals(200, send("POST", "/messages", post, token).statusCode());
+
+        // one permit left, so a batch of two is refused and writes nothing
+        Assert.assertEquals(429, send("POST", "/messages/batch", "[" + post + "," + post + "]", token).statusCode());
+        Assert.assertTrue(send("GET", "/messages/5", "").body().isEmpty());
+        Assert.assertEquals(400, send("POST", "/messages/batch", "[" + post + "," + post + "," + post + "]", token).statusCode());
+        Assert.assertEquals(200, send("POST", "/messages/batch", "[" + post + "]", token).statusCode());
+    }
+
+    /**
+     * The limiter allows the burst at once, then one permit per interval, and forgets buckets
+     * that are full again.
+     */
+    @Test
+    public void limiterRefillsAndSweeps() throws InterruptedException {
+        RateLimiter<Integer> limiter = new RateLimiter<>(20, 2, 0);
+        Assert.assertEquals(0, limiter.tryAcquire(1, 1));
+        Assert.assertEquals(0, limiter.tryAcquire(1, 1));
+        long wait = limiter.tryAcquire(1, 1);
+        Assert.assertTrue(wait > 0 && wait <= TimeUnit.MILLISECONDS.toNanos(50));
+        Assert.assertEquals(0, limiter.tryAcquire(2, 2));
+        Assert.assertEquals(0, limiter.sweep());
+
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(wait) + 1);
+        Assert.assertEquals(0, limiter.tryAcquire(1, 1));
+
+        Thread.sleep(150);
+        Assert.assertEquals(2, limiter.sweep());
+        Assert.assertEquals(0, limiter.size());
+    }
+
+    /**
+     * Client addresses with the same hash code still get buckets of their own.
+     */
+    @Test
+    public void collidingKeysDoNotShareABucket() {
+        Assert.assertEquals("Aa".hashCode(), "BB".hashCode());
+        RateLimiter<String> limiter = new RateLimiter<>(1, 1, 0);
+        Assert.assertEquals(0, limiter.tryAcquire("Aa", 1));
+        Assert.assertEquals(0, limiter.tryAcquire("BB", 1));
+        Assert.assertTrue(limiter.tryAcquire("Aa", 1) > 0);
+    }
+}
@@ -0,0 +1,80 @@
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+import Util.RateLimiter;
+
+/**
+ * Measures what RateLimiter.tryAcquire adds to each request, for one hot account and for writes
+ * spread over a million accounts, on one thread and on several. Not a unit test; run it by hand
+ * after compiling the tests:
+ *
+ * <pre>
+ * mvn -B test-compile
+ * java -cp target/classes:target/test-classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) RateLimiterBenchmark 4
+ * </pre>
+ *
+ * The rate is set high enough that every request is allowed, so each call does the full
+ * compare-and-set path rather than returning early with a refusal.
+ */
+public class RateLimiterBenchmark {
+    private static final int ACCOUNTS = 1_000_000;
+    private static final int CALLS_PER_THREAD = 20_000_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        System.out.printf("%d available processors%n", Runtime.getRuntime().availableProcessors());
+
+        // warm up the JIT before measuring
+        run(new RateLimiter<>(1e12, 1_000, 0), 1, () -> 1);
+
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            double hot = run(new RateLimiter<>(1e12, 1_000, 0), threads, () -> 1);
+            RateLimiter<Integer> spread = new RateLimiter<>(1e12, 1_000, 0);
+            double spreadNanos = run(spread, threads, () -> ThreadLocalRandom.current().nextInt(ACCOUNTS));
+            System.out.printf("%2d threads: one account %.1f ns/call, %,d accounts %.1f ns/call (%,d buckets)%n",
+                    threads, hot, ACCOUNTS, spreadNanos, spread.size());
+        }
+
+        RateLimiter<Integer> idle = new RateLimiter<>(1e12, 1_000, 0);
+        run(idle, 1, () -> ThreadLocalRandom.current().nextInt(ACCOUNTS));
+        long start = System.nanoTime();
+        int removed = idle.sweep();
+        System.out.printf("Swept %,d idle buckets in %,d ms%n", removed, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * @return the average wall-clock nanoseconds per call seen by each thread
+     */
+    private static double run(RateLimiter<Integer> limiter, int threads, IntSupplier keys) throws InterruptedException {
+        LongAdder refused = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                    if (limiter.tryAcquire(keys.getAsInt(), 1) != 0) {
+                        refused.increment();
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+        if (refused.sum() > 0) {
+            System.out.printf("  (%,d calls refused)%n", refused.sum());
+        }
+        return (double) elapsed / CALLS_PER_THREAD;
+    }
+}
@@ -0,0 +1,87 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import Controller.SocialMediaController;
+import DAO.AccountDAOImpl;
+import DAO.MessageDAOImpl;
+import Model.Account;
+import Model.Message;
+import Util.ConnectionUtil;
+import io.javalin.Javalin;
+
+/**
+ * Times GET /messages and GET /accounts/{account_id}/messages end to end, over HTTP on localhost,
+ * with the response cache disabled and enabled, for plain and gzip-accepting clients. Not a unit
+ * test; run it by hand after compiling the tests:
+ *
+ * <pre>
+ * mvn -B test-compile
+ * java -cp target/classes:target/test-classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) ResponseCacheBenchmark
+ * </pre>
+ *
+ * Nothing changes between requests, so with the cache enabled every timed request is a hit.
+ */
+public class ResponseCacheBenchmark {
+    private static final int MESSAGES = 10_000;
+    private static final int ACCOUNTS = 100;
+    private static final int REQUESTS = 300;
+
+    private static final HttpClient client = HttpClient.newHttpClient();
+    private static volatile long sink;
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("logging.sample.requests", "1000000");
+        System.setProperty("logging.sample.reads", "1000000");
+        ConnectionUtil.resetTestDatabase();
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < MESSAGES; i++) {
+            messages.add(new Message(1 + i % ACCOUNTS, "Message number " + i + " with some #hashtag text", 1669947792L + i));
+        }
+        AccountDAOImpl accountDAO = new AccountDAOImpl();
+        for (int i = 1; i < ACCOUNTS; i++) {
+            accountDAO.createAccount(new Account("benchmark" + i, "password"));
+        }
+        new MessageDAOImpl().createMessages(messages);
+
+        for (String enabled : new String[] {"false", "true"}) {
+            System.setProperty("responseCache.enabled", enabled);
+            Javalin app = new SocialMediaController().startAPI().start(8080);
+            try {
+                for (int round = 0; round < 3; round++) {
+                    boolean report = round == 2;
+                    double all = time("/messages", false);
+                    double allGzip = time("/messages", true);
+                    double account = time("/accounts/1/messages", false);
+                    if (report) {
+                        System.out.printf("cache %-5s  GET /messages %,8.0f us  gzip %,8.0f us  GET /accounts/1/messages %,6.0f us%n",
+                                enabled, all, allGzip, account);
+                    }
+                }
+            } finally {
+                app.stop();
+            }
+        }
+    }
+
+    /**
+     * @return the average microseconds per request
+     */
+    private static double time(String path, boolean gzip) throws IOException, InterruptedException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080" + path));
+        if (gzip) {
+            builder.header("Accept-Encoding", "gzip");
+        }
+        HttpRequest request = builder.build();
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            sink += response.body().length;
+        }
+        return (System.nanoTime() - start) / 1000.0 / REQUESTS;
+    }
+}
@@ -0,0 +1,143 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import Controller.SocialMediaController;
+import Model.Message;
+import Util.ConnectionUtil;
+import io.javalin.Javalin;
+
+public class ResponseCacheTest {
+    private static final String HITS = "cache_hits_total{cache=\"responses\"}";
+
+    SocialMediaController socialMediaController;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+    Javalin app;
+
+    /**
+     * Before every test, reset the database, restart the Javalin app with every cached body also
+     * kept gzipped, and create a new webClient and ObjectMapper for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @Before
+    public void setUp() throws InterruptedException {
+        System.setProperty("responseCache.gzipMinBytes", "1");
+        ConnectionUtil.resetTestDatabase();
+        socialMediaController = new SocialMediaController();
+        app = socialMediaController.startAPI();
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        app.start(8080);
+        Thread.sleep(1000);
+    }
+
+    @After
+    public void tearDown() {
+        app.stop();
+        System.clearProperty("responseCache.gzipMinBytes");
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .header("Content-Type", "application/json")
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private List<Message> getMessages(String path) throws IOException, InterruptedException {
+        HttpResponse<String> response = send("GET", path, "");
+        Assert.assertEquals(200, response.statusCode());
+        return objectMapper.readValue(response.body(), new TypeReference<List<Message>>() { });
+    }
+
+    private double hits() throws IOException, InterruptedException {
+        for (String line : send("GET", "/metrics", "").body().split("\n")) {
+            if (line.startsWith(HITS + " ")) {
+                return Double.parseDouble(line.substring(HITS.length() + 1));
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * A repeated list request is served from the cache, and every kind of change through the API
+     * is visible to the next request, or for a like once it is flushed, both in the full list and
+     * in the author's list.
+     */
+    @Test
+    public void changesInvalidateCachedLists() throws IOException, InterruptedException {
+        List<Message> all = getMessages("/messages");
+        List<Message> byAccount = getMessages("/accounts/1/messages");
+        double before = hits();
+        Assert.assertEquals(all, getMessages("/messages"));
+        Assert.assertEquals(byAccount, getMessages("/accounts/1/messages"));
+        Assert.assertEquals(before + 2, hits(), 0);
+
+        HttpResponse<String> created = send("POST", "/messages",
+                "{\"posted_by\": 1, \"message_text\": \"cached?\", \"time_posted_epoch\": 1669947792}");
+        Assert.assertEquals(200, created.statusCode());
+        Message message = objectMapper.readValue(created.body(), Message.class);
+        Assert.assertTrue(getMessages("/messages").contains(message));
+        Assert.assertTrue(getMessages("/accounts/1/messages").contains(message));
+
+        Assert.assertEquals(200, send("PATCH", "/messages/" + message.getMessage_id(), "{\"message_text\": \"edited\"}").statusCode());
+        message.setMessage_text("edited");
+        Assert.assertTrue(getMessages("/messages").contains(message));
+        Assert.assertTrue(getMessages("/accounts/1/messages").contains(message));
+
+        // a like reaches the cached lists when it is flushed, not on every like
+        Assert.assertEquals(200, send("POST", "/messages/" + message.getMessage_id() + "/like", "").statusCode());
+        message.setLike_count(1);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!getMessages("/messages").contains(message) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        Assert.assertTrue(getMessages("/messages").contains(message));
+        Assert.assertTrue(getMessages("/accounts/1/messages").contains(message));
+
+        Assert.assertEquals(200, send("DELETE", "/messages/" + message.getMessage_id(), "").statusCode());
+        Assert.assertEquals(all, getMessages("/messages"));
+        Assert.assertEquals(byAccount, getMessages("/accounts/1/messages"));
+    }
+
+    /**
+     * A cached body is sent gzipped to clients that accept gzip and as plain JSON to the others.
+     */
+    @Test
+    public void cachedBodiesAreSentGzipped() throws IOException, InterruptedException {
+        String plain = send("GET", "/messages?limit=10", "").body();
+
+        HttpRequest gzipRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages?limit=10"))
+                .header("Accept-Encoding", "gzip")
+                .build();
+        HttpResponse<InputStream> gzipped = webClient.send(gzipRequest, HttpResponse.BodyHandlers.ofInputStream());
+        Assert.assertEquals(200, gzipped.statusCode());
+        Assert.assertEquals("gzip", gzipped.headers().firstValue("Content-Encoding").orElse(null));
+        Assert.assertTrue(gzipped.headers().firstValue("Content-Type").orElse("").startsWith("application/json"));
+        try (InputStream body = new GZIPInputStream(gzipped.body())) {
+            Assert.assertEquals(plain, new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        HttpResponse<String> again = send("GET", "/messages?limit=10", "");
+        Assert.assertFalse(again.headers().firstValue("Content-Encoding").isPresent());
+        Assert.assertEquals(plain, again.body());
+    }
+}
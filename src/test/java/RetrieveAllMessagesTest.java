@@ -98,6 +98,83 @@ public class RetrieveAllMessagesTest {
     }
 
 
+    /**
+     * Sending an http request to GET localhost:8080/messages?stream=true
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the same JSON list of message objects as the buffered listing
+     */
+    @Test
+    public void getAllMessagesStreamed() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages?stream=true"))
+                .build();
+        HttpResponse response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        int status = response.statusCode();
+
+        Assert.assertEquals(200, status);
+
+        List<Message> expectedResult = new ArrayList<>();
+        expectedResult.add(new Message(1, 1, "test message 1", 1669947792));
+        List<Message> actualResult = objectMapper.readValue(response.body().toString(), new TypeReference<List<Message>>(){});
+        Assert.assertEquals(expectedResult, actualResult);
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages?since=1669947792&until=1669947794 after
+     * adding messages posted at 1669947793 and 1669947794
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the messages posted in [since, until), newest first, buffered or streamed
+     */
+    @Test
+    public void getMessagesInTimeRange() throws IOException, InterruptedException {
+        addMessage(2, 1669947793);
+        addMessage(3, 1669947794);
+
+        List<Message> expectedResult = new ArrayList<>();
+        expectedResult.add(new Message(2, 1, "message 2", 1669947793));
+        expectedResult.add(new Message(1, 1, "test message 1", 1669947792));
+        for (String stream : new String[]{"", "&stream=true"}) {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/messages?since=1669947792&until=1669947794" + stream))
+                    .build();
+            HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+            Assert.assertEquals(200, response.statusCode());
+            Assert.assertEquals(expectedResult, objectMapper.readValue(response.body(), new TypeReference<List<Message>>(){}));
+        }
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages?since=2&until=1
+     *
+     * Expected Response:
+     *  Status Code: 400
+     */
+    @Test
+    public void getMessagesInInvalidTimeRange() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages?since=2&until=1"))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+        Assert.assertEquals(400, response.statusCode());
+    }
+
+    private void addMessage(int messageId, long timePostedEpoch) {
+        try (Connection conn = ConnectionUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                     "insert into message (posted_by, message_text, time_posted_epoch) values (1, ?, ?)")) {
+            ps.setString(1, "message " + messageId);
+            ps.setLong(2, timePostedEpoch);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
 
     private void removeInitialMessage(){
         try {
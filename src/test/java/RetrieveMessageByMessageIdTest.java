@@ -3,12 +3,15 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import Controller.SocialMediaController;
@@ -86,5 +89,38 @@ public class RetrieveMessageByMessageIdTest {
         Assert.assertTrue(response.body().toString().isEmpty());
     }
 
+    /**
+     * Sending an http request to GET localhost:8080/messages?ids=100,1,100 (message id 100 does not exist)
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: JSON array in request order, with null for the missing id
+     */
+    @Test
+    public void getMessagesGivenIdsKeepsOrder() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages?ids=100,1,100"))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+        Assert.assertEquals(200, response.statusCode());
+        List<Message> actualResult = objectMapper.readValue(response.body(), new TypeReference<>() {});
+        Assert.assertEquals(Arrays.asList(null, new Message(1, 1, "test message 1", 1669947792), null), actualResult);
+    }
 
+    /**
+     * Sending an http request to GET localhost:8080/messages?ids=1,abc
+     *
+     * Expected Response:
+     *  Status Code: 400
+     */
+    @Test
+    public void getMessagesGivenInvalidIds() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages?ids=1,abc"))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+        Assert.assertEquals(400, response.statusCode());
+    }
 }
@@ -0,0 +1,129 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import Controller.SocialMediaController;
+import Model.Message;
+import Model.MessagePage;
+import Util.ConnectionUtil;
+import io.javalin.Javalin;
+
+public class RetrieveMessagePageTest {
+    SocialMediaController socialMediaController;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+    Javalin app;
+
+    /**
+     * Before every test, reset the database, restart the Javalin app, and create a new webClient and ObjectMapper
+     * for interacting locally on the web. Three more messages are posted so that paging has something to walk.
+     * @throws InterruptedException
+     */
+    @Before
+    public void setUp() throws InterruptedException, IOException {
+        ConnectionUtil.resetTestDatabase();
+        socialMediaController = new SocialMediaController();
+        app = socialMediaController.startAPI();
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        app.start(8080);
+        Thread.sleep(1000);
+
+        postMessage("second message", 1669947793);
+        postMessage("third message", 1669947793);
+        postMessage("fourth message", 1669947794);
+    }
+
+    @After
+    public void tearDown() {
+        app.stop();
+    }
+
+    private void postMessage(String text, long epoch) throws IOException, InterruptedException {
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString("{"+
+                        "\"posted_by\":1, " +
+                        "\"message_text\": \"" + text + "\", " +
+                        "\"time_posted_epoch\": " + epoch + "}"))
+                .header("Content-Type", "application/json")
+                .build();
+        webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private MessagePage getPage(String uri) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(uri))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assert.assertEquals(200, response.statusCode());
+        return objectMapper.readValue(response.body(), MessagePage.class);
+    }
+
+    /**
+     * Sending http requests to GET localhost:8080/messages?limit=3 and following the next cursor
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: pages that together hold every message once, in (time_posted_epoch, message_id) order
+     */
+    @Test
+    public void getMessagePagesFollowingCursor() throws IOException, InterruptedException {
+        MessagePage firstPage = getPage("http://localhost:8080/messages?limit=3");
+        Assert.assertEquals(3, firstPage.getMessages().size());
+        Assert.assertNotNull(firstPage.getNext());
+
+        MessagePage secondPage = getPage("http://localhost:8080/messages?limit=3&cursor=" + firstPage.getNext());
+        Assert.assertNull(secondPage.getNext());
+
+        List<Message> expectedResult = new ArrayList<>();
+        expectedResult.add(new Message(1, 1, "test message 1", 1669947792));
+        expectedResult.add(new Message(2, 1, "second message", 1669947793));
+        expectedResult.add(new Message(3, 1, "third message", 1669947793));
+        expectedResult.add(new Message(4, 1, "fourth message", 1669947794));
+        List<Message> actualResult = new ArrayList<>(firstPage.getMessages());
+        actualResult.addAll(secondPage.getMessages());
+        Assert.assertEquals(expectedResult, actualResult);
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/accounts/1/messages?limit=2
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the user's first two messages and a cursor for the rest
+     */
+    @Test
+    public void getMessagePageForUser() throws IOException, InterruptedException {
+        MessagePage page = getPage("http://localhost:8080/accounts/1/messages?limit=2");
+        Assert.assertEquals(2, page.getMessages().size());
+        Assert.assertEquals(new Message(2, 1, "second message", 1669947793), page.getMessages().get(1));
+        Assert.assertNotNull(page.getNext());
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages with a cursor that was not issued by the API
+     *
+     * Expected Response:
+     *  Status Code: 400
+     */
+    @Test
+    public void getMessagePageInvalidCursor() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages?cursor=not-a-cursor"))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assert.assertEquals(400, response.statusCode());
+    }
+}
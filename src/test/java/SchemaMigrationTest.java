@@ -0,0 +1,125 @@
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import Util.ConnectionUtil;
+import Util.DatabaseUtil;
+import Util.MigrationRunner;
+
+public class SchemaMigrationTest {
+    Connection connection;
+
+    /**
+     * Before every test, reset the database so every migration has just been applied.
+     */
+    @Before
+    public void setUp() {
+        ConnectionUtil.resetTestDatabase();
+        connection = ConnectionUtil.getConnection();
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseUtil.closeResource(connection);
+    }
+
+    private String explain(String sql) throws SQLException {
+        Statement stmt = connection.createStatement();
+        ResultSet rs = stmt.executeQuery("EXPLAIN " + sql);
+        rs.next();
+        String plan = rs.getString(1);
+        DatabaseUtil.closeResource(rs);
+        DatabaseUtil.closeResource(stmt);
+        return plan;
+    }
+
+    /**
+     * Running the migrations against an up-to-date database applies nothing and keeps the data.
+     */
+    @Test
+    public void migrationsAreAppliedOnce() throws SQLException {
+        Assert.assertEquals(0, MigrationRunner.migrate(connection));
+
+        Statement stmt = connection.createStatement();
+        ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM message");
+        rs.next();
+        Assert.assertEquals(1, rs.getInt(1));
+        DatabaseUtil.closeResource(rs);
+        DatabaseUtil.closeResource(stmt);
+    }
+
+    /**
+     * Listing an author's messages seeks on a posted_by index instead of scanning the table. H2 may
+     * pick either the foreign key's index or message_posted_by_time_posted_idx, so only the access
+     * path is checked.
+     */
+    @Test
+    public void messagesByAuthorUseIndex() throws SQLException {
+        String plan = explain("SELECT * FROM message WHERE posted_by = 1 ORDER BY time_posted_epoch, message_id");
+        Assert.assertFalse(plan, plan.contains("tableScan"));
+        Assert.assertTrue(plan, plan.contains("POSTED_BY = 1 */"));
+    }
+
+    /**
+     * Time-ordered keyset pages seek on the time_posted_epoch index instead of scanning the table.
+     */
+    @Test
+    public void messagesByTimeUseIndex() throws SQLException {
+        String plan = explain("SELECT * FROM message WHERE time_posted_epoch >= 1669947792 " +
+                "AND (time_posted_epoch > 1669947792 OR message_id > 1) ORDER BY time_posted_epoch, message_id LIMIT 10");
+        Assert.assertTrue(plan, plan.contains("MESSAGE_TIME_POSTED_IDX"));
+        Assert.assertTrue(plan, plan.contains("index sorted"));
+    }
+
+    /**
+     * Newest-first time ranges read the descending time_posted_epoch index in order, without a sort.
+     */
+    @Test
+    public void messagesByTimeRangeNewestFirstUseIndex() throws SQLException {
+        String plan = explain("SELECT * FROM message WHERE time_posted_epoch >= 1669947792 " +
+                "AND time_posted_epoch < 1669951392 ORDER BY time_posted_epoch DESC, message_id DESC");
+        Assert.assertTrue(plan, plan.contains("MESSAGE_TIME_POSTED_DESC_IDX"));
+        Assert.assertTrue(plan, plan.contains("index sorted"));
+    }
+
+    /**
+     * An author's newest messages are read from the per-author index in order, so a bounded
+     * newest-first query stops after its limit instead of sorting the author's whole timeline.
+     */
+    @Test
+    public void newestMessagesByAuthorUseIndex() throws SQLException {
+        String plan = explain("SELECT * FROM message USE INDEX (message_posted_by_time_posted_desc_idx) WHERE posted_by = 1 " +
+                "ORDER BY posted_by, time_posted_epoch DESC, message_id DESC LIMIT 10");
+        Assert.assertTrue(plan, plan.contains("POSTED_BY = 1 */"));
+        Assert.assertTrue(plan, plan.contains("index sorted"));
+    }
+
+    /**
+     * A database created before migrations existed has the tables but no schema_version; its
+     * schema is taken as the baseline and only the later migrations run, keeping its data.
+     */
+    @Test
+    public void tablesFromBeforeMigrationsAreBaselined() throws SQLException {
+        Statement stmt = connection.createStatement();
+        stmt.execute("DROP ALL OBJECTS");
+        stmt.execute("create table account (account_id int primary key auto_increment, " +
+                "username varchar(255) unique, password varchar(255))");
+        stmt.execute("create table message (message_id int primary key auto_increment, posted_by int, " +
+                "message_text varchar(255), time_posted_epoch bigint, foreign key (posted_by) references account(account_id))");
+        stmt.execute("insert into account (username, password) values ('testuser1', 'password')");
+
+        Assert.assertEquals(5, MigrationRunner.migrate(connection));
+        Assert.assertEquals(0, MigrationRunner.migrate(connection));
+        ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM account");
+        rs.next();
+        Assert.assertEquals(1, rs.getInt(1));
+        DatabaseUtil.closeResource(rs);
+        DatabaseUtil.closeResource(stmt);
+    }
+}
@@ -0,0 +1,109 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import Controller.SocialMediaController;
+import Model.Message;
+import Util.ConnectionUtil;
+import io.javalin.Javalin;
+
+public class SearchMessagesTest {
+    SocialMediaController socialMediaController;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+    Javalin app;
+
+    /**
+     * Before every test, reset the database, restart the Javalin app, and create a new webClient and ObjectMapper
+     * for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @Before
+    public void setUp() throws InterruptedException {
+        ConnectionUtil.resetTestDatabase();
+        socialMediaController = new SocialMediaController();
+        app = socialMediaController.startAPI();
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        app.start(8080);
+        Thread.sleep(1000);
+    }
+
+    @After
+    public void tearDown() {
+        app.stop();
+    }
+
+    private HttpResponse<String> search(String query) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/search?q=" + URLEncoder.encode(query, StandardCharsets.UTF_8)))
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+                .header("Content-Type", "application/json")
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages/search?q=test (matches the seeded message)
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: JSON list holding the seeded message, which the index loaded at startup
+     */
+    @Test
+    public void searchFindsSeededMessage() throws IOException, InterruptedException {
+        HttpResponse<String> response = search("TEST message");
+
+        Assert.assertEquals(200, response.statusCode());
+        List<Message> actualResult = objectMapper.readValue(response.body(), new TypeReference<>() {});
+        Assert.assertEquals(List.of(new Message(1, 1, "test message 1", 1669947792)), actualResult);
+    }
+
+    /**
+     * Messages created, updated and deleted through the API are reflected in search results.
+     */
+    @Test
+    public void searchFollowsWrites() throws IOException, InterruptedException {
+        send("POST", "/messages", "{\"posted_by\":1, \"message_text\": \"hello world\", \"time_posted_epoch\": 1669947793}");
+        List<Message> created = objectMapper.readValue(search("world OR test").body(), new TypeReference<>() {});
+        Assert.assertEquals(List.of(new Message(2, 1, "hello world", 1669947793),
+                new Message(1, 1, "test message 1", 1669947792)), created);
+
+        send("PATCH", "/messages/2", "{\"message_text\": \"goodbye\"}");
+        Assert.assertEquals("[]", search("world").body());
+
+        send("DELETE", "/messages/2", null);
+        Assert.assertEquals("[]", search("goodbye").body());
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages/search?q= with no terms
+     *
+     * Expected Response:
+     *  Status Code: 400
+     */
+    @Test
+    public void searchWithoutTermsFails() throws IOException, InterruptedException {
+        Assert.assertEquals(400, search("").statusCode());
+    }
+}
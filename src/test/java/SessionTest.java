@@ -0,0 +1,179 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import Controller.SocialMediaController;
+import Model.Message;
+import Service.SessionStore;
+import Util.ConnectionUtil;
+import io.javalin.Javalin;
+
+public class SessionTest {
+    SocialMediaController socialMediaController;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+    Javalin app;
+
+    /**
+     * Before every test, reset the database, restart the Javalin app, and create a new webClient and ObjectMapper
+     * for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @Before
+    public void setUp() throws InterruptedException {
+        ConnectionUtil.resetTestDatabase();
+        socialMediaController = new SocialMediaController();
+        app = socialMediaController.startAPI();
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        app.start(8080);
+        Thread.sleep(1000);
+    }
+
+    @After
+    public void tearDown() {
+        app.stop();
+    }
+
+    private HttpResponse<String> send(String method, String path, String body, String token) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .header("Content-Type", "application/json");
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return webClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private String login(String username) throws IOException, InterruptedException {
+        HttpResponse<String> response = send("POST", "/login",
+                "{\"username\": \"" + username + "\", \"password\": \"password\"}", null);
+        Assert.assertEquals(200, response.statusCode());
+        return response.headers().firstValue("X-Session-Token").orElseThrow();
+    }
+
+    /**
+     * A message created with a session token is posted by the session's account, whatever
+     * posted_by says, and only that account may edit or delete its messages.
+     */
+    @Test
+    public void sessionAccountIsTheAuthor() throws IOException, InterruptedException {
+        send("POST", "/register", "{\"username\": \"testuser2\", \"password\": \"password\"}", null);
+        String token1 = login("testuser1");
+        String token2 = login("testuser2");
+        Assert.assertNotEquals(token1, token2);
+
+        HttpResponse<String> created = send("POST", "/messages",
+                "{\"posted_by\": 1, \"message_text\": \"from a session\", \"time_posted_epoch\": 1669947792}", token2);
+        Assert.assertEquals(200, created.statusCode());
+        Assert.assertEquals(new Message(2, 2, "from a session", 1669947792),
+                objectMapper.readValue(created.body(), Message.class));
+
+        Assert.assertEquals(403, send("PATCH", "/messages/1", "{\"message_text\": \"not mine\"}", token2).statusCode());
+        Assert.assertEquals(403, send("DELETE", "/messages/1", "", token2).statusCode());
+        Assert.assertEquals(200, send("PATCH", "/messages/1", "{\"message_text\": \"mine\"}", token1).statusCode());
+        Assert.assertEquals(200, send("DELETE", "/messages/2", "", token2).statusCode());
+    }
+
+    /**
+     * Unknown and logged-out tokens are refused, while requests without a token still work as before.
+     */
+    @Test
+    public void invalidTokensAreRejected() throws IOException, InterruptedException {
+        String post = "{\"posted_by\": 1, \"message_text\": \"hello\", \"time_posted_epoch\": 1669947792}";
+        Assert.assertEquals(401, send("POST", "/messages", post, "not-a-token").statusCode());
+
+        String token = login("testuser1");
+        Assert.assertEquals(200, send("POST", "/logout", "", token).statusCode());
+        Assert.assertEquals(401, send("POST", "/logout", "", token).statusCode());
+        Assert.assertEquals(401, send("POST", "/messages", post, token).statusCode());
+
+        Assert.assertEquals(200, send("POST", "/messages", post, null).statusCode());
+    }
+
+    /**
+     * With sessions.required, message writes without a token are refused instead of trusting
+     * posted_by, while the same writes with a token still work.
+     */
+    @Test
+    public void writesWithoutTokenAreRejectedWhenSessionsAreRequired() throws IOException, InterruptedException {
+        app.stop();
+        System.setProperty("sessions.required", "true");
+        try {
+            app = new SocialMediaController().startAPI();
+            app.start(8080);
+
+            String post = "{\"posted_by\": 1, \"message_text\": \"hello\", \"time_posted_epoch\": 1669947792}";
+            Assert.assertEquals(401, send("PATCH", "/messages/1", "{\"message_text\": \"not mine\"}", null).statusCode());
+            Assert.assertEquals(401, send("DELETE", "/messages/1", "", null).statusCode());
+            Assert.assertEquals(401, send("POST", "/messages", post, null).statusCode());
+            Assert.assertEquals(401, send("POST", "/messages/batch", "[" + post + "]", null).statusCode());
+            Assert.assertEquals(200, send("GET", "/messages/1", "", null).statusCode());
+
+            String token = login("testuser1");
+            Assert.assertEquals(200, send("POST", "/messages", post, token).statusCode());
+            Assert.assertEquals(200, send("PATCH", "/messages/1", "{\"message_text\": \"mine\"}", token).statusCode());
+            Assert.assertEquals(200, send("DELETE", "/messages/1", "", token).statusCode());
+        } finally {
+            System.clearProperty("sessions.required");
+        }
+    }
+
+    /**
+     * A session may only follow, unfollow and read the feed as its own account, and with
+     * sessions.required those requests need a token.
+     */
+    @Test
+    public void followsAndFeedsNeedTheAccountsSession() throws IOException, InterruptedException {
+        app.stop();
+        System.setProperty("sessions.required", "true");
+        try {
+            app = new SocialMediaController().startAPI();
+            app.start(8080);
+            send("POST", "/register", "{\"username\": \"testuser2\", \"password\": \"password\"}", null);
+
+            Assert.assertEquals(401, send("POST", "/accounts/2/following/1", "", null).statusCode());
+            Assert.assertEquals(401, send("DELETE", "/accounts/2/following/1", "", null).statusCode());
+            Assert.assertEquals(401, send("GET", "/accounts/2/feed", "", null).statusCode());
+
+            String token1 = login("testuser1");
+            Assert.assertEquals(403, send("POST", "/accounts/2/following/1", "", token1).statusCode());
+            Assert.assertEquals(403, send("DELETE", "/accounts/2/following/1", "", token1).statusCode());
+            Assert.assertEquals(403, send("GET", "/accounts/2/feed", "", token1).statusCode());
+
+            String token2 = login("testuser2");
+            Assert.assertEquals(200, send("POST", "/accounts/2/following/1", "", token2).statusCode());
+            Assert.assertEquals(200, send("GET", "/accounts/2/feed", "", token2).statusCode());
+            Assert.assertEquals(200, send("DELETE", "/accounts/2/following/1", "", token2).statusCode());
+        } finally {
+            System.clearProperty("sessions.required");
+        }
+    }
+
+    /**
+     * Sessions expire after the idle timeout and are swept away.
+     */
+    @Test
+    public void sessionsExpireWhenIdle() throws InterruptedException {
+        SessionStore sessions = new SessionStore(50, 0);
+        String token = sessions.create(7);
+        Assert.assertEquals(Integer.valueOf(7), sessions.getAccountId(token));
+        String idle = sessions.create(8);
+
+        Thread.sleep(100);
+        Assert.assertNull(sessions.getAccountId(token));
+        Assert.assertEquals(1, sessions.size());
+        Assert.assertEquals(1, sessions.sweep());
+        Assert.assertNull(sessions.getAccountId(idle));
+    }
+}
@@ -0,0 +1,30 @@
+import org.junit.Assert;
+import org.junit.Test;
+
+import Util.SortedIntList;
+
+public class SortedIntListTest {
+
+    /**
+     * Values added in any order come back sorted and without duplicates, and removed values are gone.
+     */
+    @Test
+    public void keepsValuesSortedAndUnique() {
+        SortedIntList list = new SortedIntList();
+        for (int value : new int[] {5, 1, 9, 3, 7, 11, 2, 10}) {
+            Assert.assertTrue(list.add(value));
+        }
+        Assert.assertFalse(list.add(7));
+        Assert.assertArrayEquals(new int[] {1, 2, 3, 5, 7, 9, 10, 11}, list.toArray());
+
+        Assert.assertTrue(list.remove(1));
+        Assert.assertTrue(list.remove(11));
+        Assert.assertFalse(list.remove(4));
+        Assert.assertArrayEquals(new int[] {2, 3, 5, 7, 9, 10}, list.toArray());
+        Assert.assertTrue(list.contains(5));
+        Assert.assertFalse(list.contains(1));
+        Assert.assertEquals(6, list.size());
+        Assert.assertEquals(2, list.indexOf(5, 1));
+        Assert.assertEquals(-3, list.indexOf(4, 0));
+    }
+}
@@ -0,0 +1,127 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import DAO.DataAccessException;
+import DAO.MessageDAO;
+import DAO.TimelineCachingMessageDAO;
+import Model.Message;
+import Util.UnitOfWork;
+
+public class TimelineCachingMessageDAOTest {
+    MessageDAO database;
+    TimelineCachingMessageDAO timelineCachingMessageDAO;
+
+    /**
+     * Before every test, wrap a mock DAO whose account 1 has one message.
+     */
+    @Before
+    public void setUp() {
+        database = Mockito.mock(MessageDAO.class);
+        List<Message> timeline = new ArrayList<>();
+        timeline.add(new Message(1, 1, "test message 1", 1669947792));
+        Mockito.when(database.getAllMessagesByAccountId(1)).thenReturn(timeline);
+        timelineCachingMessageDAO = new TimelineCachingMessageDAO(database, 100, 0);
+    }
+
+    /**
+     * A cached timeline is patched by create, update and delete without being refetched.
+     */
+    @Test
+    public void writesPatchCachedTimeline() {
+        Message created = new Message(2, 1, "second message", 1669947793);
+        Message updated = new Message(1, 1, "updated", 1669947792);
+        Mockito.when(database.createMessage(Mockito.any())).thenReturn(created);
+        Mockito.when(database.updateMessageText(1, "updated")).thenReturn(updated);
+        Mockito.when(database.deleteMessage(2)).thenReturn(created);
+
+        timelineCachingMessageDAO.getAllMessagesByAccountId(1);
+
+        timelineCachingMessageDAO.createMessage(new Message(1, "second message", 1669947793));
+        Assert.assertEquals(List.of(new Message(1, 1, "test message 1", 1669947792), created),
+                timelineCachingMessageDAO.getAllMessagesByAccountId(1));
+
+        timelineCachingMessageDAO.updateMessageText(1, "updated");
+        Assert.assertEquals(List.of(updated, created), timelineCachingMessageDAO.getAllMessagesByAccountId(1));
+
+        timelineCachingMessageDAO.deleteMessage(2);
+        Assert.assertEquals(List.of(updated), timelineCachingMessageDAO.getAllMessagesByAccountId(1));
+
+        Mockito.verify(database, Mockito.times(1)).getAllMessagesByAccountId(1);
+    }
+
+    /**
+     * A write made in a unit of work is not patched into the cached timeline until it has
+     * committed.
+     */
+    @Test
+    public void uncommittedWritesAreNotVisible() throws Exception {
+        Message original = new Message(1, 1, "test message 1", 1669947792);
+        Message created = new Message(2, 1, "second message", 1669947793);
+        Mockito.when(database.createMessage(Mockito.any())).thenReturn(created);
+        timelineCachingMessageDAO.getAllMessagesByAccountId(1);
+
+        UnitOfWork unitOfWork = UnitOfWork.begin();
+        try {
+            timelineCachingMessageDAO.createMessage(new Message(1, "second message", 1669947793));
+            AtomicReference<List<Message>> seen = new AtomicReference<>();
+            Thread reader = new Thread(() -> seen.set(timelineCachingMessageDAO.getAllMessagesByAccountId(1)));
+            reader.start();
+            reader.join();
+            Assert.assertEquals(List.of(original), seen.get());
+            unitOfWork.commit();
+        } finally {
+            unitOfWork.end();
+        }
+
+        // patched by the commit, so the database is not asked again
+        Assert.assertEquals(List.of(original, created), timelineCachingMessageDAO.getAllMessagesByAccountId(1));
+        Mockito.verify(database, Mockito.times(1)).getAllMessagesByAccountId(1);
+    }
+
+    /**
+     * Timelines are evicted once the messages held across them exceed the limit.
+     */
+    @Test
+    public void evictsByTotalMessages() {
+        TimelineCachingMessageDAO small = new TimelineCachingMessageDAO(database, 3, 0);
+        Mockito.when(database.getAllMessagesByAccountId(2)).thenReturn(List.of(
+                new Message(2, 2, "a", 1669947792), new Message(3, 2, "b", 1669947793)));
+
+        small.getAllMessagesByAccountId(1);
+        small.getAllMessagesByAccountId(2);
+        small.getAllMessagesByAccountId(1);
+
+        Mockito.verify(database, Mockito.times(2)).getAllMessagesByAccountId(1);
+        Assert.assertEquals(2, small.getCacheStats().getEvictions());
+    }
+
+    /**
+     * A timeline that fails to load is not cached, so a later create is not patched onto an empty
+     * list and the next read asks the database again.
+     */
+    @Test
+    public void failedLoadIsNotCached() {
+        Message created = new Message(2, 1, "second message", 1669947793);
+        Mockito.when(database.createMessage(Mockito.any())).thenReturn(created);
+        Mockito.when(database.getAllMessagesByAccountId(1))
+                .thenThrow(new DataAccessException("down", null))
+                .thenReturn(List.of(new Message(1, 1, "test message 1", 1669947792), created));
+
+        try {
+            timelineCachingMessageDAO.getAllMessagesByAccountId(1);
+            Assert.fail("Expected the failed load to be reported");
+        } catch (DataAccessException expected) {
+            // nothing was cached
+        }
+        timelineCachingMessageDAO.createMessage(new Message(1, "second message", 1669947793));
+
+        Assert.assertEquals(2, timelineCachingMessageDAO.getAllMessagesByAccountId(1).size());
+        Mockito.verify(database, Mockito.times(2)).getAllMessagesByAccountId(1);
+    }
+}
@@ -0,0 +1,120 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.SQLException;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import Controller.SocialMediaController;
+import DAO.AccountDAOImpl;
+import Service.AccountServiceImpl;
+import Service.MessageService;
+import Service.MessageServiceImpl;
+import Service.TracedMessageService;
+import Util.ConnectionUtil;
+import Util.Trace;
+import Util.UnitOfWork;
+import io.javalin.Javalin;
+
+public class TracingTest {
+    SocialMediaController socialMediaController;
+    HttpClient webClient;
+    Javalin app;
+
+    /**
+     * Before every test, reset the database, restart the Javalin app with every request traced and
+     * logged as slow, and create a new webClient for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @Before
+    public void setUp() throws InterruptedException {
+        System.setProperty("tracing.sampleEvery", "1");
+        System.setProperty("tracing.slowRequestMs", "0");
+        ConnectionUtil.resetTestDatabase();
+        socialMediaController = new SocialMediaController();
+        app = socialMediaController.startAPI();
+        webClient = HttpClient.newHttpClient();
+        app.start(8080);
+        Thread.sleep(1000);
+    }
+
+    @After
+    public void tearDown() {
+        app.stop();
+        Trace.detach();
+        System.clearProperty("tracing.sampleEvery");
+        System.clearProperty("tracing.slowRequestMs");
+    }
+
+    /**
+     * Every response carries its own request id, whether or not the request succeeded.
+     */
+    @Test
+    public void responsesCarryRequestIds() throws IOException, InterruptedException {
+        HttpRequest patch = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/1"))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"message_text\": \"traced\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> first = webClient.send(patch, HttpResponse.BodyHandlers.ofString());
+        Assert.assertEquals(200, first.statusCode());
+        HttpRequest missing = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/no-such-route"))
+                .build();
+        HttpResponse<String> second = webClient.send(missing, HttpResponse.BodyHandlers.ofString());
+
+        String firstId = first.headers().firstValue("X-Request-Id").orElseThrow();
+        String secondId = second.headers().firstValue("X-Request-Id").orElseThrow();
+        Assert.assertNotEquals(firstId, secondId);
+    }
+
+    /**
+     * A traced update records the service call, the DAO calls under it, the connection acquire and
+     * each SQL statement under those, and the commit.
+     */
+    @Test
+    public void traceRecordsSpanTree() {
+        MessageService messageService = new TracedMessageService(new MessageServiceImpl(new AccountServiceImpl(new AccountDAOImpl())));
+        Trace trace = Trace.begin("test-1", "PATCH /messages/1");
+        UnitOfWork unitOfWork = UnitOfWork.begin();
+        try {
+            Assert.assertNotNull(messageService.updateMessageText(1, "traced"));
+            unitOfWork.commit();
+        } catch (SQLException e) {
+            Assert.fail(e.getMessage());
+        } finally {
+            unitOfWork.end();
+            Trace.detach();
+        }
+        trace.finish(0);
+
+        String tree = trace.format();
+        Assert.assertTrue(tree, tree.startsWith("request test-1 PATCH /messages/1 "));
+        Assert.assertEquals(tree, "MessageService.updateMessageText", trace.getSpans().get(0).getName());
+        Assert.assertEquals(0, trace.getSpans().get(0).getDepth());
+        boolean update = false;
+        boolean acquire = false;
+        for (Trace.Span span : trace.getSpans()) {
+            if (span.getName().equals("MessageDAO.updateMessageText")) {
+                Assert.assertEquals(1, span.getDepth());
+            } else if (span.getName().startsWith("sql ") && span.getName().contains("UPDATE message")) {
+                Assert.assertEquals(2, span.getDepth());
+                update = true;
+            } else if (span.getName().equals("connection.acquire")) {
+                acquire = true;
+            }
+            Assert.assertTrue(span.getName(), span.getDurationNanos() >= 0);
+        }
+        Assert.assertTrue(tree, update);
+        Assert.assertTrue(tree, acquire);
+        Assert.assertTrue(tree, tree.contains("transaction.commit"));
+
+        // with no trace active, spans are a shared no-op
+        Assert.assertSame(Trace.span("a"), Trace.span("b"));
+    }
+}
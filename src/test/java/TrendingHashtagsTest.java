@@ -0,0 +1,67 @@
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import Model.Message;
+import Model.TrendingHashtag;
+import Service.TrendingHashtags;
+
+public class TrendingHashtagsTest {
+    TrendingHashtags trending;
+
+    /**
+     * Before every test, start a counter with one-minute buckets covering an hour.
+     */
+    @Before
+    public void setUp() {
+        trending = new TrendingHashtags(60_000, 60, 1024, 4, 10, 1000);
+    }
+
+    @After
+    public void tearDown() {
+        trending.shutdown();
+    }
+
+    /**
+     * Hashtags start at a standalone '#', are lower-cased and are reported once per message.
+     */
+    @Test
+    public void extractsHashtags() {
+        Assert.assertEquals(Set.of("java", "perf_tuning"),
+                TrendingHashtags.extractHashtags("#Java is fast, #java #perf_tuning! C# and # alone are not tags"));
+    }
+
+    /**
+     * The most used hashtags come first, counted off the calling thread.
+     */
+    @Test
+    public void reportsMostUsedFirst() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            trending.onCreated(new Message(i, 1, "#coffee time", 1669947792));
+        }
+        trending.onCreated(new Message(3, 1, "#tea #coffee", 1669947792));
+        trending.onCreated(new Message(4, 1, "no tags here", 1669947792));
+
+        List<TrendingHashtag> top = awaitTrending(2);
+        Assert.assertEquals(List.of(new TrendingHashtag("coffee", 4), new TrendingHashtag("tea", 1)), top);
+        Assert.assertEquals(List.of(new TrendingHashtag("coffee", 4)), trending.getTrending(60_000, 1));
+    }
+
+    /**
+     * Waits for the counter thread to catch up with the expected number of hashtags.
+     */
+    private List<TrendingHashtag> awaitTrending(int expected) throws InterruptedException {
+        for (int attempt = 0; attempt < 50; attempt++) {
+            List<TrendingHashtag> top = trending.getTrending(3_600_000, 10);
+            if (top.size() == expected && top.get(0).getCount() == 4) {
+                return top;
+            }
+            Thread.sleep(20);
+        }
+        return trending.getTrending(3_600_000, 10);
+    }
+}
@@ -0,0 +1,129 @@
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import DAO.MessageDAO;
+import DAO.MessageDAOImpl;
+import Model.Message;
+import Util.ConnectionUtil;
+import Util.UnitOfWork;
+
+public class UnitOfWorkTest {
+    MessageDAO messageDAO;
+
+    /**
+     * Before every test, reset the database.
+     */
+    @Before
+    public void setUp() {
+        ConnectionUtil.resetTestDatabase();
+        messageDAO = new MessageDAOImpl();
+    }
+
+    /**
+     * DAO calls made inside one unit of work borrow a single connection from the pool.
+     */
+    @Test
+    public void daoCallsShareOneConnection() throws SQLException {
+        long acquiredBefore = ConnectionUtil.getPoolStats().getAcquired();
+
+        UnitOfWork unitOfWork = UnitOfWork.begin();
+        try {
+            Message created = messageDAO.createMessage(new Message(1, "unit of work", 1669947800));
+            Assert.assertNotNull(messageDAO.getMessageById(created.getMessage_id()));
+            messageDAO.updateMessageText(created.getMessage_id(), "updated");
+            unitOfWork.commit();
+        } finally {
+            unitOfWork.end();
+        }
+
+        Assert.assertEquals(acquiredBefore + 1, ConnectionUtil.getPoolStats().getAcquired());
+    }
+
+    /**
+     * Work that is not committed is rolled back when the unit of work ends.
+     */
+    @Test
+    public void uncommittedWorkIsRolledBack() {
+        int messageId;
+        UnitOfWork unitOfWork = UnitOfWork.begin();
+        try {
+            messageId = messageDAO.createMessage(new Message(1, "never committed", 1669947800)).getMessage_id();
+        } finally {
+            unitOfWork.end();
+        }
+
+        Assert.assertNull(messageDAO.getMessageById(messageId));
+    }
+
+    /**
+     * A nested unit of work that ends without committing forces the outer one to roll back.
+     */
+    @Test
+    public void nestedFailureMarksOuterRollbackOnly() {
+        UnitOfWork outer = UnitOfWork.begin();
+        try {
+            UnitOfWork inner = UnitOfWork.begin();
+            inner.end();
+            outer.commit();
+            Assert.fail("Expected commit to be refused");
+        } catch (SQLException expected) {
+            // rollback-only
+        } finally {
+            outer.end();
+        }
+        Assert.assertNull(UnitOfWork.current());
+    }
+
+    /**
+     * A batch that fails rolls back only its own rows, so the unit of work it joined can still
+     * commit, keeping its other work.
+     */
+    @Test
+    public void failedBatchDoesNotPoisonTheUnitOfWork() throws SQLException {
+        Message kept;
+        UnitOfWork unitOfWork = UnitOfWork.begin();
+        try {
+            kept = messageDAO.createMessage(new Message(1, "before the batch", 1669947800));
+            // message_text is varchar(255), so the second row makes the whole batch fail
+            List<Message> batch = new ArrayList<>(List.of(new Message(1, "fits", 1669947801),
+                    new Message(1, "x".repeat(300), 1669947802)));
+            Assert.assertNull(messageDAO.createMessages(batch));
+            unitOfWork.commit();
+        } finally {
+            unitOfWork.end();
+        }
+
+        Assert.assertNotNull(messageDAO.getMessageById(kept.getMessage_id()));
+        Assert.assertNull(messageDAO.getMessageById(kept.getMessage_id() + 1));
+    }
+
+    /**
+     * After-commit actions run only once the outermost unit of work has committed.
+     */
+    @Test
+    public void afterCommitActionsRunOnlyOnCommit() throws SQLException {
+        List<String> ran = new ArrayList<>();
+        UnitOfWork committed = UnitOfWork.begin();
+        try {
+            UnitOfWork.afterCommit(() -> ran.add("committed"));
+            Assert.assertTrue(ran.isEmpty());
+            committed.commit();
+        } finally {
+            committed.end();
+        }
+
+        UnitOfWork rolledBack = UnitOfWork.begin();
+        try {
+            UnitOfWork.afterCommit(() -> ran.add("rolled back"));
+        } finally {
+            rolledBack.end();
+        }
+
+        Assert.assertEquals(List.of("committed"), ran);
+    }
+}